@@ -6,15 +6,28 @@ import com.example.demo.Service.AISecurityService;
 import com.example.demo.Service.ThreatAnalysisService;
 import com.example.demo.Service.AlertingService;
 import com.example.demo.Service.ComplianceReportingService;
+import com.example.demo.Service.DashboardSnapshotService;
+import com.example.demo.Service.DenyListService;
+import com.example.demo.Service.DistinctClientService;
+import com.example.demo.Service.HeavyHitterService;
+import com.example.demo.Service.SecurityEventArchiveService;
+import com.example.demo.Service.SecurityEventExportService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -32,18 +45,36 @@ public class AnalyticsController {
     private final ThreatAnalysisService threatAnalysisService;
     private final AlertingService alertingService;
     private final ComplianceReportingService complianceReportingService;
+    private final SecurityEventExportService exportService;
+    private final SecurityEventArchiveService archiveService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final HeavyHitterService heavyHitterService;
+    private final DistinctClientService distinctClientService;
+    private final DenyListService denyListService;
 
     @Autowired
     public AnalyticsController(AnalyticsService analyticsService,
                                AISecurityService aiSecurityService,
                                ThreatAnalysisService threatAnalysisService,
                                AlertingService alertingService,
-                               ComplianceReportingService complianceReportingService) {
+                               ComplianceReportingService complianceReportingService,
+                               SecurityEventExportService exportService,
+                               SecurityEventArchiveService archiveService,
+                               DashboardSnapshotService dashboardSnapshotService,
+                               HeavyHitterService heavyHitterService,
+                               DistinctClientService distinctClientService,
+                               DenyListService denyListService) {
         this.analyticsService = analyticsService;
         this.aiSecurityService = aiSecurityService;
         this.threatAnalysisService = threatAnalysisService;
         this.alertingService = alertingService;
         this.complianceReportingService = complianceReportingService;
+        this.exportService = exportService;
+        this.archiveService = archiveService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.heavyHitterService = heavyHitterService;
+        this.distinctClientService = distinctClientService;
+        this.denyListService = denyListService;
     }
 
     /**
@@ -53,7 +84,7 @@ public class AnalyticsController {
     public ResponseEntity<Map<String, Object>> getEnhancedDashboard() {
         try {
             log.info("Fetching enhanced analytics dashboard with AI insights");
-            Map<String, Object> dashboardData = analyticsService.getEnhancedDashboardData();
+            Map<String, Object> dashboardData = dashboardSnapshotService.getDashboard();
             return ResponseEntity.ok(dashboardData);
         } catch (Exception e) {
             log.error("Error fetching enhanced dashboard: {}", e.getMessage(), e);
@@ -135,7 +166,7 @@ public class AnalyticsController {
     public ResponseEntity<Map<String, Object>> getRealTimeThreatIntelligence() {
         try {
             log.info("Fetching real-time threat intelligence");
-            Map<String, Object> intelligence = analyticsService.getRealTimeThreatIntelligence();
+            Map<String, Object> intelligence = dashboardSnapshotService.getThreatIntelligence();
             return ResponseEntity.ok(intelligence);
         } catch (Exception e) {
             log.error("Error fetching real-time threat intelligence: {}", e.getMessage(), e);
@@ -314,6 +345,84 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * Top attacking IPs over a recent window (e.g. 5m, 1h, 24h), from the in-memory sketches
+     */
+    @GetMapping("/threats/top-attackers")
+    public ResponseEntity<Map<String, Object>> getTopAttackers(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(required = false) String routeId,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            int minutes = HeavyHitterService.parseWindowMinutes(window);
+            return ResponseEntity.ok(heavyHitterService.getTopAttackersReport(minutes, routeId, Math.max(1, Math.min(limit, 100))));
+        } catch (Exception e) {
+            log.error("Error fetching top attackers for window {}: {}", window, e.getMessage(), e);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Failed to fetch top attackers", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Serialized top attacker sketch for a window, for merging across gateway nodes
+     */
+    @GetMapping(value = "/threats/top-attackers/sketch", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getTopAttackerSketch(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(required = false) String routeId) {
+        try {
+            int minutes = HeavyHitterService.parseWindowMinutes(window);
+            byte[] sketch = heavyHitterService.getSketch(LocalDateTime.now().minusMinutes(minutes), routeId).toBytes();
+            return ResponseEntity.ok(sketch);
+        } catch (Exception e) {
+            log.error("Error serializing top attacker sketch for window {}: {}", window, e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Estimated distinct client IPs over a recent window (e.g. 5m, 1h, 24h), optionally for one route
+     */
+    @GetMapping("/clients/distinct")
+    public ResponseEntity<Map<String, Object>> getDistinctClients(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(required = false) String routeId) {
+        try {
+            int minutes = HeavyHitterService.parseWindowMinutes(window);
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime since = now.minusMinutes(minutes);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("windowMinutes", minutes);
+            response.put("routeId", routeId);
+            response.put("distinctClients", distinctClientService.countDistinct(routeId, since, now));
+            response.put("relativeError", 1.04 / Math.sqrt(1 << DistinctClientService.PRECISION));
+            response.put("complete", distinctClientService.covers(since));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error estimating distinct clients for window {}: {}", window, e.getMessage(), e);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Failed to estimate distinct clients", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Serialized distinct client sketch for a window, for merging across gateway nodes
+     */
+    @GetMapping(value = "/clients/distinct/sketch", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getDistinctClientSketch(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(required = false) String routeId) {
+        try {
+            int minutes = HeavyHitterService.parseWindowMinutes(window);
+            LocalDateTime now = LocalDateTime.now();
+            return ResponseEntity.ok(distinctClientService.getSketch(routeId, now.minusMinutes(minutes), now).toBytes());
+        } catch (Exception e) {
+            log.error("Error serializing distinct client sketch for window {}: {}", window, e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Comprehensive security report with AI insights
      */
@@ -356,6 +465,53 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * Live deny list entries enforced at the gateway
+     */
+    @GetMapping("/security/deny-list")
+    public ResponseEntity<Object> getDenyList() {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "entries", denyListService.getEntries(),
+                    "stats", denyListService.getDenyListStats()));
+        } catch (Exception e) {
+            log.error("Error fetching deny list: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to fetch deny list", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Deny an IP or CIDR range for a number of minutes
+     */
+    @PostMapping("/security/deny-list")
+    public ResponseEntity<Object> addToDenyList(
+            @RequestParam String target,
+            @RequestParam(defaultValue = "30") long ttlMinutes,
+            @RequestParam(required = false) String reason) {
+        log.info("Adding {} to the deny list for {} minutes", target, ttlMinutes);
+        if (ttlMinutes < 1 || ttlMinutes > denyListService.getMaxTtlMinutes()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "ttlMinutes must be between 1 and " + denyListService.getMaxTtlMinutes()));
+        }
+        if (!denyListService.block(target, Duration.ofMinutes(ttlMinutes),
+                reason != null ? reason : "Manual block")) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Could not deny " + target, "message", "Invalid, protected or deny list full"));
+        }
+        return ResponseEntity.ok(Map.of("target", target, "ttlMinutes", ttlMinutes));
+    }
+
+    @DeleteMapping("/security/deny-list")
+    public ResponseEntity<Object> removeFromDenyList(@RequestParam String target) {
+        log.info("Removing {} from the deny list", target);
+        if (!denyListService.unblock(target)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Not on the deny list: " + target));
+        }
+        return ResponseEntity.ok(Map.of("target", target, "removed", true));
+    }
+
     /**
      * Health check endpoint for analytics service
      */
@@ -389,7 +545,7 @@ public class AnalyticsController {
             Map<String, Object> legacyMetrics = new HashMap<>();
 
             // Enhanced dashboard data mapped to legacy format
-            Map<String, Object> enhancedData = analyticsService.getEnhancedDashboardData();
+            Map<String, Object> enhancedData = dashboardSnapshotService.getDashboard();
 
             // Extract global metrics for legacy compatibility
             if (enhancedData.containsKey("globalMetrics")) {
@@ -443,34 +599,77 @@ public class AnalyticsController {
      * Export analytics data for external analysis
      */
     @GetMapping("/export")
-    public ResponseEntity<Map<String, Object>> exportAnalyticsData(
+    public Mono<ResponseEntity<Map<String, Object>>> exportAnalyticsData(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @RequestParam(defaultValue = "json") String format) {
-        try {
-            log.info("Exporting analytics data from {} to {} in {} format", startDate, endDate, format);
-
-            Map<String, Object> exportData = new HashMap<>();
-
-            // Generate comprehensive export data
-            exportData.put("securityReport", analyticsService.generateSecurityReport(startDate, endDate));
-            exportData.put("complianceReport", complianceReportingService.generateComplianceReport("SOC2", startDate, endDate));
-            exportData.put("threatAnalysis", threatAnalysisService.getThreatLandscape());
-            exportData.put("aiInsights", aiSecurityService.generateSecurityInsights());
-
-            exportData.put("exportMetadata", Map.of(
-                    "exportDate", LocalDateTime.now(),
-                    "startDate", startDate,
-                    "endDate", endDate,
-                    "format", format,
-                    "version", "2.0"
-            ));
+        log.info("Exporting analytics data from {} to {} in {} format", startDate, endDate, format);
 
-            return ResponseEntity.ok(exportData);
-        } catch (Exception e) {
-            log.error("Error exporting analytics data: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to export analytics data", "message", e.getMessage()));
+        return analyticsService.generateSecurityReport(startDate, endDate)
+                .map(securityReport -> {
+                    Map<String, Object> exportData = new HashMap<>();
+
+                    // Generate comprehensive export data
+                    exportData.put("securityReport", securityReport);
+                    exportData.put("complianceReport", complianceReportingService.generateComplianceReport("SOC2", startDate, endDate));
+                    exportData.put("threatAnalysis", threatAnalysisService.getThreatLandscape());
+                    exportData.put("aiInsights", aiSecurityService.generateSecurityInsights());
+
+                    exportData.put("exportMetadata", Map.of(
+                            "exportDate", LocalDateTime.now(),
+                            "startDate", startDate,
+                            "endDate", endDate,
+                            "format", format,
+                            "version", "2.0"
+                    ));
+
+                    return ResponseEntity.ok(exportData);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error exporting analytics data: {}", e.getMessage(), e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body(Map.of("error", "Failed to export analytics data", "message", String.valueOf(e.getMessage()))));
+                });
+    }
+
+    /**
+     * Stream raw events or rollups for a date range as NDJSON or CSV, or raw events as a
+     * columnar archive (format=columnar, events only) readable with SecurityEventArchiveReader
+     */
+    @GetMapping("/export/stream")
+    public ResponseEntity<Flux<DataBuffer>> streamExport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "events") String dataset,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "hour") String granularity,
+            ServerHttpResponse response) {
+        log.info("Streaming {} export from {} to {} as {}", dataset, startDate, endDate, format);
+
+        if ("columnar".equalsIgnoreCase(format)) {
+            if (!"events".equalsIgnoreCase(dataset)) {
+                byte[] message = ("The columnar format only holds raw events, not " + dataset).getBytes(StandardCharsets.UTF_8);
+                return ResponseEntity.badRequest()
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(Flux.just(response.bufferFactory().wrap(message)));
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"security-events.sear\"")
+                    .body(archiveService.exportArchive(startDate, endDate, response.bufferFactory()));
         }
+
+        boolean csv = SecurityEventExportService.FORMAT_CSV.equalsIgnoreCase(format);
+        Flux<DataBuffer> body = "rollups".equalsIgnoreCase(dataset)
+                ? exportService.exportRollups(startDate, endDate, granularity, format, response.bufferFactory())
+                : exportService.exportEvents(startDate, endDate, format, response.bufferFactory());
+
+        String fileName = ("rollups".equalsIgnoreCase(dataset) ? "rollups" : "security-events")
+                + (csv ? ".csv" : ".ndjson");
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
-}
\ No newline at end of file
+}
@@ -3,13 +3,22 @@ package com.example.demo.Controller;
 
 import com.example.demo.Filter.RequestCountFilter;
 import com.example.demo.Service.AnalyticsService;
-import com.example.demo.Repository.SecurityEventRepository;
+import com.example.demo.Service.DashboardSnapshotService;
+import com.example.demo.Service.DenyListService;
+import com.example.demo.Service.DenyListSyncService;
+import com.example.demo.Service.MetricsStreamService;
+import com.example.demo.Service.OpenAIService;
+import com.example.demo.Service.OpenAlertIndexService;
+import com.example.demo.Service.SecurityEventRollupService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -24,12 +33,39 @@ public class MetricsController {
 
     private static final Logger log = LoggerFactory.getLogger(MetricsController.class);
     private final AnalyticsService analyticsService;
-    private final SecurityEventRepository eventRepository;
+    private final SecurityEventRollupService rollupService;
+    private final MetricsStreamService metricsStreamService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final OpenAIService openAIService;
+    private final OpenAlertIndexService openAlertIndexService;
+    private final DenyListService denyListService;
+    private final DenyListSyncService denyListSyncService;
 
     @Autowired
-    public MetricsController(AnalyticsService analyticsService, SecurityEventRepository eventRepository) {
+    public MetricsController(AnalyticsService analyticsService, SecurityEventRollupService rollupService,
+                             MetricsStreamService metricsStreamService,
+                             DashboardSnapshotService dashboardSnapshotService,
+                             OpenAIService openAIService,
+                             OpenAlertIndexService openAlertIndexService,
+                             DenyListService denyListService,
+                             DenyListSyncService denyListSyncService) {
         this.analyticsService = analyticsService;
-        this.eventRepository = eventRepository;
+        this.rollupService = rollupService;
+        this.metricsStreamService = metricsStreamService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.openAIService = openAIService;
+        this.openAlertIndexService = openAlertIndexService;
+        this.denyListService = denyListService;
+        this.denyListSyncService = denyListSyncService;
+    }
+
+    /**
+     * Live metrics as server-sent events: a "snapshot" event, then "delta" events with changed fields
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> streamMetrics() {
+        log.debug("Metrics stream subscriber connected ({} active)", metricsStreamService.getSubscriberCount() + 1);
+        return metricsStreamService.subscribe();
     }
 
     @GetMapping("/requests")
@@ -140,8 +176,7 @@ public class MetricsController {
         }
     }
 
-    // REMOVED: getTimeSeriesData() method - was generating fake data
-    // Real time series data should come from SecurityEventRepository queries
+    // Time series data is served from the security event rollup tables
 
     @GetMapping("/timeseries")
     public ResponseEntity<Map<String, Object>> getTimeSeriesData(
@@ -155,19 +190,16 @@ public class MetricsController {
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime start = calculateStartTime(now, timeRange);
 
-            // Get real data from database
-            List<Object[]> hourlyData = eventRepository.getHourlyEventCounts(start);
+            // Hourly buckets from the rollups; cost depends on the range, not the raw event count
+            List<Map<String, Object>> buckets = rollupService.getTimeSeries(start, now, "hour", routeId);
 
             List<Map<String, Object>> timeSeries = new ArrayList<>();
-            for (Object[] row : hourlyData) {
+            for (Map<String, Object> bucket : buckets) {
                 Map<String, Object> dataPoint = new HashMap<>();
-                dataPoint.put("time", row[0].toString());
-                dataPoint.put("total", row[1]);
-
-                // Get rejection data for the same time period
-                // This would need additional repository method for rejections by hour
-                dataPoint.put("rejected", 0); // Placeholder until rejection tracking by hour is implemented
-                dataPoint.put("accepted", (Long)row[1] - 0); // total - rejected
+                dataPoint.put("time", bucket.get("timestamp").toString());
+                dataPoint.put("total", bucket.get("count"));
+                dataPoint.put("rejected", bucket.get("rejected"));
+                dataPoint.put("accepted", bucket.get("accepted"));
 
                 timeSeries.add(dataPoint);
             }
@@ -190,7 +222,7 @@ public class MetricsController {
     public ResponseEntity<Map<String, Object>> getDashboardMetrics() {
         try {
             log.info("Fetching comprehensive dashboard metrics");
-            Map<String, Object> dashboardData = analyticsService.getEnhancedDashboardData();
+            Map<String, Object> dashboardData = dashboardSnapshotService.getDashboard();
             return ResponseEntity.ok(dashboardData);
         } catch (Exception e) {
             log.error("Error fetching dashboard metrics: {}", e.getMessage(), e);
@@ -211,6 +243,11 @@ public class MetricsController {
             health.put("totalRequests", RequestCountFilter.getTotalRequestCount());
             health.put("totalRejections", RequestCountFilter.getTotalRejectedCount());
             health.put("currentMinuteRequests", metrics.getRequestsCurrentMinute());
+            health.put("streamSubscribers", metricsStreamService.getSubscriberCount());
+            health.put("chatCompletion", openAIService.getStats());
+            health.put("openAlertIndex", openAlertIndexService.getIndexStats());
+            health.put("denyList", denyListService.getDenyListStats());
+            health.put("denyListSync", denyListSyncService.getSyncStats());
             health.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
 
             return ResponseEntity.ok(health);
@@ -0,0 +1,85 @@
+package com.example.demo.Db;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An IPv4 or IPv6 address range in CIDR notation, such as the trusted proxy list.
+ * Only literal addresses are accepted, so parsing never triggers a name lookup.
+ */
+public final class IpRange {
+
+    private final byte[] network;
+    private final int prefixLength;
+
+    private IpRange(byte[] network, int prefixLength) {
+        this.network = network;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Parse "a.b.c.d", "a.b.c.d/n" or the IPv6 forms; null when the value is not a literal range
+     */
+    public static IpRange parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        int slash = trimmed.indexOf('/');
+        InetAddress address = parseAddress(slash >= 0 ? trimmed.substring(0, slash) : trimmed);
+        if (address == null) {
+            return null;
+        }
+        byte[] bytes = address.getAddress();
+        try {
+            int prefixLength = slash >= 0 ? Integer.parseInt(trimmed.substring(slash + 1)) : bytes.length * 8;
+            if (prefixLength < 0 || prefixLength > bytes.length * 8) {
+                return null;
+            }
+            return new IpRange(mask(bytes, prefixLength), prefixLength);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A literal IPv4 or IPv6 address, or null; host names are rejected rather than resolved
+     */
+    public static InetAddress parseAddress(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty() || !trimmed.matches("[0-9a-fA-F:.]+") || trimmed.indexOf(':') < 0 && !trimmed.matches("[0-9.]+")) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(trimmed);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public boolean contains(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return bytes.length == network.length && Arrays.equals(mask(bytes, prefixLength), network);
+    }
+
+    public static boolean containsAny(Collection<IpRange> ranges, InetAddress address) {
+        for (IpRange range : ranges) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] mask(byte[] bytes, int prefixLength) {
+        byte[] masked = bytes.clone();
+        for (int bit = prefixLength; bit < masked.length * 8; bit++) {
+            masked[bit / 8] &= (byte) ~(0x80 >>> (bit % 8));
+        }
+        return masked;
+    }
+}
@@ -1,40 +1,64 @@
 package com.example.demo.Db;
 
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.List;
 
 public class IpUtils {
 
-    public static String getClientIp(ServerHttpRequest request) {
-        // More comprehensive header checking
-        String[] headers = {
-                "X-Forwarded-For", "X-Real-IP", "Proxy-Client-IP",
-                "WL-Proxy-Client-IP", "HTTP_X_FORWARDED_FOR", "HTTP_X_FORWARDED",
-                "HTTP_X_CLUSTER_CLIENT_IP", "HTTP_CLIENT_IP", "HTTP_FORWARDED_FOR",
-                "HTTP_FORWARDED", "HTTP_VIA", "REMOTE_ADDR"
-        };
-
-        // Try all common proxy headers first
-        for (String header : headers) {
-            String value = request.getHeaders().getFirst(header);
-            if (value != null && !value.isEmpty() && !"unknown".equalsIgnoreCase(value)) {
-                // Multiple values are comma-separated, take first one
-                String ip = value.split(",")[0].trim();
-                System.out.println("Found IP " + ip + " from header: " + header);
-                return normalizeLoopback(ip);
-            }
-        }
+    /**
+     * Exchange attribute holding the client IP resolved once per request by
+     * {@link com.example.demo.Filter.DenyListFilter}
+     */
+    public static final String CLIENT_IP_ATTRIBUTE = IpUtils.class.getName() + ".clientIp";
 
-        // Fallback to remote address
+    /**
+     * The client IP resolved for this exchange, so detection and blocking agree on who the
+     * client is; falls back to the socket address if the exchange was never resolved
+     */
+    public static String getClientIp(ServerWebExchange exchange) {
+        String clientIp = exchange.getAttribute(CLIENT_IP_ATTRIBUTE);
+        return clientIp != null ? clientIp : getClientIp(exchange.getRequest(), List.of());
+    }
+
+    /**
+     * Client IP for enforcement decisions. Forwarding headers can be set by anyone, so
+     * X-Forwarded-For and X-Real-IP are only believed when the connection itself comes from
+     * a trusted proxy; X-Forwarded-For is read right to left, skipping the trusted hops.
+     */
+    public static String getClientIp(ServerHttpRequest request, List<IpRange> trustedProxies) {
         InetSocketAddress remoteAddress = request.getRemoteAddress();
-        if (remoteAddress != null) {
-            String ipFromRemote = remoteAddress.getAddress().getHostAddress();
-            System.out.println("Extracted client IP from remoteAddress: " + ipFromRemote);
-            return normalizeLoopback(ipFromRemote);
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "UNKNOWN";
+        }
+        InetAddress peer = remoteAddress.getAddress();
+        if (!IpRange.containsAny(trustedProxies, peer)) {
+            return normalizeLoopback(peer.getHostAddress());
+        }
+
+        String forwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            String[] hops = forwardedFor.split(",");
+            InetAddress client = null;
+            for (int i = hops.length - 1; i >= 0; i--) {
+                InetAddress hop = IpRange.parseAddress(hops[i]);
+                if (hop == null) {
+                    break; // Garbage from further out; keep the last hop we could read
+                }
+                client = hop;
+                if (!IpRange.containsAny(trustedProxies, hop)) {
+                    break;
+                }
+            }
+            if (client != null) {
+                return normalizeLoopback(client.getHostAddress());
+            }
         }
 
-        System.out.println("Unable to extract client IP - returning UNKNOWN");
-        return "UNKNOWN";
+        InetAddress realIp = IpRange.parseAddress(request.getHeaders().getFirst("X-Real-IP"));
+        return normalizeLoopback((realIp != null ? realIp : peer).getHostAddress());
     }
 
     private static String normalizeLoopback(String ip) {
@@ -0,0 +1,51 @@
+package com.example.demo.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Compacted deny list shared by the gateway nodes: one row per denied IP or range,
+ * holding its latest expiry. New nodes load it at startup; changes reach running nodes
+ * by NOTIFY.
+ */
+@Entity
+@Table(name = "deny_list_entries", schema = "gateway",
+        indexes = @Index(name = "idx_deny_list_entries_expires_at", columnList = "expires_at"))
+public class DenyListEntry {
+
+    @Id
+    @Column(name = "target", length = 64)
+    private String target; // Normalized IP or CIDR
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt; // UTC
+
+    @Column(name = "reason", length = 255)
+    private String reason;
+
+    @Column(name = "origin_node", length = 64)
+    private String originNode;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt; // UTC
+
+    // Constructors
+    public DenyListEntry() {
+    }
+
+    // Getters and Setters
+    public String getTarget() { return target; }
+    public void setTarget(String target) { this.target = target; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+
+    public String getOriginNode() { return originNode; }
+    public void setOriginNode(String originNode) { this.originNode = originNode; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
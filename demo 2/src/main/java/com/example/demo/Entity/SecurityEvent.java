@@ -7,7 +7,9 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Entity
-@Table(name = "security_events", schema = "gateway")
+@Table(name = "security_events", schema = "gateway", indexes = {
+        @Index(name = "idx_security_events_timestamp_id", columnList = "timestamp, id")
+})
 public class SecurityEvent {
 
     @Id
@@ -0,0 +1,72 @@
+package com.example.demo.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "security_event_rollups", schema = "gateway",
+        uniqueConstraints = @UniqueConstraint(name = "uk_security_event_rollups_bucket",
+                columnNames = {"granularity", "bucket_start", "route_id", "event_type", "rejection_reason"}),
+        indexes = @Index(name = "idx_security_event_rollups_granularity_bucket", columnList = "granularity, bucket_start"))
+public class SecurityEventRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "granularity", nullable = false, length = 10)
+    private String granularity; // MINUTE, HOUR
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "route_id", nullable = false, length = 255)
+    private String routeId = ""; // Empty string when the event has no route
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "rejection_reason", nullable = false, length = 100)
+    private String rejectionReason = ""; // Empty string when not a rejection
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount = 0L;
+
+    @Column(name = "response_time_sum", nullable = false)
+    private Long responseTimeSum = 0L;
+
+    @Column(name = "response_time_count", nullable = false)
+    private Long responseTimeCount = 0L;
+
+    // Constructors
+    public SecurityEventRollup() {
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getGranularity() { return granularity; }
+    public void setGranularity(String granularity) { this.granularity = granularity; }
+
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+
+    public String getRouteId() { return routeId; }
+    public void setRouteId(String routeId) { this.routeId = routeId; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public String getRejectionReason() { return rejectionReason; }
+    public void setRejectionReason(String rejectionReason) { this.rejectionReason = rejectionReason; }
+
+    public Long getEventCount() { return eventCount; }
+    public void setEventCount(Long eventCount) { this.eventCount = eventCount; }
+
+    public Long getResponseTimeSum() { return responseTimeSum; }
+    public void setResponseTimeSum(Long responseTimeSum) { this.responseTimeSum = responseTimeSum; }
+
+    public Long getResponseTimeCount() { return responseTimeCount; }
+    public void setResponseTimeCount(Long responseTimeCount) { this.responseTimeCount = responseTimeCount; }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.Entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight, unmanaged read model of a SecurityEvent for bulk report scans.
+ * Leaves out the JSON columns and is never attached to a persistence context.
+ */
+public class SecurityEventView {
+
+    private final Long id;
+    private final LocalDateTime timestamp;
+    private final String eventType;
+    private final String routeId;
+    private final String clientIp;
+    private final String userAgent;
+    private final String requestPath;
+    private final String rejectionReason;
+    private final Integer responseStatus;
+    private final Integer responseTimeMs;
+    private final String threatLevel;
+
+    public SecurityEventView(Long id, LocalDateTime timestamp, String eventType, String routeId,
+                             String clientIp, String userAgent, String requestPath, String rejectionReason,
+                             Integer responseStatus, Integer responseTimeMs, String threatLevel) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.eventType = eventType;
+        this.routeId = routeId;
+        this.clientIp = clientIp;
+        this.userAgent = userAgent;
+        this.requestPath = requestPath;
+        this.rejectionReason = rejectionReason;
+        this.responseStatus = responseStatus;
+        this.responseTimeMs = responseTimeMs;
+        this.threatLevel = threatLevel;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getEventType() { return eventType; }
+    public String getRouteId() { return routeId; }
+    public String getClientIp() { return clientIp; }
+    public String getUserAgent() { return userAgent; }
+    public String getRequestPath() { return requestPath; }
+    public String getRejectionReason() { return rejectionReason; }
+    public Integer getResponseStatus() { return responseStatus; }
+    public Integer getResponseTimeMs() { return responseTimeMs; }
+    public String getThreatLevel() { return threatLevel; }
+}
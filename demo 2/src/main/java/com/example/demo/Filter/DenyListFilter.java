@@ -0,0 +1,67 @@
+package com.example.demo.Filter;
+
+import com.example.demo.Db.IpRange;
+import com.example.demo.Db.IpUtils;
+import com.example.demo.Service.DenyListService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rejects denied clients before anything else runs, so their requests never reach
+ * security, routing, rate limiting or analytics. The client is the socket peer unless
+ * that peer is one of the configured trusted proxies. The resolved IP is stored on the
+ * exchange, so events and alerts name the same client that the deny list blocks.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class DenyListFilter implements WebFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DenyListFilter.class);
+
+    private final DenyListService denyListService;
+    private final List<IpRange> trustedProxies = new ArrayList<>();
+
+    @Autowired
+    public DenyListFilter(DenyListService denyListService,
+                          @Value("${gateway.trusted-proxies:}") List<String> trustedProxies) {
+        this.denyListService = denyListService;
+        for (String value : trustedProxies) {
+            if (value.isBlank()) {
+                continue;
+            }
+            IpRange range = IpRange.parse(value);
+            if (range == null) {
+                log.warn("[DenyListFilter] Ignoring invalid trusted proxy: {}", value);
+            } else {
+                this.trustedProxies.add(range);
+            }
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // Resolved once here; every later filter reads it through IpUtils.getClientIp(exchange)
+        String clientIp = IpUtils.getClientIp(exchange.getRequest(), trustedProxies);
+        exchange.getAttributes().put(IpUtils.CLIENT_IP_ATTRIBUTE, clientIp);
+
+        if (!denyListService.isEmpty() && denyListService.isBlocked(clientIp)) {
+            log.trace("[DenyListFilter] Denied request from {} to {}", clientIp, exchange.getRequest().getURI().getPath());
+            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+}
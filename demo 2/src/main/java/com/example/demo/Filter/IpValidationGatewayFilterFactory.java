@@ -9,7 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 import reactor.core.publisher.Mono;
@@ -35,8 +34,7 @@ public class IpValidationGatewayFilterFactory extends AbstractGatewayFilterFacto
             log.info("IP Validation Filter: requestPath={}", requestPath);
 
             // Extract client IP early to make debugging clearer
-            ServerHttpRequest request = exchange.getRequest();
-            String clientIp = IpUtils.getClientIp(request);
+            String clientIp = IpUtils.getClientIp(exchange);
             log.info("Client IP extracted: {}", clientIp);
 
             // Load all routes from the database with eager fetching
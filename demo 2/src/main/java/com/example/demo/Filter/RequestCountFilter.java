@@ -19,6 +19,11 @@ import reactor.core.publisher.Mono;
 import org.springframework.cloud.gateway.route.Route; // Added for the fix
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils; // Added for the fix
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -130,7 +135,7 @@ public class RequestCountFilter implements WebFilter {
         if (analyticsService != null && isGatewayRequest) {
             try {
                 // Extract full request context
-                String clientIp = IpUtils.getClientIp(exchange.getRequest());
+                String clientIp = IpUtils.getClientIp(exchange);
                 String userAgent = exchange.getRequest().getHeaders().getFirst("User-Agent");
                 String requestMethod = exchange.getRequest().getMethod().name();
                 String requestPath = exchange.getRequest().getURI().getPath();
@@ -177,7 +182,7 @@ public class RequestCountFilter implements WebFilter {
                         // ENHANCED: Record rejection with full context
                         if (analyticsServiceFinal != null && isGatewayRequestFinal) {
                             try {
-                                String clientIp = IpUtils.getClientIp(exchange.getRequest());
+                                String clientIp = IpUtils.getClientIp(exchange);
                                 String userAgent = exchange.getRequest().getHeaders().getFirst("User-Agent");
                                 String requestMethod = exchange.getRequest().getMethod().name();
                                 String requestPath = exchange.getRequest().getURI().getPath();
@@ -319,6 +324,57 @@ public class RequestCountFilter implements WebFilter {
         return new MinuteMetrics(currentMinuteSum, previousMinuteSum, currentMinuteRejected, previousMinuteRejected);
     }
 
+    /**
+     * Write the global counters and the per-second counts of the last two minutes
+     */
+    public static void writeCounters(DataOutputStream out) throws IOException {
+        out.writeLong(totalRequestCount.get());
+        out.writeLong(totalRejectedCount.get());
+        writePerSecond(out, requestsPerSecond);
+        writePerSecond(out, rejectedPerSecond);
+    }
+
+    /**
+     * Parse counters from a snapshot without touching the live ones; the returned action adds
+     * them. Per-second counts that have aged out are skipped.
+     */
+    public static Runnable readCounters(DataInputStream in) throws IOException {
+        long requests = in.readLong();
+        long rejected = in.readLong();
+        Map<Long, Long> requestSeconds = readPerSecond(in);
+        Map<Long, Long> rejectedSeconds = readPerSecond(in);
+        return () -> {
+            totalRequestCount.addAndGet(requests);
+            totalRejectedCount.addAndGet(rejected);
+            requestSeconds.forEach((second, count) -> requestsPerSecond.computeIfAbsent(second, k -> new AtomicLong(0)).addAndGet(count));
+            rejectedSeconds.forEach((second, count) -> rejectedPerSecond.computeIfAbsent(second, k -> new AtomicLong(0)).addAndGet(count));
+        };
+    }
+
+    private static void writePerSecond(DataOutputStream out, ConcurrentHashMap<Long, AtomicLong> perSecond) throws IOException {
+        Map<Long, Long> copy = new HashMap<>();
+        perSecond.forEach((second, count) -> copy.put(second, count.get()));
+        out.writeInt(copy.size());
+        for (Map.Entry<Long, Long> entry : copy.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static Map<Long, Long> readPerSecond(DataInputStream in) throws IOException {
+        long threshold = System.currentTimeMillis() / 1000 - 120;
+        int size = in.readInt();
+        Map<Long, Long> perSecond = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            long second = in.readLong();
+            long count = in.readLong();
+            if (second >= threshold) {
+                perSecond.merge(second, count, Long::sum);
+            }
+        }
+        return perSecond;
+    }
+
     /**
      * Get a map of recent rejection reasons for analytics
      */
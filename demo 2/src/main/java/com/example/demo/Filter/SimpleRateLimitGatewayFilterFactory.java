@@ -110,7 +110,7 @@ public class SimpleRateLimitGatewayFilterFactory extends AbstractGatewayFilterFa
             }
 
             // 7) Build a unique key from the client IP + routeId
-            String clientIp = IpUtils.getClientIp(exchange.getRequest());
+            String clientIp = IpUtils.getClientIp(exchange);
             String key = clientIp + "_" + routeId;
 
             // 8) Retrieve or create a RequestTracker for this key
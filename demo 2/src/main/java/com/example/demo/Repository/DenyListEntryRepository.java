@@ -0,0 +1,38 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Entity.DenyListEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DenyListEntryRepository extends JpaRepository<DenyListEntry, String> {
+
+    // One row per target; a repeated block keeps the later expiry
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO gateway.deny_list_entries (target, expires_at, reason, origin_node, updated_at) " +
+            "VALUES (:target, :expiresAt, :reason, :originNode, :updatedAt) " +
+            "ON CONFLICT (target) DO UPDATE SET " +
+            "expires_at = GREATEST(deny_list_entries.expires_at, EXCLUDED.expires_at), " +
+            "reason = EXCLUDED.reason, origin_node = EXCLUDED.origin_node, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    void upsertEntry(@Param("target") String target,
+                     @Param("expiresAt") LocalDateTime expiresAt,
+                     @Param("reason") String reason,
+                     @Param("originNode") String originNode,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    List<DenyListEntry> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DenyListEntry d WHERE d.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
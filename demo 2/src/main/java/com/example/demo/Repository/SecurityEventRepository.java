@@ -1,7 +1,10 @@
 package com.example.demo.Repository;
 
 import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.SecurityEventView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,6 +18,38 @@ public interface SecurityEventRepository extends JpaRepository<SecurityEvent, Lo
     // Find events by time range
     List<SecurityEvent> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
 
+    // Count events by time range
+    Long countByTimestampBetween(LocalDateTime start, LocalDateTime end);
+
+    // Keyset page of lightweight event views ordered by (timestamp, id), for streaming scans
+    @Query("SELECT new com.example.demo.Entity.SecurityEventView(e.id, e.timestamp, e.eventType, e.routeId, " +
+            "e.clientIp, e.userAgent, e.requestPath, e.rejectionReason, e.responseStatus, e.responseTimeMs, e.threatLevel) " +
+            "FROM SecurityEvent e WHERE e.timestamp >= :afterTimestamp AND e.timestamp <= :end " +
+            "AND (e.timestamp > :afterTimestamp OR e.id > :afterId) ORDER BY e.timestamp, e.id")
+    List<SecurityEventView> findViewsAfter(@Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                           @Param("afterId") Long afterId,
+                                           @Param("end") LocalDateTime end,
+                                           Pageable pageable);
+
+    // Keyset page of one route's views, served by the (route_id, timestamp) index
+    @Query("SELECT new com.example.demo.Entity.SecurityEventView(e.id, e.timestamp, e.eventType, e.routeId, " +
+            "e.clientIp, e.userAgent, e.requestPath, e.rejectionReason, e.responseStatus, e.responseTimeMs, e.threatLevel) " +
+            "FROM SecurityEvent e WHERE e.routeId = :routeId AND e.timestamp >= :afterTimestamp AND e.timestamp <= :end " +
+            "AND (e.timestamp > :afterTimestamp OR e.id > :afterId) ORDER BY e.timestamp, e.id")
+    List<SecurityEventView> findRouteViewsAfter(@Param("routeId") String routeId,
+                                                @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                @Param("afterId") Long afterId,
+                                                @Param("end") LocalDateTime end,
+                                                Pageable pageable);
+
+    // Lightweight views of one event type
+    @Query("SELECT new com.example.demo.Entity.SecurityEventView(e.id, e.timestamp, e.eventType, e.routeId, " +
+            "e.clientIp, e.userAgent, e.requestPath, e.rejectionReason, e.responseStatus, e.responseTimeMs, e.threatLevel) " +
+            "FROM SecurityEvent e WHERE e.eventType = :eventType AND e.timestamp BETWEEN :start AND :end ORDER BY e.timestamp, e.id")
+    List<SecurityEventView> findViewsByEventType(@Param("eventType") String eventType,
+                                                 @Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end);
+
     // Find events by route ID
     List<SecurityEvent> findByRouteIdAndTimestampBetween(String routeId, LocalDateTime start, LocalDateTime end);
 
@@ -59,7 +94,8 @@ public interface SecurityEventRepository extends JpaRepository<SecurityEvent, Lo
     @Query("SELECT e.routeId, AVG(CAST(e.responseTimeMs AS double)) FROM SecurityEvent e WHERE e.responseTimeMs IS NOT NULL AND e.timestamp >= :since GROUP BY e.routeId")
     List<Object[]> getAverageResponseTimeByRoute(@Param("since") LocalDateTime since);
 
-    // Delete old events for cleanup
+    // Delete old events for cleanup (used when the table is not partitioned)
+    @Modifying
     @Query("DELETE FROM SecurityEvent e WHERE e.timestamp < :cutoff")
     void deleteEventsOlderThan(@Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
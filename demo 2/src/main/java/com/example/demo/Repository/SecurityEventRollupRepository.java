@@ -0,0 +1,100 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Entity.SecurityEventRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SecurityEventRollupRepository extends JpaRepository<SecurityEventRollup, Long> {
+
+    // Add a flushed accumulator to its bucket row, creating the row if needed
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO gateway.security_event_rollups " +
+            "(granularity, bucket_start, route_id, event_type, rejection_reason, event_count, response_time_sum, response_time_count) " +
+            "VALUES (:granularity, :bucketStart, :routeId, :eventType, :rejectionReason, :eventCount, :responseTimeSum, :responseTimeCount) " +
+            "ON CONFLICT (granularity, bucket_start, route_id, event_type, rejection_reason) DO UPDATE SET " +
+            "event_count = security_event_rollups.event_count + EXCLUDED.event_count, " +
+            "response_time_sum = security_event_rollups.response_time_sum + EXCLUDED.response_time_sum, " +
+            "response_time_count = security_event_rollups.response_time_count + EXCLUDED.response_time_count",
+            nativeQuery = true)
+    void upsertRollup(@Param("granularity") String granularity,
+                      @Param("bucketStart") LocalDateTime bucketStart,
+                      @Param("routeId") String routeId,
+                      @Param("eventType") String eventType,
+                      @Param("rejectionReason") String rejectionReason,
+                      @Param("eventCount") Long eventCount,
+                      @Param("responseTimeSum") Long responseTimeSum,
+                      @Param("responseTimeCount") Long responseTimeCount);
+
+    // Roll up raw events in [start, end) into buckets of the given unit ('minute' or 'hour'),
+    // adding to any existing bucket rows
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO gateway.security_event_rollups " +
+            "(granularity, bucket_start, route_id, event_type, rejection_reason, event_count, response_time_sum, response_time_count) " +
+            "SELECT :granularity, date_trunc(:unit, e.timestamp), COALESCE(e.route_id, ''), e.event_type, " +
+            "COALESCE(e.rejection_reason, ''), COUNT(*), COALESCE(SUM(e.response_time_ms), 0), COUNT(e.response_time_ms) " +
+            "FROM gateway.security_events e WHERE e.timestamp >= :start AND e.timestamp < :end " +
+            "GROUP BY 2, 3, 4, 5 " +
+            "ON CONFLICT (granularity, bucket_start, route_id, event_type, rejection_reason) DO UPDATE SET " +
+            "event_count = security_event_rollups.event_count + EXCLUDED.event_count, " +
+            "response_time_sum = security_event_rollups.response_time_sum + EXCLUDED.response_time_sum, " +
+            "response_time_count = security_event_rollups.response_time_count + EXCLUDED.response_time_count",
+            nativeQuery = true)
+    int backfillRollups(@Param("granularity") String granularity,
+                        @Param("unit") String unit,
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
+
+    // Start of the earliest stored bucket, or null when there are none
+    @Query("SELECT MIN(r.bucketStart) FROM SecurityEventRollup r WHERE r.granularity = :granularity")
+    LocalDateTime findEarliestBucket(@Param("granularity") String granularity);
+
+    // Per-bucket totals: bucket, events, rejections, response time sum, response time count
+    @Query("SELECT r.bucketStart, SUM(r.eventCount), " +
+            "SUM(CASE WHEN r.eventType = 'REJECTION' THEN r.eventCount ELSE 0 END), " +
+            "SUM(r.responseTimeSum), SUM(r.responseTimeCount) " +
+            "FROM SecurityEventRollup r WHERE r.granularity = :granularity " +
+            "AND r.bucketStart >= :start AND r.bucketStart < :end " +
+            "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> getBucketTotals(@Param("granularity") String granularity,
+                                   @Param("start") LocalDateTime start,
+                                   @Param("end") LocalDateTime end);
+
+    // Per-bucket totals for a single route
+    @Query("SELECT r.bucketStart, SUM(r.eventCount), " +
+            "SUM(CASE WHEN r.eventType = 'REJECTION' THEN r.eventCount ELSE 0 END), " +
+            "SUM(r.responseTimeSum), SUM(r.responseTimeCount) " +
+            "FROM SecurityEventRollup r WHERE r.granularity = :granularity AND r.routeId = :routeId " +
+            "AND r.bucketStart >= :start AND r.bucketStart < :end " +
+            "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> getBucketTotalsForRoute(@Param("granularity") String granularity,
+                                           @Param("routeId") String routeId,
+                                           @Param("start") LocalDateTime start,
+                                           @Param("end") LocalDateTime end);
+
+    // Keyset page of rollup rows ordered by (bucketStart, id), for exports
+    @Query("SELECT r FROM SecurityEventRollup r WHERE r.granularity = :granularity " +
+            "AND r.bucketStart >= :afterBucket AND r.bucketStart < :end " +
+            "AND (r.bucketStart > :afterBucket OR r.id > :afterId) " +
+            "ORDER BY r.bucketStart, r.id")
+    List<SecurityEventRollup> findRollupsAfter(@Param("granularity") String granularity,
+                                               @Param("afterBucket") LocalDateTime afterBucket,
+                                               @Param("afterId") Long afterId,
+                                               @Param("end") LocalDateTime end,
+                                               Pageable pageable);
+
+    // Delete rollups past their retention
+    @Modifying
+    @Query("DELETE FROM SecurityEventRollup r WHERE r.granularity = :granularity AND r.bucketStart < :cutoff")
+    int deleteRollupsOlderThan(@Param("granularity") String granularity, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,6 +1,6 @@
 package com.example.demo.Service;
 
-import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.SecurityEventView;
 import com.example.demo.Entity.ThreatAlert;
 import com.example.demo.Entity.ThreatPattern;
 import com.example.demo.Repository.SecurityEventRepository;
@@ -16,10 +16,13 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.annotation.PreDestroy;
+
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +33,8 @@ public class AISecurityService {
     private final SecurityEventRepository eventRepository;
     private final ThreatAlertRepository alertRepository;
     private final ThreatPatternRepository patternRepository;
+    private final SecurityEventStreamService eventStreamService;
+    private final BehaviorProfileService behaviorProfileService;
     private final ObjectMapper objectMapper;
 
     // AI Analysis Constants
@@ -39,16 +44,23 @@ public class AISecurityService {
     private static final double CONFIDENCE_THRESHOLD = 0.8;
 
     // Behavioral Learning Parameters
-    private final Map<String, UserBehaviorProfile> behaviorProfiles = new HashMap<>();
     private final Map<String, RouteSecurityProfile> routeProfiles = new HashMap<>();
 
+    // Runs the independent parts of generateSecurityInsights side by side
+    private final ForkJoinPool insightsPool =
+            new ForkJoinPool(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
     @Autowired
     public AISecurityService(SecurityEventRepository eventRepository,
                              ThreatAlertRepository alertRepository,
-                             ThreatPatternRepository patternRepository) {
+                             ThreatPatternRepository patternRepository,
+                             SecurityEventStreamService eventStreamService,
+                             BehaviorProfileService behaviorProfileService) {
         this.eventRepository = eventRepository;
         this.alertRepository = alertRepository;
         this.patternRepository = patternRepository;
+        this.eventStreamService = eventStreamService;
+        this.behaviorProfileService = behaviorProfileService;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -60,25 +72,39 @@ public class AISecurityService {
         Map<String, Object> insights = new HashMap<>();
 
         try {
-            LocalDateTime analysisStart = LocalDateTime.now().minusHours(24);
+            // Load the window once; every sub-analysis reads the same immutable snapshot
+            AnalysisSnapshot snapshot = loadAnalysisSnapshot(LocalDateTime.now().minusHours(24));
 
             // Overall security health score
-            double securityHealthScore = calculateSecurityHealthScore(analysisStart);
+            CompletableFuture<Double> healthScore = CompletableFuture.supplyAsync(
+                    () -> calculateSecurityHealthScore(snapshot), insightsPool);
 
             // Behavioral anomalies
-            List<Map<String, Object>> behavioralAnomalies = detectBehavioralAnomalies(analysisStart);
+            CompletableFuture<List<Map<String, Object>>> anomalies = CompletableFuture.supplyAsync(
+                    this::detectBehavioralAnomalies, insightsPool);
 
             // Threat predictions
-            Map<String, Object> threatPredictions = generateThreatPredictions(analysisStart);
+            CompletableFuture<Map<String, Object>> predictions = CompletableFuture.supplyAsync(
+                    () -> generateThreatPredictions(snapshot), insightsPool);
 
             // Attack pattern analysis
-            Map<String, Object> attackPatternAnalysis = analyzeAttackPatterns(analysisStart);
+            CompletableFuture<Map<String, Object>> attackPatterns = CompletableFuture.supplyAsync(
+                    () -> analyzeAttackPatterns(snapshot), insightsPool);
 
             // Security recommendations
-            List<Map<String, Object>> aiRecommendations = generateAIRecommendations(analysisStart);
+            CompletableFuture<List<Map<String, Object>>> recommendations = CompletableFuture.supplyAsync(
+                    () -> generateAIRecommendations(snapshot), insightsPool);
 
             // Risk assessment
-            Map<String, Object> riskAssessment = performRiskAssessment(analysisStart);
+            CompletableFuture<Map<String, Object>> risk = CompletableFuture.supplyAsync(
+                    () -> performRiskAssessment(snapshot), insightsPool);
+
+            double securityHealthScore = healthScore.join();
+            List<Map<String, Object>> behavioralAnomalies = anomalies.join();
+            Map<String, Object> threatPredictions = predictions.join();
+            Map<String, Object> attackPatternAnalysis = attackPatterns.join();
+            List<Map<String, Object>> aiRecommendations = recommendations.join();
+            Map<String, Object> riskAssessment = risk.join();
 
             insights.put("securityHealthScore", securityHealthScore);
             insights.put("behavioralAnomalies", behavioralAnomalies);
@@ -87,7 +113,7 @@ public class AISecurityService {
             insights.put("aiRecommendations", aiRecommendations);
             insights.put("riskAssessment", riskAssessment);
             insights.put("analysisTimestamp", LocalDateTime.now());
-            insights.put("confidenceLevel", calculateOverallConfidence());
+            insights.put("confidenceLevel", calculateOverallConfidence(snapshot));
 
             log.info("Generated AI security insights with health score: {:.2f}", securityHealthScore);
 
@@ -102,36 +128,31 @@ public class AISecurityService {
      * Analyze behavioral patterns for a specific IP or user
      */
     @Async
-    @Transactional(readOnly = true)
     public CompletableFuture<Map<String, Object>> analyzeBehavioralPattern(String clientIp) {
         Map<String, Object> analysis = new HashMap<>();
 
         try {
-            LocalDateTime analysisStart = LocalDateTime.now().minusDays(7);
-            List<SecurityEvent> userEvents = eventRepository
-                    .findByClientIpAndTimestampBetween(clientIp, analysisStart, LocalDateTime.now());
+            // Profiles are maintained as events are recorded
+            BehaviorProfileService.BehaviorSnapshot profile = behaviorProfileService.getProfile(clientIp);
 
-            if (userEvents.size() < MIN_EVENTS_FOR_ANALYSIS) {
+            if (profile == null || profile.getTotalEvents() < MIN_EVENTS_FOR_ANALYSIS) {
                 analysis.put("status", "INSUFFICIENT_DATA");
                 analysis.put("message", "Not enough data for behavioral analysis");
                 return CompletableFuture.completedFuture(analysis);
             }
 
-            // Create or update behavior profile
-            UserBehaviorProfile profile = updateBehaviorProfile(clientIp, userEvents);
-
             // Calculate anomaly score
-            double anomalyScore = calculateBehavioralAnomalyScore(profile, userEvents);
+            double anomalyScore = calculateBehavioralAnomalyScore(profile);
 
             // Generate behavioral insights
-            Map<String, Object> insights = generateBehavioralInsights(profile, userEvents);
+            Map<String, Object> insights = generateBehavioralInsights(profile);
 
             analysis.put("status", "COMPLETED");
             analysis.put("clientIp", clientIp);
             analysis.put("anomalyScore", anomalyScore);
             analysis.put("isAnomalous", anomalyScore > BEHAVIORAL_ANOMALY_THRESHOLD);
-            analysis.put("eventCount", userEvents.size());
-            analysis.put("analysisWindow", "7 days");
+            analysis.put("eventCount", profile.getRecentEventCount());
+            analysis.put("analysisWindow", "24 hours");
             analysis.put("insights", insights);
             analysis.put("behaviorProfile", profile.toMap());
 
@@ -155,8 +176,8 @@ public class AISecurityService {
 
         try {
             LocalDateTime analysisStart = LocalDateTime.now().minusHours(PREDICTION_WINDOW_HOURS);
-            List<SecurityEvent> historicalEvents = eventRepository
-                    .findByTimestampBetween(analysisStart, LocalDateTime.now());
+            List<SecurityEventView> historicalEvents = eventStreamService
+                    .loadEvents(analysisStart, LocalDateTime.now());
 
             // Analyze historical patterns
             Map<String, Double> hourlyTrends = analyzeHourlyTrends(historicalEvents);
@@ -196,9 +217,6 @@ public class AISecurityService {
         try {
             log.info("Starting scheduled AI learning process...");
 
-            // Update behavioral profiles
-            updateAllBehaviorProfiles();
-
             // Learn new attack patterns
             learnNewAttackPatterns();
 
@@ -218,15 +236,13 @@ public class AISecurityService {
     /**
      * Calculate overall security health score (0-100)
      */
-    private double calculateSecurityHealthScore(LocalDateTime since) {
+    private double calculateSecurityHealthScore(AnalysisSnapshot snapshot) {
         try {
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
+            List<SecurityEventView> events = snapshot.events;
             if (events.isEmpty()) return 100.0;
 
             long totalEvents = events.size();
-            long rejectedEvents = events.stream()
-                    .filter(e -> "REJECTION".equals(e.getEventType()))
-                    .count();
+            long rejectedEvents = snapshot.rejections.size();
 
             // Base score from acceptance rate
             double acceptanceRate = (double) (totalEvents - rejectedEvents) / totalEvents;
@@ -234,7 +250,7 @@ public class AISecurityService {
 
             // Additional factors
             double threatLevelPenalty = calculateThreatLevelPenalty(events);
-            double patternMatchBonus = calculatePatternMatchBonus();
+            double patternMatchBonus = calculatePatternMatchBonus(snapshot.activePatterns);
             double responseTimeBonus = calculateResponseTimeBonus(events);
 
             double finalScore = Math.max(0, Math.min(100, baseScore - threatLevelPenalty + patternMatchBonus + responseTimeBonus));
@@ -253,33 +269,22 @@ public class AISecurityService {
     /**
      * Detect behavioral anomalies
      */
-    private List<Map<String, Object>> detectBehavioralAnomalies(LocalDateTime since) {
+    private List<Map<String, Object>> detectBehavioralAnomalies() {
         List<Map<String, Object>> anomalies = new ArrayList<>();
 
         try {
-            // Group events by IP
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
-            Map<String, List<SecurityEvent>> eventsByIp = events.stream()
-                    .collect(Collectors.groupingBy(SecurityEvent::getClientIp));
-
-            for (Map.Entry<String, List<SecurityEvent>> entry : eventsByIp.entrySet()) {
-                String ip = entry.getKey();
-                List<SecurityEvent> ipEvents = entry.getValue();
-
-                if (ipEvents.size() >= MIN_EVENTS_FOR_ANALYSIS) {
-                    UserBehaviorProfile profile = behaviorProfiles.get(ip);
-                    if (profile != null) {
-                        double anomalyScore = calculateBehavioralAnomalyScore(profile, ipEvents);
-
-                        if (anomalyScore > BEHAVIORAL_ANOMALY_THRESHOLD) {
-                            Map<String, Object> anomaly = new HashMap<>();
-                            anomaly.put("clientIp", ip);
-                            anomaly.put("anomalyScore", anomalyScore);
-                            anomaly.put("eventCount", ipEvents.size());
-                            anomaly.put("suspiciousActivities", identifySuspiciousActivities(ipEvents, profile));
-                            anomalies.add(anomaly);
-                        }
-                    }
+            // Profiles already hold each client's last 24 hours next to its longer-run baseline
+            for (BehaviorProfileService.BehaviorSnapshot profile :
+                    behaviorProfileService.getRecentlyActiveProfiles(MIN_EVENTS_FOR_ANALYSIS)) {
+                double anomalyScore = calculateBehavioralAnomalyScore(profile);
+
+                if (anomalyScore > BEHAVIORAL_ANOMALY_THRESHOLD) {
+                    Map<String, Object> anomaly = new HashMap<>();
+                    anomaly.put("clientIp", profile.getClientIp());
+                    anomaly.put("anomalyScore", anomalyScore);
+                    anomaly.put("eventCount", profile.getRecentEventCount());
+                    anomaly.put("suspiciousActivities", identifySuspiciousActivities(profile));
+                    anomalies.add(anomaly);
                 }
             }
 
@@ -293,11 +298,11 @@ public class AISecurityService {
     /**
      * Generate threat predictions
      */
-    private Map<String, Object> generateThreatPredictions(LocalDateTime since) {
+    private Map<String, Object> generateThreatPredictions(AnalysisSnapshot snapshot) {
         Map<String, Object> predictions = new HashMap<>();
 
         try {
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
+            List<SecurityEventView> events = snapshot.events;
 
             // Predict attack likelihood for next 6 hours
             List<Map<String, Object>> hourlyPredictions = new ArrayList<>();
@@ -328,17 +333,16 @@ public class AISecurityService {
     /**
      * Analyze attack patterns using AI
      */
-    private Map<String, Object> analyzeAttackPatterns(LocalDateTime since) {
+    private Map<String, Object> analyzeAttackPatterns(AnalysisSnapshot snapshot) {
         Map<String, Object> analysis = new HashMap<>();
 
         try {
-            List<SecurityEvent> rejectionEvents = eventRepository
-                    .findByEventTypeAndTimestampBetween("REJECTION", since, LocalDateTime.now());
+            List<SecurityEventView> rejectionEvents = snapshot.rejections;
 
             // Pattern frequency analysis
             Map<String, Long> patternFrequency = rejectionEvents.stream()
                     .filter(e -> e.getRejectionReason() != null)
-                    .collect(Collectors.groupingBy(SecurityEvent::getRejectionReason, Collectors.counting()));
+                    .collect(Collectors.groupingBy(SecurityEventView::getRejectionReason, Collectors.counting()));
 
             // Temporal pattern analysis
             Map<Integer, Long> hourlyDistribution = rejectionEvents.stream()
@@ -355,7 +359,7 @@ public class AISecurityService {
             analysis.put("hourlyDistribution", hourlyDistribution);
             analysis.put("geographicDistribution", ipPrefixDistribution);
             analysis.put("totalAttacks", rejectionEvents.size());
-            analysis.put("uniqueAttackers", rejectionEvents.stream().map(SecurityEvent::getClientIp).distinct().count());
+            analysis.put("uniqueAttackers", rejectionEvents.stream().map(SecurityEventView::getClientIp).distinct().count());
 
         } catch (Exception e) {
             log.error("Error analyzing attack patterns: {}", e.getMessage());
@@ -367,17 +371,17 @@ public class AISecurityService {
     /**
      * Generate AI-powered security recommendations
      */
-    private List<Map<String, Object>> generateAIRecommendations(LocalDateTime since) {
+    private List<Map<String, Object>> generateAIRecommendations(AnalysisSnapshot snapshot) {
         List<Map<String, Object>> recommendations = new ArrayList<>();
 
         try {
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
-            List<ThreatAlert> openAlerts = alertRepository.findByStatusOrderByCreatedAtDesc("OPEN");
+            List<SecurityEventView> events = snapshot.events;
+            List<ThreatAlert> openAlerts = snapshot.openAlerts;
 
             // Analyze patterns and generate recommendations
             if (!events.isEmpty()) {
                 // High rejection rate recommendation
-                long rejections = events.stream().filter(e -> "REJECTION".equals(e.getEventType())).count();
+                long rejections = snapshot.rejections.size();
                 double rejectionRate = (double) rejections / events.size();
 
                 if (rejectionRate > 0.3) {
@@ -392,7 +396,7 @@ public class AISecurityService {
                 // Response time recommendation
                 double avgResponseTime = events.stream()
                         .filter(e -> e.getResponseTimeMs() != null)
-                        .mapToInt(SecurityEvent::getResponseTimeMs)
+                        .mapToInt(SecurityEventView::getResponseTimeMs)
                         .average().orElse(0.0);
 
                 if (avgResponseTime > 2000) {
@@ -425,12 +429,12 @@ public class AISecurityService {
     /**
      * Perform comprehensive risk assessment
      */
-    private Map<String, Object> performRiskAssessment(LocalDateTime since) {
+    private Map<String, Object> performRiskAssessment(AnalysisSnapshot snapshot) {
         Map<String, Object> assessment = new HashMap<>();
 
         try {
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
-            List<ThreatAlert> alerts = alertRepository.findRecentAlerts(since);
+            List<SecurityEventView> events = snapshot.events;
+            List<ThreatAlert> alerts = snapshot.recentAlerts;
 
             // Calculate various risk scores
             double volumeRisk = calculateVolumeRisk(events);
@@ -452,7 +456,7 @@ public class AISecurityService {
                     "temporal", temporalRisk,
                     "alerts", alertRisk
             ));
-            assessment.put("riskTrend", calculateRiskTrend(since));
+            assessment.put("riskTrend", calculateRiskTrend(snapshot));
             assessment.put("criticalIssues", identifyCriticalIssues(events, alerts));
 
         } catch (Exception e) {
@@ -464,24 +468,35 @@ public class AISecurityService {
 
     // Helper methods for AI analysis
 
-    private UserBehaviorProfile updateBehaviorProfile(String clientIp, List<SecurityEvent> events) {
-        UserBehaviorProfile profile = behaviorProfiles.computeIfAbsent(clientIp, k -> new UserBehaviorProfile(clientIp));
-        profile.updateWithEvents(events);
-        return profile;
+    private AnalysisSnapshot loadAnalysisSnapshot(LocalDateTime since) {
+        List<SecurityEventView> events = eventStreamService.loadEvents(since, LocalDateTime.now());
+        List<SecurityEventView> rejections = events.stream()
+                .filter(e -> "REJECTION".equals(e.getEventType()))
+                .collect(Collectors.toList());
+
+        return new AnalysisSnapshot(since, events, rejections,
+                alertRepository.findRecentAlerts(since),
+                alertRepository.findByStatusOrderByCreatedAtDesc("OPEN"),
+                patternRepository.findByIsActiveTrue());
+    }
+
+    @PreDestroy
+    public void shutdownInsightsPool() {
+        insightsPool.shutdown();
     }
 
-    private double calculateBehavioralAnomalyScore(UserBehaviorProfile profile, List<SecurityEvent> recentEvents) {
-        if (profile == null || recentEvents.isEmpty()) return 0.0;
+    private double calculateBehavioralAnomalyScore(BehaviorProfileService.BehaviorSnapshot profile) {
+        if (profile == null || profile.getRecentEventCount() == 0) return 0.0;
 
-        double frequencyAnomaly = calculateFrequencyAnomaly(profile, recentEvents);
-        double temporalAnomaly = calculateTemporalAnomaly(profile, recentEvents);
-        double pathAnomaly = calculatePathAnomaly(profile, recentEvents);
+        double frequencyAnomaly = calculateFrequencyAnomaly(profile);
+        double temporalAnomaly = calculateTemporalAnomaly(profile);
+        double pathAnomaly = calculatePathAnomaly(profile);
 
         return (frequencyAnomaly + temporalAnomaly + pathAnomaly) / 3.0;
     }
 
-    private double calculateFrequencyAnomaly(UserBehaviorProfile profile, List<SecurityEvent> events) {
-        double recentFrequency = events.size() / 24.0; // Events per hour
+    private double calculateFrequencyAnomaly(BehaviorProfileService.BehaviorSnapshot profile) {
+        double recentFrequency = profile.getRecentEventCount() / 24.0; // Events per hour
         double historicalAverage = profile.getAverageHourlyEvents();
 
         if (historicalAverage == 0) return 0.0;
@@ -489,14 +504,11 @@ public class AISecurityService {
         return Math.min(1.0, Math.abs(recentFrequency - historicalAverage) / historicalAverage);
     }
 
-    private double calculateTemporalAnomaly(UserBehaviorProfile profile, List<SecurityEvent> events) {
-        Set<Integer> recentHours = events.stream()
-                .map(e -> e.getTimestamp().getHour())
-                .collect(Collectors.toSet());
-
+    private double calculateTemporalAnomaly(BehaviorProfileService.BehaviorSnapshot profile) {
+        Set<Integer> recentHours = profile.getRecentActiveHours();
         Set<Integer> historicalHours = profile.getActiveHours();
 
-        if (historicalHours.isEmpty()) return 0.0;
+        if (historicalHours.isEmpty() || recentHours.isEmpty()) return 0.0;
 
         // Calculate how many recent hours are unusual
         long unusualHours = recentHours.stream()
@@ -506,21 +518,11 @@ public class AISecurityService {
         return Math.min(1.0, (double) unusualHours / recentHours.size());
     }
 
-    private double calculatePathAnomaly(UserBehaviorProfile profile, List<SecurityEvent> events) {
-        Set<String> recentPaths = events.stream()
-                .map(SecurityEvent::getRequestPath)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        Set<String> historicalPaths = profile.getCommonPaths();
-
-        if (historicalPaths.isEmpty()) return 0.0;
+    private double calculatePathAnomaly(BehaviorProfileService.BehaviorSnapshot profile) {
+        if (profile.getTopPaths().isEmpty()) return 0.0;
 
-        long unusualPaths = recentPaths.stream()
-                .filter(path -> !historicalPaths.contains(path))
-                .count();
-
-        return Math.min(1.0, (double) unusualPaths / recentPaths.size());
+        // Share of recent requests that went to paths outside the client's usual set
+        return Math.min(1.0, (double) profile.getRecentUnfamiliarPathCount() / profile.getRecentEventCount());
     }
 
     private Map<String, Object> createRecommendation(String type, String priority, String title,
@@ -538,11 +540,11 @@ public class AISecurityService {
 
     // Enhanced helper methods with complete implementations
 
-    private double calculateThreatLevelPenalty(List<SecurityEvent> events) {
+    private double calculateThreatLevelPenalty(List<SecurityEventView> events) {
         if (events.isEmpty()) return 0.0;
 
         Map<String, Long> threatCounts = events.stream()
-                .collect(Collectors.groupingBy(SecurityEvent::getThreatLevel, Collectors.counting()));
+                .collect(Collectors.groupingBy(SecurityEventView::getThreatLevel, Collectors.counting()));
 
         double penalty = 0.0;
         penalty += threatCounts.getOrDefault("CRITICAL", 0L) * 15.0;
@@ -553,9 +555,8 @@ public class AISecurityService {
         return Math.min(30.0, penalty / events.size()); // Max 30 point penalty
     }
 
-    private double calculatePatternMatchBonus() {
+    private double calculatePatternMatchBonus(List<ThreatPattern> activePatterns) {
         try {
-            List<ThreatPattern> activePatterns = patternRepository.findByIsActiveTrue();
             long recentlyTriggered = activePatterns.stream()
                     .filter(p -> p.getLastTriggered() != null &&
                             p.getLastTriggered().isAfter(LocalDateTime.now().minusHours(24)))
@@ -568,10 +569,10 @@ public class AISecurityService {
         }
     }
 
-    private double calculateResponseTimeBonus(List<SecurityEvent> events) {
+    private double calculateResponseTimeBonus(List<SecurityEventView> events) {
         double avgResponseTime = events.stream()
                 .filter(e -> e.getResponseTimeMs() != null)
-                .mapToInt(SecurityEvent::getResponseTimeMs)
+                .mapToInt(SecurityEventView::getResponseTimeMs)
                 .average().orElse(1000.0);
 
         if (avgResponseTime < 500) return 20.0;      // Excellent response time
@@ -581,45 +582,37 @@ public class AISecurityService {
         return 0.0; // Very poor response time
     }
 
-    private double calculateOverallConfidence() {
+    private double calculateOverallConfidence(AnalysisSnapshot snapshot) {
         try {
-            LocalDateTime since = LocalDateTime.now().minusHours(24);
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
+            long eventCount = snapshot.events.size();
 
-            if (events.size() < 100) return 0.6; // Low confidence with little data
-            if (events.size() < 500) return 0.75; // Medium confidence
-            if (events.size() < 1000) return 0.85; // Good confidence
+            if (eventCount < 100) return 0.6; // Low confidence with little data
+            if (eventCount < 500) return 0.75; // Medium confidence
+            if (eventCount < 1000) return 0.85; // Good confidence
             return 0.95; // High confidence with lots of data
         } catch (Exception e) {
             return 0.7; // Default confidence
         }
     }
 
-    private Map<String, Object> generateBehavioralInsights(UserBehaviorProfile profile, List<SecurityEvent> events) {
+    private Map<String, Object> generateBehavioralInsights(BehaviorProfileService.BehaviorSnapshot profile) {
         Map<String, Object> insights = new HashMap<>();
 
         // Activity pattern analysis
-        Map<Integer, Long> hourlyActivity = events.stream()
-                .collect(Collectors.groupingBy(e -> e.getTimestamp().getHour(), Collectors.counting()));
+        Set<Integer> recentHours = profile.getRecentActiveHours();
+        insights.put("mostActiveHour", recentHours.stream()
+                .max(Comparator.comparingInt(profile::getRecentEventsInHour))
+                .orElse(12));
 
-        insights.put("mostActiveHour", hourlyActivity.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey).orElse(12));
-
-        insights.put("activitySpread", hourlyActivity.size());
+        insights.put("activitySpread", recentHours.size());
 
         // Request pattern analysis
-        Map<String, Long> pathFrequency = events.stream()
-                .filter(e -> e.getRequestPath() != null)
-                .collect(Collectors.groupingBy(SecurityEvent::getRequestPath, Collectors.counting()));
-
-        insights.put("uniquePaths", pathFrequency.size());
-        insights.put("mostRequestedPath", pathFrequency.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey).orElse("unknown"));
+        insights.put("uniquePaths", profile.getTopPaths().size());
+        insights.put("mostRequestedPath", profile.getTopPaths().keySet().stream()
+                .findFirst().orElse("unknown"));
 
         // Behavioral consistency
-        double consistencyScore = calculateBehavioralConsistency(profile, events);
+        double consistencyScore = calculateBehavioralConsistency(profile);
         insights.put("consistencyScore", consistencyScore);
         insights.put("behaviorType", consistencyScore > 0.8 ? "PREDICTABLE" :
                 consistencyScore > 0.5 ? "MODERATE" : "ERRATIC");
@@ -627,16 +620,12 @@ public class AISecurityService {
         return insights;
     }
 
-    private double calculateBehavioralConsistency(UserBehaviorProfile profile, List<SecurityEvent> events) {
-        if (profile.getActiveHours().isEmpty() || events.isEmpty()) return 0.0;
-
-        // Check how consistent the current behavior is with historical patterns
-        Set<Integer> currentHours = events.stream()
-                .map(e -> e.getTimestamp().getHour())
-                .collect(Collectors.toSet());
-
+    private double calculateBehavioralConsistency(BehaviorProfileService.BehaviorSnapshot profile) {
+        Set<Integer> currentHours = profile.getRecentActiveHours();
         Set<Integer> historicalHours = profile.getActiveHours();
 
+        if (historicalHours.isEmpty() || currentHours.isEmpty()) return 0.0;
+
         // Calculate overlap
         Set<Integer> overlap = new HashSet<>(currentHours);
         overlap.retainAll(historicalHours);
@@ -644,51 +633,38 @@ public class AISecurityService {
         return (double) overlap.size() / Math.max(currentHours.size(), historicalHours.size());
     }
 
-    private List<String> identifySuspiciousActivities(List<SecurityEvent> events, UserBehaviorProfile profile) {
+    private List<String> identifySuspiciousActivities(BehaviorProfileService.BehaviorSnapshot profile) {
         List<String> activities = new ArrayList<>();
 
         // Check for unusual time patterns
-        Set<Integer> currentHours = events.stream()
-                .map(e -> e.getTimestamp().getHour())
-                .collect(Collectors.toSet());
-
-        Set<Integer> unusualHours = new HashSet<>(currentHours);
+        Set<Integer> unusualHours = new TreeSet<>(profile.getRecentActiveHours());
         unusualHours.removeAll(profile.getActiveHours());
 
-        if (!unusualHours.isEmpty()) {
+        if (!profile.getActiveHours().isEmpty() && !unusualHours.isEmpty()) {
             activities.add("Activity during unusual hours: " + unusualHours);
         }
 
         // Check for high frequency
-        long currentFrequency = events.size();
+        long currentFrequency = profile.getRecentEventCount();
         if (currentFrequency > profile.getAverageHourlyEvents() * 24 * 2) { // 2x normal daily activity
             activities.add("Unusually high request frequency: " + currentFrequency + " requests");
         }
 
         // Check for new paths
-        Set<String> newPaths = events.stream()
-                .map(SecurityEvent::getRequestPath)
-                .filter(Objects::nonNull)
-                .filter(path -> !profile.getCommonPaths().contains(path))
-                .collect(Collectors.toSet());
-
-        if (newPaths.size() > 5) {
-            activities.add("Access to " + newPaths.size() + " previously unvisited paths");
+        if (profile.getRecentUnfamiliarPathCount() > 5) {
+            activities.add(profile.getRecentUnfamiliarPathCount() + " requests to previously unvisited paths");
         }
 
         // Check for rejection patterns
-        long rejections = events.stream()
-                .filter(e -> "REJECTION".equals(e.getEventType()))
-                .count();
-
-        if (rejections > events.size() * 0.5) {
-            activities.add("High rejection rate: " + (rejections * 100 / events.size()) + "%");
+        long rejections = profile.getRecentRejectionCount();
+        if (rejections > currentFrequency * 0.5) {
+            activities.add("High rejection rate: " + (rejections * 100 / currentFrequency) + "%");
         }
 
         return activities;
     }
 
-    private Map<String, Double> analyzeHourlyTrends(List<SecurityEvent> events) {
+    private Map<String, Double> analyzeHourlyTrends(List<SecurityEventView> events) {
         Map<String, Double> trends = new HashMap<>();
 
         // Group events by hour
@@ -732,14 +708,14 @@ public class AISecurityService {
             LocalDateTime since = LocalDateTime.now().minusHours(24);
 
             // Get all routes and their security events
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
-            Map<String, List<SecurityEvent>> eventsByRoute = events.stream()
+            List<SecurityEventView> events = eventStreamService.loadEvents(since, LocalDateTime.now());
+            Map<String, List<SecurityEventView>> eventsByRoute = events.stream()
                     .filter(e -> e.getRouteId() != null)
-                    .collect(Collectors.groupingBy(SecurityEvent::getRouteId));
+                    .collect(Collectors.groupingBy(SecurityEventView::getRouteId));
 
-            for (Map.Entry<String, List<SecurityEvent>> entry : eventsByRoute.entrySet()) {
+            for (Map.Entry<String, List<SecurityEventView>> entry : eventsByRoute.entrySet()) {
                 String routeId = entry.getKey();
-                List<SecurityEvent> routeEvents = entry.getValue();
+                List<SecurityEventView> routeEvents = entry.getValue();
 
                 // Calculate vulnerability score based on rejection rate and threat levels
                 long rejections = routeEvents.stream()
@@ -766,7 +742,7 @@ public class AISecurityService {
         return vulnerabilities;
     }
 
-    private List<Map<String, Object>> identifyEmergingThreats(List<SecurityEvent> events) {
+    private List<Map<String, Object>> identifyEmergingThreats(List<SecurityEventView> events) {
         List<Map<String, Object>> emergingThreats = new ArrayList<>();
 
         try {
@@ -775,7 +751,7 @@ public class AISecurityService {
             // 1. New attack patterns in user agents
             Map<String, Long> userAgentCounts = events.stream()
                     .filter(e -> e.getUserAgent() != null && "REJECTION".equals(e.getEventType()))
-                    .collect(Collectors.groupingBy(SecurityEvent::getUserAgent, Collectors.counting()));
+                    .collect(Collectors.groupingBy(SecurityEventView::getUserAgent, Collectors.counting()));
 
             userAgentCounts.entrySet().stream()
                     .filter(entry -> entry.getValue() > 10) // Threshold for emerging threat
@@ -879,7 +855,7 @@ public class AISecurityService {
         return prediction;
     }
 
-    private double calculatePredictionConfidence(List<SecurityEvent> events) {
+    private double calculatePredictionConfidence(List<SecurityEventView> events) {
         if (events.isEmpty()) return 0.3;
 
         // Confidence based on data volume and consistency
@@ -895,39 +871,16 @@ public class AISecurityService {
         return (volumeConfidence + consistencyConfidence) / 2.0;
     }
 
-    private void updateAllBehaviorProfiles() {
-        try {
-            LocalDateTime since = LocalDateTime.now().minusDays(7);
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
-
-            // Group events by IP
-            Map<String, List<SecurityEvent>> eventsByIp = events.stream()
-                    .collect(Collectors.groupingBy(SecurityEvent::getClientIp));
-
-            // Update or create profiles
-            for (Map.Entry<String, List<SecurityEvent>> entry : eventsByIp.entrySet()) {
-                if (entry.getValue().size() >= MIN_EVENTS_FOR_ANALYSIS) {
-                    updateBehaviorProfile(entry.getKey(), entry.getValue());
-                }
-            }
-
-            log.info("Updated {} behavioral profiles", eventsByIp.size());
-
-        } catch (Exception e) {
-            log.error("Error updating behavior profiles: {}", e.getMessage());
-        }
-    }
-
     private void learnNewAttackPatterns() {
         try {
             LocalDateTime since = LocalDateTime.now().minusHours(24);
-            List<SecurityEvent> rejectionEvents = eventRepository
-                    .findByEventTypeAndTimestampBetween("REJECTION", since, LocalDateTime.now());
+            List<SecurityEventView> rejectionEvents = eventRepository
+                    .findViewsByEventType("REJECTION", since, LocalDateTime.now());
 
             // Analyze rejection reasons for new patterns
             Map<String, Long> rejectionCounts = rejectionEvents.stream()
                     .filter(e -> e.getRejectionReason() != null)
-                    .collect(Collectors.groupingBy(SecurityEvent::getRejectionReason, Collectors.counting()));
+                    .collect(Collectors.groupingBy(SecurityEventView::getRejectionReason, Collectors.counting()));
 
             // Look for emerging patterns (high frequency, new patterns)
             for (Map.Entry<String, Long> entry : rejectionCounts.entrySet()) {
@@ -975,10 +928,8 @@ public class AISecurityService {
 
     private void cleanupOldAnalysisData() {
         try {
-            // Clean up old behavior profiles (keep only active ones)
+            // Behavior profiles evict themselves; clean up route profiles here
             LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
-            behaviorProfiles.entrySet().removeIf(entry ->
-                    entry.getValue().lastUpdated.isBefore(cutoff));
 
             // Clean up old route profiles
             routeProfiles.entrySet().removeIf(entry ->
@@ -991,7 +942,7 @@ public class AISecurityService {
         }
     }
 
-    private double predictAttackLikelihood(LocalDateTime time, List<SecurityEvent> events) {
+    private double predictAttackLikelihood(LocalDateTime time, List<SecurityEventView> events) {
         if (events.isEmpty()) return 0.1;
 
         int hour = time.getHour();
@@ -1034,13 +985,13 @@ public class AISecurityService {
         return "LOW";
     }
 
-    private String calculateOverallTrend(List<SecurityEvent> events) {
+    private String calculateOverallTrend(List<SecurityEventView> events) {
         if (events.size() < 10) return "STABLE";
 
         // Compare first half with second half of events
         int midPoint = events.size() / 2;
-        List<SecurityEvent> firstHalf = events.subList(0, midPoint);
-        List<SecurityEvent> secondHalf = events.subList(midPoint, events.size());
+        List<SecurityEventView> firstHalf = events.subList(0, midPoint);
+        List<SecurityEventView> secondHalf = events.subList(midPoint, events.size());
 
         long firstHalfRejections = firstHalf.stream()
                 .filter(e -> "REJECTION".equals(e.getEventType()))
@@ -1058,7 +1009,7 @@ public class AISecurityService {
         return "STABLE";
     }
 
-    private double calculateVolumeRisk(List<SecurityEvent> events) {
+    private double calculateVolumeRisk(List<SecurityEventView> events) {
         if (events.isEmpty()) return 0.0;
 
         // Calculate risk based on traffic volume compared to normal patterns
@@ -1072,7 +1023,7 @@ public class AISecurityService {
         return 0.1; // Very low volume
     }
 
-    private double calculatePatternRisk(List<SecurityEvent> events) {
+    private double calculatePatternRisk(List<SecurityEventView> events) {
         if (events.isEmpty()) return 0.0;
 
         // Calculate risk based on attack patterns
@@ -1086,31 +1037,34 @@ public class AISecurityService {
         return Math.min(1.0, rejectionRate * 2.0);
     }
 
-    private double calculateGeographicRisk(List<SecurityEvent> events) {
+    private double calculateGeographicRisk(List<SecurityEventView> events) {
         if (events.isEmpty()) return 0.0;
 
-        // Analyze IP diversity and geographic spread
-        Set<String> uniqueIPs = events.stream()
-                .map(SecurityEvent::getClientIp)
-                .collect(Collectors.toSet());
-
-        // Calculate IP prefix diversity (simple geographic approximation)
-        Set<String> ipPrefixes = uniqueIPs.stream()
-                .map(ip -> ip.substring(0, Math.min(ip.length(),
-                        ip.indexOf('.', ip.indexOf('.') + 1))))
-                .collect(Collectors.toSet());
+        // Analyze IP diversity and geographic spread with sketches rather than sets of every IP
+        HyperLogLog ips = new HyperLogLog(DistinctClientService.PRECISION);
+        HyperLogLog ipPrefixes = new HyperLogLog(DistinctClientService.PRECISION);
+        for (SecurityEventView event : events) {
+            String ip = event.getClientIp();
+            if (ip == null) continue;
+            ips.add(ip);
+
+            // IP prefix diversity (simple geographic approximation)
+            int secondDot = ip.indexOf('.', ip.indexOf('.') + 1);
+            ipPrefixes.add(secondDot > 0 ? ip.substring(0, secondDot) : ip);
+        }
+        long uniqueIPs = ips.estimate();
 
         // More diverse sources = higher geographic risk
-        double diversityRatio = (double) ipPrefixes.size() / Math.max(1, uniqueIPs.size());
+        double diversityRatio = Math.min(1.0, (double) ipPrefixes.estimate() / Math.max(1, uniqueIPs));
 
         // High diversity could indicate distributed attack
-        if (diversityRatio > 0.8 && uniqueIPs.size() > 10) return 0.8;
-        if (diversityRatio > 0.6 && uniqueIPs.size() > 5) return 0.6;
+        if (diversityRatio > 0.8 && uniqueIPs > 10) return 0.8;
+        if (diversityRatio > 0.6 && uniqueIPs > 5) return 0.6;
         if (diversityRatio > 0.4) return 0.4;
         return 0.2;
     }
 
-    private double calculateTemporalRisk(List<SecurityEvent> events) {
+    private double calculateTemporalRisk(List<SecurityEventView> events) {
         if (events.isEmpty()) return 0.0;
 
         // Analyze temporal patterns for suspicious activity
@@ -1145,15 +1099,17 @@ public class AISecurityService {
         return Math.min(1.0, riskScore / 10.0); // Normalize
     }
 
-    private String calculateRiskTrend(LocalDateTime since) {
+    private String calculateRiskTrend(AnalysisSnapshot snapshot) {
         try {
-            LocalDateTime midPoint = since.plusHours(12);
+            LocalDateTime midPoint = snapshot.since.plusHours(12);
 
-            // Compare first 12 hours with last 12 hours
-            List<SecurityEvent> firstHalf = eventRepository
-                    .findByTimestampBetween(since, midPoint);
-            List<SecurityEvent> secondHalf = eventRepository
-                    .findByTimestampBetween(midPoint, LocalDateTime.now());
+            // Compare first 12 hours with last 12 hours; snapshot events are in timestamp order
+            int split = 0;
+            while (split < snapshot.events.size() && snapshot.events.get(split).getTimestamp().isBefore(midPoint)) {
+                split++;
+            }
+            List<SecurityEventView> firstHalf = snapshot.events.subList(0, split);
+            List<SecurityEventView> secondHalf = snapshot.events.subList(split, snapshot.events.size());
 
             if (firstHalf.isEmpty() && secondHalf.isEmpty()) return "STABLE";
 
@@ -1170,7 +1126,7 @@ public class AISecurityService {
         }
     }
 
-    private List<String> identifyCriticalIssues(List<SecurityEvent> events, List<ThreatAlert> alerts) {
+    private List<String> identifyCriticalIssues(List<SecurityEventView> events, List<ThreatAlert> alerts) {
         List<String> issues = new ArrayList<>();
 
         // Check for critical alerts
@@ -1197,7 +1153,7 @@ public class AISecurityService {
         // Check for response time issues
         double avgResponseTime = events.stream()
                 .filter(e -> e.getResponseTimeMs() != null)
-                .mapToInt(SecurityEvent::getResponseTimeMs)
+                .mapToInt(SecurityEventView::getResponseTimeMs)
                 .average().orElse(0.0);
 
         if (avgResponseTime > 5000) {
@@ -1206,7 +1162,7 @@ public class AISecurityService {
 
         // Check for suspicious IP concentration
         Map<String, Long> ipCounts = events.stream()
-                .collect(Collectors.groupingBy(SecurityEvent::getClientIp, Collectors.counting()));
+                .collect(Collectors.groupingBy(SecurityEventView::getClientIp, Collectors.counting()));
 
         long suspiciousIPs = ipCounts.values().stream()
                 .filter(count -> count > 100) // More than 100 requests from single IP
@@ -1220,53 +1176,25 @@ public class AISecurityService {
     }
 
     /**
-     * User Behavior Profile class for tracking behavioral patterns
+     * Read-only view of one analysis window, shared by the insight sub-analyses
      */
-    private static class UserBehaviorProfile {
-        private final String clientIp;
-        private double averageHourlyEvents = 0.0;
-        private Set<Integer> activeHours = new HashSet<>();
-        private Set<String> commonPaths = new HashSet<>();
-        private LocalDateTime lastUpdated = LocalDateTime.now();
-
-        public UserBehaviorProfile(String clientIp) {
-            this.clientIp = clientIp;
+    private static final class AnalysisSnapshot {
+        private final LocalDateTime since;
+        private final List<SecurityEventView> events;
+        private final List<SecurityEventView> rejections;
+        private final List<ThreatAlert> recentAlerts;
+        private final List<ThreatAlert> openAlerts;
+        private final List<ThreatPattern> activePatterns;
+
+        AnalysisSnapshot(LocalDateTime since, List<SecurityEventView> events, List<SecurityEventView> rejections,
+                         List<ThreatAlert> recentAlerts, List<ThreatAlert> openAlerts, List<ThreatPattern> activePatterns) {
+            this.since = since;
+            this.events = Collections.unmodifiableList(events);
+            this.rejections = Collections.unmodifiableList(rejections);
+            this.recentAlerts = Collections.unmodifiableList(recentAlerts);
+            this.openAlerts = Collections.unmodifiableList(openAlerts);
+            this.activePatterns = Collections.unmodifiableList(activePatterns);
         }
-
-        public void updateWithEvents(List<SecurityEvent> events) {
-            if (events.isEmpty()) return;
-
-            // Update average hourly events
-            this.averageHourlyEvents = events.size() / 24.0;
-
-            // Update active hours
-            this.activeHours = events.stream()
-                    .map(e -> e.getTimestamp().getHour())
-                    .collect(Collectors.toSet());
-
-            // Update common paths
-            this.commonPaths = events.stream()
-                    .map(SecurityEvent::getRequestPath)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-
-            this.lastUpdated = LocalDateTime.now();
-        }
-
-        public Map<String, Object> toMap() {
-            Map<String, Object> map = new HashMap<>();
-            map.put("clientIp", clientIp);
-            map.put("averageHourlyEvents", averageHourlyEvents);
-            map.put("activeHours", activeHours);
-            map.put("commonPathsCount", commonPaths.size());
-            map.put("lastUpdated", lastUpdated);
-            return map;
-        }
-
-        // Getters
-        public double getAverageHourlyEvents() { return averageHourlyEvents; }
-        public Set<Integer> getActiveHours() { return activeHours; }
-        public Set<String> getCommonPaths() { return commonPaths; }
     }
 
     /**
@@ -1291,7 +1219,7 @@ public class AISecurityService {
         /**
          * Update the profile with new security events
          */
-        public void updateWithEvents(List<SecurityEvent> events) {
+        public void updateWithEvents(List<SecurityEventView> events) {
             if (events.isEmpty()) return;
 
             // Update basic metrics
@@ -1315,14 +1243,14 @@ public class AISecurityService {
             // Update attack sources (IPs with rejections)
             this.commonAttackSources = events.stream()
                     .filter(e -> "REJECTION".equals(e.getEventType()))
-                    .map(SecurityEvent::getClientIp)
+                    .map(SecurityEventView::getClientIp)
                     .collect(Collectors.toSet());
 
             // Update rejection reasons
             this.rejectionReasons = events.stream()
                     .filter(e -> "REJECTION".equals(e.getEventType()) && e.getRejectionReason() != null)
                     .collect(Collectors.groupingBy(
-                            SecurityEvent::getRejectionReason,
+                            SecurityEventView::getRejectionReason,
                             Collectors.counting()));
 
             // Update attack patterns based on request paths and user agents
@@ -1334,7 +1262,7 @@ public class AISecurityService {
         /**
          * Update attack patterns detected for this route
          */
-        private void updateAttackPatterns(List<SecurityEvent> events) {
+        private void updateAttackPatterns(List<SecurityEventView> events) {
             // Reset attack patterns
             this.attackPatterns.clear();
 
@@ -1385,7 +1313,7 @@ public class AISecurityService {
         /**
          * Convert threat level string to numeric score
          */
-        private double getThreatLevelScore(SecurityEvent event) {
+        private double getThreatLevelScore(SecurityEventView event) {
             switch (event.getThreatLevel()) {
                 case "CRITICAL": return 1.0;
                 case "HIGH": return 0.8;
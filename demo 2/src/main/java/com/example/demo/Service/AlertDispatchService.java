@@ -0,0 +1,234 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.ThreatAlert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers alert notifications to subscribers off the calling thread. Each subscriber
+ * has its own bounded queue and worker, so a slow or failing subscriber only delays
+ * itself; when its queue is full new notifications for it are dropped and counted.
+ * Notifications raised inside a transaction are queued only once it commits.
+ */
+@Service
+public class AlertDispatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertDispatchService.class);
+
+    @Value("${alerting.dispatch.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private final Map<AlertingService.AlertSubscriber, SubscriberChannel> channels = new ConcurrentHashMap<>();
+
+    public void register(AlertingService.AlertSubscriber subscriber) {
+        channels.computeIfAbsent(subscriber, s -> new SubscriberChannel(s, Math.max(1, queueCapacity)));
+    }
+
+    public void unregister(AlertingService.AlertSubscriber subscriber) {
+        SubscriberChannel channel = channels.remove(subscriber);
+        if (channel != null) {
+            channel.shutdown();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return channels.size();
+    }
+
+    /**
+     * Notify subscribers of a new alert, after the current transaction commits
+     */
+    public void publishTriggered(ThreatAlert alert) {
+        afterCommit(new Notification(alert, null, null));
+    }
+
+    /**
+     * Notify subscribers of a status change, after the current transaction commits
+     */
+    public void publishStatusChange(ThreatAlert alert, String oldStatus, String newStatus) {
+        afterCommit(new Notification(alert, oldStatus, newStatus));
+    }
+
+    /**
+     * Queue depth, deliveries, drops, failures and latency per subscriber
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (SubscriberChannel channel : channels.values()) {
+            stats.put(channel.subscriber.getName(), channel.getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(SubscriberChannel::shutdown);
+        channels.clear();
+    }
+
+    private void afterCommit(Notification notification) {
+        // A rolled back alert never reaches subscribers
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(notification);
+                }
+            });
+        } else {
+            enqueue(notification);
+        }
+    }
+
+    private void enqueue(Notification notification) {
+        for (SubscriberChannel channel : channels.values()) {
+            channel.offer(notification);
+        }
+    }
+
+    /**
+     * A status change when newStatus is set, otherwise a new alert
+     */
+    private static final class Notification {
+        private final ThreatAlert alert;
+        private final String oldStatus;
+        private final String newStatus;
+        private final long enqueuedAt = System.nanoTime();
+
+        Notification(ThreatAlert alert, String oldStatus, String newStatus) {
+            this.alert = alert;
+            this.oldStatus = oldStatus;
+            this.newStatus = newStatus;
+        }
+
+        boolean isStatusChange() {
+            return newStatus != null;
+        }
+    }
+
+    private static final class SubscriberChannel {
+        private final AlertingService.AlertSubscriber subscriber;
+        private final BlockingQueue<Notification> queue;
+        private final ExecutorService worker;
+
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        SubscriberChannel(AlertingService.AlertSubscriber subscriber, int capacity) {
+            this.subscriber = subscriber;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.worker = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "alert-subscriber-" + subscriber.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            worker.execute(this::run);
+        }
+
+        void offer(Notification notification) {
+            if (!queue.offer(notification)) {
+                long drops = dropped.incrementAndGet();
+                // Log the first drop and then every thousandth, not every one
+                if (drops == 1 || drops % 1000 == 0) {
+                    log.warn("Alert subscriber {} is falling behind; {} notifications dropped so far",
+                            subscriber.getName(), drops);
+                }
+            }
+        }
+
+        void shutdown() {
+            worker.shutdownNow();
+        }
+
+        private void run() {
+            List<Notification> drained = new ArrayList<>();
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    drained.add(queue.take());
+                    queue.drainTo(drained, maxBatchSize() - 1);
+                    deliver(drained);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    drained.clear();
+                }
+            }
+        }
+
+        // Consecutive new alerts go out as one batch to subscribers that accept lists
+        private void deliver(List<Notification> notifications) {
+            int i = 0;
+            while (i < notifications.size()) {
+                Notification first = notifications.get(i);
+                int end = i + 1;
+                if (!first.isStatusChange() && subscriber instanceof AlertingService.BatchAlertSubscriber) {
+                    while (end < notifications.size() && !notifications.get(end).isStatusChange()) {
+                        end++;
+                    }
+                }
+
+                List<Notification> run = notifications.subList(i, end);
+                try {
+                    if (first.isStatusChange()) {
+                        subscriber.onAlertStatusChanged(first.alert, first.oldStatus, first.newStatus);
+                    } else if (run.size() > 1) {
+                        List<ThreatAlert> alerts = new ArrayList<>(run.size());
+                        run.forEach(n -> alerts.add(n.alert));
+                        ((AlertingService.BatchAlertSubscriber) subscriber).onAlertsTriggered(alerts);
+                        batches.incrementAndGet();
+                    } else {
+                        subscriber.onAlertTriggered(first.alert);
+                    }
+                    delivered.addAndGet(run.size());
+                } catch (Exception e) {
+                    failed.addAndGet(run.size());
+                    log.error("Error notifying subscriber {}: {}", subscriber.getName(), e.getMessage());
+                }
+
+                long now = System.nanoTime();
+                for (Notification n : run) {
+                    long latency = now - n.enqueuedAt;
+                    totalLatencyNanos.addAndGet(latency);
+                    maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                }
+                i = end;
+            }
+        }
+
+        private int maxBatchSize() {
+            return subscriber instanceof AlertingService.BatchAlertSubscriber batch
+                    ? Math.max(1, batch.getMaxBatchSize()) : 1;
+        }
+
+        Map<String, Object> getStats() {
+            Map<String, Object> stats = new HashMap<>();
+            long handled = delivered.get() + failed.get();
+            stats.put("queued", queue.size());
+            stats.put("delivered", delivered.get());
+            stats.put("dropped", dropped.get());
+            stats.put("failed", failed.get());
+            stats.put("batches", batches.get());
+            stats.put("avgLatencyMs", handled > 0 ? TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.get() / handled) / 1000.0 : 0.0);
+            stats.put("maxLatencyMs", TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.Service;
+
+/**
+ * Fixed-size table of when an alert was last raised per (identifier, type), used to
+ * suppress duplicates. Keys are 64-bit hashes stored with epoch-millis times in
+ * lock-striped open-addressing shards. Probing is bounded and a full neighbourhood
+ * evicts its oldest entry, so memory and cost per call stay constant under alert storms.
+ */
+public final class AlertSuppressionTable {
+
+    private static final int SHARDS = 16;
+    private static final int PROBE_LIMIT = 16;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final long windowMillis;
+
+    /**
+     * @param capacity     total entries, rounded up to a power of two per shard
+     * @param windowMillis how long an alert suppresses repeats of itself
+     */
+    public AlertSuppressionTable(int capacity, long windowMillis) {
+        int perShard = Integer.highestOneBit(Math.max(PROBE_LIMIT, capacity / SHARDS) - 1) << 1;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(perShard);
+        }
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Whether an alert for this identifier and type was raised within the window
+     */
+    public boolean isSuppressed(String identifier, String alertType) {
+        long key = key(identifier, alertType);
+        return shardFor(key).lastRaised(key) > System.currentTimeMillis() - windowMillis;
+    }
+
+    /**
+     * Record an alert unless one is already inside the window. Returns false when
+     * suppressed, so concurrent detectors raise a given alert only once.
+     */
+    public boolean tryRaise(String identifier, String alertType) {
+        long key = key(identifier, alertType);
+        return shardFor(key).tryRaise(key, System.currentTimeMillis(), windowMillis);
+    }
+
+    public int size() {
+        long now = System.currentTimeMillis();
+        int live = 0;
+        for (Shard shard : shards) {
+            live += shard.liveEntries(now - windowMillis);
+        }
+        return live;
+    }
+
+    public int capacity() {
+        return shards.length * shards[0].keys.length;
+    }
+
+    private Shard shardFor(long key) {
+        return shards[(int) (key >>> 60) & (SHARDS - 1)];
+    }
+
+    private static long key(String identifier, String alertType) {
+        long h = HyperLogLog.hash(identifier == null ? "" : identifier) * 31
+                + HyperLogLog.hash(alertType == null ? "" : alertType);
+        // Zero marks an empty slot
+        return h == 0 ? 1 : h;
+    }
+
+    private static final class Shard {
+        private final long[] keys;
+        private final long[] raisedAt;
+        private final int mask;
+
+        Shard(int size) {
+            keys = new long[size];
+            raisedAt = new long[size];
+            mask = size - 1;
+        }
+
+        synchronized long lastRaised(long key) {
+            int slot = (int) key & mask;
+            for (int i = 0; i < PROBE_LIMIT; i++) {
+                int index = (slot + i) & mask;
+                if (keys[index] == key) return raisedAt[index];
+                if (keys[index] == 0) break;
+            }
+            return 0;
+        }
+
+        synchronized boolean tryRaise(long key, long now, long windowMillis) {
+            long expiredBefore = now - windowMillis;
+            int slot = (int) key & mask;
+            int reusable = -1;
+            int oldest = slot;
+
+            for (int i = 0; i < PROBE_LIMIT; i++) {
+                int index = (slot + i) & mask;
+                if (keys[index] == key) {
+                    if (raisedAt[index] > expiredBefore) {
+                        return false;
+                    }
+                    raisedAt[index] = now;
+                    return true;
+                }
+                if (keys[index] == 0) {
+                    if (reusable < 0) reusable = index;
+                    break;
+                }
+                if (reusable < 0 && raisedAt[index] <= expiredBefore) {
+                    reusable = index;
+                }
+                if (raisedAt[index] < raisedAt[oldest]) {
+                    oldest = index;
+                }
+            }
+
+            // Every slot in reach is live: the oldest one gives way
+            int index = reusable >= 0 ? reusable : oldest;
+            keys[index] = key;
+            raisedAt[index] = now;
+            return true;
+        }
+
+        synchronized int liveEntries(long expiredBefore) {
+            int live = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && raisedAt[i] > expiredBefore) live++;
+            }
+            return live;
+        }
+    }
+}
@@ -22,7 +22,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,23 +41,44 @@ public class AlertingService {
     private static final double ANOMALY_DETECTION_THRESHOLD = 0.8;
     private static final int MAX_ALERTS_PER_HOUR = 50; // Rate limiting for alerts
     private static final int ALERT_SUPPRESSION_MINUTES = 15; // Suppress duplicate alerts
+    private static final int SUPPRESSION_TABLE_SIZE = 65536; // (identifier, type) pairs remembered
 
     // In-memory tracking for real-time alerting
     private final Map<String, AlertTracker> alertTrackers = new ConcurrentHashMap<>();
-    private final Map<String, LocalDateTime> lastAlertTimes = new ConcurrentHashMap<>();
-    private final AtomicInteger alertsThisHour = new AtomicInteger(0);
-    private LocalDateTime currentHourStart = LocalDateTime.now().withMinute(0).withSecond(0);
+    private final AlertSuppressionTable alertSuppression =
+            new AlertSuppressionTable(SUPPRESSION_TABLE_SIZE, ALERT_SUPPRESSION_MINUTES * 60_000L);
+    private final HourlyAlertBudget alertBudget = new HourlyAlertBudget(MAX_ALERTS_PER_HOUR);
 
-    // Alert subscribers (for future webhook/notification integrations)
-    private final List<AlertSubscriber> alertSubscribers = new ArrayList<>();
+    // Alert subscribers (for future webhook/notification integrations), each fed from its own queue
+    private final AlertDispatchService alertDispatchService;
+
+    @Autowired
+    private GeolocationService geolocationService;
+
+    @Autowired
+    private HotEventWindowService hotEventWindowService;
+
+    @Autowired
+    private IpPrefixCounterService ipPrefixCounterService;
+
+    @Autowired
+    private OpenAlertIndexService openAlertIndexService;
+
+    @Autowired
+    private RouteBaselineService routeBaselineService;
+
+    @Autowired
+    private DenyListService denyListService;
 
     @Autowired
     public AlertingService(ThreatAlertRepository alertRepository,
                            SecurityEventRepository eventRepository,
-                           ThreatPatternRepository patternRepository) {
+                           ThreatPatternRepository patternRepository,
+                           AlertDispatchService alertDispatchService) {
         this.alertRepository = alertRepository;
         this.eventRepository = eventRepository;
         this.patternRepository = patternRepository;
+        this.alertDispatchService = alertDispatchService;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -92,33 +113,55 @@ public class AlertingService {
                 return CompletableFuture.completedFuture(triggeredAlerts);
             }
 
+            List<AlertCandidate> candidates = new ArrayList<>();
+
             // Real-time anomaly detection
-            ThreatAlert anomalyAlert = detectRealTimeAnomaly(event);
+            AlertCandidate anomalyAlert = detectRealTimeAnomaly(event);
             if (anomalyAlert != null) {
-                triggeredAlerts.add(anomalyAlert);
+                candidates.add(anomalyAlert);
             }
 
             // High-frequency attack detection
-            ThreatAlert frequencyAlert = detectHighFrequencyAttack(event);
+            AlertCandidate frequencyAlert = detectHighFrequencyAttack(event);
             if (frequencyAlert != null) {
-                triggeredAlerts.add(frequencyAlert);
+                candidates.add(frequencyAlert);
             }
 
             // Geographic anomaly detection
-            ThreatAlert geoAlert = detectGeographicAnomaly(event);
+            AlertCandidate geoAlert = detectGeographicAnomaly(event);
             if (geoAlert != null) {
-                triggeredAlerts.add(geoAlert);
+                candidates.add(geoAlert);
+            }
+
+            // Route traffic against its learned baseline
+            AlertCandidate baselineAlert = detectRouteBaselineAnomaly(event);
+            if (baselineAlert != null) {
+                candidates.add(baselineAlert);
             }
 
             // Critical event detection
-            ThreatAlert criticalAlert = detectCriticalEvent(event);
+            AlertCandidate criticalAlert = detectCriticalEvent(event);
             if (criticalAlert != null) {
-                triggeredAlerts.add(criticalAlert);
+                candidates.add(criticalAlert);
             }
 
-            // Save and notify for all triggered alerts
-            for (ThreatAlert alert : triggeredAlerts) {
+            // Save and notify for all triggered alerts, each taking a token from the hourly budget.
+            // Suppression is recorded only for alerts that were actually saved.
+            for (AlertCandidate candidate : candidates) {
+                ThreatAlert alert = candidate.alert();
+                if (!alertBudget.tryAcquire()) {
+                    log.warn("Alert rate limit exceeded, dropping alert: {} for IP: {}", alert.getTitle(), event.getClientIp());
+                    continue;
+                }
                 alert = alertRepository.save(alert);
+                if (!alertSuppression.tryRaise(candidate.identifier(), candidate.suppressionType())) {
+                    // Another thread raised the same alert since the detector checked
+                    alertRepository.delete(alert);
+                    continue;
+                }
+                triggeredAlerts.add(alert);
+                openAlertIndexService.onSaved(alert);
+                denyListService.blockForAlert(alert);
                 notifySubscribers(alert);
                 updateAlertTracker(alert);
                 log.info("Alert triggered: {} for IP: {}", alert.getTitle(), event.getClientIp());
@@ -204,7 +247,9 @@ public class AlertingService {
             stats.put("alertsLast24h", recentAlerts.size());
             stats.put("resolutionRate", resolutionRate);
             stats.put("avgResponseTimeMinutes", avgResponseTime);
-            stats.put("alertsThisHour", alertsThisHour.get());
+            stats.put("alertsThisHour", alertBudget.used());
+            stats.put("suppressedAlertKeys", alertSuppression.size());
+            stats.put("subscriberDelivery", alertDispatchService.getStats());
             stats.put("generatedAt", LocalDateTime.now());
 
             // Top alert sources
@@ -251,6 +296,7 @@ public class AlertingService {
             alert.setUpdatedAt(LocalDateTime.now());
 
             alert = alertRepository.save(alert);
+            openAlertIndexService.onSaved(alert);
 
             log.info("Alert {} status updated from {} to {} by user", alertId, oldStatus, status);
 
@@ -275,24 +321,24 @@ public class AlertingService {
             log.debug("Running auto-resolution check for alerts...");
 
             LocalDateTime cutoff = LocalDateTime.now().minusHours(2); // Auto-resolve after 2 hours of inactivity
-            List<ThreatAlert> staleAlerts = alertRepository.findByStatusOrderByCreatedAtDesc("OPEN")
+            List<OpenAlertIndexService.OpenAlert> staleAlerts = openAlertIndexService.getOpenAlerts()
                     .stream()
                     .filter(alert -> alert.getLastSeen().isBefore(cutoff))
                     .collect(Collectors.toList());
 
-            for (ThreatAlert alert : staleAlerts) {
+            List<Long> resolvedIds = new ArrayList<>();
+            for (OpenAlertIndexService.OpenAlert alert : staleAlerts) {
                 // Check if the threat is still active
-                if (!isThreatStillActive(alert)) {
-                    alert.setStatus("RESOLVED");
-                    alert.setAutoResolved(true);
-                    alert.setResolutionNotes("Auto-resolved: No recent activity detected");
-                    alert.setUpdatedAt(LocalDateTime.now());
-
-                    alertRepository.save(alert);
-                    log.info("Auto-resolved stale alert: {} for IP: {}", alert.getTitle(), alert.getSourceIp());
+                if (!isThreatStillActive(alert.getSourceIp())) {
+                    resolvedIds.add(alert.getId());
+                    log.info("Auto-resolving stale alert {} ({}) for IP: {}",
+                            alert.getId(), alert.getAlertType(), alert.getSourceIp());
                 }
             }
 
+            // Resolved together in one batched UPDATE
+            openAlertIndexService.resolveAll(resolvedIds, "Auto-resolved: No recent activity detected");
+
             // Clean up alert trackers
             cleanupAlertTrackers();
 
@@ -366,7 +412,7 @@ public class AlertingService {
      * Subscribe to alert notifications
      */
     public void subscribeToAlerts(AlertSubscriber subscriber) {
-        alertSubscribers.add(subscriber);
+        alertDispatchService.register(subscriber);
         log.info("New alert subscriber added: {}", subscriber.getName());
     }
 
@@ -374,7 +420,7 @@ public class AlertingService {
      * Unsubscribe from alert notifications
      */
     public void unsubscribeFromAlerts(AlertSubscriber subscriber) {
-        alertSubscribers.remove(subscriber);
+        alertDispatchService.unregister(subscriber);
         log.info("Alert subscriber removed: {}", subscriber.getName());
     }
 
@@ -442,7 +488,7 @@ public class AlertingService {
             }
         };
 
-        alertSubscribers.add(consoleSubscriber);
+        alertDispatchService.register(consoleSubscriber);
     }
 
     private void loadExistingAlerts() {
@@ -459,65 +505,65 @@ public class AlertingService {
     }
 
     private boolean canCreateAlert() {
-        // Check hourly rate limit
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime hourStart = now.withMinute(0).withSecond(0);
-
-        if (!hourStart.equals(currentHourStart)) {
-            // New hour, reset counter
-            currentHourStart = hourStart;
-            alertsThisHour.set(0);
-        }
-
-        return alertsThisHour.get() < MAX_ALERTS_PER_HOUR;
+        // Check hourly rate limit; tokens are taken when alerts are saved
+        return alertBudget.remaining() > 0;
     }
 
-    private ThreatAlert detectRealTimeAnomaly(SecurityEvent event) {
+    private AlertCandidate detectRealTimeAnomaly(SecurityEvent event) {
         try {
             String clientIp = event.getClientIp();
-            String alertKey = generateAlertKey(clientIp, "ANOMALY");
-
             // Check for suppression
-            if (isAlertSuppressed(alertKey)) {
+            if (alertSuppression.isSuppressed(clientIp, "ANOMALY")) {
                 return null;
             }
 
             // Get recent events for this IP
             LocalDateTime since = LocalDateTime.now().minusMinutes(10);
-            List<SecurityEvent> recentEvents = eventRepository
-                    .findByClientIpAndTimestampBetween(clientIp, since, LocalDateTime.now());
-
-            if (recentEvents.size() < 5) return null; // Need minimum events for anomaly detection
+            long recentEvents;
+            long rejections;
+            int uniquePaths;
+            if (hotEventWindowService.covers(since)) {
+                HotEventWindowService.EventFilter filter = HotEventWindowService.EventFilter.since(since).clientIp(clientIp);
+                recentEvents = hotEventWindowService.count(filter);
+                if (recentEvents < 5) return null;
+                rejections = hotEventWindowService.count(
+                        HotEventWindowService.EventFilter.since(since).clientIp(clientIp).eventType("REJECTION"));
+                uniquePaths = hotEventWindowService.countDistinct(filter, HotEventWindowService.Column.PATH);
+            } else {
+                List<SecurityEvent> events = eventRepository
+                        .findByClientIpAndTimestampBetween(clientIp, since, LocalDateTime.now());
+                recentEvents = events.size();
+                if (recentEvents < 5) return null;
+                rejections = events.stream()
+                        .filter(e -> "REJECTION".equals(e.getEventType()))
+                        .count();
+                uniquePaths = (int) events.stream()
+                        .map(SecurityEvent::getRequestPath)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .count();
+            }
 
             // Check for unusual patterns
             boolean isAnomalous = false;
             String anomalyDescription = "";
 
             // Check frequency anomaly
-            if (recentEvents.size() > HIGH_FREQUENCY_THRESHOLD / 6) { // 10 minutes = 1/6 hour
+            if (recentEvents > HIGH_FREQUENCY_THRESHOLD / 6) { // 10 minutes = 1/6 hour
                 isAnomalous = true;
-                anomalyDescription += "High frequency activity: " + recentEvents.size() + " events in 10 minutes. ";
+                anomalyDescription += "High frequency activity: " + recentEvents + " events in 10 minutes. ";
             }
 
             // Check for unusual rejection rate
-            long rejections = recentEvents.stream()
-                    .filter(e -> "REJECTION".equals(e.getEventType()))
-                    .count();
-
-            if (rejections > recentEvents.size() * 0.7) { // 70% rejection rate
+            if (rejections > recentEvents * 0.7) { // 70% rejection rate
                 isAnomalous = true;
-                anomalyDescription += "High rejection rate: " + (rejections * 100 / recentEvents.size()) + "%. ";
+                anomalyDescription += "High rejection rate: " + (rejections * 100 / recentEvents) + "%. ";
             }
 
             // Check for new/unusual paths
-            Set<String> paths = recentEvents.stream()
-                    .map(SecurityEvent::getRequestPath)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-
-            if (paths.size() > 20) { // Many different paths in short time
+            if (uniquePaths > 20) { // Many different paths in short time
                 isAnomalous = true;
-                anomalyDescription += "Path scanning detected: " + paths.size() + " unique paths. ";
+                anomalyDescription += "Path scanning detected: " + uniquePaths + " unique paths. ";
             }
 
             if (isAnomalous) {
@@ -527,9 +573,9 @@ public class AlertingService {
                 alert.setTargetRoute(event.getRouteId());
                 alert.setThreatScore(0.8);
                 alert.setConfidence(0.85);
-                alert.setEventCount((long) recentEvents.size());
+                alert.setEventCount(recentEvents);
 
-                return alert;
+                return new AlertCandidate(alert, clientIp, "ANOMALY");
             }
 
         } catch (Exception e) {
@@ -539,38 +585,35 @@ public class AlertingService {
         return null;
     }
 
-    private ThreatAlert detectHighFrequencyAttack(SecurityEvent event) {
+    private AlertCandidate detectHighFrequencyAttack(SecurityEvent event) {
         try {
             String clientIp = event.getClientIp();
-            String alertKey = generateAlertKey(clientIp, "HIGH_FREQUENCY");
-
             // Check for suppression
-            if (isAlertSuppressed(alertKey)) {
+            if (alertSuppression.isSuppressed(clientIp, "HIGH_FREQUENCY")) {
                 return null;
             }
 
             // Check request frequency in last minute
             LocalDateTime since = LocalDateTime.now().minusMinutes(1);
-            List<SecurityEvent> lastMinuteEvents = eventRepository
-                    .findByClientIpAndTimestampBetween(clientIp, since, LocalDateTime.now());
+            long lastMinuteEvents = hotEventWindowService.countClientEvents(clientIp, null, since, LocalDateTime.now());
 
-            if (lastMinuteEvents.size() > HIGH_FREQUENCY_THRESHOLD / 60) { // Per minute threshold
+            if (lastMinuteEvents > HIGH_FREQUENCY_THRESHOLD / 60) { // Per minute threshold
                 // Check if this is a sustained attack (not just a burst)
                 LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-                List<SecurityEvent> fiveMinuteEvents = eventRepository
-                        .findByClientIpAndTimestampBetween(clientIp, fiveMinutesAgo, LocalDateTime.now());
+                long fiveMinuteEvents = hotEventWindowService.countClientEvents(
+                        clientIp, null, fiveMinutesAgo, LocalDateTime.now());
 
-                if (fiveMinuteEvents.size() > HIGH_FREQUENCY_THRESHOLD / 12) { // Sustained over 5 minutes
+                if (fiveMinuteEvents > HIGH_FREQUENCY_THRESHOLD / 12) { // Sustained over 5 minutes
                     ThreatAlert alert = new ThreatAlert("PATTERN_MATCH", "CRITICAL", "High-Frequency Attack Detected");
                     alert.setDescription(String.format("IP %s generated %d requests in the last minute and %d in the last 5 minutes",
-                            clientIp, lastMinuteEvents.size(), fiveMinuteEvents.size()));
+                            clientIp, lastMinuteEvents, fiveMinuteEvents));
                     alert.setSourceIp(clientIp);
                     alert.setTargetRoute(event.getRouteId());
                     alert.setThreatScore(0.95);
                     alert.setConfidence(0.9);
-                    alert.setEventCount((long) fiveMinuteEvents.size());
+                    alert.setEventCount(fiveMinuteEvents);
 
-                    return alert;
+                    return new AlertCandidate(alert, clientIp, "HIGH_FREQUENCY");
                 }
             }
 
@@ -581,44 +624,56 @@ public class AlertingService {
         return null;
     }
 
-    private ThreatAlert detectGeographicAnomaly(SecurityEvent event) {
+    private AlertCandidate detectGeographicAnomaly(SecurityEvent event) {
         try {
-            // Simplified geographic detection based on IP patterns
+            // Subnet cluster detection from the per-prefix counters kept at ingest
             String clientIp = event.getClientIp();
-            String ipPrefix = clientIp.substring(0, Math.min(clientIp.length(),
-                    clientIp.indexOf('.', clientIp.indexOf('.') + 1)));
-
-            String alertKey = generateAlertKey(ipPrefix, "GEO_ANOMALY");
-
-            if (isAlertSuppressed(alertKey)) {
+            if (clientIp == null) {
                 return null;
             }
 
-            // Check for coordinated attack from same IP range
-            LocalDateTime since = LocalDateTime.now().minusMinutes(15);
-            List<SecurityEvent> recentEvents = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
-
-            long sameRangeEvents = recentEvents.stream()
-                    .filter(e -> e.getClientIp().startsWith(ipPrefix))
-                    .count();
-
-            Set<String> uniqueIpsInRange = recentEvents.stream()
-                    .filter(e -> e.getClientIp().startsWith(ipPrefix))
-                    .map(SecurityEvent::getClientIp)
-                    .collect(Collectors.toSet());
+            // Most specific prefix first, so a /24 cluster is reported as a /24 rather than its /16
+            IpPrefixCounterService.PrefixStats cluster = null;
+            for (String prefix : IpPrefixCounterService.prefixesOf(clientIp)) {
+                IpPrefixCounterService.PrefixStats stats = ipPrefixCounterService.getStats(prefix, 15);
+                if (stats.getDistinctIps() > 5 && stats.getEvents() > 50) {
+                    cluster = stats;
+                    break;
+                }
+            }
 
             // If many IPs from same range are attacking
-            if (uniqueIpsInRange.size() > 5 && sameRangeEvents > 50) {
+            if (cluster != null) {
+                if (alertSuppression.isSuppressed(cluster.getPrefix(), "GEO_ANOMALY")) {
+                    return null;
+                }
+
                 ThreatAlert alert = new ThreatAlert("ANOMALY", "HIGH", "Geographic Attack Cluster Detected");
-                alert.setDescription(String.format("Coordinated attack from IP range %s.x.x: %d unique IPs, %d total events",
-                        ipPrefix, uniqueIpsInRange.size(), sameRangeEvents));
-                alert.setSourceIp(ipPrefix + ".x.x");
+                alert.setDescription(String.format("Coordinated attack from IP range %s: ~%d unique IPs, %d total events",
+                        cluster.getPrefix(), cluster.getDistinctIps(), cluster.getEvents()));
+                alert.setSourceIp(cluster.getPrefix());
                 alert.setTargetRoute(event.getRouteId());
                 alert.setThreatScore(0.75);
                 alert.setConfidence(0.8);
-                alert.setEventCount(sameRangeEvents);
+                alert.setEventCount(cluster.getEvents());
+
+                // Attach location from the geolocation cache only, never wait on a remote lookup
+                GeolocationService.GeolocationData location = geolocationService.getLocationIfCached(clientIp);
+                if (location != null) {
+                    try {
+                        alert.setMetadata(objectMapper.writeValueAsString(Map.of(
+                                "country", location.getCountry(),
+                                "countryCode", location.getCountryCode(),
+                                "sampleIp", clientIp
+                        )));
+                    } catch (JsonProcessingException e) {
+                        log.warn("Failed to serialize geographic alert metadata: {}", e.getMessage());
+                    }
+                } else {
+                    geolocationService.prefetch(List.of(clientIp));
+                }
 
-                return alert;
+                return new AlertCandidate(alert, cluster.getPrefix(), "GEO_ANOMALY");
             }
 
         } catch (Exception e) {
@@ -628,12 +683,47 @@ public class AlertingService {
         return null;
     }
 
-    private ThreatAlert detectCriticalEvent(SecurityEvent event) {
+    private AlertCandidate detectRouteBaselineAnomaly(SecurityEvent event) {
+        try {
+            String routeId = event.getRouteId();
+            if (routeId == null) {
+                return null;
+            }
+            String identifier = "route:" + routeId;
+            if (alertSuppression.isSuppressed(identifier, "ROUTE_ANOMALY")) {
+                return null;
+            }
+
+            // Flagged at ingest when this minute's count rose past the route's baseline
+            RouteBaselineService.Anomaly anomaly = routeBaselineService.getActiveRateAnomaly(routeId);
+            if (anomaly == null) {
+                return null;
+            }
+
+            boolean rejections = anomaly.getMetric() == RouteBaselineService.Metric.REJECTIONS_PER_MINUTE;
+            ThreatAlert alert = new ThreatAlert("ANOMALY", rejections ? "HIGH" : "MEDIUM",
+                    rejections ? "Route Rejection Surge" : "Route Traffic Surge");
+            alert.setDescription(String.format("Route %s reached %d %s this minute, expected about %d (z-score %.1f)",
+                    routeId, (long) anomaly.getValue(), rejections ? "rejections" : "requests",
+                    Math.round(anomaly.getExpected()), anomaly.getZScore()));
+            alert.setTargetRoute(routeId);
+            alert.setThreatScore(rejections ? 0.7 : 0.5);
+            alert.setConfidence(Math.min(0.95, 0.5 + anomaly.getZScore() / 20));
+            alert.setEventCount((long) anomaly.getValue());
+
+            return new AlertCandidate(alert, identifier, "ROUTE_ANOMALY");
+
+        } catch (Exception e) {
+            log.warn("Error in route baseline anomaly detection: {}", e.getMessage());
+        }
+
+        return null;
+    }
+
+    private AlertCandidate detectCriticalEvent(SecurityEvent event) {
         // Detect immediately critical events that need urgent attention
         if ("CRITICAL".equals(event.getThreatLevel()) && "REJECTION".equals(event.getEventType())) {
-            String alertKey = generateAlertKey(event.getClientIp(), "CRITICAL_EVENT");
-
-            if (!isAlertSuppressed(alertKey)) {
+            if (!alertSuppression.isSuppressed(event.getClientIp(), "CRITICAL_EVENT")) {
                 ThreatAlert alert = new ThreatAlert("THRESHOLD_BREACH", "CRITICAL", "Critical Security Event");
                 alert.setDescription("Critical threat level event detected: " + event.getRejectionReason());
                 alert.setSourceIp(event.getClientIp());
@@ -642,62 +732,41 @@ public class AlertingService {
                 alert.setConfidence(0.95);
                 alert.setEventCount(1L);
 
-                return alert;
+                return new AlertCandidate(alert, event.getClientIp(), "CRITICAL_EVENT");
             }
         }
 
         return null;
     }
 
-    private boolean isAlertSuppressed(String alertKey) {
-        LocalDateTime lastAlert = lastAlertTimes.get(alertKey);
-        if (lastAlert != null) {
-            LocalDateTime suppressionCutoff = LocalDateTime.now().minusMinutes(ALERT_SUPPRESSION_MINUTES);
-            return lastAlert.isAfter(suppressionCutoff);
-        }
-        return false;
-    }
-
     private String generateAlertKey(String identifier, String alertType) {
         return identifier + ":" + alertType;
     }
 
+    // Delivery happens on the subscribers' own threads once the transaction commits
     private void notifySubscribers(ThreatAlert alert) {
-        for (AlertSubscriber subscriber : alertSubscribers) {
-            try {
-                subscriber.onAlertTriggered(alert);
-            } catch (Exception e) {
-                log.error("Error notifying subscriber {}: {}", subscriber.getName(), e.getMessage());
-            }
-        }
+        alertDispatchService.publishTriggered(alert);
     }
 
     private void notifyStatusChange(ThreatAlert alert, String oldStatus, String newStatus) {
-        for (AlertSubscriber subscriber : alertSubscribers) {
-            try {
-                subscriber.onAlertStatusChanged(alert, oldStatus, newStatus);
-            } catch (Exception e) {
-                log.error("Error notifying subscriber of status change {}: {}", subscriber.getName(), e.getMessage());
-            }
-        }
+        alertDispatchService.publishStatusChange(alert, oldStatus, newStatus);
     }
 
     private void updateAlertTracker(ThreatAlert alert) {
         String key = generateAlertKey(alert.getSourceIp(), alert.getAlertType());
         alertTrackers.put(key, new AlertTracker(alert));
-        lastAlertTimes.put(key, LocalDateTime.now());
-        alertsThisHour.incrementAndGet();
     }
 
-    private boolean isThreatStillActive(ThreatAlert alert) {
+    private boolean isThreatStillActive(String sourceIp) {
         try {
-            // Check if there are recent events from the same source
+            // Check if there are recent events from the same source, as tracked by the open alert index
+            if (sourceIp == null) {
+                return false;
+            }
             LocalDateTime since = LocalDateTime.now().minusMinutes(30);
-            List<SecurityEvent> recentEvents = eventRepository
-                    .findByClientIpAndTimestampBetween(alert.getSourceIp(), since, LocalDateTime.now());
 
             // If no recent activity, threat is likely resolved
-            return !recentEvents.isEmpty();
+            return openAlertIndexService.hasActivitySince(sourceIp, since);
 
         } catch (Exception e) {
             log.warn("Error checking if threat is still active: {}", e.getMessage());
@@ -710,9 +779,6 @@ public class AlertingService {
 
         alertTrackers.entrySet().removeIf(entry ->
                 entry.getValue().getLastUpdate().isBefore(cutoff));
-
-        lastAlertTimes.entrySet().removeIf(entry ->
-                entry.getValue().isBefore(cutoff));
     }
 
     private Map<String, Object> analyzeTrends(List<ThreatAlert> alerts) {
@@ -796,6 +862,52 @@ public class AlertingService {
         }
     }
 
+    /**
+     * Alert built by a detector, with the key that suppresses repeats of it once saved
+     */
+    private record AlertCandidate(ThreatAlert alert, String identifier, String suppressionType) {
+    }
+
+    /**
+     * Hourly alert cap as a token budget. Hour and tokens used share one atomic word,
+     * so the reset at the top of the hour cannot race with concurrent takers.
+     */
+    private static final class HourlyAlertBudget {
+        private static final long HOUR_MILLIS = 3_600_000L;
+        private static final int USED_BITS = 20;
+        private static final long USED_MASK = (1L << USED_BITS) - 1;
+
+        private final int tokensPerHour;
+        private final AtomicLong state = new AtomicLong();
+
+        HourlyAlertBudget(int tokensPerHour) {
+            this.tokensPerHour = tokensPerHour;
+        }
+
+        boolean tryAcquire() {
+            long hour = System.currentTimeMillis() / HOUR_MILLIS;
+            while (true) {
+                long current = state.get();
+                long used = (current >>> USED_BITS) == hour ? current & USED_MASK : 0;
+                if (used >= tokensPerHour) {
+                    return false;
+                }
+                if (state.compareAndSet(current, (hour << USED_BITS) | (used + 1))) {
+                    return true;
+                }
+            }
+        }
+
+        int used() {
+            long current = state.get();
+            return (current >>> USED_BITS) == System.currentTimeMillis() / HOUR_MILLIS ? (int) (current & USED_MASK) : 0;
+        }
+
+        int remaining() {
+            return tokensPerHour - used();
+        }
+    }
+
     /**
      * Interface for alert subscribers to receive notifications
      */
@@ -804,4 +916,15 @@ public class AlertingService {
         void onAlertStatusChanged(ThreatAlert alert, String oldStatus, String newStatus);
         String getName();
     }
+
+    /**
+     * Subscriber that takes new alerts in batches; status changes still arrive one at a time
+     */
+    public interface BatchAlertSubscriber extends AlertSubscriber {
+        void onAlertsTriggered(List<ThreatAlert> alerts);
+
+        default int getMaxBatchSize() {
+            return 100;
+        }
+    }
 }
\ No newline at end of file
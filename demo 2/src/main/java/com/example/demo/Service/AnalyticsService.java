@@ -16,7 +16,11 @@ import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -29,6 +33,8 @@ public class AnalyticsService {
 
     private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
 
+    private static final long SLOW_RESPONSE_MS = 5000; // Until a route's baseline is warm
+
     // Injected AI Services
     private final AISecurityService aiSecurityService;
     private final ThreatAnalysisService threatAnalysisService;
@@ -122,8 +128,11 @@ public class AnalyticsService {
         // Keep sliding window of response times for trend analysis
         routeResponseTimes.computeIfAbsent(routeId, k -> new ArrayList<>()).add(responseTimeMs);
 
-        // Trigger AI analysis if response time is unusually high
-        if (responseTimeMs > 5000) {
+        // Trigger AI analysis if response time is unusually high for this route and hour of the week;
+        // the fixed limit applies until the route's baseline has enough samples
+        RouteBaselineService.Anomaly anomaly = routeBaselineService.observeResponseTime(routeId, responseTimeMs);
+        if (anomaly != null || (responseTimeMs > SLOW_RESPONSE_MS
+                && !routeBaselineService.isWarm(routeId, RouteBaselineService.Metric.RESPONSE_TIME))) {
             triggerAnomalyAnalysis(routeId, "HIGH_RESPONSE_TIME", responseTimeMs);
         }
 
@@ -152,6 +161,12 @@ public class AnalyticsService {
                     "previousMinuteRejections", minuteMetrics.getRejectedPreviousMinute()
             ));
 
+            // Distinct clients from the HyperLogLog sketches
+            dashboard.put("uniqueClients", distinctClientService.getDistinctClientStats());
+
+            // Per-route baselines and the anomalies flagged against them
+            dashboard.put("routeBaselines", routeBaselineService.getBaselineStats());
+
             // Route-specific metrics with AI enhancement
             List<Map<String, Object>> routeAnalytics = getRouteAnalytics();
             dashboard.put("routeAnalytics", routeAnalytics);
@@ -279,11 +294,15 @@ public class AnalyticsService {
             intelligence.put("recentPatterns", recentPatterns);
 
             // Real-time security metrics
+            List<String> unresolvedIps = new ArrayList<>();
+            List<Map<String, Object>> geographicThreats = getGeographicThreats(unresolvedIps);
             intelligence.put("realTimeMetrics", Map.of(
                     "currentThreatLevel", calculateCurrentThreatLevel(),
                     "attacksInLastHour", getAttacksInLastHour(),
                     "topAttackVectors", getTopAttackVectors(),
-                    "geographicThreats", getGeographicThreats()
+                    "geographicThreats", geographicThreats,
+                    "geographicThreatsPartial", !unresolvedIps.isEmpty(),
+                    "ipsPendingGeolocation", unresolvedIps.size()
             ));
 
             intelligence.put("timestamp", LocalDateTime.now());
@@ -461,6 +480,42 @@ public class AnalyticsService {
         }
     }
 
+    /**
+     * Write the per-route counters for {@link CounterSnapshotService}
+     */
+    public void writeCounters(DataOutputStream out) throws IOException {
+        writeCounts(out, routeRequestCounts);
+        writeCounts(out, routeRejectionCounts);
+        List<RouteMetrics> metrics = new ArrayList<>(routeMetricsMap.values());
+        out.writeInt(metrics.size());
+        for (RouteMetrics routeMetrics : metrics) {
+            routeMetrics.write(out);
+        }
+    }
+
+    /**
+     * Parse counters from a snapshot without touching the live ones; the returned action adds
+     * them to the current counters
+     */
+    public Runnable readCounters(DataInputStream in) throws IOException {
+        Map<String, AtomicLong> requestCounts = new HashMap<>();
+        Map<String, AtomicLong> rejectionCounts = new HashMap<>();
+        readCounts(in, requestCounts);
+        readCounts(in, rejectionCounts);
+        int routes = in.readInt();
+        List<RouteMetrics> restored = new ArrayList<>(routes);
+        for (int i = 0; i < routes; i++) {
+            restored.add(RouteMetrics.read(in));
+        }
+        return () -> {
+            addCounts(requestCounts, routeRequestCounts);
+            addCounts(rejectionCounts, routeRejectionCounts);
+            for (RouteMetrics metrics : restored) {
+                routeMetricsMap.computeIfAbsent(metrics.routeId, RouteMetrics::new).addRestored(metrics);
+            }
+        };
+    }
+
     // Private helper methods
 
     private void initializeRouteMetrics() {
@@ -468,6 +523,28 @@ public class AnalyticsService {
         log.debug("Initializing route metrics storage");
     }
 
+    private static void writeCounts(DataOutputStream out, Map<String, AtomicLong> counts) throws IOException {
+        Map<String, Long> copy = new HashMap<>();
+        counts.forEach((key, count) -> copy.put(key, count.get()));
+        out.writeInt(copy.size());
+        for (Map.Entry<String, Long> entry : copy.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static void readCounts(DataInputStream in, Map<String, AtomicLong> counts) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = in.readUTF();
+            counts.computeIfAbsent(key, k -> new AtomicLong(0)).addAndGet(in.readLong());
+        }
+    }
+
+    private static void addCounts(Map<String, AtomicLong> from, Map<String, AtomicLong> to) {
+        from.forEach((key, count) -> to.computeIfAbsent(key, k -> new AtomicLong(0)).addAndGet(count.get()));
+    }
+
     @Async
     protected void recordSecurityEventAsync(String routeId, String eventType) {
         recordSecurityEventAsync(routeId, eventType, null);
@@ -684,21 +761,19 @@ public class AnalyticsService {
     private Mono<Map<String, Object>> generateAIEnhancedExecutiveSummary(LocalDateTime startDate, LocalDateTime endDate) {
         try {
             // Gather comprehensive security data
-            List<SecurityEvent> events = new ArrayList<>();
+            SecurityDigest digest = null;
             List<Map<String, Object>> alerts = new ArrayList<>();
 
             try {
-                events = securityEventService.getEventsInTimeRange(startDate, endDate);
+                digest = securityDigestService.digest(startDate, endDate);
                 alerts = alertingService.getActiveAlerts();
             } catch (Exception e) {
                 log.warn("Could not fetch some data for executive summary: {}", e.getMessage());
             }
 
             // Calculate comprehensive metrics
-            long totalEvents = events.size();
-            long criticalEvents = events.stream()
-                    .filter(e -> "CRITICAL".equals(e.getThreatLevel()))
-                    .count();
+            long totalEvents = digest != null ? digest.getTotalEvents() : 0L;
+            long criticalEvents = digest != null ? digest.getEventsAtThreatLevel("CRITICAL") : 0L;
 
             long highThreatAlerts = alerts.stream()
                     .filter(alert -> {
@@ -710,7 +785,8 @@ public class AnalyticsService {
             // Get additional context data
             long totalRequests = RequestCountFilter.getTotalRequestCount();
             long totalRejections = RequestCountFilter.getTotalRejectedCount();
-            List<Map<String, Object>> geographicThreats = getGeographicThreats();
+            List<String> unresolvedIps = new ArrayList<>();
+            List<Map<String, Object>> geographicThreats = getGeographicThreats(unresolvedIps);
             List<String> topAttackVectors = getTopAttackVectors();
 
             // Build comprehensive data package for AI
@@ -721,9 +797,13 @@ public class AnalyticsService {
             securityData.put("totalRequests", totalRequests);
             securityData.put("totalRejections", totalRejections);
             securityData.put("geographicThreats", geographicThreats);
+            securityData.put("geographicThreatsPartial", !unresolvedIps.isEmpty());
             securityData.put("topAttackVectors", topAttackVectors);
             securityData.put("analysisStartDate", startDate);
             securityData.put("analysisEndDate", endDate);
+            if (digest != null) {
+                securityData.put("digest", digest);
+            }
 
             // Get AI-powered analysis (now returns Mono)
             return openAIAnalyticsService.generateExecutiveSummary(securityData)
@@ -736,6 +816,8 @@ public class AnalyticsService {
                         summary.put("highThreatAlerts", highThreatAlerts);
                         summary.put("aiAnalysis", aiAnalysis);
                         summary.put("geographicThreatsCount", geographicThreats.size());
+                        summary.put("geographicThreatsPartial", !unresolvedIps.isEmpty());
+                        summary.put("ipsPendingGeolocation", unresolvedIps.size());
                         summary.put("topAttackVectors", topAttackVectors);
 
                         // Determine overall posture from AI or fallback logic
@@ -966,37 +1048,70 @@ public class AnalyticsService {
     @Autowired
     private OpenAIAnalyticsService openAIAnalyticsService;
 
-    private List<Map<String, Object>> getGeographicThreats() {
+    @Autowired
+    private HotEventWindowService hotEventWindowService;
+
+    @Autowired
+    private SecurityDigestService securityDigestService;
+
+    @Autowired
+    private DistinctClientService distinctClientService;
+
+    @Autowired
+    private RouteBaselineService routeBaselineService;
+
+    /**
+     * Suspicious countries over the last 24 hours. IPs without a cached location are left out
+     * and added to unresolvedIps, so callers can mark the result as partial.
+     */
+    private List<Map<String, Object>> getGeographicThreats(List<String> unresolvedIps) {
         List<Map<String, Object>> threats = new ArrayList<>();
 
         try {
             LocalDateTime since = LocalDateTime.now().minusHours(24);
 
-            // Get recent security events
-            List<SecurityEvent> recentEvents = new ArrayList<>();
-            try {
-                recentEvents = securityEventService.getEventsInTimeRange(since, LocalDateTime.now());
-            } catch (Exception e) {
-                log.warn("Could not fetch security events for geographic analysis: {}", e.getMessage());
-                return threats; // Return empty list if we can't get events
+            // Event and rejection counts per IP, from the hot window when it covers the last 24 hours
+            Map<String, Long> eventsByIp;
+            Map<String, Long> rejectionsByIp;
+            if (hotEventWindowService.covers(since)) {
+                eventsByIp = hotEventWindowService.countBy(
+                        HotEventWindowService.EventFilter.since(since), HotEventWindowService.Column.CLIENT_IP);
+                rejectionsByIp = hotEventWindowService.countBy(
+                        HotEventWindowService.EventFilter.since(since).eventType("REJECTION"),
+                        HotEventWindowService.Column.CLIENT_IP);
+            } else {
+                List<SecurityEvent> recentEvents;
+                try {
+                    recentEvents = securityEventService.getEventsInTimeRange(since, LocalDateTime.now());
+                } catch (Exception e) {
+                    log.warn("Could not fetch security events for geographic analysis: {}", e.getMessage());
+                    return threats; // Return empty list if we can't get events
+                }
+                eventsByIp = recentEvents.stream()
+                        .filter(e -> e.getClientIp() != null)
+                        .collect(Collectors.groupingBy(SecurityEvent::getClientIp, Collectors.counting()));
+                rejectionsByIp = recentEvents.stream()
+                        .filter(e -> e.getClientIp() != null && "REJECTION".equals(e.getEventType()))
+                        .collect(Collectors.groupingBy(SecurityEvent::getClientIp, Collectors.counting()));
             }
 
-            // Group events by IP address (exclude localhost)
-            Map<String, List<SecurityEvent>> eventsByIp = recentEvents.stream()
-                    .filter(e -> e.getClientIp() != null &&
-                            !e.getClientIp().equals("127.0.0.1") &&
-                            !e.getClientIp().equals("::1"))
-                    .collect(Collectors.groupingBy(SecurityEvent::getClientIp));
-
             // Analyze each IP for geographic patterns
             Map<String, GeographicThreatData> countryThreats = new HashMap<>();
 
-            for (Map.Entry<String, List<SecurityEvent>> entry : eventsByIp.entrySet()) {
+            for (Map.Entry<String, Long> entry : eventsByIp.entrySet()) {
                 String ip = entry.getKey();
-                List<SecurityEvent> ipEvents = entry.getValue();
 
-                // Get geolocation data
-                GeolocationService.GeolocationData location = geolocationService.getLocation(ip);
+                // Exclude localhost
+                if (ip == null || ip.equals("127.0.0.1") || ip.equals("::1")) {
+                    continue;
+                }
+
+                // Only use cached geolocation data; unresolved IPs are looked up in the background
+                GeolocationService.GeolocationData location = geolocationService.getLocationIfCached(ip);
+                if (location == null) {
+                    unresolvedIps.add(ip);
+                    continue;
+                }
                 String country = location.getCountry();
 
                 // Skip if country is unknown or local
@@ -1005,11 +1120,8 @@ public class AnalyticsService {
                 }
 
                 // Count rejections and total events for this IP
-                long rejections = ipEvents.stream()
-                        .filter(e -> "REJECTION".equals(e.getEventType()))
-                        .count();
-
-                long totalEvents = ipEvents.size();
+                long rejections = rejectionsByIp.getOrDefault(ip, 0L);
+                long totalEvents = entry.getValue();
 
                 // Update country-level threat data
                 GeographicThreatData threatData = countryThreats.computeIfAbsent(country,
@@ -1048,8 +1160,12 @@ public class AnalyticsService {
                 return rejectionsB.compareTo(rejectionsA);
             });
 
-            log.info("Identified {} geographic threats from {} countries",
-                    threats.size(), countryThreats.size());
+            if (!unresolvedIps.isEmpty()) {
+                geolocationService.prefetch(unresolvedIps);
+            }
+
+            log.info("Identified {} geographic threats from {} countries ({} IPs pending geolocation)",
+                    threats.size(), countryThreats.size(), unresolvedIps.size());
 
         } catch (Exception e) {
             log.error("Error analyzing geographic threats: {}", e.getMessage(), e);
@@ -1060,7 +1176,8 @@ public class AnalyticsService {
 
     private static class GeographicThreatData {
         private final String country;
-        private final Set<String> uniqueIPs = new HashSet<>();
+        // IPs arrive once each from the per-IP counts, so a counter is enough
+        private int uniqueIPs = 0;
         private final Map<String, Integer> cityCount = new HashMap<>();
         private final List<String> suspiciousIPs = new ArrayList<>();
         private long totalEvents = 0;
@@ -1071,7 +1188,7 @@ public class AnalyticsService {
         }
 
         public void addIP(String ip, long events, long rejections, String city) {
-            uniqueIPs.add(ip);
+            uniqueIPs++;
             totalEvents += events;
             totalRejections += rejections;
 
@@ -1092,7 +1209,7 @@ public class AnalyticsService {
             // 2. High overall rejection rate from this country
             // 3. High total rejections from this country
             // 4. Multiple suspicious IPs
-            return uniqueIPs.size() >= 2 ||
+            return uniqueIPs >= 2 ||
                     getRejectionRate() > 0.3 ||
                     totalRejections > 15 ||
                     suspiciousIPs.size() >= 2;
@@ -1125,7 +1242,7 @@ public class AnalyticsService {
 
         // Getters
         public String getCountry() { return country; }
-        public int getUniqueIPs() { return uniqueIPs.size(); }
+        public int getUniqueIPs() { return uniqueIPs; }
         public long getTotalEvents() { return totalEvents; }
         public long getTotalRejections() { return totalRejections; }
         public List<String> getSuspiciousIPs() { return suspiciousIPs; }
@@ -1194,6 +1311,46 @@ public class AnalyticsService {
 
         public Map<String, AtomicLong> getRejectionReasons() { return rejectionReasons; }
         public LocalDateTime getLastActivity() { return lastActivity; }
+
+        public synchronized void write(DataOutputStream out) throws IOException {
+            out.writeUTF(routeId);
+            out.writeLong(totalRequests.get());
+            out.writeLong(totalRejections.get());
+            writeCounts(out, rejectionReasons);
+            out.writeInt(responseTimes.size());
+            for (long responseTime : responseTimes) {
+                out.writeLong(responseTime);
+            }
+            out.writeLong(lastActivity.toEpochSecond(ZoneOffset.UTC));
+        }
+
+        public static RouteMetrics read(DataInputStream in) throws IOException {
+            RouteMetrics metrics = new RouteMetrics(in.readUTF());
+            metrics.totalRequests.set(in.readLong());
+            metrics.totalRejections.set(in.readLong());
+            readCounts(in, metrics.rejectionReasons);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                metrics.responseTimes.add(in.readLong());
+            }
+            metrics.lastActivity = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+            return metrics;
+        }
+
+        // Restored values precede anything recorded since startup
+        public synchronized void addRestored(RouteMetrics restored) {
+            totalRequests.addAndGet(restored.totalRequests.get());
+            totalRejections.addAndGet(restored.totalRejections.get());
+            addCounts(restored.rejectionReasons, rejectionReasons);
+            List<Long> merged = new ArrayList<>(restored.responseTimes.size() + responseTimes.size());
+            merged.addAll(restored.responseTimes);
+            merged.addAll(responseTimes);
+            responseTimes.clear();
+            responseTimes.addAll(merged.subList(Math.max(0, merged.size() - 100), merged.size()));
+            if (restored.lastActivity.isAfter(lastActivity)) {
+                lastActivity = restored.lastActivity;
+            }
+        }
     }
 
     // Inner class for AI metrics
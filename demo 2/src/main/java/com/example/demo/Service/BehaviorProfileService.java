@@ -0,0 +1,410 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.SecurityEventView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a compact behavioral profile per client IP, updated as events are recorded,
+ * so behavioral analysis reads from memory instead of reloading event history.
+ */
+@Service
+public class BehaviorProfileService {
+
+    private static final Logger log = LoggerFactory.getLogger(BehaviorProfileService.class);
+
+    // Profile bounds; past the maximum the least recently seen tenth is evicted
+    private static final int MAX_PROFILES = 50000;
+    private static final int EVICT_TO_PROFILES = MAX_PROFILES * 9 / 10;
+    private static final int TOP_PATHS = 10;
+    private static final long IDLE_PROFILE_SECONDS = 30L * 24 * 3600;
+
+    // Time constant of the decayed event count; the long-run hourly rate is count / time constant
+    private static final double RATE_TIME_CONSTANT_HOURS = 7 * 24;
+
+    // Days of history replayed into profiles at startup
+    private static final int WARM_UP_DAYS = 7;
+
+    private final SecurityEventStreamService eventStreamService;
+
+    // Ingest only locks the profile it updates
+    private final Map<String, BehaviorProfile> profiles = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    // Events before this instant are loaded by the warm-up, later ones arrive through record()
+    private final long liveSinceEpochSecond = nowEpochSecond();
+
+    @Autowired
+    public BehaviorProfileService(SecurityEventStreamService eventStreamService) {
+        this.eventStreamService = eventStreamService;
+    }
+
+    /**
+     * Add a recorded event to its client's profile
+     */
+    public void record(SecurityEvent event) {
+        if (event == null || event.getTimestamp() == null) {
+            return;
+        }
+        if (event.getTimestamp().toEpochSecond(ZoneOffset.UTC) < liveSinceEpochSecond) {
+            return; // Covered by the warm-up replay
+        }
+        record(event.getClientIp(), event.getTimestamp(), event.getRequestPath(), event.getEventType());
+    }
+
+    /**
+     * Get a point-in-time view of a client's profile, or null if the client is unknown
+     */
+    public BehaviorSnapshot getProfile(String clientIp) {
+        BehaviorProfile profile = profiles.get(clientIp);
+        return profile != null ? profile.snapshot(nowEpochSecond()) : null;
+    }
+
+    /**
+     * Get views of every profile with at least the given number of events in the last 24 hours
+     */
+    public List<BehaviorSnapshot> getRecentlyActiveProfiles(int minRecentEvents) {
+        long now = nowEpochSecond();
+        List<BehaviorSnapshot> active = new ArrayList<>();
+        for (BehaviorProfile profile : profiles.values()) {
+            BehaviorSnapshot snapshot = profile.snapshot(now);
+            if (snapshot.getRecentEventCount() >= minRecentEvents) {
+                active.add(snapshot);
+            }
+        }
+        return active;
+    }
+
+    public int getProfileCount() {
+        return profiles.size();
+    }
+
+    /**
+     * Rebuild profiles from recent history after a restart
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpProfiles() {
+        try {
+            LocalDateTime liveSince = LocalDateTime.ofEpochSecond(liveSinceEpochSecond, 0, ZoneOffset.UTC);
+            long replayed = eventStreamService.forEachEvent(liveSince.minusDays(WARM_UP_DAYS), liveSince, this::record);
+            log.info("Warmed up {} behavior profiles from {} events", getProfileCount(), replayed);
+        } catch (Exception e) {
+            log.error("Error warming up behavior profiles: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drop profiles of clients that have been idle for a long time
+     */
+    @Scheduled(fixedDelay = 3600000) // Every hour
+    public void evictIdleProfiles() {
+        long cutoff = nowEpochSecond() - IDLE_PROFILE_SECONDS;
+        int before = profiles.size();
+        profiles.values().removeIf(profile -> profile.lastSeenEpochSecond() < cutoff);
+        int removed = before - profiles.size();
+        if (removed > 0) {
+            log.debug("Evicted {} idle behavior profiles", removed);
+        }
+    }
+
+    private void record(SecurityEventView event) {
+        record(event.getClientIp(), event.getTimestamp(), event.getRequestPath(), event.getEventType());
+    }
+
+    private void record(String clientIp, LocalDateTime timestamp, String requestPath, String eventType) {
+        if (clientIp == null || timestamp == null) {
+            return;
+        }
+
+        BehaviorProfile profile = profiles.get(clientIp);
+        if (profile == null) {
+            if (profiles.size() >= MAX_PROFILES) {
+                evictLeastRecentlySeen();
+            }
+            profile = profiles.computeIfAbsent(clientIp, BehaviorProfile::new);
+        }
+        profile.record(timestamp.toEpochSecond(ZoneOffset.UTC), requestPath, "REJECTION".equals(eventType));
+    }
+
+    // One thread trims the map back below the bound; the others carry on recording
+    private void evictLeastRecentlySeen() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Profiles created but not yet recorded into (last seen 0) are left alone
+            long[] lastSeen = profiles.values().stream().mapToLong(BehaviorProfile::lastSeenEpochSecond)
+                    .filter(seen -> seen > 0).sorted().toArray();
+            int excess = lastSeen.length - EVICT_TO_PROFILES;
+            if (excess <= 0) {
+                return;
+            }
+            long cutoff = lastSeen[excess - 1];
+            profiles.values().removeIf(profile -> {
+                long seen = profile.lastSeenEpochSecond();
+                return seen > 0 && seen <= cutoff;
+            });
+            log.debug("Evicted behavior profiles last seen before {}; {} remain", cutoff, profiles.size());
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    // Event timestamps are naive local times, so "now" is taken on the same scale
+    private static long nowEpochSecond() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Mutable per-IP state. Recent activity lives in a 24-slot ring indexed by hour of day;
+     * hours that roll out of the ring are folded into the weekly active-hour masks.
+     */
+    private static final class BehaviorProfile {
+        private final String clientIp;
+
+        private double decayedCount;
+        private long decayedAtEpochSecond;
+
+        private int currentWeekHourMask;
+        private int previousWeekHourMask;
+        private long maskWeek;
+
+        private final int[] recentEvents = new int[24];
+        private final int[] recentRejections = new int[24];
+        private final int[] recentUnfamiliarPaths = new int[24];
+        private long ringEpochHour = -1;
+
+        // Space-Saving summary of the most requested paths
+        private final TopKSketch topPaths = new TopKSketch(TOP_PATHS);
+
+        private long totalEvents;
+        private long lastSeenEpochSecond;
+
+        BehaviorProfile(String clientIp) {
+            this.clientIp = clientIp;
+        }
+
+        synchronized long lastSeenEpochSecond() {
+            return lastSeenEpochSecond;
+        }
+
+        synchronized void record(long epochSecond, String path, boolean rejected) {
+            long epochHour = Math.floorDiv(epochSecond, 3600);
+
+            // Decayed count as of decayedAt; an event older than that is added already decayed
+            long elapsed = epochSecond - decayedAtEpochSecond;
+            if (elapsed >= 0) {
+                decayedCount *= Math.exp(-elapsed / (RATE_TIME_CONSTANT_HOURS * 3600));
+                decayedAtEpochSecond = epochSecond;
+                decayedCount += 1.0;
+            } else {
+                decayedCount += Math.exp(elapsed / (RATE_TIME_CONSTANT_HOURS * 3600));
+            }
+
+            if (ringEpochHour < 0) {
+                ringEpochHour = epochHour;
+            }
+            advanceRing(epochHour);
+
+            boolean unfamiliarPath = path != null && !topPaths.contains(path);
+            if (epochHour > ringEpochHour - 24) {
+                int slot = (int) Math.floorMod(epochHour, 24L);
+                recentEvents[slot]++;
+                if (rejected) {
+                    recentRejections[slot]++;
+                }
+                if (unfamiliarPath && topPaths.getTotal() > 0) {
+                    recentUnfamiliarPaths[slot]++;
+                }
+            } else {
+                markActiveHour(epochHour);
+            }
+
+            if (path != null) {
+                topPaths.add(path);
+            }
+
+            totalEvents++;
+            lastSeenEpochSecond = Math.max(lastSeenEpochSecond, epochSecond);
+        }
+
+        synchronized BehaviorSnapshot snapshot(long nowEpochSecond) {
+            long nowHour = Math.floorDiv(nowEpochSecond, 3600);
+
+            int[] hourly = new int[24];
+            int recentEventCount = 0;
+            int recentRejectionCount = 0;
+            int unfamiliarPathCount = 0;
+            for (int slot = 0; slot < 24; slot++) {
+                // Hour currently held by this slot, read without advancing the ring
+                long slotHour = ringEpochHour - Math.floorMod(ringEpochHour - slot, 24L);
+                if (ringEpochHour < 0 || slotHour <= nowHour - 24) {
+                    continue;
+                }
+                hourly[slot] = recentEvents[slot];
+                recentEventCount += recentEvents[slot];
+                recentRejectionCount += recentRejections[slot];
+                unfamiliarPathCount += recentUnfamiliarPaths[slot];
+            }
+
+            double elapsedHours = Math.max(0, nowEpochSecond - decayedAtEpochSecond) / 3600.0;
+            double hourlyRate = decayedCount * Math.exp(-elapsedHours / RATE_TIME_CONSTANT_HOURS)
+                    / RATE_TIME_CONSTANT_HOURS;
+
+            long week = Math.floorDiv(nowHour, 24L * 7);
+            int baselineMask = 0;
+            if (week == maskWeek) {
+                baselineMask = currentWeekHourMask | previousWeekHourMask;
+            } else if (week == maskWeek + 1) {
+                baselineMask = currentWeekHourMask;
+            }
+
+            Map<String, Long> paths = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : topPaths.top(TOP_PATHS)) {
+                paths.put(entry.getKey(), entry.getValue());
+            }
+
+            return new BehaviorSnapshot(clientIp, hourlyRate, baselineMask, hourly, recentEventCount,
+                    recentRejectionCount, unfamiliarPathCount, paths, totalEvents,
+                    LocalDateTime.ofEpochSecond(lastSeenEpochSecond, 0, ZoneOffset.UTC));
+        }
+
+        private void advanceRing(long epochHour) {
+            if (epochHour <= ringEpochHour) {
+                return;
+            }
+            long steps = Math.min(epochHour - ringEpochHour, 24);
+            for (long hour = epochHour - steps + 1; hour <= epochHour; hour++) {
+                int slot = (int) Math.floorMod(hour, 24L);
+                if (recentEvents[slot] > 0) {
+                    // The slot still holds its hour from before the advance, a day earlier only
+                    // when the gap is under a day; older hours land in their own weeks or are dropped
+                    markActiveHour(ringEpochHour - Math.floorMod(ringEpochHour - slot, 24L));
+                }
+                recentEvents[slot] = 0;
+                recentRejections[slot] = 0;
+                recentUnfamiliarPaths[slot] = 0;
+            }
+            ringEpochHour = epochHour;
+        }
+
+        private void markActiveHour(long epochHour) {
+            long week = Math.floorDiv(epochHour, 24L * 7);
+            if (week > maskWeek) {
+                previousWeekHourMask = week == maskWeek + 1 ? currentWeekHourMask : 0;
+                currentWeekHourMask = 0;
+                maskWeek = week;
+            }
+
+            int bit = 1 << (int) Math.floorMod(epochHour, 24L);
+            if (week == maskWeek) {
+                currentWeekHourMask |= bit;
+            } else if (week == maskWeek - 1) {
+                previousWeekHourMask |= bit;
+            }
+        }
+    }
+
+    /**
+     * Immutable view of a behavior profile
+     */
+    public static class BehaviorSnapshot {
+        private final String clientIp;
+        private final double averageHourlyEvents;
+        private final int activeHourMask;
+        private final int[] recentHourlyEvents;
+        private final int recentEventCount;
+        private final int recentRejectionCount;
+        private final int recentUnfamiliarPathCount;
+        private final Map<String, Long> topPaths;
+        private final long totalEvents;
+        private final LocalDateTime lastSeen;
+
+        BehaviorSnapshot(String clientIp, double averageHourlyEvents, int activeHourMask, int[] recentHourlyEvents,
+                         int recentEventCount, int recentRejectionCount, int recentUnfamiliarPathCount,
+                         Map<String, Long> topPaths, long totalEvents, LocalDateTime lastSeen) {
+            this.clientIp = clientIp;
+            this.averageHourlyEvents = averageHourlyEvents;
+            this.activeHourMask = activeHourMask;
+            this.recentHourlyEvents = recentHourlyEvents;
+            this.recentEventCount = recentEventCount;
+            this.recentRejectionCount = recentRejectionCount;
+            this.recentUnfamiliarPathCount = recentUnfamiliarPathCount;
+            this.topPaths = Collections.unmodifiableMap(topPaths);
+            this.totalEvents = totalEvents;
+            this.lastSeen = lastSeen;
+        }
+
+        /**
+         * Hours of day the client was active before the last 24 hours (this week and last)
+         */
+        public Set<Integer> getActiveHours() {
+            return hoursOf(activeHourMask);
+        }
+
+        /**
+         * Hours of day with activity in the last 24 hours
+         */
+        public Set<Integer> getRecentActiveHours() {
+            int mask = 0;
+            for (int hour = 0; hour < 24; hour++) {
+                if (recentHourlyEvents[hour] > 0) {
+                    mask |= 1 << hour;
+                }
+            }
+            return hoursOf(mask);
+        }
+
+        public int getRecentEventsInHour(int hour) {
+            return recentHourlyEvents[hour];
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("clientIp", clientIp);
+            map.put("averageHourlyEvents", averageHourlyEvents);
+            map.put("activeHours", getActiveHours());
+            map.put("recentActiveHours", getRecentActiveHours());
+            map.put("recentEventCount", recentEventCount);
+            map.put("commonPathsCount", topPaths.size());
+            map.put("topPaths", topPaths);
+            map.put("totalEvents", totalEvents);
+            map.put("lastUpdated", lastSeen);
+            return map;
+        }
+
+        private static Set<Integer> hoursOf(int mask) {
+            Set<Integer> hours = new TreeSet<>();
+            for (int hour = 0; hour < 24; hour++) {
+                if ((mask & (1 << hour)) != 0) {
+                    hours.add(hour);
+                }
+            }
+            return hours;
+        }
+
+        // Getters
+        public String getClientIp() { return clientIp; }
+        public double getAverageHourlyEvents() { return averageHourlyEvents; }
+        public int getRecentEventCount() { return recentEventCount; }
+        public int getRecentRejectionCount() { return recentRejectionCount; }
+        public int getRecentUnfamiliarPathCount() { return recentUnfamiliarPathCount; }
+        public Map<String, Long> getTopPaths() { return topPaths; }
+        public long getTotalEvents() { return totalEvents; }
+        public LocalDateTime getLastSeen() { return lastSeen; }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.Service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Something that can answer a chat completion prompt. {@link OpenAIService} picks one
+ * by the openai.backend property and adds caching, coalescing and failure handling.
+ */
+public interface ChatCompletionBackend {
+
+    /**
+     * Name used to select this backend with openai.backend
+     */
+    String getName();
+
+    /**
+     * Model identifier, part of the response cache key
+     */
+    String getModel();
+
+    /**
+     * Complete the prompt; errors are signalled through the Mono
+     */
+    Mono<String> complete(String systemPrompt, String userPrompt);
+}
@@ -1,6 +1,6 @@
 package com.example.demo.Service;
 
-import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.SecurityEventView;
 import com.example.demo.Entity.ThreatAlert;
 import com.example.demo.Repository.SecurityEventRepository;
 import com.example.demo.Repository.ThreatAlertRepository;
@@ -14,11 +14,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,14 +30,26 @@ public class ComplianceReportingService {
 
     private final SecurityEventRepository eventRepository;
     private final ThreatAlertRepository alertRepository;
+    private final SecurityEventStreamService eventStreamService;
     private final ObjectMapper objectMapper;
 
     // Compliance frameworks and their requirements
     private final Map<String, ComplianceFramework> supportedFrameworks = new ConcurrentHashMap<>();
 
-    // Compliance metrics cache
-    private final Map<String, ComplianceMetrics> complianceCache = new ConcurrentHashMap<>();
-    private LocalDateTime lastCacheUpdate = LocalDateTime.now();
+    // Latest hourly metrics per framework
+    private final Map<String, ComplianceMetrics> currentMetrics = new ConcurrentHashMap<>();
+
+    // Per-day partial aggregates for closed days, keyed by framework and day. Closed days never
+    // change, so entries are only evicted for size. Access-ordered so the least recently used day goes first.
+    private static final int MAX_CACHED_DAY_PARTIALS = 2000;
+    private final Map<String, PartialAggregate> dayPartialCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PartialAggregate> eldest) {
+            return size() > MAX_CACHED_DAY_PARTIALS;
+        }
+    };
+    private final AtomicLong dayPartialHits = new AtomicLong();
+    private final AtomicLong dayPartialMisses = new AtomicLong();
 
     // Compliance thresholds
     private static final double GDPR_BREACH_NOTIFICATION_HOURS = 72;
@@ -46,9 +60,11 @@ public class ComplianceReportingService {
 
     @Autowired
     public ComplianceReportingService(SecurityEventRepository eventRepository,
-                                      ThreatAlertRepository alertRepository) {
+                                      ThreatAlertRepository alertRepository,
+                                      SecurityEventStreamService eventStreamService) {
         this.eventRepository = eventRepository;
         this.alertRepository = alertRepository;
+        this.eventStreamService = eventStreamService;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -99,25 +115,28 @@ public class ComplianceReportingService {
             report.put("generatedAt", LocalDateTime.now());
             report.put("reportId", generateReportId(frameworkName));
 
+            // One streamed pass over the period feeds every control and report section
+            ComplianceScan scan = scanFramework(framework, startDate, endDate);
+            ComplianceMetrics metrics = metricsFromScan(framework, scan);
+
             // Executive summary
-            Map<String, Object> executiveSummary = generateExecutiveSummary(framework, startDate, endDate);
+            Map<String, Object> executiveSummary = generateExecutiveSummary(framework, metrics, startDate, endDate);
             report.put("executiveSummary", executiveSummary);
 
             // Compliance score and status
-            ComplianceMetrics metrics = calculateComplianceMetrics(framework, startDate, endDate);
             report.put("complianceScore", metrics.getOverallScore());
             report.put("complianceStatus", metrics.getComplianceStatus());
 
             // Control assessments
-            List<Map<String, Object>> controlAssessments = assessComplianceControls(framework, startDate, endDate);
+            List<Map<String, Object>> controlAssessments = assessComplianceControls(framework, scan);
             report.put("controlAssessments", controlAssessments);
 
             // Incidents and violations
-            Map<String, Object> incidentAnalysis = analyzeSecurityIncidents(framework, startDate, endDate);
+            Map<String, Object> incidentAnalysis = analyzeSecurityIncidents(framework, scan);
             report.put("incidentAnalysis", incidentAnalysis);
 
             // Risk assessment
-            Map<String, Object> riskAssessment = performComplianceRiskAssessment(framework, startDate, endDate);
+            Map<String, Object> riskAssessment = performComplianceRiskAssessment(framework, scan);
             report.put("riskAssessment", riskAssessment);
 
             // Remediation recommendations
@@ -125,11 +144,11 @@ public class ComplianceReportingService {
             report.put("recommendations", recommendations);
 
             // Audit trail and evidence
-            Map<String, Object> auditTrail = generateAuditTrail(framework, startDate, endDate);
+            Map<String, Object> auditTrail = generateAuditTrail(framework, scan);
             report.put("auditTrail", auditTrail);
 
             // Framework-specific sections
-            Map<String, Object> frameworkSpecific = generateFrameworkSpecificReport(framework, startDate, endDate);
+            Map<String, Object> frameworkSpecific = generateFrameworkSpecificReport(framework, scan);
             report.put("frameworkSpecificAnalysis", frameworkSpecific);
 
             log.info("Compliance report generated successfully for {}", frameworkName);
@@ -152,7 +171,8 @@ public class ComplianceReportingService {
 
         try {
             LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = endDate.minusDays(30); // Last 30 days
+            // Last 30 days, aligned to midnight so every day but today comes from the day cache
+            LocalDateTime startDate = endDate.toLocalDate().minusDays(30).atStartOfDay();
 
             // Overall compliance status across all frameworks
             Map<String, Object> overallStatus = new HashMap<>();
@@ -162,7 +182,7 @@ public class ComplianceReportingService {
                 String frameworkName = entry.getKey();
                 ComplianceFramework framework = entry.getValue();
 
-                ComplianceMetrics metrics = getOrCalculateMetrics(framework, startDate, endDate);
+                ComplianceMetrics metrics = calculateComplianceMetrics(framework, startDate, endDate);
 
                 Map<String, Object> frameworkStatus = new HashMap<>();
                 frameworkStatus.put("framework", frameworkName);
@@ -203,6 +223,7 @@ public class ComplianceReportingService {
             List<Map<String, Object>> upcomingDeadlines = getUpcomingComplianceDeadlines();
             dashboard.put("upcomingDeadlines", upcomingDeadlines);
 
+            dashboard.put("metricsCache", getMetricsCacheStats());
             dashboard.put("lastUpdated", LocalDateTime.now());
 
         } catch (Exception e) {
@@ -213,6 +234,24 @@ public class ComplianceReportingService {
         return dashboard;
     }
 
+    /**
+     * Get hit rate and size of the per-day compliance aggregate cache
+     */
+    public Map<String, Object> getMetricsCacheStats() {
+        long hits = dayPartialHits.get();
+        long misses = dayPartialMisses.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (dayPartialCache) {
+            stats.put("entries", dayPartialCache.size());
+        }
+        stats.put("maxEntries", MAX_CACHED_DAY_PARTIALS);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        return stats;
+    }
+
     /**
      * Assess specific compliance control
      */
@@ -239,7 +278,7 @@ public class ComplianceReportingService {
             assessment.put("severity", control.getSeverity());
 
             // Assessment results
-            ControlAssessmentResult result = assessControl(control, startDate, endDate);
+            ControlAssessmentResult result = scanControls(List.of(control), startDate, endDate).getResult(control);
             assessment.put("status", result.getStatus());
             assessment.put("score", result.getScore());
             assessment.put("findings", result.getFindings());
@@ -304,12 +343,18 @@ public class ComplianceReportingService {
             LocalDateTime endDate = LocalDateTime.now();
             LocalDateTime startDate = endDate.minusHours(1); // Check last hour
 
+            // Control ids are unique across frameworks, so one pass covers all of them
+            List<ComplianceControl> allControls = supportedFrameworks.values().stream()
+                    .flatMap(framework -> framework.getControls().stream())
+                    .collect(Collectors.toList());
+            ComplianceScan scan = scanControls(allControls, startDate, endDate);
+
             for (ComplianceFramework framework : supportedFrameworks.values()) {
                 // Check for immediate compliance violations
-                checkImmediateViolations(framework, startDate, endDate);
+                checkImmediateViolations(framework, scan);
 
                 // Update compliance metrics cache
-                updateComplianceCache(framework, startDate, endDate);
+                updateComplianceCache(framework, scan);
             }
 
             log.debug("Scheduled compliance check completed");
@@ -342,8 +387,10 @@ public class ComplianceReportingService {
                     "capabilities", Arrays.asList("Real-time monitoring", "Automated assessment", "Risk analysis")
             ));
 
+            ComplianceScan scan = scanFramework(framework, startDate, endDate);
+
             // Security events audit
-            List<SecurityEvent> securityEvents = eventRepository.findByTimestampBetween(startDate, endDate);
+            EventTally securityEvents = scan.events;
             Map<String, Object> securityAudit = auditSecurityEvents(framework, securityEvents);
             auditReport.put("securityEventsAudit", securityAudit);
 
@@ -356,12 +403,12 @@ public class ComplianceReportingService {
             auditReport.put("dataProtectionAudit", dataProtectionAudit);
 
             // Incident response audit
-            List<ThreatAlert> threats = alertRepository.findRecentAlerts(startDate);
+            List<ThreatAlert> threats = scan.alerts;
             Map<String, Object> incidentAudit = auditIncidentResponse(framework, threats);
             auditReport.put("incidentResponseAudit", incidentAudit);
 
             // Compliance gaps and recommendations
-            List<Map<String, Object>> gaps = identifyComplianceGaps(framework, startDate, endDate);
+            List<Map<String, Object>> gaps = identifyComplianceGaps(framework, metricsFromScan(framework, scan));
             auditReport.put("complianceGaps", gaps);
 
             // Risk assessment
@@ -480,19 +527,18 @@ public class ComplianceReportingService {
         return frameworkName + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
     }
 
-    private Map<String, Object> generateExecutiveSummary(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> generateExecutiveSummary(ComplianceFramework framework, ComplianceMetrics metrics,
+                                                         LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Object> summary = new HashMap<>();
 
         try {
-            ComplianceMetrics metrics = calculateComplianceMetrics(framework, startDate, endDate);
-
             summary.put("overallComplianceScore", metrics.getOverallScore());
             summary.put("complianceStatus", metrics.getComplianceStatus());
             summary.put("totalControls", framework.getControls().size());
             summary.put("compliantControls", metrics.getCompliantControls());
             summary.put("nonCompliantControls", metrics.getNonCompliantControls());
             summary.put("criticalIssues", metrics.getCriticalIssues().size());
-            summary.put("improvementFromLastPeriod", calculateImprovementTrend(framework, startDate, endDate));
+            summary.put("improvementFromLastPeriod", calculateImprovementTrend(framework, metrics, startDate, endDate));
 
             // Key findings
             List<String> keyFindings = new ArrayList<>();
@@ -518,6 +564,10 @@ public class ComplianceReportingService {
     }
 
     private ComplianceMetrics calculateComplianceMetrics(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+        return metricsFromScan(framework, scanFramework(framework, startDate, endDate));
+    }
+
+    private ComplianceMetrics metricsFromScan(ComplianceFramework framework, ComplianceScan scan) {
         ComplianceMetrics metrics = new ComplianceMetrics();
 
         try {
@@ -526,7 +576,7 @@ public class ComplianceReportingService {
             List<String> criticalIssues = new ArrayList<>();
 
             for (ComplianceControl control : framework.getControls()) {
-                ControlAssessmentResult result = assessControl(control, startDate, endDate);
+                ControlAssessmentResult result = scan.getResult(control);
 
                 if ("COMPLIANT".equals(result.getStatus())) {
                     compliantControls++;
@@ -551,198 +601,116 @@ public class ComplianceReportingService {
         return metrics;
     }
 
-    private ControlAssessmentResult assessControl(ComplianceControl control, LocalDateTime startDate, LocalDateTime endDate) {
-        ControlAssessmentResult result = new ControlAssessmentResult();
+    /**
+     * Assess the given controls with a single streamed pass over the period's events.
+     * Each control is compiled into an accumulator; the same pass also fills the
+     * shared event tally used by the report sections.
+     */
+    private ComplianceScan scanControls(List<ComplianceControl> controls, LocalDateTime startDate, LocalDateTime endDate) {
+        return evaluateScan(aggregateRange(controls, startDate, endDate), startDate);
+    }
 
-        try {
-            // Get relevant security events for assessment
-            List<SecurityEvent> events = eventRepository.findByTimestampBetween(startDate, endDate);
-            List<ThreatAlert> alerts = alertRepository.findRecentAlerts(startDate);
-
-            // Control-specific assessment logic
-            switch (control.getId()) {
-                case "GDPR-33.1":
-                    result = assessBreachNotificationCompliance(control, alerts);
-                    break;
-                case "SOC2-CC7.1":
-                    result = assessSecurityEventDetection(control, events, alerts);
-                    break;
-                case "ISO-A.12.4.1":
-                    result = assessEventLogging(control, events);
-                    break;
-                case "PCI-10.2":
-                    result = assessAuditTrails(control, events);
-                    break;
-                case "HIPAA-164.312.b":
-                    result = assessAuditControls(control, events);
-                    break;
-                default:
-                    result = performGenericControlAssessment(control, events, alerts);
-                    break;
+    /**
+     * Assess a framework over an arbitrary range by merging per-day partial aggregates.
+     * Whole closed days come from the day cache; today and partial days at either end
+     * of the range are aggregated fresh.
+     */
+    private ComplianceScan scanFramework(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+        PartialAggregate total = new PartialAggregate(compileControls(framework.getControls()));
+        LocalDate today = LocalDate.now();
+        LocalDateTime cursor = startDate;
+
+        while (!cursor.isAfter(endDate)) {
+            LocalDate day = cursor.toLocalDate();
+            // Timestamps are stored with microsecond precision, so this is the last instant of the day
+            LocalDateTime endOfDay = day.plusDays(1).atStartOfDay().minus(1, ChronoUnit.MICROS);
+            boolean wholeDay = cursor.equals(day.atStartOfDay()) && !endDate.isBefore(endOfDay);
+
+            if (wholeDay && day.isBefore(today)) {
+                total.merge(getDayPartial(framework, day, endOfDay));
+            } else {
+                LocalDateTime fragmentEnd = endDate.isBefore(endOfDay) ? endDate : endOfDay;
+                total.merge(aggregateRange(framework.getControls(), cursor, fragmentEnd));
             }
 
-        } catch (Exception e) {
-            log.error("Error assessing control {}: {}", control.getId(), e.getMessage());
-            result.setStatus("ERROR");
-            result.setScore(0.0);
-            result.getFindings().add("Assessment failed: " + e.getMessage());
-        }
-
-        return result;
-    }
-
-    private ControlAssessmentResult assessBreachNotificationCompliance(ComplianceControl control, List<ThreatAlert> alerts) {
-        ControlAssessmentResult result = new ControlAssessmentResult();
-
-        // Check if critical alerts were handled within 72 hours
-        List<ThreatAlert> criticalBreaches = alerts.stream()
-                .filter(a -> "CRITICAL".equals(a.getSeverity()) && "PATTERN_MATCH".equals(a.getAlertType()))
-                .collect(Collectors.toList());
-
-        if (criticalBreaches.isEmpty()) {
-            result.setStatus("COMPLIANT");
-            result.setScore(100.0);
-            result.getFindings().add("No critical security breaches identified in the assessment period");
-        } else {
-            long timelyNotifications = criticalBreaches.stream()
-                    .filter(alert -> {
-                        if (alert.getUpdatedAt() != null) {
-                            long hoursToResponse = ChronoUnit.HOURS.between(alert.getCreatedAt(), alert.getUpdatedAt());
-                            return hoursToResponse <= GDPR_BREACH_NOTIFICATION_HOURS;
-                        }
-                        return false;
-                    })
-                    .count();
-
-            double complianceRate = (double) timelyNotifications / criticalBreaches.size() * 100;
-            result.setScore(complianceRate);
-            result.setStatus(complianceRate >= 100 ? "COMPLIANT" : "NON_COMPLIANT");
-
-            result.getFindings().add(String.format("Breach notification compliance: %.1f%% (%d of %d within 72 hours)",
-                    complianceRate, timelyNotifications, criticalBreaches.size()));
+            cursor = day.plusDays(1).atStartOfDay();
         }
 
-        return result;
-    }
-
-    private ControlAssessmentResult assessSecurityEventDetection(ComplianceControl control, List<SecurityEvent> events, List<ThreatAlert> alerts) {
-        ControlAssessmentResult result = new ControlAssessmentResult();
-
-        long rejectionEvents = events.stream()
-                .filter(e -> "REJECTION".equals(e.getEventType()))
-                .count();
-
-        // Check if security events are being properly detected (alerts generated for rejections)
-        double detectionRate = rejectionEvents > 0 ? (double) alerts.size() / rejectionEvents * 100 : 100;
-
-        result.setScore(Math.min(100.0, detectionRate));
-        result.setStatus(detectionRate >= 50 ? "COMPLIANT" : "NON_COMPLIANT");
-        result.getFindings().add(String.format("Security event detection rate: %.1f%% (%d alerts for %d rejection events)",
-                detectionRate, alerts.size(), rejectionEvents));
-
-        return result;
+        return evaluateScan(total, startDate);
     }
 
-    private ControlAssessmentResult assessEventLogging(ComplianceControl control, List<SecurityEvent> events) {
-        ControlAssessmentResult result = new ControlAssessmentResult();
-
-        // Check if comprehensive logging is in place
-        long totalEvents = events.size();
-        long eventsWithDetails = events.stream()
-                .filter(e -> e.getClientIp() != null && e.getRequestPath() != null)
-                .count();
-
-        double loggingCompleteness = totalEvents > 0 ? (double) eventsWithDetails / totalEvents * 100 : 100;
-
-        result.setScore(loggingCompleteness);
-        result.setStatus(loggingCompleteness >= 95 ? "COMPLIANT" : "NON_COMPLIANT");
-        result.getFindings().add(String.format("Event logging completeness: %.1f%% (%d of %d events properly logged)",
-                loggingCompleteness, eventsWithDetails, totalEvents));
-
-        return result;
-    }
-
-    private ControlAssessmentResult assessAuditTrails(ComplianceControl control, List<SecurityEvent> events) {
-        ControlAssessmentResult result = new ControlAssessmentResult();
-
-        // Check audit trail quality and completeness
-        Map<String, Long> eventTypes = events.stream()
-                .collect(Collectors.groupingBy(SecurityEvent::getEventType, Collectors.counting()));
-
-        boolean hasComprehensiveAuditTrail = eventTypes.size() >= 2 && // Multiple event types
-                events.stream().anyMatch(e -> e.getResponseTimeMs() != null) && // Performance data
-                events.stream().anyMatch(e -> e.getUserAgent() != null); // User context
-
-        result.setScore(hasComprehensiveAuditTrail ? 100.0 : 60.0);
-        result.setStatus(hasComprehensiveAuditTrail ? "COMPLIANT" : "PARTIAL_COMPLIANCE");
-        result.getFindings().add("Audit trail assessment: " +
-                (hasComprehensiveAuditTrail ? "Comprehensive audit trails maintained" : "Limited audit trail data"));
+    private PartialAggregate getDayPartial(ComplianceFramework framework, LocalDate day, LocalDateTime endOfDay) {
+        String key = framework.getName() + "_" + day;
+        PartialAggregate cached;
+        synchronized (dayPartialCache) {
+            cached = dayPartialCache.get(key);
+        }
+        if (cached != null) {
+            dayPartialHits.incrementAndGet();
+            return cached;
+        }
 
-        return result;
+        dayPartialMisses.incrementAndGet();
+        // Computed outside the lock; two callers racing on the same day produce identical aggregates
+        PartialAggregate partial = aggregateRange(framework.getControls(), day.atStartOfDay(), endOfDay);
+        synchronized (dayPartialCache) {
+            dayPartialCache.put(key, partial);
+        }
+        return partial;
     }
 
-    private ControlAssessmentResult assessAuditControls(ComplianceControl control, List<SecurityEvent> events) {
-        ControlAssessmentResult result = new ControlAssessmentResult();
-
-        // Similar to audit trails but with HIPAA-specific requirements
-        long accessEvents = events.stream()
-                .filter(e -> "REQUEST".equals(e.getEventType()))
-                .count();
-
-        long identifiedAccess = events.stream()
-                .filter(e -> e.getClientIp() != null && e.getRequestPath() != null)
-                .count();
-
-        double auditCompliance = accessEvents > 0 ? (double) identifiedAccess / accessEvents * 100 : 100;
-
-        result.setScore(auditCompliance);
-        result.setStatus(auditCompliance >= 98 ? "COMPLIANT" : "NON_COMPLIANT");
-        result.getFindings().add(String.format("Audit control compliance: %.1f%% (access tracking and identification)",
-                auditCompliance));
-
-        return result;
+    private PartialAggregate aggregateRange(List<ComplianceControl> controls, LocalDateTime startDate, LocalDateTime endDate) {
+        PartialAggregate partial = new PartialAggregate(compileControls(controls));
+        eventStreamService.forEachEvent(startDate, endDate, partial::accept);
+        return partial;
     }
 
-    private ControlAssessmentResult performGenericControlAssessment(ComplianceControl control, List<SecurityEvent> events, List<ThreatAlert> alerts) {
-        ControlAssessmentResult result = new ControlAssessmentResult();
-
-        // Generic assessment based on control category and security events
-        double score = 75.0; // Default baseline score
-
-        // Adjust score based on security events
-        if (!events.isEmpty()) {
-            long rejections = events.stream()
-                    .filter(e -> "REJECTION".equals(e.getEventType()))
-                    .count();
-
-            double rejectionRate = (double) rejections / events.size();
-
-            // Lower score for high rejection rates
-            if (rejectionRate > 0.5) {
-                score -= 30;
-            } else if (rejectionRate > 0.3) {
-                score -= 20;
-            } else if (rejectionRate > 0.1) {
-                score -= 10;
+    private ComplianceScan evaluateScan(PartialAggregate aggregate, LocalDateTime startDate) {
+        ComplianceScan scan = new ComplianceScan();
+        scan.events.merge(aggregate.events);
+        scan.alerts = alertRepository.findRecentAlerts(startDate);
+
+        for (ControlAccumulator accumulator : aggregate.controls) {
+            ControlAssessmentResult result;
+            try {
+                result = accumulator.evaluate(scan.alerts);
+            } catch (Exception e) {
+                log.error("Error assessing control {}: {}", accumulator.control.getId(), e.getMessage());
+                result = new ControlAssessmentResult();
+                result.setStatus("ERROR");
+                result.setScore(0.0);
+                result.getFindings().add("Assessment failed: " + e.getMessage());
             }
+            scan.controlResults.put(accumulator.control.getId(), result);
         }
 
-        // Adjust score based on alerts
-        long criticalAlerts = alerts.stream()
-                .filter(a -> "CRITICAL".equals(a.getSeverity()))
-                .count();
+        return scan;
+    }
 
-        if (criticalAlerts > 0) {
-            score -= criticalAlerts * 5; // 5 points per critical alert
+    private List<ControlAccumulator> compileControls(List<ComplianceControl> controls) {
+        List<ControlAccumulator> accumulators = new ArrayList<>();
+        for (ComplianceControl control : controls) {
+            accumulators.add(compileControl(control));
         }
+        return accumulators;
+    }
 
-        score = Math.max(0, Math.min(100, score));
-
-        result.setScore(score);
-        result.setStatus(score >= 80 ? "COMPLIANT" : score >= 60 ? "PARTIAL_COMPLIANCE" : "NON_COMPLIANT");
-        result.getFindings().add(String.format("Generic assessment for %s: %.1f%% compliance", control.getCategory(), score));
-
-        return result;
+    private ControlAccumulator compileControl(ComplianceControl control) {
+        // Control-specific assessment logic
+        switch (control.getId()) {
+            case "GDPR-33.1":
+                return new BreachNotificationAccumulator(control);
+            case "SOC2-CC7.1":
+                return new EventDetectionAccumulator(control);
+            case "ISO-A.12.4.1":
+                return new EventLoggingAccumulator(control);
+            case "PCI-10.2":
+                return new AuditTrailAccumulator(control);
+            case "HIPAA-164.312.b":
+                return new AuditControlAccumulator(control);
+            default:
+                return new GenericControlAccumulator(control);
+        }
     }
 
     // Additional helper methods
@@ -755,13 +723,13 @@ public class ComplianceReportingService {
         return "NON_COMPLIANT";
     }
 
-    private double calculateImprovementTrend(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private double calculateImprovementTrend(ComplianceFramework framework, ComplianceMetrics currentMetrics,
+                                             LocalDateTime startDate, LocalDateTime endDate) {
         // Compare with previous period (simplified)
         LocalDateTime previousStart = startDate.minusDays(ChronoUnit.DAYS.between(startDate, endDate));
         LocalDateTime previousEnd = startDate;
 
         try {
-            ComplianceMetrics currentMetrics = calculateComplianceMetrics(framework, startDate, endDate);
             ComplianceMetrics previousMetrics = calculateComplianceMetrics(framework, previousStart, previousEnd);
 
             return currentMetrics.getOverallScore() - previousMetrics.getOverallScore();
@@ -771,19 +739,6 @@ public class ComplianceReportingService {
         }
     }
 
-    private ComplianceMetrics getOrCalculateMetrics(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
-        String cacheKey = framework.getName() + "_" + startDate + "_" + endDate;
-        ComplianceMetrics cached = complianceCache.get(cacheKey);
-
-        if (cached != null && cached.getLastAssessment().isAfter(LocalDateTime.now().minusMinutes(30))) {
-            return cached;
-        }
-
-        ComplianceMetrics metrics = calculateComplianceMetrics(framework, startDate, endDate);
-        complianceCache.put(cacheKey, metrics);
-        return metrics;
-    }
-
     private String getOverallComplianceStatus(double avgScore) {
         if (avgScore >= 90) return "EXCELLENT";
         if (avgScore >= 75) return "GOOD";
@@ -792,11 +747,11 @@ public class ComplianceReportingService {
         return "CRITICAL";
     }
 
-    private List<Map<String, Object>> assessComplianceControls(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private List<Map<String, Object>> assessComplianceControls(ComplianceFramework framework, ComplianceScan scan) {
         List<Map<String, Object>> assessments = new ArrayList<>();
 
         for (ComplianceControl control : framework.getControls()) {
-            ControlAssessmentResult result = assessControl(control, startDate, endDate);
+            ControlAssessmentResult result = scan.getResult(control);
 
             Map<String, Object> assessment = new HashMap<>();
             assessment.put("controlId", control.getId());
@@ -813,26 +768,25 @@ public class ComplianceReportingService {
         return assessments;
     }
 
-    private Map<String, Object> analyzeSecurityIncidents(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> analyzeSecurityIncidents(ComplianceFramework framework, ComplianceScan scan) {
         Map<String, Object> analysis = new HashMap<>();
 
-        List<SecurityEvent> incidents = eventRepository.findByTimestampBetween(startDate, endDate);
-        List<ThreatAlert> alerts = alertRepository.findRecentAlerts(startDate);
+        EventTally incidents = scan.events;
+        List<ThreatAlert> alerts = scan.alerts;
 
-        analysis.put("totalIncidents", incidents.size());
+        analysis.put("totalIncidents", incidents.totalEvents);
         analysis.put("totalAlerts", alerts.size());
         analysis.put("criticalAlerts", alerts.stream().filter(a -> "CRITICAL".equals(a.getSeverity())).count());
-        analysis.put("incidentsByType", incidents.stream()
-                .collect(Collectors.groupingBy(SecurityEvent::getEventType, Collectors.counting())));
+        analysis.put("incidentsByType", incidents.eventsByType);
 
         return analysis;
     }
 
-    private Map<String, Object> performComplianceRiskAssessment(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> performComplianceRiskAssessment(ComplianceFramework framework, ComplianceScan scan) {
         Map<String, Object> assessment = new HashMap<>();
 
-        List<SecurityEvent> events = eventRepository.findByTimestampBetween(startDate, endDate);
-        List<ThreatAlert> alerts = alertRepository.findRecentAlerts(startDate);
+        EventTally events = scan.events;
+        List<ThreatAlert> alerts = scan.alerts;
 
         // Calculate risk scores
         double dataRisk = calculateDataRisk(events);
@@ -880,31 +834,30 @@ public class ComplianceReportingService {
         return recommendations;
     }
 
-    private Map<String, Object> generateAuditTrail(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> generateAuditTrail(ComplianceFramework framework, ComplianceScan scan) {
         Map<String, Object> auditTrail = new HashMap<>();
 
-        List<SecurityEvent> events = eventRepository.findByTimestampBetween(startDate, endDate);
+        EventTally events = scan.events;
 
-        auditTrail.put("totalEvents", events.size());
-        auditTrail.put("eventsByType", events.stream()
-                .collect(Collectors.groupingBy(SecurityEvent::getEventType, Collectors.counting())));
+        auditTrail.put("totalEvents", events.totalEvents);
+        auditTrail.put("eventsByType", events.eventsByType);
         auditTrail.put("auditCoverage", calculateAuditCoverage(events));
 
         return auditTrail;
     }
 
-    private Map<String, Object> generateFrameworkSpecificReport(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> generateFrameworkSpecificReport(ComplianceFramework framework, ComplianceScan scan) {
         Map<String, Object> specific = new HashMap<>();
 
         switch (framework.getName()) {
             case "GDPR":
-                specific = generateGDPRSpecificReport(startDate, endDate);
+                specific = generateGDPRSpecificReport(scan);
                 break;
             case "SOC2":
-                specific = generateSOC2SpecificReport(startDate, endDate);
+                specific = generateSOC2SpecificReport(scan);
                 break;
             case "ISO27001":
-                specific = generateISO27001SpecificReport(startDate, endDate);
+                specific = generateISO27001SpecificReport(scan);
                 break;
             default:
                 specific.put("message", "No framework-specific analysis available");
@@ -914,14 +867,13 @@ public class ComplianceReportingService {
     }
 
     // Framework-specific report generators
-    private Map<String, Object> generateGDPRSpecificReport(LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> generateGDPRSpecificReport(ComplianceScan scan) {
         Map<String, Object> report = new HashMap<>();
 
-        List<SecurityEvent> events = eventRepository.findByTimestampBetween(startDate, endDate);
-        List<ThreatAlert> alerts = alertRepository.findRecentAlerts(startDate);
+        List<ThreatAlert> alerts = scan.alerts;
 
         // GDPR-specific metrics
-        report.put("dataProcessingEvents", events.size());
+        report.put("dataProcessingEvents", scan.events.totalEvents);
         report.put("potentialBreaches", alerts.stream()
                 .filter(a -> "CRITICAL".equals(a.getSeverity()) || "HIGH".equals(a.getSeverity()))
                 .count());
@@ -931,25 +883,22 @@ public class ComplianceReportingService {
         return report;
     }
 
-    private Map<String, Object> generateSOC2SpecificReport(LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> generateSOC2SpecificReport(ComplianceScan scan) {
         Map<String, Object> report = new HashMap<>();
 
-        List<SecurityEvent> events = eventRepository.findByTimestampBetween(startDate, endDate);
+        EventTally events = scan.events;
 
         report.put("systemAvailability", calculateSystemAvailability(events));
-        report.put("securityIncidents", events.stream()
-                .filter(e -> "REJECTION".equals(e.getEventType()))
-                .count());
+        report.put("securityIncidents", events.rejectionEvents);
         report.put("processingIntegrity", "Maintained"); // Simplified
 
         return report;
     }
 
-    private Map<String, Object> generateISO27001SpecificReport(LocalDateTime startDate, LocalDateTime endDate) {
+    private Map<String, Object> generateISO27001SpecificReport(ComplianceScan scan) {
         Map<String, Object> report = new HashMap<>();
 
-        List<SecurityEvent> events = eventRepository.findByTimestampBetween(startDate, endDate);
-        List<ThreatAlert> alerts = alertRepository.findRecentAlerts(startDate);
+        List<ThreatAlert> alerts = scan.alerts;
 
         report.put("riskManagement", Map.of(
                 "identifiedRisks", alerts.size(),
@@ -1017,14 +966,9 @@ public class ComplianceReportingService {
         return deadlines;
     }
 
-    private void checkImmediateViolations(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
-        List<SecurityEvent> recentEvents = eventRepository.findByTimestampBetween(startDate, endDate);
-        List<ThreatAlert> recentAlerts = alertRepository.findRecentAlerts(startDate);
-
+    private void checkImmediateViolations(ComplianceFramework framework, ComplianceScan scan) {
         // Check for immediate violations
-        long criticalEvents = recentEvents.stream()
-                .filter(e -> "CRITICAL".equals(e.getThreatLevel()))
-                .count();
+        long criticalEvents = scan.events.criticalThreatEvents;
 
         if (criticalEvents > 0) {
             log.warn("Immediate compliance violation detected: {} critical events in last hour for framework {}",
@@ -1032,10 +976,8 @@ public class ComplianceReportingService {
         }
     }
 
-    private void updateComplianceCache(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
-        String cacheKey = framework.getName() + "_current";
-        ComplianceMetrics metrics = calculateComplianceMetrics(framework, startDate, endDate);
-        complianceCache.put(cacheKey, metrics);
+    private void updateComplianceCache(ComplianceFramework framework, ComplianceScan scan) {
+        currentMetrics.put(framework.getName(), metricsFromScan(framework, scan));
     }
 
     private boolean isCriticalViolation(String frameworkName, String controlId, String violationType) {
@@ -1066,28 +1008,21 @@ public class ComplianceReportingService {
         return historicalData;
     }
 
-    private Map<String, Object> auditSecurityEvents(ComplianceFramework framework, List<SecurityEvent> events) {
+    private Map<String, Object> auditSecurityEvents(ComplianceFramework framework, EventTally events) {
         Map<String, Object> audit = new HashMap<>();
 
-        audit.put("totalEvents", events.size());
-        audit.put("eventTypes", events.stream()
-                .collect(Collectors.groupingBy(SecurityEvent::getEventType, Collectors.counting())));
-        audit.put("threatLevels", events.stream()
-                .collect(Collectors.groupingBy(SecurityEvent::getThreatLevel, Collectors.counting())));
+        audit.put("totalEvents", events.totalEvents);
+        audit.put("eventTypes", events.eventsByType);
+        audit.put("threatLevels", events.eventsByThreatLevel);
 
         return audit;
     }
 
-    private Map<String, Object> auditAccessControls(ComplianceFramework framework, List<SecurityEvent> events) {
+    private Map<String, Object> auditAccessControls(ComplianceFramework framework, EventTally events) {
         Map<String, Object> audit = new HashMap<>();
 
-        long accessEvents = events.stream()
-                .filter(e -> "REQUEST".equals(e.getEventType()))
-                .count();
-
-        long rejectedAccess = events.stream()
-                .filter(e -> "REJECTION".equals(e.getEventType()))
-                .count();
+        long accessEvents = events.requestEvents;
+        long rejectedAccess = events.rejectionEvents;
 
         audit.put("totalAccessAttempts", accessEvents);
         audit.put("rejectedAccess", rejectedAccess);
@@ -1096,15 +1031,13 @@ public class ComplianceReportingService {
         return audit;
     }
 
-    private Map<String, Object> auditDataProtection(ComplianceFramework framework, List<SecurityEvent> events) {
+    private Map<String, Object> auditDataProtection(ComplianceFramework framework, EventTally events) {
         Map<String, Object> audit = new HashMap<>();
 
         // Simplified data protection audit
         audit.put("encryptedConnections", "100%"); // Would need HTTPS analysis
         audit.put("dataIntegrityChecks", "Enabled");
-        audit.put("sensitiveDataEvents", events.stream()
-                .filter(e -> e.getRequestPath() != null && e.getRequestPath().contains("api"))
-                .count());
+        audit.put("sensitiveDataEvents", events.apiEvents);
 
         return audit;
     }
@@ -1124,11 +1057,9 @@ public class ComplianceReportingService {
         return audit;
     }
 
-    private List<Map<String, Object>> identifyComplianceGaps(ComplianceFramework framework, LocalDateTime startDate, LocalDateTime endDate) {
+    private List<Map<String, Object>> identifyComplianceGaps(ComplianceFramework framework, ComplianceMetrics metrics) {
         List<Map<String, Object>> gaps = new ArrayList<>();
 
-        ComplianceMetrics metrics = calculateComplianceMetrics(framework, startDate, endDate);
-
         if (metrics.getOverallScore() < 80) {
             Map<String, Object> gap = new HashMap<>();
             gap.put("area", "Overall Compliance");
@@ -1141,10 +1072,10 @@ public class ComplianceReportingService {
         return gaps;
     }
 
-    private Map<String, Object> assessComplianceRisks(ComplianceFramework framework, List<SecurityEvent> events, List<ThreatAlert> threats) {
+    private Map<String, Object> assessComplianceRisks(ComplianceFramework framework, EventTally events, List<ThreatAlert> threats) {
         Map<String, Object> risks = new HashMap<>();
 
-        double eventRisk = events.isEmpty() ? 0.1 : Math.min(1.0, events.size() / 1000.0);
+        double eventRisk = events.totalEvents == 0 ? 0.1 : Math.min(1.0, events.totalEvents / 1000.0);
         double threatRisk = threats.isEmpty() ? 0.1 : Math.min(1.0, threats.size() / 100.0);
 
         double overallRisk = (eventRisk + threatRisk) / 2.0;
@@ -1157,21 +1088,12 @@ public class ComplianceReportingService {
         return risks;
     }
 
-    private double calculateDataRisk(List<SecurityEvent> events) {
-        long dataEvents = events.stream()
-                .filter(e -> e.getRequestPath() != null &&
-                        (e.getRequestPath().contains("api") || e.getRequestPath().contains("data")))
-                .count();
-
-        return events.isEmpty() ? 0.1 : Math.min(1.0, (double) dataEvents / events.size());
+    private double calculateDataRisk(EventTally events) {
+        return events.totalEvents == 0 ? 0.1 : Math.min(1.0, (double) events.dataEvents / events.totalEvents);
     }
 
-    private double calculateAccessRisk(List<SecurityEvent> events) {
-        long rejectedEvents = events.stream()
-                .filter(e -> "REJECTION".equals(e.getEventType()))
-                .count();
-
-        return events.isEmpty() ? 0.1 : Math.min(1.0, (double) rejectedEvents / events.size());
+    private double calculateAccessRisk(EventTally events) {
+        return events.totalEvents == 0 ? 0.1 : Math.min(1.0, (double) events.rejectionEvents / events.totalEvents);
     }
 
     private double calculateIncidentRisk(List<ThreatAlert> alerts) {
@@ -1189,25 +1111,405 @@ public class ComplianceReportingService {
         return "LOW";
     }
 
-    private double calculateAuditCoverage(List<SecurityEvent> events) {
-        long eventsWithDetails = events.stream()
-                .filter(e -> e.getClientIp() != null && e.getRequestPath() != null && e.getTimestamp() != null)
-                .count();
-
-        return events.isEmpty() ? 100.0 : (double) eventsWithDetails / events.size() * 100;
+    private double calculateAuditCoverage(EventTally events) {
+        return events.totalEvents == 0 ? 100.0 : (double) events.eventsWithDetails / events.totalEvents * 100;
     }
 
-    private double calculateSystemAvailability(List<SecurityEvent> events) {
+    private double calculateSystemAvailability(EventTally events) {
         // Simplified availability calculation
-        long errorEvents = events.stream()
-                .filter(e -> e.getResponseStatus() != null && e.getResponseStatus() >= 500)
-                .count();
-
-        return events.isEmpty() ? 100.0 : Math.max(0, 100.0 - ((double) errorEvents / events.size() * 100));
+        return events.totalEvents == 0 ? 100.0
+                : Math.max(0, 100.0 - ((double) events.serverErrorEvents / events.totalEvents * 100));
     }
 
     // Inner classes for compliance framework structure
 
+    /**
+     * Running counts over a streamed range of security events
+     */
+    private static class EventTally {
+        private long totalEvents;
+        private long requestEvents;
+        private long rejectionEvents;
+        private long criticalThreatEvents;
+        private long eventsWithDetails; // client IP and request path recorded
+        private long apiEvents;
+        private long dataEvents;
+        private long serverErrorEvents;
+        private boolean hasResponseTimes;
+        private boolean hasUserAgents;
+        private final Map<String, Long> eventsByType = new HashMap<>();
+        private final Map<String, Long> eventsByThreatLevel = new HashMap<>();
+
+        void add(SecurityEventView event) {
+            totalEvents++;
+            eventsByType.merge(event.getEventType(), 1L, Long::sum);
+            eventsByThreatLevel.merge(event.getThreatLevel(), 1L, Long::sum);
+
+            if ("REQUEST".equals(event.getEventType())) {
+                requestEvents++;
+            } else if ("REJECTION".equals(event.getEventType())) {
+                rejectionEvents++;
+            }
+            if ("CRITICAL".equals(event.getThreatLevel())) {
+                criticalThreatEvents++;
+            }
+
+            String path = event.getRequestPath();
+            if (event.getClientIp() != null && path != null) {
+                eventsWithDetails++;
+            }
+            if (path != null && path.contains("api")) {
+                apiEvents++;
+            }
+            if (path != null && (path.contains("api") || path.contains("data"))) {
+                dataEvents++;
+            }
+
+            if (event.getResponseStatus() != null && event.getResponseStatus() >= 500) {
+                serverErrorEvents++;
+            }
+            hasResponseTimes |= event.getResponseTimeMs() != null;
+            hasUserAgents |= event.getUserAgent() != null;
+        }
+
+        void merge(EventTally other) {
+            totalEvents += other.totalEvents;
+            requestEvents += other.requestEvents;
+            rejectionEvents += other.rejectionEvents;
+            criticalThreatEvents += other.criticalThreatEvents;
+            eventsWithDetails += other.eventsWithDetails;
+            apiEvents += other.apiEvents;
+            dataEvents += other.dataEvents;
+            serverErrorEvents += other.serverErrorEvents;
+            hasResponseTimes |= other.hasResponseTimes;
+            hasUserAgents |= other.hasUserAgents;
+            other.eventsByType.forEach((type, count) -> eventsByType.merge(type, count, Long::sum));
+            other.eventsByThreatLevel.forEach((level, count) -> eventsByThreatLevel.merge(level, count, Long::sum));
+        }
+    }
+
+    /**
+     * Event tally plus control accumulators for one slice of time. Slices for the same
+     * framework merge into the aggregate for a longer range.
+     */
+    private static class PartialAggregate {
+        private final EventTally events = new EventTally();
+        private final List<ControlAccumulator> controls;
+
+        PartialAggregate(List<ControlAccumulator> controls) {
+            this.controls = controls;
+        }
+
+        void accept(SecurityEventView event) {
+            events.add(event);
+            for (ControlAccumulator accumulator : controls) {
+                accumulator.accept(event);
+            }
+        }
+
+        // Controls are compiled from the same framework in the same order, so they line up by index
+        void merge(PartialAggregate other) {
+            events.merge(other.events);
+            for (int i = 0; i < controls.size(); i++) {
+                controls.get(i).merge(other.controls.get(i));
+            }
+        }
+    }
+
+    /**
+     * Result of one pass over a period: the shared tally, the alerts and each control's assessment
+     */
+    private static class ComplianceScan {
+        private final EventTally events = new EventTally();
+        private List<ThreatAlert> alerts = new ArrayList<>();
+        private final Map<String, ControlAssessmentResult> controlResults = new HashMap<>();
+
+        ControlAssessmentResult getResult(ComplianceControl control) {
+            return controlResults.getOrDefault(control.getId(), new ControlAssessmentResult());
+        }
+    }
+
+    /**
+     * A control compiled into state that is fed by the shared event pass
+     */
+    private abstract static class ControlAccumulator {
+        protected final ComplianceControl control;
+
+        ControlAccumulator(ComplianceControl control) {
+            this.control = control;
+        }
+
+        void accept(SecurityEventView event) {
+        }
+
+        void merge(ControlAccumulator other) {
+        }
+
+        abstract ControlAssessmentResult evaluate(List<ThreatAlert> alerts);
+    }
+
+    private static class BreachNotificationAccumulator extends ControlAccumulator {
+
+        BreachNotificationAccumulator(ComplianceControl control) {
+            super(control);
+        }
+
+        @Override
+        ControlAssessmentResult evaluate(List<ThreatAlert> alerts) {
+            ControlAssessmentResult result = new ControlAssessmentResult();
+
+            // Check if critical alerts were handled within 72 hours
+            List<ThreatAlert> criticalBreaches = alerts.stream()
+                    .filter(a -> "CRITICAL".equals(a.getSeverity()) && "PATTERN_MATCH".equals(a.getAlertType()))
+                    .collect(Collectors.toList());
+
+            if (criticalBreaches.isEmpty()) {
+                result.setStatus("COMPLIANT");
+                result.setScore(100.0);
+                result.getFindings().add("No critical security breaches identified in the assessment period");
+            } else {
+                long timelyNotifications = criticalBreaches.stream()
+                        .filter(alert -> {
+                            if (alert.getUpdatedAt() != null) {
+                                long hoursToResponse = ChronoUnit.HOURS.between(alert.getCreatedAt(), alert.getUpdatedAt());
+                                return hoursToResponse <= GDPR_BREACH_NOTIFICATION_HOURS;
+                            }
+                            return false;
+                        })
+                        .count();
+
+                double complianceRate = (double) timelyNotifications / criticalBreaches.size() * 100;
+                result.setScore(complianceRate);
+                result.setStatus(complianceRate >= 100 ? "COMPLIANT" : "NON_COMPLIANT");
+
+                result.getFindings().add(String.format("Breach notification compliance: %.1f%% (%d of %d within 72 hours)",
+                        complianceRate, timelyNotifications, criticalBreaches.size()));
+            }
+
+            return result;
+        }
+    }
+
+    private static class EventDetectionAccumulator extends ControlAccumulator {
+        private long rejectionEvents;
+
+        EventDetectionAccumulator(ComplianceControl control) {
+            super(control);
+        }
+
+        @Override
+        void accept(SecurityEventView event) {
+            if ("REJECTION".equals(event.getEventType())) {
+                rejectionEvents++;
+            }
+        }
+
+        @Override
+        void merge(ControlAccumulator other) {
+            rejectionEvents += ((EventDetectionAccumulator) other).rejectionEvents;
+        }
+
+        @Override
+        ControlAssessmentResult evaluate(List<ThreatAlert> alerts) {
+            ControlAssessmentResult result = new ControlAssessmentResult();
+
+            // Check if security events are being properly detected (alerts generated for rejections)
+            double detectionRate = rejectionEvents > 0 ? (double) alerts.size() / rejectionEvents * 100 : 100;
+
+            result.setScore(Math.min(100.0, detectionRate));
+            result.setStatus(detectionRate >= 50 ? "COMPLIANT" : "NON_COMPLIANT");
+            result.getFindings().add(String.format("Security event detection rate: %.1f%% (%d alerts for %d rejection events)",
+                    detectionRate, alerts.size(), rejectionEvents));
+
+            return result;
+        }
+    }
+
+    private static class EventLoggingAccumulator extends ControlAccumulator {
+        private long totalEvents;
+        private long eventsWithDetails;
+
+        EventLoggingAccumulator(ComplianceControl control) {
+            super(control);
+        }
+
+        @Override
+        void accept(SecurityEventView event) {
+            totalEvents++;
+            if (event.getClientIp() != null && event.getRequestPath() != null) {
+                eventsWithDetails++;
+            }
+        }
+
+        @Override
+        void merge(ControlAccumulator other) {
+            EventLoggingAccumulator o = (EventLoggingAccumulator) other;
+            totalEvents += o.totalEvents;
+            eventsWithDetails += o.eventsWithDetails;
+        }
+
+        @Override
+        ControlAssessmentResult evaluate(List<ThreatAlert> alerts) {
+            ControlAssessmentResult result = new ControlAssessmentResult();
+
+            // Check if comprehensive logging is in place
+            double loggingCompleteness = totalEvents > 0 ? (double) eventsWithDetails / totalEvents * 100 : 100;
+
+            result.setScore(loggingCompleteness);
+            result.setStatus(loggingCompleteness >= 95 ? "COMPLIANT" : "NON_COMPLIANT");
+            result.getFindings().add(String.format("Event logging completeness: %.1f%% (%d of %d events properly logged)",
+                    loggingCompleteness, eventsWithDetails, totalEvents));
+
+            return result;
+        }
+    }
+
+    private static class AuditTrailAccumulator extends ControlAccumulator {
+        private final Set<String> eventTypes = new HashSet<>();
+        private boolean hasResponseTimes;
+        private boolean hasUserAgents;
+
+        AuditTrailAccumulator(ComplianceControl control) {
+            super(control);
+        }
+
+        @Override
+        void accept(SecurityEventView event) {
+            eventTypes.add(event.getEventType());
+            hasResponseTimes |= event.getResponseTimeMs() != null;
+            hasUserAgents |= event.getUserAgent() != null;
+        }
+
+        @Override
+        void merge(ControlAccumulator other) {
+            AuditTrailAccumulator o = (AuditTrailAccumulator) other;
+            eventTypes.addAll(o.eventTypes);
+            hasResponseTimes |= o.hasResponseTimes;
+            hasUserAgents |= o.hasUserAgents;
+        }
+
+        @Override
+        ControlAssessmentResult evaluate(List<ThreatAlert> alerts) {
+            ControlAssessmentResult result = new ControlAssessmentResult();
+
+            // Check audit trail quality and completeness
+            boolean hasComprehensiveAuditTrail = eventTypes.size() >= 2 && // Multiple event types
+                    hasResponseTimes && // Performance data
+                    hasUserAgents; // User context
+
+            result.setScore(hasComprehensiveAuditTrail ? 100.0 : 60.0);
+            result.setStatus(hasComprehensiveAuditTrail ? "COMPLIANT" : "PARTIAL_COMPLIANCE");
+            result.getFindings().add("Audit trail assessment: " +
+                    (hasComprehensiveAuditTrail ? "Comprehensive audit trails maintained" : "Limited audit trail data"));
+
+            return result;
+        }
+    }
+
+    private static class AuditControlAccumulator extends ControlAccumulator {
+        private long accessEvents;
+        private long identifiedAccess;
+
+        AuditControlAccumulator(ComplianceControl control) {
+            super(control);
+        }
+
+        @Override
+        void accept(SecurityEventView event) {
+            if ("REQUEST".equals(event.getEventType())) {
+                accessEvents++;
+            }
+            if (event.getClientIp() != null && event.getRequestPath() != null) {
+                identifiedAccess++;
+            }
+        }
+
+        @Override
+        void merge(ControlAccumulator other) {
+            AuditControlAccumulator o = (AuditControlAccumulator) other;
+            accessEvents += o.accessEvents;
+            identifiedAccess += o.identifiedAccess;
+        }
+
+        @Override
+        ControlAssessmentResult evaluate(List<ThreatAlert> alerts) {
+            ControlAssessmentResult result = new ControlAssessmentResult();
+
+            // Similar to audit trails but with HIPAA-specific requirements
+            double auditCompliance = accessEvents > 0 ? (double) identifiedAccess / accessEvents * 100 : 100;
+
+            result.setScore(auditCompliance);
+            result.setStatus(auditCompliance >= 98 ? "COMPLIANT" : "NON_COMPLIANT");
+            result.getFindings().add(String.format("Audit control compliance: %.1f%% (access tracking and identification)",
+                    auditCompliance));
+
+            return result;
+        }
+    }
+
+    private static class GenericControlAccumulator extends ControlAccumulator {
+        private long totalEvents;
+        private long rejections;
+
+        GenericControlAccumulator(ComplianceControl control) {
+            super(control);
+        }
+
+        @Override
+        void accept(SecurityEventView event) {
+            totalEvents++;
+            if ("REJECTION".equals(event.getEventType())) {
+                rejections++;
+            }
+        }
+
+        @Override
+        void merge(ControlAccumulator other) {
+            GenericControlAccumulator o = (GenericControlAccumulator) other;
+            totalEvents += o.totalEvents;
+            rejections += o.rejections;
+        }
+
+        @Override
+        ControlAssessmentResult evaluate(List<ThreatAlert> alerts) {
+            ControlAssessmentResult result = new ControlAssessmentResult();
+
+            // Generic assessment based on control category and security events
+            double score = 75.0; // Default baseline score
+
+            // Adjust score based on security events
+            if (totalEvents > 0) {
+                double rejectionRate = (double) rejections / totalEvents;
+
+                // Lower score for high rejection rates
+                if (rejectionRate > 0.5) {
+                    score -= 30;
+                } else if (rejectionRate > 0.3) {
+                    score -= 20;
+                } else if (rejectionRate > 0.1) {
+                    score -= 10;
+                }
+            }
+
+            // Adjust score based on alerts
+            long criticalAlerts = alerts.stream()
+                    .filter(a -> "CRITICAL".equals(a.getSeverity()))
+                    .count();
+
+            if (criticalAlerts > 0) {
+                score -= criticalAlerts * 5; // 5 points per critical alert
+            }
+
+            score = Math.max(0, Math.min(100, score));
+
+            result.setScore(score);
+            result.setStatus(score >= 80 ? "COMPLIANT" : score >= 60 ? "PARTIAL_COMPLIANCE" : "NON_COMPLIANT");
+            result.getFindings().add(String.format("Generic assessment for %s: %.1f%% compliance", control.getCategory(), score));
+
+            return result;
+        }
+    }
+
     public static class ComplianceFramework {
         private final String name;
         private final String description;
@@ -0,0 +1,124 @@
+package com.example.demo.Service;
+
+import com.example.demo.Filter.RequestCountFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the gateway counters across restarts: the totals and per-second counts of
+ * {@link RequestCountFilter} and the per-route counters of {@link AnalyticsService}.
+ *
+ * Counters are written every minute and on shutdown to a temporary file that is renamed
+ * over the snapshot, so a crash leaves either the old or the new snapshot. The file holds
+ * a header with a format version and a CRC32 of the payload. The whole payload is parsed
+ * before any counter changes, so a damaged or unreadable file is ignored rather than half
+ * applied. Restored counts are added to anything recorded before the restore ran.
+ */
+@Service
+public class CounterSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(CounterSnapshotService.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x47435331; // "GCS1"
+    private static final byte SNAPSHOT_VERSION = 1; // Bump when the payload layout changes
+    private static final int HEADER_BYTES = 25; // magic, version, payload length, crc, saved at
+
+    private final AnalyticsService analyticsService;
+
+    @Value("${analytics.counters.snapshot-path:data/gateway-counters.bin}")
+    private String snapshotPath;
+
+    @Autowired
+    public CounterSnapshotService(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring counter snapshot {}: unknown format", path);
+                return;
+            }
+            byte version = buffer.get();
+            if (version != SNAPSHOT_VERSION) {
+                log.warn("Ignoring counter snapshot {}: unsupported version {}", path, version);
+                return;
+            }
+            int length = buffer.getInt();
+            long crc = buffer.getLong();
+            long savedAt = buffer.getLong();
+            if (length != buffer.remaining() || crc != checksum(buffer.array(), HEADER_BYTES, length)) {
+                log.warn("Ignoring counter snapshot {}: truncated or damaged", path);
+                return;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array(), HEADER_BYTES, length));
+            Runnable restoreRequestCounters = RequestCountFilter.readCounters(in);
+            Runnable restoreRouteCounters = analyticsService.readCounters(in);
+            if (in.available() != 0) {
+                log.warn("Ignoring counter snapshot {}: {} unexpected trailing bytes", path, in.available());
+                return;
+            }
+            // Nothing is applied until both parts parsed
+            restoreRequestCounters.run();
+            restoreRouteCounters.run();
+            log.info("Restored gateway counters from {} saved {} s ago", path, (System.currentTimeMillis() - savedAt) / 1000);
+        } catch (NoSuchFileException e) {
+            log.info("No counter snapshot at {}; counters start at zero", path);
+        } catch (Exception e) {
+            log.warn("Could not load counter snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Write all counters to a temporary file and rename it over the snapshot
+     */
+    @Scheduled(fixedDelay = 60000) // Every minute
+    @PreDestroy
+    public void saveSnapshot() {
+        Path path = Paths.get(snapshotPath).toAbsolutePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(4096);
+            DataOutputStream data = new DataOutputStream(payload);
+            RequestCountFilter.writeCounters(data);
+            analyticsService.writeCounters(data);
+            data.flush();
+            byte[] bytes = payload.toByteArray();
+
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeByte(SNAPSHOT_VERSION);
+                out.writeInt(bytes.length);
+                out.writeLong(checksum(bytes, 0, bytes.length));
+                out.writeLong(System.currentTimeMillis());
+                out.write(bytes);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved gateway counters to {} ({} bytes)", path, bytes.length + HEADER_BYTES);
+        } catch (Exception e) {
+            log.error("Error saving counter snapshot: {}", e.getMessage(), e);
+        }
+    }
+
+    private static long checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return crc.getValue();
+    }
+}
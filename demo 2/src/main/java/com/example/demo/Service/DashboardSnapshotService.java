@@ -0,0 +1,155 @@
+package com.example.demo.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Serves the analytics dashboard and real-time threat intelligence from snapshots that
+ * are recomputed in the background, instead of rebuilding them on every request.
+ *
+ * A request only waits when the current snapshot is older than the staleness bound, and
+ * then joins whichever recompute is already running rather than starting its own.
+ */
+@Service
+public class DashboardSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardSnapshotService.class);
+
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Materialized dashboard;
+    private final Materialized threatIntelligence;
+
+    @Autowired
+    public DashboardSnapshotService(AnalyticsService analyticsService,
+                                    @Value("${analytics.dashboard.max-staleness-ms:60000}") long maxStalenessMs) {
+        this.dashboard = new Materialized("dashboard", analyticsService::getEnhancedDashboardData, maxStalenessMs);
+        this.threatIntelligence = new Materialized("threat intelligence",
+                analyticsService::getRealTimeThreatIntelligence, maxStalenessMs);
+    }
+
+    /**
+     * Get the enhanced dashboard data with the snapshot's age
+     */
+    public Map<String, Object> getDashboard() {
+        return dashboard.get();
+    }
+
+    /**
+     * Get real-time threat intelligence with the snapshot's age
+     */
+    public Map<String, Object> getThreatIntelligence() {
+        return threatIntelligence.get();
+    }
+
+    /**
+     * Refresh both snapshots ahead of requests
+     */
+    @Scheduled(fixedDelayString = "${analytics.dashboard.refresh-ms:15000}")
+    public void refreshSnapshots() {
+        dashboard.refresh();
+        threatIntelligence.refresh();
+    }
+
+    @PreDestroy
+    public void shutdownRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Object> data;
+        private final long computedAtMillis;
+        private final LocalDateTime computedAt;
+
+        Snapshot(Map<String, Object> data) {
+            this.data = Collections.unmodifiableMap(new HashMap<>(data));
+            this.computedAtMillis = System.currentTimeMillis();
+            this.computedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * One background-refreshed snapshot with single-flight recompute
+     */
+    private final class Materialized {
+        private final String name;
+        private final Supplier<Map<String, Object>> compute;
+        private final long maxStalenessMs;
+
+        private volatile Snapshot current;
+        private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+        Materialized(String name, Supplier<Map<String, Object>> compute, long maxStalenessMs) {
+            this.name = name;
+            this.compute = compute;
+            this.maxStalenessMs = maxStalenessMs;
+        }
+
+        Map<String, Object> get() {
+            Snapshot snapshot = current;
+            if (snapshot == null || age(snapshot) > maxStalenessMs) {
+                snapshot = refresh().join();
+            }
+
+            Map<String, Object> response = new HashMap<>(snapshot.data);
+            response.put("snapshotComputedAt", snapshot.computedAt);
+            response.put("snapshotAgeMs", age(snapshot));
+            return response;
+        }
+
+        // Start a recompute unless one is already running, and return the running one
+        CompletableFuture<Snapshot> refresh() {
+            CompletableFuture<Snapshot> started = new CompletableFuture<>();
+            while (!inFlight.compareAndSet(null, started)) {
+                CompletableFuture<Snapshot> running = inFlight.get();
+                if (running != null) {
+                    return running;
+                }
+            }
+
+            refreshExecutor.execute(() -> {
+                try {
+                    long begin = System.currentTimeMillis();
+                    Snapshot snapshot = new Snapshot(compute.get());
+                    current = snapshot;
+                    log.debug("Recomputed {} snapshot in {} ms", name, System.currentTimeMillis() - begin);
+                    started.complete(snapshot);
+                } catch (Exception e) {
+                    log.error("Error recomputing {} snapshot: {}", name, e.getMessage(), e);
+                    // Keep serving the previous snapshot when there is one
+                    if (current != null) {
+                        started.complete(current);
+                    } else {
+                        started.completeExceptionally(e);
+                    }
+                } finally {
+                    inFlight.compareAndSet(started, null);
+                }
+            });
+            return started;
+        }
+
+        private long age(Snapshot snapshot) {
+            return System.currentTimeMillis() - snapshot.computedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,621 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.ThreatAlert;
+import com.example.demo.Entity.ThreatPattern;
+import com.example.demo.Repository.ThreatAlertRepository;
+import com.example.demo.Repository.ThreatPatternRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Temporary deny set of client IPs and CIDR ranges, enforced by
+ * {@link com.example.demo.Filter.DenyListFilter} before routing.
+ *
+ * Entries come from high-scoring alerts, auto-block threat patterns, the API and other
+ * gateway nodes (see {@link DenyListSyncService}), and expire after a TTL. Writers rebuild
+ * an immutable snapshot under a lock; the request path only reads the current snapshot,
+ * an open-addressing table keyed by (prefix length, masked IPv4 address) probed once per
+ * prefix length in use.
+ */
+@Service
+public class DenyListService {
+
+    private static final Logger log = LoggerFactory.getLogger(DenyListService.class);
+
+    private static final int MIN_IPV4_PREFIX = 8;
+    private static final int MIN_IPV6_PREFIX = 32;
+    private static final long EXTENSION_GRANULARITY_MILLIS = 60_000L; // Smaller extensions are not announced
+
+    private final ThreatAlertRepository alertRepository;
+    private final ThreatPatternRepository patternRepository;
+
+    // Guarded by this; the snapshot is rebuilt from it whenever a key is added or removed
+    private final Map<String, DenyEntry> entries = new LinkedHashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private final LongAdder blockedRequests = new LongAdder();
+    private volatile boolean capacityWarned;
+
+    private final List<DenyListListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Value("${gateway.deny-list.ttl-minutes:30}")
+    private long defaultTtlMinutes;
+
+    @Value("${gateway.deny-list.max-ttl-minutes:1440}")
+    private long maxTtlMinutes;
+
+    @Value("${gateway.deny-list.alert-min-score:0.9}")
+    private double alertMinScore;
+
+    @Value("${gateway.deny-list.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${gateway.deny-list.never-deny:127.0.0.0/8,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,::1,fc00::/7}")
+    private List<String> neverDeny;
+
+    // Ranges no entry may overlap, such as the gateway's own network and its load balancers
+    private final List<Cidr> neverDenyRanges = new ArrayList<>();
+
+    @Autowired
+    public DenyListService(ThreatAlertRepository alertRepository, ThreatPatternRepository patternRepository) {
+        this.alertRepository = alertRepository;
+        this.patternRepository = patternRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (String value : neverDeny) {
+            if (value.isBlank()) {
+                continue;
+            }
+            Cidr range = Cidr.parse(value, 0, 0);
+            if (range == null) {
+                log.warn("Ignoring invalid never-deny range: {}", value);
+            } else {
+                neverDenyRanges.add(range);
+            }
+        }
+    }
+
+    /**
+     * Whether a client IP is covered by a live entry; lock-free, called for every request
+     */
+    public boolean isBlocked(String clientIp) {
+        Snapshot current = snapshot;
+        if (current.isEmpty() || clientIp == null) {
+            return false;
+        }
+        DenyEntry entry = current.find(clientIp, System.currentTimeMillis());
+        if (entry == null) {
+            return false;
+        }
+        entry.hits.increment();
+        blockedRequests.increment();
+        return true;
+    }
+
+    public long getMaxTtlMinutes() {
+        return maxTtlMinutes;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.isEmpty();
+    }
+
+    /**
+     * Deny an IP or CIDR range (a.b.c.d/n, the truncated a.b.c/24 prefixes used for subnet
+     * alerts, or IPv6) for the given time; an existing entry keeps the later expiry.
+     * Returns false when the target is invalid, protected or the set is full.
+     */
+    public boolean block(String target, Duration ttl, String reason) {
+        Cidr cidr = Cidr.parse(target);
+        if (cidr == null || isProtected(cidr)) {
+            log.warn("Not adding {} to the deny list: invalid, loopback or never-deny address", target);
+            return false;
+        }
+        // Longer requests are cut to the maximum rather than denying a range indefinitely
+        long ttlMillis = Math.min(ttl.toMillis(), Duration.ofMinutes(maxTtlMinutes).toMillis());
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        // Listeners are told under the lock, so they see changes to one key in the order made
+        synchronized (this) {
+            Boolean changed = put(cidr, expiresAt, reason, false);
+            if (changed == null) {
+                return false;
+            }
+            if (changed) {
+                log.info("Denying {} for {} minutes: {}", cidr.key, ttlMillis / 60_000, reason);
+                for (DenyListListener listener : listeners) {
+                    listener.onBlocked(cidr.key, expiresAt, reason);
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean block(String target, String reason) {
+        return block(target, Duration.ofMinutes(defaultTtlMinutes), reason);
+    }
+
+    public boolean unblock(String target) {
+        Cidr cidr = Cidr.parse(target);
+        if (cidr == null) {
+            return false;
+        }
+        synchronized (this) {
+            if (!remove(cidr)) {
+                return false;
+            }
+            log.info("Removed {} from the deny list", cidr.key);
+            for (DenyListListener listener : listeners) {
+                listener.onUnblocked(cidr.key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Apply a block decided on another node; listeners are not told, so it is not echoed back
+     */
+    public boolean applyRemoteBlock(String target, long expiresAtMillis, String reason) {
+        Cidr cidr = Cidr.parse(target);
+        if (cidr == null || isProtected(cidr) || expiresAtMillis <= System.currentTimeMillis()) {
+            return false;
+        }
+        return put(cidr, expiresAtMillis, reason, true) != null;
+    }
+
+    public boolean applyRemoteUnblock(String target) {
+        Cidr cidr = Cidr.parse(target);
+        return cidr != null && remove(cidr);
+    }
+
+    /**
+     * Drop entries received from other nodes that the shared store no longer holds, such as
+     * unblocks missed while disconnected; entries decided on this node are kept
+     */
+    public synchronized int retainRemote(Set<String> targets) {
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.remote && !targets.contains(entry.cidr.key));
+        if (entries.size() != before) {
+            snapshot = Snapshot.build(entries.values());
+        }
+        return before - entries.size();
+    }
+
+    // Loopback, or overlapping a never-deny range in either direction
+    private boolean isProtected(Cidr cidr) {
+        if (cidr.isProtected()) {
+            return true;
+        }
+        for (Cidr range : neverDenyRanges) {
+            if (cidr.overlaps(range)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void addListener(DenyListListener listener) {
+        listeners.add(listener);
+    }
+
+    // Returns whether the entry is new or its expiry moved noticeably, or null when the set is full
+    private synchronized Boolean put(Cidr cidr, long expiresAt, String reason, boolean remote) {
+        DenyEntry existing = entries.get(cidr.key);
+        if (existing != null) {
+            // Extending an entry needs no rebuild: the snapshot shares the entry
+            long previous = existing.expiresAtMillis;
+            existing.expiresAtMillis = Math.max(previous, expiresAt);
+            return expiresAt - previous >= EXTENSION_GRANULARITY_MILLIS;
+        }
+        if (entries.size() >= maxEntries) {
+            if (!capacityWarned) {
+                capacityWarned = true;
+                log.warn("Deny list is full ({} entries); new blocks are refused until entries expire", maxEntries);
+            }
+            return null;
+        }
+
+        entries.put(cidr.key, new DenyEntry(cidr, expiresAt, reason, remote));
+        snapshot = Snapshot.build(entries.values());
+        return true;
+    }
+
+    private synchronized boolean remove(Cidr cidr) {
+        if (entries.remove(cidr.key) == null) {
+            return false;
+        }
+        snapshot = Snapshot.build(entries.values());
+        return true;
+    }
+
+    /**
+     * Deny the source of a saved alert when it is critical or scores high enough
+     */
+    public void blockForAlert(ThreatAlert alert) {
+        if (alert == null || alert.getSourceIp() == null) {
+            return;
+        }
+        double score = alert.getThreatScore() != null ? alert.getThreatScore() : 0.0;
+        if ("CRITICAL".equals(alert.getSeverity()) || score >= alertMinScore) {
+            block(alert.getSourceIp(), "Alert: " + alert.getTitle());
+        }
+    }
+
+    /**
+     * Deny a client that matched a pattern flagged for automatic blocking
+     */
+    public void blockForPattern(ThreatPattern pattern, String clientIp) {
+        if (Boolean.TRUE.equals(pattern.getAutoBlock()) && clientIp != null) {
+            block(clientIp, "Auto-block pattern: " + pattern.getPatternName());
+        }
+    }
+
+    /**
+     * Restore blocks for open alerts raised by auto-block patterns or severe enough on their
+     * own, for the rest of their TTL counted from the alert's last activity
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreFromOpenAlerts() {
+        try {
+            Set<Long> autoBlockPatterns = patternRepository.findActiveAutoBlockPatterns().stream()
+                    .map(ThreatPattern::getId)
+                    .collect(Collectors.toSet());
+            long ttlMillis = Duration.ofMinutes(defaultTtlMinutes).toMillis();
+            long now = System.currentTimeMillis();
+
+            int restored = 0;
+            for (ThreatAlert alert : alertRepository.findByStatusOrderByCreatedAtDesc("OPEN")) {
+                boolean severe = "CRITICAL".equals(alert.getSeverity())
+                        || (alert.getThreatScore() != null && alert.getThreatScore() >= alertMinScore);
+                boolean autoBlock = alert.getRelatedPatternId() != null && autoBlockPatterns.contains(alert.getRelatedPatternId());
+                LocalDateTime lastSeen = alert.getLastSeen() != null ? alert.getLastSeen() : alert.getCreatedAt();
+                if (alert.getSourceIp() == null || !(severe || autoBlock) || lastSeen == null) {
+                    continue;
+                }
+                long remaining = lastSeen.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + ttlMillis - now;
+                if (remaining > 0 && block(alert.getSourceIp(), Duration.ofMillis(remaining), "Alert: " + alert.getTitle())) {
+                    restored++;
+                }
+            }
+            log.info("Restored {} deny list entries from open alerts ({} auto-block patterns)", restored, autoBlockPatterns.size());
+        } catch (Exception e) {
+            log.error("Error restoring deny list from open alerts: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drop expired entries; lookups already ignore them, this only reclaims the slots
+     */
+    @Scheduled(fixedDelay = 60000) // Every minute
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+        if (entries.size() != before) {
+            snapshot = Snapshot.build(entries.values());
+            capacityWarned = false;
+            log.debug("Purged {} expired deny list entries", before - entries.size());
+        }
+    }
+
+    public synchronized List<Map<String, Object>> getEntries() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (DenyEntry entry : entries.values()) {
+            if (entry.expiresAtMillis > now) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("target", entry.cidr.key);
+                item.put("reason", entry.reason);
+                item.put("remote", entry.remote);
+                item.put("createdAt", toLocal(entry.createdAtMillis));
+                item.put("expiresAt", toLocal(entry.expiresAtMillis));
+                item.put("blockedRequests", entry.hits.sum());
+                list.add(item);
+            }
+        }
+        return list;
+    }
+
+    public Map<String, Object> getDenyListStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", current.size());
+        stats.put("ipv4PrefixLengths", current.ipv4PrefixLengths.length);
+        stats.put("blockedRequests", blockedRequests.sum());
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Told about blocks and unblocks made on this node, for propagation to other nodes.
+     * Called while the deny list lock is held, so implementations should only enqueue.
+     */
+    public interface DenyListListener {
+        void onBlocked(String target, long expiresAtMillis, String reason);
+        void onUnblocked(String target);
+    }
+
+    /**
+     * A denied range; the expiry can be extended in place while snapshots share the entry
+     */
+    private static final class DenyEntry {
+        private final Cidr cidr;
+        private final String reason;
+        private final boolean remote; // Received from another node
+        private final long createdAtMillis = System.currentTimeMillis();
+        private volatile long expiresAtMillis;
+        private final LongAdder hits = new LongAdder();
+
+        DenyEntry(Cidr cidr, long expiresAtMillis, String reason, boolean remote) {
+            this.cidr = cidr;
+            this.expiresAtMillis = expiresAtMillis;
+            this.reason = reason;
+            this.remote = remote;
+        }
+    }
+
+    /**
+     * A parsed IP or CIDR range, normalized so each range has one key
+     */
+    static final class Cidr {
+        private static final byte[] IPV6_LOOPBACK = new byte[16];
+        static {
+            IPV6_LOOPBACK[15] = 1;
+        }
+
+        final byte[] network;
+        final int prefixLength;
+        final String key;
+
+        private Cidr(byte[] network, int prefixLength) {
+            this.network = network;
+            this.prefixLength = prefixLength;
+            this.key = format(network, prefixLength);
+        }
+
+        static Cidr parse(String target) {
+            return parse(target, MIN_IPV4_PREFIX, MIN_IPV6_PREFIX);
+        }
+
+        static Cidr parse(String target, int minIpv4Prefix, int minIpv6Prefix) {
+            if (target == null || target.isBlank()) {
+                return null;
+            }
+            String value = target.trim();
+            int slash = value.indexOf('/');
+            String address = slash >= 0 ? value.substring(0, slash) : value;
+            boolean ipv6 = address.indexOf(':') >= 0;
+            try {
+                int prefixLength = slash >= 0 ? Integer.parseInt(value.substring(slash + 1)) : (ipv6 ? 128 : 32);
+                byte[] bytes;
+                if (ipv6) {
+                    // Literal addresses only; anything else would need a name lookup
+                    if (!address.matches("[0-9a-fA-F:.]+")) return null;
+                    bytes = InetAddress.getByName(address).getAddress();
+                } else {
+                    bytes = parseIpv4Octets(address);
+                }
+                if (bytes == null || prefixLength > bytes.length * 8
+                        || prefixLength < (bytes.length == 4 ? minIpv4Prefix : minIpv6Prefix)) {
+                    return null;
+                }
+                return new Cidr(mask(bytes, prefixLength), prefixLength);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        // Ranges holding loopback are never denied, so the gateway cannot lock itself out
+        boolean isProtected() {
+            if (network.length == 4) {
+                return network[0] == 127;
+            }
+            return Arrays.equals(mask(IPV6_LOOPBACK, prefixLength), network);
+        }
+
+        boolean overlaps(Cidr other) {
+            if (network.length != other.network.length) {
+                return false;
+            }
+            int shorter = Math.min(prefixLength, other.prefixLength);
+            return Arrays.equals(mask(network, shorter), mask(other.network, shorter));
+        }
+
+        int ipv4() {
+            return (network[0] & 0xff) << 24 | (network[1] & 0xff) << 16 | (network[2] & 0xff) << 8 | (network[3] & 0xff);
+        }
+
+        // Accepts a.b.c.d as well as truncated prefixes such as a.b.c, missing octets being zero
+        private static byte[] parseIpv4Octets(String address) {
+            String[] parts = address.split("\\.", -1);
+            if (parts.length < 1 || parts.length > 4) return null;
+            byte[] bytes = new byte[4];
+            for (int i = 0; i < parts.length; i++) {
+                int octet = Integer.parseInt(parts[i]);
+                if (octet < 0 || octet > 255) return null;
+                bytes[i] = (byte) octet;
+            }
+            return bytes;
+        }
+
+        private static byte[] mask(byte[] bytes, int prefixLength) {
+            byte[] masked = bytes.clone();
+            for (int bit = prefixLength; bit < masked.length * 8; bit++) {
+                masked[bit / 8] &= (byte) ~(0x80 >>> (bit % 8));
+            }
+            return masked;
+        }
+
+        private static String format(byte[] network, int prefixLength) {
+            try {
+                String address = InetAddress.getByAddress(network).getHostAddress();
+                return prefixLength == network.length * 8 ? address : address + "/" + prefixLength;
+            } catch (Exception e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
+    /**
+     * Immutable lookup structure built from the entries; IPv4 ranges sit in an open-addressing
+     * table, the rarer IPv6 ones are scanned
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[0], new DenyEntry[0], new int[0], new DenyEntry[0], 0);
+
+        private final long[] ipv4Keys;
+        private final DenyEntry[] ipv4Entries;
+        private final int[] ipv4PrefixLengths;   // Longest first
+        private final DenyEntry[] ipv6Entries;
+        private final int size;
+
+        private Snapshot(long[] ipv4Keys, DenyEntry[] ipv4Entries, int[] ipv4PrefixLengths, DenyEntry[] ipv6Entries, int size) {
+            this.ipv4Keys = ipv4Keys;
+            this.ipv4Entries = ipv4Entries;
+            this.ipv4PrefixLengths = ipv4PrefixLengths;
+            this.ipv6Entries = ipv6Entries;
+            this.size = size;
+        }
+
+        static Snapshot build(Collection<DenyEntry> entries) {
+            List<DenyEntry> ipv4 = new ArrayList<>();
+            List<DenyEntry> ipv6 = new ArrayList<>();
+            BitSet lengths = new BitSet(33);
+            for (DenyEntry entry : entries) {
+                if (entry.cidr.network.length == 4) {
+                    ipv4.add(entry);
+                    lengths.set(entry.cidr.prefixLength);
+                } else {
+                    ipv6.add(entry);
+                }
+            }
+            if (ipv4.isEmpty() && ipv6.isEmpty()) {
+                return EMPTY;
+            }
+
+            // Table at most half full keeps probe sequences short
+            int tableSize = Integer.highestOneBit(Math.max(8, ipv4.size() * 2) - 1) << 1;
+            long[] keys = new long[tableSize];
+            DenyEntry[] slots = new DenyEntry[tableSize];
+            for (DenyEntry entry : ipv4) {
+                long key = key(entry.cidr.prefixLength, entry.cidr.ipv4());
+                int slot = slot(key, tableSize);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & (tableSize - 1);
+                }
+                keys[slot] = key;
+                slots[slot] = entry;
+            }
+
+            int[] prefixLengths = new int[lengths.cardinality()];
+            int i = 0;
+            for (int length = lengths.length() - 1; length >= 0; length = lengths.previousSetBit(length - 1)) {
+                prefixLengths[i++] = length;
+            }
+            return new Snapshot(keys, slots, prefixLengths, ipv6.toArray(new DenyEntry[0]), ipv4.size() + ipv6.size());
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Longest live match; an expired entry does not hide a shorter prefix that still applies
+        DenyEntry find(String clientIp, long now) {
+            long address = parseIpv4(clientIp);
+            if (address >= 0) {
+                int ip = (int) address;
+                for (int prefixLength : ipv4PrefixLengths) {
+                    int masked = prefixLength == 32 ? ip : ip & (int) (0xffffffffL << (32 - prefixLength));
+                    DenyEntry entry = lookup(key(prefixLength, masked));
+                    if (entry != null && entry.expiresAtMillis > now) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+            return ipv6Entries.length > 0 ? findIpv6(clientIp, now) : null;
+        }
+
+        private DenyEntry lookup(long key) {
+            int mask = ipv4Keys.length - 1;
+            for (int slot = slot(key, ipv4Keys.length); ipv4Keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (ipv4Keys[slot] == key) {
+                    return ipv4Entries[slot];
+                }
+            }
+            return null;
+        }
+
+        private DenyEntry findIpv6(String clientIp, long now) {
+            Cidr address = Cidr.parse(clientIp);
+            if (address == null || address.network.length != 16) {
+                return null;
+            }
+            for (DenyEntry entry : ipv6Entries) {
+                if (entry.expiresAtMillis > now
+                        && Arrays.equals(Cidr.mask(address.network, entry.cidr.prefixLength), entry.cidr.network)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        // Prefix length in the high word keeps the key non-zero, zero marking an empty slot
+        private static long key(int prefixLength, int maskedAddress) {
+            return (long) prefixLength << 32 | (maskedAddress & 0xffffffffL);
+        }
+
+        private static int slot(long key, int tableSize) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h >>> 32) & (tableSize - 1);
+        }
+
+        // Dotted-quad IPv4 to an unsigned value without allocating, or -1
+        private static long parseIpv4(String ip) {
+            long result = 0;
+            int octet = -1;
+            int dots = 0;
+            for (int i = 0; i < ip.length(); i++) {
+                char c = ip.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                    if (octet > 255) return -1;
+                } else if (c == '.' && octet >= 0 && dots < 3) {
+                    result = result << 8 | octet;
+                    octet = -1;
+                    dots++;
+                } else {
+                    return -1;
+                }
+            }
+            return dots == 3 && octet >= 0 ? result << 8 | octet : -1;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.DenyListEntry;
+import com.example.demo.Repository.DenyListEntryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares deny list changes between gateway nodes through Postgres.
+ *
+ * A block or unblock made on this node is written to the compacted deny_list_entries
+ * table and announced with NOTIFY in the same transaction. Every node LISTENs on one
+ * dedicated connection and applies other nodes' changes as they arrive, typically within
+ * milliseconds of the commit. On (re)connecting, a node loads the live rows after issuing
+ * LISTEN, so no change falls between the two. A silent connection is indistinguishable
+ * from a dead one, so the listener runs SELECT 1 on it periodically and reconnects when
+ * that fails or times out.
+ *
+ * To try it locally, run two gateways against the same database with different
+ * server.port and gateway.node-id values.
+ */
+@Service
+public class DenyListSyncService implements DenyListService.DenyListListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DenyListSyncService.class);
+
+    private static final String CHANNEL = "gateway_deny_list";
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000L;
+    private static final long HEALTH_CHECK_INTERVAL_MS = 30_000L;
+    private static final int HEALTH_CHECK_TIMEOUT_MS = 10_000;
+    private static final int MAX_REASON_LENGTH = 200; // NOTIFY payloads are limited to 8000 bytes
+
+    private final DenyListService denyListService;
+    private final DenyListEntryRepository entryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Writes are applied in order on one thread, off the request and alerting paths
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deny-list-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Thread listenerThread;
+    private volatile boolean running = true;
+    private volatile boolean listening;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong publishFailures = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private volatile long lastPropagationMillis = -1;
+
+    @Value("${gateway.deny-list.sync.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+
+    @Autowired
+    public DenyListSyncService(DenyListService denyListService,
+                               DenyListEntryRepository entryRepository,
+                               JdbcTemplate jdbcTemplate,
+                               DataSource dataSource,
+                               PlatformTransactionManager transactionManager) {
+        this.denyListService = denyListService;
+        this.entryRepository = entryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank() ? configuredNodeId : defaultNodeId();
+        if (enabled) {
+            denyListService.addListener(this);
+        }
+        log.info("Deny list sync {} for node {}", enabled ? "enabled" : "disabled", nodeId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListener() {
+        if (!enabled) {
+            return;
+        }
+        listenerThread = new Thread(this::listen, "deny-list-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void onBlocked(String target, long expiresAtMillis, String reason) {
+        String shortReason = reason != null && reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+        publisher.execute(() -> publish("BLOCK", target, expiresAtMillis, shortReason));
+    }
+
+    @Override
+    public void onUnblocked(String target) {
+        publisher.execute(() -> publish("UNBLOCK", target, 0, null));
+    }
+
+    /**
+     * Drop expired rows so the table stays compacted to live entries
+     */
+    @Scheduled(fixedDelay = 600000) // Every 10 minutes
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = entryRepository.deleteExpired(toUtc(System.currentTimeMillis()));
+            if (deleted > 0) {
+                log.debug("Compacted {} expired deny list rows", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Error compacting deny list table: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getSyncStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("nodeId", nodeId);
+        stats.put("listening", listening);
+        stats.put("published", published.get());
+        stats.put("publishFailures", publishFailures.get());
+        stats.put("received", received.get());
+        stats.put("applied", applied.get());
+        stats.put("lastPropagationMs", lastPropagationMillis);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Row change and NOTIFY commit together, so a listener never sees a change the table lacks
+    private void publish(String op, String target, long expiresAtMillis, String reason) {
+        try {
+            long now = System.currentTimeMillis();
+            Map<String, Object> message = new HashMap<>();
+            message.put("op", op);
+            message.put("target", target);
+            message.put("expiresAt", expiresAtMillis);
+            message.put("reason", reason);
+            message.put("origin", nodeId);
+            message.put("sentAt", now);
+            String payload = objectMapper.writeValueAsString(message);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                if ("BLOCK".equals(op)) {
+                    entryRepository.upsertEntry(target, toUtc(expiresAtMillis), reason, nodeId, toUtc(now));
+                } else {
+                    entryRepository.deleteById(target);
+                }
+                jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+            });
+            published.incrementAndGet();
+        } catch (Exception e) {
+            // The entry stays in force on this node; other nodes miss it until it is blocked again
+            publishFailures.incrementAndGet();
+            log.error("Error publishing deny list {} for {}: {}", op, target, e.getMessage(), e);
+        }
+    }
+
+    private void listen() {
+        long reconnectDelay = 1000;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                // Bounds every read on this connection, so a half-open socket fails the health check
+                connection.setNetworkTimeout(Runnable::run, HEALTH_CHECK_TIMEOUT_MS);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                listening = true;
+                bootstrap();
+                reconnectDelay = 1000;
+
+                long nextHealthCheck = System.currentTimeMillis() + HEALTH_CHECK_INTERVAL_MS;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                    if (System.currentTimeMillis() >= nextHealthCheck) {
+                        checkAlive(connection);
+                        nextHealthCheck = System.currentTimeMillis() + HEALTH_CHECK_INTERVAL_MS;
+                    }
+                }
+            } catch (Exception e) {
+                listening = false;
+                if (!running) {
+                    break;
+                }
+                log.warn("Deny list listener disconnected, retrying in {} ms: {}", reconnectDelay, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+        listening = false;
+    }
+
+    // Throws when the server cannot be reached, sending the listener through a reconnect
+    private void checkAlive(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(HEALTH_CHECK_TIMEOUT_MS / 1000);
+            statement.execute("SELECT 1");
+        }
+    }
+
+    // Load the live rows; remote entries the table no longer has were unblocked meanwhile
+    private void bootstrap() {
+        List<DenyListEntry> rows = entryRepository.findByExpiresAtAfter(toUtc(System.currentTimeMillis()));
+        Set<String> targets = new HashSet<>();
+        int loaded = 0;
+        for (DenyListEntry row : rows) {
+            targets.add(row.getTarget());
+            // Rows from this node are loaded too, for a restarted node keeping its node id
+            if (denyListService.applyRemoteBlock(row.getTarget(), toMillis(row.getExpiresAt()), row.getReason())) {
+                loaded++;
+            }
+        }
+        int dropped = denyListService.retainRemote(targets);
+        log.info("Deny list sync listening on {}: loaded {} entries from {} rows, dropped {}", CHANNEL, loaded, rows.size(), dropped);
+    }
+
+    private void apply(String payload) {
+        received.incrementAndGet();
+        try {
+            Map<?, ?> message = objectMapper.readValue(payload, Map.class);
+            if (nodeId.equals(message.get("origin"))) {
+                return; // Our own change
+            }
+            String target = (String) message.get("target");
+            boolean changed = "BLOCK".equals(message.get("op"))
+                    ? denyListService.applyRemoteBlock(target, ((Number) message.get("expiresAt")).longValue(), (String) message.get("reason"))
+                    : denyListService.applyRemoteUnblock(target);
+            if (changed) {
+                applied.incrementAndGet();
+            }
+            if (message.get("sentAt") instanceof Number sentAt) {
+                lastPropagationMillis = System.currentTimeMillis() - sentAt.longValue();
+            }
+            log.debug("Applied deny list {} for {} from node {}", message.get("op"), target, message.get("origin"));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed deny list notification: {}", e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "gateway";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    private static LocalDateTime toUtc(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static long toMillis(LocalDateTime utc) {
+        return utc.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
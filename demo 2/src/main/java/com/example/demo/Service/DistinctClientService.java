@@ -0,0 +1,243 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.SecurityEventView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate distinct client IPs per route over the last 24 hours, from HyperLogLog
+ * sketches kept per minute for the last hour and per hour for the last day.
+ *
+ * A range query merges the buckets it touches, so ranges are widened to whole minutes
+ * (within the last hour) or whole hours; each ring keeps one bucket more than its longest
+ * range for the partial current period. With precision 12 a sketch is at most 4 KB and
+ * the estimate is within about 1.6% of the true count, however many clients there are.
+ *
+ * Memory is bounded by the route cap: at most 65 sets of rings (64 routes and all routes
+ * together) of 86 sketches, about 23 MB if every sketch turned dense. A sparse sketch takes
+ * about four bytes per client seen in its period, so the usual cost is far lower;
+ * getDistinctClientStats reports the actual size.
+ */
+@Service
+public class DistinctClientService {
+
+    private static final Logger log = LoggerFactory.getLogger(DistinctClientService.class);
+
+    public static final int PRECISION = 12;
+
+    // Sketches of all routes together are kept under this key
+    private static final String ALL_ROUTES = "*";
+    private static final int MAX_ROUTES = 64; // Further routes are only counted under ALL_ROUTES
+
+    private static final int WINDOW_MINUTES = 60; // Longest range served by minute buckets
+    private static final int WINDOW_HOURS = 24;
+    private static final int MINUTE_BUCKETS = WINDOW_MINUTES + 1;
+    private static final int HOUR_BUCKETS = WINDOW_HOURS + 1;
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private final SecurityEventStreamService eventStreamService;
+    private final Map<String, RouteSketches> routes = new ConcurrentHashMap<>();
+
+    // Events before this instant are loaded by the warm-up, later ones arrive through record()
+    private final long liveSinceMillis = toMillis(LocalDateTime.now());
+    private volatile long coveredSinceMillis = Long.MAX_VALUE;
+
+    @Autowired
+    public DistinctClientService(SecurityEventStreamService eventStreamService) {
+        this.eventStreamService = eventStreamService;
+    }
+
+    /**
+     * Add a recorded event's client to its route and to the all-routes sketches
+     */
+    public void record(SecurityEvent event) {
+        if (event == null || event.getTimestamp() == null) {
+            return;
+        }
+        long millis = toMillis(event.getTimestamp());
+        if (millis < liveSinceMillis) {
+            return; // Covered by the warm-up replay
+        }
+        record(millis, event.getClientIp(), event.getRouteId());
+    }
+
+    /**
+     * Whether every client since the given time has been counted
+     */
+    public boolean covers(LocalDateTime since) {
+        long millis = toMillis(since);
+        return millis >= coveredSinceMillis && millis >= toMillis(LocalDateTime.now()) - WINDOW_HOURS * HOUR_MILLIS;
+    }
+
+    /**
+     * Whether every client of a route (or all routes, for null) since the given time has been
+     * counted. Routes past the cap are never sketched; a route without sketches is otherwise
+     * one that had no clients, since sketches are never dropped.
+     */
+    public boolean covers(String routeId, LocalDateTime since) {
+        return covers(since) && (routeId == null || routes.containsKey(routeId) || routes.size() < MAX_ROUTES + 1);
+    }
+
+    /**
+     * Estimated distinct clients in a range; route may be null for all routes
+     */
+    public long countDistinct(String routeId, LocalDateTime start, LocalDateTime end) {
+        return getSketch(routeId, start, end).estimate();
+    }
+
+    /**
+     * Merged sketch for a range, for local estimates or for merging with other nodes
+     * through {@link HyperLogLog#toBytes()}
+     */
+    public HyperLogLog getSketch(String routeId, LocalDateTime start, LocalDateTime end) {
+        HyperLogLog merged = new HyperLogLog(PRECISION);
+        RouteSketches sketches = routes.get(routeId == null ? ALL_ROUTES : routeId);
+        if (sketches != null) {
+            long startMillis = toMillis(start);
+            long endMillis = toMillis(end);
+            boolean lastHour = startMillis >= toMillis(LocalDateTime.now()) - WINDOW_MINUTES * MINUTE_MILLIS;
+            sketches.mergeInto(merged, lastHour, startMillis, endMillis);
+        }
+        return merged;
+    }
+
+    /**
+     * Distinct clients over the last 5 minutes, hour and day, per route for the last hour, and sketch memory
+     */
+    public Map<String, Object> getDistinctClientStats() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("last5Minutes", countDistinct(null, now.minusMinutes(5), now));
+        stats.put("lastHour", countDistinct(null, now.minusHours(1), now));
+        stats.put("last24Hours", countDistinct(null, now.minusHours(24), now));
+
+        Map<String, Long> byRoute = new TreeMap<>();
+        for (String routeId : routes.keySet()) {
+            if (!ALL_ROUTES.equals(routeId)) {
+                byRoute.put(routeId, countDistinct(routeId, now.minusHours(1), now));
+            }
+        }
+        stats.put("lastHourByRoute", byRoute);
+
+        long sketchBytes = 0;
+        for (RouteSketches sketches : routes.values()) {
+            sketchBytes += sketches.sizeInBytes();
+        }
+        stats.put("sketchBytes", sketchBytes);
+        stats.put("complete", covers(now.minusHours(24)));
+        stats.put("relativeError", 1.04 / Math.sqrt(1 << PRECISION));
+        return stats;
+    }
+
+    /**
+     * Load the clients of the last day that precede startup
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocalDateTime liveSince = LocalDateTime.ofEpochSecond(liveSinceMillis / 1000,
+                    (int) (liveSinceMillis % 1000) * 1_000_000, ZoneOffset.UTC);
+            // From the start of the oldest hour a day-long range can touch
+            LocalDateTime from = liveSince.minusHours(WINDOW_HOURS).truncatedTo(ChronoUnit.HOURS);
+
+            long loaded = eventStreamService.forEachEvent(from, liveSince, this::replay);
+            coveredSinceMillis = toMillis(from);
+            log.info("Loaded {} events into the distinct client sketches", loaded);
+        } catch (Exception e) {
+            log.error("Error loading distinct client sketches: {}", e.getMessage(), e);
+        }
+    }
+
+    private void replay(SecurityEventView event) {
+        if (event.getTimestamp() != null) {
+            record(toMillis(event.getTimestamp()), event.getClientIp(), event.getRouteId());
+        }
+    }
+
+    private void record(long millis, String clientIp, String routeId) {
+        if (clientIp == null) {
+            return;
+        }
+        long hash = HyperLogLog.hash(clientIp);
+        routes.computeIfAbsent(ALL_ROUTES, k -> new RouteSketches()).add(millis, hash);
+        if (routeId != null) {
+            RouteSketches sketches = routes.get(routeId);
+            if (sketches == null && routes.size() < MAX_ROUTES + 1) { // ALL_ROUTES plus MAX_ROUTES routes
+                sketches = routes.computeIfAbsent(routeId, k -> new RouteSketches());
+            }
+            if (sketches != null) {
+                sketches.add(millis, hash);
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Rings of minute and hour sketches for one route; a slot is reset when a newer period reuses it
+     */
+    private static final class RouteSketches {
+        private final long[] minutes = new long[MINUTE_BUCKETS];
+        private final HyperLogLog[] minuteSketches = new HyperLogLog[MINUTE_BUCKETS];
+        private final long[] hours = new long[HOUR_BUCKETS];
+        private final HyperLogLog[] hourSketches = new HyperLogLog[HOUR_BUCKETS];
+
+        RouteSketches() {
+            Arrays.fill(minutes, Long.MIN_VALUE);
+            Arrays.fill(hours, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long millis, long hash) {
+            add(minutes, minuteSketches, millis / MINUTE_MILLIS, hash);
+            add(hours, hourSketches, millis / HOUR_MILLIS, hash);
+        }
+
+        private static void add(long[] periods, HyperLogLog[] sketches, long period, long hash) {
+            int slot = (int) Math.floorMod(period, (long) periods.length);
+            if (periods[slot] != period) {
+                if (periods[slot] > period) {
+                    return; // Older than the ring holds
+                }
+                periods[slot] = period;
+                sketches[slot] = new HyperLogLog(PRECISION);
+            }
+            sketches[slot].addHash(hash);
+        }
+
+        synchronized void mergeInto(HyperLogLog target, boolean lastHour, long startMillis, long endMillis) {
+            long[] periods = lastHour ? minutes : hours;
+            HyperLogLog[] sketches = lastHour ? minuteSketches : hourSketches;
+            long periodMillis = lastHour ? MINUTE_MILLIS : HOUR_MILLIS;
+            long first = startMillis / periodMillis;
+            long last = endMillis / periodMillis;
+            for (int slot = 0; slot < periods.length; slot++) {
+                if (periods[slot] >= first && periods[slot] <= last) {
+                    target.merge(sketches[slot]);
+                }
+            }
+        }
+
+        synchronized long sizeInBytes() {
+            long bytes = 0;
+            for (HyperLogLog sketch : minuteSketches) if (sketch != null) bytes += sketch.getSizeInBytes();
+            for (HyperLogLog sketch : hourSketches) if (sketch != null) bytes += sketch.getSizeInBytes();
+            return bytes;
+        }
+    }
+}
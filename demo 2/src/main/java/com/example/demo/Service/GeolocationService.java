@@ -5,23 +5,43 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class GeolocationService {
 
     private static final Logger log = LoggerFactory.getLogger(GeolocationService.class);
 
+    // Cache sizing and expiry
+    private static final int MAX_CACHE_ENTRIES = 10000;
+    private static final Duration POSITIVE_TTL = Duration.ofHours(24);
+    private static final Duration NEGATIVE_TTL = Duration.ofMinutes(10);
+    private static final Duration LOOKUP_TIMEOUT = Duration.ofSeconds(5);
+
     private final WebClient webClient;
 
-    // Cache to avoid repeated lookups (simple in-memory cache)
-    private final Map<String, GeolocationData> cache = new ConcurrentHashMap<>();
+    // Bounded LRU cache; access order keeps recently used IPs, eldest entry is evicted at capacity
+    private final Map<String, CacheEntry> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, CacheEntry>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                    return size() > MAX_CACHE_ENTRIES;
+                }
+            });
+
+    // Lookups currently in progress, shared by concurrent callers asking for the same IP
+    private final Map<String, Mono<GeolocationData>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
 
     public GeolocationService() {
         this.webClient = WebClient.builder()
@@ -29,56 +49,151 @@ public class GeolocationService {
                 .build();
     }
 
-    public GeolocationData getLocation(String ipAddress) {
-        // Check cache first
-        if (cache.containsKey(ipAddress)) {
-            return cache.get(ipAddress);
+    /**
+     * Resolve the location of an IP without blocking the caller
+     */
+    public Mono<GeolocationData> getLocationAsync(String ipAddress) {
+        // Skip private/local IPs
+        if (isPrivateOrLocalIP(ipAddress)) {
+            return Mono.just(localData(ipAddress));
         }
 
-        // Skip private/local IPs
+        GeolocationData cached = getLocationIfCached(ipAddress);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        cacheMisses.incrementAndGet();
+        return inFlight.computeIfAbsent(ipAddress, this::fetchLocation);
+    }
+
+    /**
+     * Blocking variant for callers that already run on a worker thread
+     */
+    public GeolocationData getLocation(String ipAddress) {
+        GeolocationData location = getLocationAsync(ipAddress).block(LOOKUP_TIMEOUT.plusSeconds(1));
+        return location != null ? location : unknownData(ipAddress);
+    }
+
+    /**
+     * Get a cached, unexpired location or null; never triggers a remote lookup
+     */
+    public GeolocationData getLocationIfCached(String ipAddress) {
+        if (ipAddress == null) {
+            return null;
+        }
         if (isPrivateOrLocalIP(ipAddress)) {
-            GeolocationData localData = new GeolocationData(ipAddress, "Local", "Local", "Private Network", "Local");
-            cache.put(ipAddress, localData);
-            return localData;
+            return localData(ipAddress);
         }
 
-        try {
-            // Call free IP geolocation API
-            IPApiResponse response = webClient
-                    .get()
-                    .uri("/" + ipAddress + "?fields=status,message,country,countryCode,region,regionName,city,query")
-                    .retrieve()
-                    .bodyToMono(IPApiResponse.class)
-                    .timeout(Duration.ofSeconds(5))
-                    .block();
-
-            GeolocationData result;
-            if (response != null && "success".equals(response.status)) {
-                result = new GeolocationData(
-                        ipAddress,
-                        response.country,
-                        response.city,
-                        response.regionName,
-                        response.countryCode
-                );
-            } else {
-                log.warn("Geolocation lookup failed for IP {}: {}", ipAddress,
-                        response != null ? response.message : "No response");
-                result = new GeolocationData(ipAddress, "Unknown", "Unknown", "Unknown", "XX");
+        CacheEntry entry = cache.get(ipAddress);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            cache.remove(ipAddress);
+            return null;
+        }
+
+        cacheHits.incrementAndGet();
+        return entry.data;
+    }
+
+    /**
+     * Warm the cache for IPs that are not resolved yet, in the background
+     */
+    public void prefetch(Collection<String> ipAddresses) {
+        for (String ip : ipAddresses) {
+            // One cache check per IP, so each one counts as a single hit or miss
+            if (ip != null && getLocationIfCached(ip) == null) {
+                cacheMisses.incrementAndGet();
+                inFlight.computeIfAbsent(ip, this::fetchLocation).subscribe();
             }
+        }
+    }
 
-            // Cache the result
-            cache.put(ipAddress, result);
-            return result;
+    /**
+     * Get cache statistics
+     */
+    public Map<String, Object> getCacheStats() {
+        long hits = cacheHits.get();
+        long misses = cacheMisses.get();
 
-        } catch (Exception e) {
-            log.warn("Geolocation lookup error for IP {}: {}", ipAddress, e.getMessage());
-            GeolocationData errorResult = new GeolocationData(ipAddress, "Unknown", "Unknown", "Unknown", "XX");
-            cache.put(ipAddress, errorResult);
-            return errorResult;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxSize", MAX_CACHE_ENTRIES);
+        stats.put("inFlightLookups", inFlight.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        return stats;
+    }
+
+    /**
+     * Drop expired entries so stale failures do not hold capacity
+     */
+    @Scheduled(fixedDelay = 300000) // Every 5 minutes
+    public void evictExpiredEntries() {
+        int before = cache.size();
+        synchronized (cache) {
+            cache.values().removeIf(CacheEntry::isExpired);
+        }
+        int removed = before - cache.size();
+        if (removed > 0) {
+            log.debug("Evicted {} expired geolocation cache entries", removed);
         }
     }
 
+    private Mono<GeolocationData> fetchLocation(String ipAddress) {
+        // Call free IP geolocation API
+        return webClient
+                .get()
+                .uri("/" + ipAddress + "?fields=status,message,country,countryCode,region,regionName,city,query")
+                .retrieve()
+                .bodyToMono(IPApiResponse.class)
+                .timeout(LOOKUP_TIMEOUT)
+                .map(response -> {
+                    if ("success".equals(response.status)) {
+                        GeolocationData result = new GeolocationData(
+                                ipAddress,
+                                response.country,
+                                response.city,
+                                response.regionName,
+                                response.countryCode
+                        );
+                        cache.put(ipAddress, new CacheEntry(result, POSITIVE_TTL));
+                        return result;
+                    }
+                    log.warn("Geolocation lookup failed for IP {}: {}", ipAddress, response.message);
+                    return cacheFailure(ipAddress);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Geolocation lookup failed for IP {}: No response", ipAddress);
+                    return cacheFailure(ipAddress);
+                }))
+                .onErrorResume(e -> {
+                    log.warn("Geolocation lookup error for IP {}: {}", ipAddress, e.getMessage());
+                    return Mono.just(cacheFailure(ipAddress));
+                })
+                .doFinally(signal -> inFlight.remove(ipAddress))
+                .cache();
+    }
+
+    private GeolocationData cacheFailure(String ipAddress) {
+        // Failures are kept briefly so a flaky lookup is retried later
+        GeolocationData result = unknownData(ipAddress);
+        cache.put(ipAddress, new CacheEntry(result, NEGATIVE_TTL));
+        return result;
+    }
+
+    private GeolocationData localData(String ipAddress) {
+        return new GeolocationData(ipAddress, "Local", "Local", "Private Network", "Local");
+    }
+
+    private GeolocationData unknownData(String ipAddress) {
+        return new GeolocationData(ipAddress, "Unknown", "Unknown", "Unknown", "XX");
+    }
+
     private boolean isPrivateOrLocalIP(String ip) {
         if (ip == null || ip.trim().isEmpty()) return true;
 
@@ -146,4 +261,18 @@ public class GeolocationService {
             return String.format("%s, %s, %s (%s)", city, region, country, countryCode);
         }
     }
-}
\ No newline at end of file
+
+    private static class CacheEntry {
+        private final GeolocationData data;
+        private final long expiresAtMillis;
+
+        CacheEntry(GeolocationData data, Duration ttl) {
+            this.data = data;
+            this.expiresAtMillis = System.currentTimeMillis() + ttl.toMillis();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.SecurityEventView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Top attacking IPs (by rejections) over the last 24 hours, answered from memory.
+ *
+ * Rejections are counted at ingest into {@link TopKSketch}es per minute for the last hour
+ * and per hour for the last day, globally and per route. A window query merges every
+ * bucket it touches, so windows are widened to whole minutes (up to an hour) or whole
+ * hours; each ring keeps one bucket more than its longest window for the partial
+ * current period. Sketch counts are upper bounds; see {@link TopKSketch} for the error bounds.
+ */
+@Service
+public class HeavyHitterService {
+
+    private static final Logger log = LoggerFactory.getLogger(HeavyHitterService.class);
+
+    private static final int WINDOW_MINUTES = 60; // Longest window served by minute buckets
+    private static final int WINDOW_HOURS = 24;
+    private static final int MINUTE_BUCKETS = WINDOW_MINUTES + 1;
+    private static final int HOUR_BUCKETS = WINDOW_HOURS + 1;
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    // Sketch shapes: the global sketch is tighter than the per-route ones
+    private static final int GLOBAL_CAPACITY = 256;
+    private static final int GLOBAL_WIDTH = 2048;
+    private static final int ROUTE_CAPACITY = 64;
+    private static final int ROUTE_WIDTH = 512;
+    private static final int DEPTH = 4;
+    private static final int MAX_ROUTES_PER_BUCKET = 64;
+
+    private final SecurityEventStreamService eventStreamService;
+
+    private final Bucket[] minuteBuckets = new Bucket[MINUTE_BUCKETS];
+    private final Bucket[] hourBuckets = new Bucket[HOUR_BUCKETS];
+
+    // Events before this instant are loaded by the warm-up, later ones arrive through record()
+    private final long liveSinceMillis = toMillis(LocalDateTime.now());
+    private volatile long coveredSinceMillis = Long.MAX_VALUE;
+
+    @Autowired
+    public HeavyHitterService(SecurityEventStreamService eventStreamService) {
+        this.eventStreamService = eventStreamService;
+        for (int i = 0; i < MINUTE_BUCKETS; i++) minuteBuckets[i] = new Bucket();
+        for (int i = 0; i < HOUR_BUCKETS; i++) hourBuckets[i] = new Bucket();
+    }
+
+    /**
+     * Count a recorded event if it is a rejection
+     */
+    public void record(SecurityEvent event) {
+        if (event == null || event.getTimestamp() == null) {
+            return;
+        }
+        long millis = toMillis(event.getTimestamp());
+        if (millis < liveSinceMillis) {
+            return; // Covered by the warm-up replay
+        }
+        record(millis, event.getEventType(), event.getClientIp(), event.getRouteId());
+    }
+
+    /**
+     * Whether every rejection since the given time has been counted
+     */
+    public boolean covers(LocalDateTime since) {
+        return toMillis(since) >= coveredSinceMillis;
+    }
+
+    /**
+     * Top attacking IPs since the given time as [clientIp, count] rows, heaviest first,
+     * keeping those with at least minCount rejections. Route may be null for all routes.
+     *
+     * The count is the sketch estimate less its error bound, so it does not exceed the true
+     * count (up to the Count-Min probability in {@link TopKSketch}) and thresholds or scores
+     * built on it are not tripped by overcounting.
+     */
+    public List<Object[]> getTopAttackers(LocalDateTime since, String routeId, int limit, long minCount) {
+        TopKSketch sketch = getSketch(since, routeId);
+        long errorBound = sketch.getErrorBound();
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : sketch.top(limit)) {
+            long guaranteed = entry.getValue() - errorBound;
+            if (guaranteed >= Math.max(1, minCount)) {
+                rows.add(new Object[] { entry.getKey(), guaranteed });
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Top attackers over the last minutes, with the error bound of the counts
+     */
+    public Map<String, Object> getTopAttackersReport(int minutes, String routeId, int limit) {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(minutes);
+        TopKSketch sketch = getSketch(since, routeId);
+        long errorBound = sketch.getErrorBound();
+
+        List<Map<String, Object>> attackers = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : sketch.top(limit)) {
+            Map<String, Object> attacker = new HashMap<>();
+            attacker.put("clientIp", entry.getKey());
+            attacker.put("rejections", entry.getValue());
+            attacker.put("minRejections", Math.max(0, entry.getValue() - errorBound));
+            attackers.add(attacker);
+        }
+
+        Map<String, Object> report = new HashMap<>();
+        report.put("windowMinutes", minutes);
+        report.put("routeId", routeId);
+        report.put("topAttackers", attackers);
+        report.put("totalRejections", sketch.getTotal());
+        report.put("maxOvercount", errorBound);
+        report.put("complete", covers(since));
+        return report;
+    }
+
+    // Window lengths accepted by the API, e.g. 5m, 1h, 24h
+    public static int parseWindowMinutes(String window) {
+        Duration duration = Duration.parse("PT" + window.trim().toUpperCase());
+        long minutes = duration.toMinutes();
+        if (minutes < 1 || minutes > WINDOW_HOURS * 60) {
+            throw new IllegalArgumentException("Window must be between 1m and " + WINDOW_HOURS + "h");
+        }
+        return (int) minutes;
+    }
+
+    /**
+     * Merged sketch for the window since the given time, for local queries or for
+     * aggregation with other nodes through {@link TopKSketch#toBytes()}
+     */
+    public TopKSketch getSketch(LocalDateTime since, String routeId) {
+        long now = toMillis(LocalDateTime.now());
+        long sinceMillis = Math.min(toMillis(since), now);
+
+        // Every period from the one holding since to the current, partial one
+        Bucket[] ring;
+        long current;
+        long first;
+        if (now - sinceMillis <= WINDOW_MINUTES * MINUTE_MILLIS) {
+            ring = minuteBuckets;
+            current = now / MINUTE_MILLIS;
+            first = sinceMillis / MINUTE_MILLIS;
+        } else {
+            ring = hourBuckets;
+            current = now / HOUR_MILLIS;
+            first = sinceMillis / HOUR_MILLIS;
+        }
+        first = Math.max(first, current - ring.length + 1);
+
+        TopKSketch merged = routeId == null ? newGlobalSketch() : newRouteSketch();
+        for (long period = first; period <= current; period++) {
+            ring[(int) Math.floorMod(period, (long) ring.length)].mergeInto(merged, period, routeId);
+        }
+        return merged;
+    }
+
+    /**
+     * Load the rejections of the last day that precede startup
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            LocalDateTime liveSince = LocalDateTime.ofEpochSecond(liveSinceMillis / 1000,
+                    (int) (liveSinceMillis % 1000) * 1_000_000, ZoneOffset.UTC);
+            // From the start of the oldest hour a day-long window can touch
+            LocalDateTime from = liveSince.minusHours(WINDOW_HOURS).truncatedTo(ChronoUnit.HOURS);
+
+            long loaded = eventStreamService.forEachEvent(from, liveSince, this::replay);
+            coveredSinceMillis = toMillis(from);
+            log.info("Loaded {} events into the heavy hitter sketches", loaded);
+        } catch (Exception e) {
+            log.error("Error loading heavy hitter sketches: {}", e.getMessage(), e);
+        }
+    }
+
+    private void replay(SecurityEventView event) {
+        if (event.getTimestamp() != null) {
+            record(toMillis(event.getTimestamp()), event.getEventType(), event.getClientIp(), event.getRouteId());
+        }
+    }
+
+    private void record(long millis, String eventType, String clientIp, String routeId) {
+        if (!"REJECTION".equals(eventType) || clientIp == null) {
+            return;
+        }
+        long hash = HyperLogLog.hash(clientIp);
+        long minute = millis / MINUTE_MILLIS;
+        long hour = millis / HOUR_MILLIS;
+        minuteBuckets[(int) Math.floorMod(minute, (long) MINUTE_BUCKETS)].add(minute, clientIp, hash, routeId);
+        hourBuckets[(int) Math.floorMod(hour, (long) HOUR_BUCKETS)].add(hour, clientIp, hash, routeId);
+    }
+
+    private static TopKSketch newGlobalSketch() {
+        return new TopKSketch(GLOBAL_CAPACITY, DEPTH, GLOBAL_WIDTH);
+    }
+
+    private static TopKSketch newRouteSketch() {
+        return new TopKSketch(ROUTE_CAPACITY, DEPTH, ROUTE_WIDTH);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Sketches for one minute or hour; reset when a newer period reuses the slot
+     */
+    private static final class Bucket {
+        private long period = Long.MIN_VALUE;
+        private TopKSketch global;
+        private final Map<String, TopKSketch> byRoute = new HashMap<>();
+        private boolean routesCapped;
+
+        synchronized void add(long eventPeriod, String clientIp, long hash, String routeId) {
+            if (period != eventPeriod) {
+                if (period > eventPeriod) {
+                    return; // Older than the ring holds
+                }
+                period = eventPeriod;
+                global = newGlobalSketch();
+                byRoute.clear();
+                routesCapped = false;
+            }
+            global.add(clientIp, hash);
+
+            if (routeId != null) {
+                TopKSketch route = byRoute.get(routeId);
+                if (route == null && byRoute.size() < MAX_ROUTES_PER_BUCKET) {
+                    route = newRouteSketch();
+                    byRoute.put(routeId, route);
+                } else if (route == null && !routesCapped) {
+                    routesCapped = true;
+                    log.warn("More than {} routes in one heavy hitter bucket; further routes are only counted globally",
+                            MAX_ROUTES_PER_BUCKET);
+                }
+                if (route != null) {
+                    route.add(clientIp, hash);
+                }
+            }
+        }
+
+        synchronized void mergeInto(TopKSketch target, long expectedPeriod, String routeId) {
+            if (period != expectedPeriod) {
+                return;
+            }
+            TopKSketch source = routeId == null ? global : byRoute.get(routeId);
+            if (source != null) {
+                target.merge(source);
+            }
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.SecurityEventView;
+import com.example.demo.Repository.SecurityEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Column-oriented in-memory copy of the last hours of security events.
+ *
+ * Events are appended at ingest into hourly segments of primitive arrays; string
+ * columns are dictionary-encoded per segment so filters compare ints. Short-window
+ * analytics scan these arrays instead of loading entities from the database.
+ */
+@Service
+public class HotEventWindowService {
+
+    private static final Logger log = LoggerFactory.getLogger(HotEventWindowService.class);
+
+    private static final int WINDOW_HOURS = 24;
+    private static final long HOUR_MILLIS = 3600_000L;
+
+    // Hard cap on rows held; the oldest past hour is dropped when it is reached. The current
+    // hour is never dropped: if it alone fills the window, its later events are not held.
+    private static final long MAX_EVENTS = 2_000_000L;
+
+    public enum Column { ROUTE, CLIENT_IP, PATH, REJECTION_REASON, EVENT_TYPE, THREAT_LEVEL }
+
+    private final SecurityEventRepository eventRepository;
+    private final SecurityEventStreamService eventStreamService;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong totalEvents = new AtomicLong();
+
+    // Live appends cover events from this instant; warm-up replays everything before it
+    private final long liveSinceMillis = toMillis(LocalDateTime.now());
+
+    // Earliest instant the window holds completely; Long.MAX_VALUE until warm-up finishes
+    private volatile long coveredSinceMillis = Long.MAX_VALUE;
+
+    // End of the last hour whose events did not all fit under MAX_EVENTS
+    private volatile long incompleteUntilMillis = 0L;
+
+    @Autowired
+    public HotEventWindowService(SecurityEventRepository eventRepository,
+                                 SecurityEventStreamService eventStreamService) {
+        this.eventRepository = eventRepository;
+        this.eventStreamService = eventStreamService;
+    }
+
+    /**
+     * Append a recorded event to the window
+     */
+    public void append(SecurityEvent event) {
+        if (event == null || event.getTimestamp() == null) {
+            return;
+        }
+        long millis = toMillis(event.getTimestamp());
+        if (millis < liveSinceMillis) {
+            return; // Covered by the warm-up replay
+        }
+        append(millis, event.getEventType(), event.getRouteId(), event.getClientIp(), event.getRequestPath(),
+                event.getRejectionReason(), event.getThreatLevel(), event.getResponseStatus(), event.getResponseTimeMs());
+    }
+
+    /**
+     * Whether every event since the given time is held in the window
+     */
+    public boolean covers(LocalDateTime since) {
+        long millis = toMillis(since);
+        return millis >= coveredSinceMillis && millis >= incompleteUntilMillis;
+    }
+
+    /**
+     * Count events matching the filter
+     */
+    public long count(EventFilter filter) {
+        long count = 0;
+        for (SegmentView view : views(filter)) {
+            if (view.excluded) continue;
+            for (int i = 0; i < view.size; i++) {
+                if (view.matches(i)) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Count matching events grouped by a column
+     */
+    public Map<String, Long> countBy(EventFilter filter, Column column) {
+        Map<String, Long> totals = new HashMap<>();
+        for (SegmentView view : views(filter)) {
+            if (view.excluded) continue;
+
+            // Group on dictionary ids first, decode once per segment
+            int[] codes = view.column(column);
+            long[] counts = new long[view.dictionarySize(column) + 1];
+            for (int i = 0; i < view.size; i++) {
+                if (view.matches(i)) counts[codes[i] + 1]++;
+            }
+            for (int code = -1; code < counts.length - 1; code++) {
+                if (counts[code + 1] > 0) {
+                    totals.merge(view.decode(column, code), counts[code + 1], Long::sum);
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Count distinct non-null values of a column among matching events
+     */
+    public int countDistinct(EventFilter filter, Column column) {
+        Set<String> distinct = new HashSet<>();
+        for (SegmentView view : views(filter)) {
+            if (view.excluded) continue;
+
+            int[] codes = view.column(column);
+            boolean[] seen = new boolean[view.dictionarySize(column)];
+            for (int i = 0; i < view.size; i++) {
+                if (view.matches(i) && codes[i] >= 0) seen[codes[i]] = true;
+            }
+            for (int code = 0; code < seen.length; code++) {
+                if (seen[code]) distinct.add(view.decode(column, code));
+            }
+        }
+        return distinct.size();
+    }
+
+    /**
+     * Average response time of matching events that recorded one
+     */
+    public double averageResponseTime(EventFilter filter) {
+        long sum = 0;
+        long count = 0;
+        for (SegmentView view : views(filter)) {
+            if (view.excluded) continue;
+            for (int i = 0; i < view.size; i++) {
+                short latency = view.latencies[i];
+                if (latency >= 0 && view.matches(i)) {
+                    sum += latency;
+                    count++;
+                }
+            }
+        }
+        return count > 0 ? (double) sum / count : 0.0;
+    }
+
+    /**
+     * Count a client's events, from memory when the window covers the range
+     */
+    public long countClientEvents(String clientIp, String eventType, LocalDateTime from, LocalDateTime to) {
+        if (covers(from)) {
+            return count(EventFilter.between(from, to).clientIp(clientIp).eventType(eventType));
+        }
+        List<SecurityEvent> events = eventRepository.findByClientIpAndTimestampBetween(clientIp, from, to);
+        return eventType == null ? events.size()
+                : events.stream().filter(e -> eventType.equals(e.getEventType())).count();
+    }
+
+    public Map<String, Object> getWindowStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("events", totalEvents.get());
+        stats.put("segments", segments.size());
+        stats.put("maxEvents", MAX_EVENTS);
+        stats.put("coveredSince", coveredSinceMillis == Long.MAX_VALUE ? null
+                : LocalDateTime.ofEpochSecond(Math.max(coveredSinceMillis, incompleteUntilMillis) / 1000, 0, ZoneOffset.UTC));
+        return stats;
+    }
+
+    /**
+     * Load the part of the window that precedes startup
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpWindow() {
+        try {
+            LocalDateTime liveSince = LocalDateTime.ofEpochSecond(liveSinceMillis / 1000,
+                    (int) (liveSinceMillis % 1000) * 1_000_000, ZoneOffset.UTC);
+            LocalDateTime from = liveSince.minusHours(WINDOW_HOURS);
+
+            long loaded = eventStreamService.forEachEvent(from, liveSince, this::replay);
+            coveredSinceMillis = Math.max(toMillis(from), oldestSegmentStart());
+            log.info("Loaded {} events into the hot event window", loaded);
+        } catch (Exception e) {
+            log.error("Error loading hot event window: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drop hours that have left the window
+     */
+    @Scheduled(fixedDelay = 60000) // Every minute
+    public void expireSegments() {
+        long cutoff = hourStart(toMillis(LocalDateTime.now())) - WINDOW_HOURS * HOUR_MILLIS;
+        while (dropOldestSegmentBefore(cutoff)) {
+            // Keep dropping until the oldest hour is inside the window
+        }
+        if (coveredSinceMillis != Long.MAX_VALUE && coveredSinceMillis < cutoff) {
+            coveredSinceMillis = cutoff;
+        }
+    }
+
+    private void replay(SecurityEventView event) {
+        long millis = toMillis(event.getTimestamp());
+        if (millis < liveSinceMillis) {
+            append(millis, event.getEventType(), event.getRouteId(), event.getClientIp(), event.getRequestPath(),
+                    event.getRejectionReason(), event.getThreatLevel(), event.getResponseStatus(),
+                    event.getResponseTimeMs());
+        }
+    }
+
+    private void append(long millis, String eventType, String routeId, String clientIp, String path,
+                        String reason, String threatLevel, Integer status, Integer latencyMs) {
+        long hour = hourStart(millis);
+        long currentHour = hourStart(toMillis(LocalDateTime.now()));
+        if (hour < currentHour - WINDOW_HOURS * HOUR_MILLIS) {
+            return;
+        }
+
+        if (totalEvents.get() >= MAX_EVENTS && !dropOldestSegmentBefore(Math.min(hour, currentHour))) {
+            // Nothing older to drop; the window no longer holds this hour completely
+            incompleteUntilMillis = Math.max(incompleteUntilMillis, hour + HOUR_MILLIS);
+            return;
+        }
+
+        // A segment dropped after it was looked up refuses the row; its hour is gone anyway
+        if (segments.computeIfAbsent(hour, Segment::new)
+                .append(millis, eventType, routeId, clientIp, path, reason, threatLevel, status, latencyMs)) {
+            totalEvents.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drop the oldest hour if it starts before the limit
+     *
+     * @return whether an hour was dropped
+     */
+    private synchronized boolean dropOldestSegmentBefore(long limitMillis) {
+        Map.Entry<Long, Segment> oldest = segments.firstEntry();
+        if (oldest == null || oldest.getKey() >= limitMillis) {
+            return false;
+        }
+        segments.remove(oldest.getKey(), oldest.getValue());
+        totalEvents.addAndGet(-oldest.getValue().retire());
+        if (coveredSinceMillis != Long.MAX_VALUE) {
+            coveredSinceMillis = Math.max(coveredSinceMillis, oldest.getKey() + HOUR_MILLIS);
+        }
+        return true;
+    }
+
+    private long oldestSegmentStart() {
+        return segments.isEmpty() ? 0L : segments.firstKey();
+    }
+
+    private List<SegmentView> views(EventFilter filter) {
+        List<SegmentView> views = new ArrayList<>();
+        if (filter.fromMillis > filter.toMillis) {
+            return views;
+        }
+        for (Segment segment : segments.subMap(hourStart(filter.fromMillis), true,
+                hourStart(filter.toMillis), true).values()) {
+            views.add(segment.view(filter));
+        }
+        return views;
+    }
+
+    private static long hourStart(long millis) {
+        return Math.floorDiv(millis, HOUR_MILLIS) * HOUR_MILLIS;
+    }
+
+    // Event timestamps are naive local times, so they are mapped to millis without a zone shift
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Row predicate for window scans. Null fields match everything.
+     */
+    public static final class EventFilter {
+        private final long fromMillis;
+        private final long toMillis;
+        private String clientIp;
+        private String routeId;
+        private String eventType;
+
+        private EventFilter(long fromMillis, long toMillis) {
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+        }
+
+        public static EventFilter since(LocalDateTime from) {
+            return new EventFilter(toMillis(from), Long.MAX_VALUE - HOUR_MILLIS);
+        }
+
+        public static EventFilter between(LocalDateTime from, LocalDateTime to) {
+            return new EventFilter(toMillis(from), toMillis(to));
+        }
+
+        public EventFilter clientIp(String clientIp) {
+            this.clientIp = clientIp;
+            return this;
+        }
+
+        public EventFilter route(String routeId) {
+            this.routeId = routeId;
+            return this;
+        }
+
+        public EventFilter eventType(String eventType) {
+            this.eventType = eventType;
+            return this;
+        }
+    }
+
+    /**
+     * Per-segment string dictionary; codes are dense and never reused within the segment
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+        private int size;
+
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+
+        // -1 means no such value in this segment, -2 means the filter is not set
+        int lookup(String value) {
+            if (value == null) {
+                return -2;
+            }
+            Integer code = codes.get(value);
+            return code != null ? code : -1;
+        }
+    }
+
+    /**
+     * One hour of events in column arrays. Rows are only ever appended, so a reader
+     * that captured the arrays and size under the lock can scan them without it.
+     */
+    private static final class Segment {
+        private int size;
+        private boolean retired;
+        private long[] timestamps = new long[1024];
+        private int[] eventTypes = new int[1024];
+        private int[] routes = new int[1024];
+        private int[] clientIps = new int[1024];
+        private int[] paths = new int[1024];
+        private int[] reasons = new int[1024];
+        private int[] threatLevels = new int[1024];
+        private short[] statuses = new short[1024];
+        private short[] latencies = new short[1024];
+
+        private final Dictionary eventTypeDictionary = new Dictionary();
+        private final Dictionary routeDictionary = new Dictionary();
+        private final Dictionary ipDictionary = new Dictionary();
+        private final Dictionary pathDictionary = new Dictionary();
+        private final Dictionary reasonDictionary = new Dictionary();
+        private final Dictionary threatLevelDictionary = new Dictionary();
+
+        Segment(Long hourStart) {
+            // Keyed by hour start in the segment map; nothing per-segment depends on it
+        }
+
+        // Stop taking rows once the segment has left the window; returns the rows it held
+        synchronized int retire() {
+            retired = true;
+            return size;
+        }
+
+        synchronized boolean append(long millis, String eventType, String routeId, String clientIp, String path,
+                                    String reason, String threatLevel, Integer status, Integer latencyMs) {
+            if (retired) {
+                return false;
+            }
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                eventTypes = Arrays.copyOf(eventTypes, capacity);
+                routes = Arrays.copyOf(routes, capacity);
+                clientIps = Arrays.copyOf(clientIps, capacity);
+                paths = Arrays.copyOf(paths, capacity);
+                reasons = Arrays.copyOf(reasons, capacity);
+                threatLevels = Arrays.copyOf(threatLevels, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                latencies = Arrays.copyOf(latencies, capacity);
+            }
+
+            timestamps[size] = millis;
+            eventTypes[size] = eventTypeDictionary.encode(eventType);
+            routes[size] = routeDictionary.encode(routeId);
+            clientIps[size] = ipDictionary.encode(clientIp);
+            paths[size] = pathDictionary.encode(path);
+            reasons[size] = reasonDictionary.encode(reason);
+            threatLevels[size] = threatLevelDictionary.encode(threatLevel);
+            statuses[size] = status != null ? (short) Math.min(status, Short.MAX_VALUE) : -1;
+            latencies[size] = latencyMs != null ? (short) Math.min(latencyMs, Short.MAX_VALUE) : -1;
+            size++;
+            return true;
+        }
+
+        synchronized SegmentView view(EventFilter filter) {
+            SegmentView view = new SegmentView();
+            view.size = size;
+            view.timestamps = timestamps;
+            view.eventTypes = eventTypes;
+            view.routes = routes;
+            view.clientIps = clientIps;
+            view.paths = paths;
+            view.reasons = reasons;
+            view.threatLevels = threatLevels;
+            view.latencies = latencies;
+            view.fromMillis = filter.fromMillis;
+            view.toMillis = filter.toMillis;
+
+            view.eventTypeCode = eventTypeDictionary.lookup(filter.eventType);
+            view.routeCode = routeDictionary.lookup(filter.routeId);
+            view.ipCode = ipDictionary.lookup(filter.clientIp);
+            // A filter value that never occurs in this segment rules the whole segment out
+            view.excluded = view.eventTypeCode == -1 || view.routeCode == -1 || view.ipCode == -1;
+
+            view.dictionaries = new String[][] {
+                    Arrays.copyOf(routeDictionary.values, routeDictionary.size),
+                    Arrays.copyOf(ipDictionary.values, ipDictionary.size),
+                    Arrays.copyOf(pathDictionary.values, pathDictionary.size),
+                    Arrays.copyOf(reasonDictionary.values, reasonDictionary.size),
+                    Arrays.copyOf(eventTypeDictionary.values, eventTypeDictionary.size),
+                    Arrays.copyOf(threatLevelDictionary.values, threatLevelDictionary.size)
+            };
+            return view;
+        }
+    }
+
+    /**
+     * Snapshot of a segment's arrays with the filter resolved to dictionary codes
+     */
+    private static final class SegmentView {
+        private int size;
+        private long[] timestamps;
+        private int[] eventTypes;
+        private int[] routes;
+        private int[] clientIps;
+        private int[] paths;
+        private int[] reasons;
+        private int[] threatLevels;
+        private short[] latencies;
+        private String[][] dictionaries;
+
+        private long fromMillis;
+        private long toMillis;
+        private int eventTypeCode;
+        private int routeCode;
+        private int ipCode;
+        private boolean excluded;
+
+        boolean matches(int row) {
+            long ts = timestamps[row];
+            return ts >= fromMillis && ts <= toMillis
+                    && (eventTypeCode < 0 || eventTypes[row] == eventTypeCode)
+                    && (routeCode < 0 || routes[row] == routeCode)
+                    && (ipCode < 0 || clientIps[row] == ipCode);
+        }
+
+        int[] column(Column column) {
+            switch (column) {
+                case ROUTE: return routes;
+                case CLIENT_IP: return clientIps;
+                case PATH: return paths;
+                case REJECTION_REASON: return reasons;
+                case EVENT_TYPE: return eventTypes;
+                default: return threatLevels;
+            }
+        }
+
+        int dictionarySize(Column column) {
+            return dictionaries[column.ordinal()].length;
+        }
+
+        String decode(Column column, int code) {
+            return code >= 0 ? dictionaries[column.ordinal()][code] : null;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.demo.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct-count sketch with 2^precision one-byte registers.
+ * Sketches of the same precision can be merged, so per-bucket sketches roll up into
+ * any window. Small cardinalities are close to exact.
+ *
+ * As in HyperLogLog++, a sketch starts sparse, holding only the registers that were set,
+ * and switches to the dense register array once that stops saving memory.
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private byte[] registers;
+
+    // Sparse form: sorted (index << 8 | rank) entries; registers is null meanwhile
+    private int[] sparse;
+    private int sparseSize;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.sparse = new int[4];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Leading zeros of the remaining bits, plus one; a sentinel bit caps the run
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        update(index, rank);
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        if (other.registers == null) {
+            for (int i = 0; i < other.sparseSize; i++) {
+                update(other.sparse[i] >>> 8, (byte) other.sparse[i]);
+            }
+            return;
+        }
+        densify();
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Cardinality estimate using Ertl's improved estimator, which stays unbiased across
+     * the whole range without switching to linear counting for small counts
+     */
+    public long estimate() {
+        int m = 1 << precision;
+        int q = 64 - precision;
+
+        // Histogram of register values; ranks run from 0 (unset) to q + 1
+        int[] histogram = new int[q + 2];
+        if (registers != null) {
+            for (byte register : registers) {
+                histogram[register]++;
+            }
+        } else {
+            histogram[0] = m - sparseSize;
+            for (int i = 0; i < sparseSize; i++) {
+                histogram[sparse[i] & 0xff]++;
+            }
+        }
+
+        double z = m * tau(1.0 - (double) histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma((double) histogram[0] / m);
+        return Math.round(m * m / (2 * Math.log(2) * z));
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1.0;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double y = 1.0;
+        double z = 1.0 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1.0 - x) * (1.0 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    public HyperLogLog copy() {
+        if (registers != null) {
+            return new HyperLogLog(precision, registers.clone());
+        }
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.sparse = Arrays.copyOf(sparse, Math.max(4, sparseSize));
+        copy.sparseSize = sparseSize;
+        return copy;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Approximate heap held by the registers
+     */
+    public int getSizeInBytes() {
+        return registers != null ? registers.length : sparse.length * 4;
+    }
+
+    /**
+     * Serialized form: precision byte followed by the registers
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[(1 << precision) + 1];
+        bytes[0] = (byte) precision;
+        if (registers != null) {
+            System.arraycopy(registers, 0, bytes, 1, registers.length);
+        } else {
+            for (int i = 0; i < sparseSize; i++) {
+                bytes[1 + (sparse[i] >>> 8)] = (byte) sparse[i];
+            }
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        int precision = bytes[0];
+        if (precision < 4 || precision > 16 || bytes.length != (1 << precision) + 1) {
+            throw new IllegalArgumentException("Invalid HyperLogLog encoding");
+        }
+        return new HyperLogLog(precision, Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void update(int index, byte rank) {
+        if (registers != null) {
+            if (rank > registers[index]) {
+                registers[index] = rank;
+            }
+            return;
+        }
+
+        // Binary search on the index part of the sparse entries
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = sparse[mid] >>> 8;
+            if (midIndex < index) {
+                low = mid + 1;
+            } else if (midIndex > index) {
+                high = mid - 1;
+            } else {
+                if (rank > (sparse[mid] & 0xff)) {
+                    sparse[mid] = (index << 8) | rank;
+                }
+                return;
+            }
+        }
+
+        // Four bytes per sparse entry: past a quarter of the registers, dense is smaller
+        if (sparseSize + 1 > (1 << precision) / 4) {
+            densify();
+            update(index, rank);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparse.length * 2);
+        }
+        System.arraycopy(sparse, low, sparse, low + 1, sparseSize - low);
+        sparse[low] = (index << 8) | rank;
+        sparseSize++;
+    }
+
+    private void densify() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[1 << precision];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) sparse[i];
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+}
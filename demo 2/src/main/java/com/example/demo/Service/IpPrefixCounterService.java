@@ -0,0 +1,205 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-prefix event counters (IPv4 /16 and /24, IPv6 /48) with approximate distinct
+ * IPs, kept in minute buckets at ingest so subnet-cluster checks are constant-time reads.
+ */
+@Service
+public class IpPrefixCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(IpPrefixCounterService.class);
+
+    public static final String IPV4_16 = "/16";
+    public static final String IPV4_24 = "/24";
+    public static final String IPV6_48 = "/48";
+
+    // Longest window a query can ask for, in minutes
+    public static final int MAX_WINDOW_MINUTES = 15;
+
+    private static final int BUCKETS = MAX_WINDOW_MINUTES + 1;
+    private static final int HLL_PRECISION = 6;
+    private static final int MAX_PREFIXES = 100_000;
+
+    private final Map<String, PrefixCounter> counters = new ConcurrentHashMap<>();
+    private volatile boolean capacityWarned;
+
+    /**
+     * Count an event against each prefix of its client IP
+     */
+    public void record(SecurityEvent event) {
+        if (event == null || event.getClientIp() == null || event.getTimestamp() == null) {
+            return;
+        }
+
+        long minute = toMinute(event.getTimestamp());
+        long ipHash = HyperLogLog.hash(event.getClientIp());
+        for (String prefix : prefixesOf(event.getClientIp())) {
+            PrefixCounter counter = counters.get(prefix);
+            if (counter == null) {
+                if (counters.size() >= MAX_PREFIXES) {
+                    if (!capacityWarned) {
+                        capacityWarned = true;
+                        log.warn("IP prefix counters at capacity ({}); new prefixes are not tracked until idle ones expire",
+                                MAX_PREFIXES);
+                    }
+                    continue;
+                }
+                counter = counters.computeIfAbsent(prefix, k -> new PrefixCounter());
+            }
+            counter.add(minute, ipHash);
+        }
+    }
+
+    /**
+     * Get event count and approximate distinct IPs for a prefix over the last minutes
+     */
+    public PrefixStats getStats(String prefix, int minutes) {
+        PrefixCounter counter = counters.get(prefix);
+        if (counter == null) {
+            return new PrefixStats(prefix, 0, 0);
+        }
+        return counter.stats(prefix, toMinute(LocalDateTime.now()), Math.min(minutes, MAX_WINDOW_MINUTES));
+    }
+
+    /**
+     * Prefix keys of an IP, most specific first: a.b.c/24 and a.b/16 for IPv4, x:y:z::/48 for IPv6
+     */
+    public static List<String> prefixesOf(String ip) {
+        List<String> prefixes = new ArrayList<>(2);
+        if (ip.indexOf(':') >= 0) {
+            String prefix48 = ipv6Prefix48(ip);
+            if (prefix48 != null) {
+                prefixes.add(prefix48);
+            }
+            return prefixes;
+        }
+
+        int first = ip.indexOf('.');
+        int second = first > 0 ? ip.indexOf('.', first + 1) : -1;
+        int third = second > 0 ? ip.indexOf('.', second + 1) : -1;
+        if (third > 0) {
+            prefixes.add(ip.substring(0, third) + IPV4_24);
+            prefixes.add(ip.substring(0, second) + IPV4_16);
+        }
+        return prefixes;
+    }
+
+    /**
+     * Drop prefixes with no events inside the window
+     */
+    @Scheduled(fixedDelay = 300000) // Every 5 minutes
+    public void evictIdlePrefixes() {
+        long oldest = toMinute(LocalDateTime.now()) - MAX_WINDOW_MINUTES;
+        int before = counters.size();
+        counters.entrySet().removeIf(entry -> entry.getValue().lastMinute() < oldest);
+        if (counters.size() < MAX_PREFIXES) {
+            capacityWarned = false;
+        }
+        log.debug("Evicted {} idle IP prefix counters, {} remain", before - counters.size(), counters.size());
+    }
+
+    public int getPrefixCount() {
+        return counters.size();
+    }
+
+    private static String ipv6Prefix48(String ip) {
+        try {
+            // Literal addresses are parsed locally; a name would need a lookup, so reject those
+            if (!ip.matches("[0-9a-fA-F:.%\\[\\]]+")) {
+                return null;
+            }
+            byte[] bytes = InetAddress.getByName(ip).getAddress();
+            if (bytes.length != 16) {
+                return null;
+            }
+            return String.format("%x:%x:%x::%s",
+                    ((bytes[0] & 0xff) << 8) | (bytes[1] & 0xff),
+                    ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff),
+                    ((bytes[4] & 0xff) << 8) | (bytes[5] & 0xff),
+                    IPV6_48);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    public static final class PrefixStats {
+        private final String prefix;
+        private final long events;
+        private final long distinctIps;
+
+        PrefixStats(String prefix, long events, long distinctIps) {
+            this.prefix = prefix;
+            this.events = events;
+            this.distinctIps = distinctIps;
+        }
+
+        public String getPrefix() { return prefix; }
+        public long getEvents() { return events; }
+        public long getDistinctIps() { return distinctIps; }
+    }
+
+    /**
+     * Ring of minute buckets; a slot is reset when a newer minute reuses it
+     */
+    private static final class PrefixCounter {
+        private final long[] minutes = new long[BUCKETS];
+        private final long[] counts = new long[BUCKETS];
+        private final HyperLogLog[] distinct = new HyperLogLog[BUCKETS];
+        private long latestMinute = Long.MIN_VALUE;
+
+        PrefixCounter() {
+            Arrays.fill(minutes, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long minute, long ipHash) {
+            int slot = (int) Math.floorMod(minute, (long) BUCKETS);
+            if (minutes[slot] != minute) {
+                if (minutes[slot] > minute) {
+                    return; // Older than the ring holds
+                }
+                minutes[slot] = minute;
+                counts[slot] = 0;
+                distinct[slot] = new HyperLogLog(HLL_PRECISION);
+            }
+            counts[slot]++;
+            distinct[slot].addHash(ipHash);
+            latestMinute = Math.max(latestMinute, minute);
+        }
+
+        synchronized PrefixStats stats(String prefix, long currentMinute, int windowMinutes) {
+            long events = 0;
+            HyperLogLog merged = new HyperLogLog(HLL_PRECISION);
+            for (int slot = 0; slot < BUCKETS; slot++) {
+                long minute = minutes[slot];
+                if (minute > currentMinute - windowMinutes && minute <= currentMinute) {
+                    events += counts[slot];
+                    merged.merge(distinct[slot]);
+                }
+            }
+            return new PrefixStats(prefix, events, events > 0 ? merged.estimate() : 0);
+        }
+
+        synchronized long lastMinute() {
+            return latestMinute;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline chat backend for load tests (openai.backend=stub). Answers after a fixed
+ * latency with a canned executive summary and can be told to fail a share of calls.
+ */
+@Service
+public class LocalStubChatBackend implements ChatCompletionBackend {
+
+    @Value("${openai.stub.latency-ms:200}")
+    private long latencyMs;
+
+    @Value("${openai.stub.failure-rate:0.0}")
+    private double failureRate;
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+
+    @Override
+    public String getModel() {
+        return "local-stub";
+    }
+
+    @Override
+    public Mono<String> complete(String systemPrompt, String userPrompt) {
+        return Mono.delay(Duration.ofMillis(latencyMs))
+                .flatMap(tick -> {
+                    if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                        return Mono.error(new IllegalStateException("Simulated chat backend failure"));
+                    }
+                    return Mono.just(cannedSummary(userPrompt));
+                });
+    }
+
+    private String cannedSummary(String userPrompt) {
+        int promptLength = userPrompt != null ? userPrompt.length() : 0;
+        return "1. SECURITY POSTURE: 7/10 - Stub assessment of a " + promptLength + " character prompt.\n\n" +
+                "2. KEY THREATS: Elevated rejection rates from a small set of sources.\n\n" +
+                "3. BUSINESS IMPACT: Limited; no sustained service degradation observed.\n\n" +
+                "4. IMMEDIATE ACTIONS: Review top rejected IPs; tighten rate limits; monitor alerts.\n\n" +
+                "5. RISK LEVEL: MEDIUM\n";
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.Service;
+
+import com.example.demo.Filter.RequestCountFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes live dashboard metrics to any number of subscribers.
+ *
+ * One shared producer computes a snapshot per second while anyone is subscribed.
+ * Each subscriber keeps only the newest snapshot it has not consumed yet and receives
+ * the fields that changed since the last frame it was sent, so a slow client skips
+ * intermediate frames without ever missing a change. A field that is no longer part of
+ * the snapshot is sent once as null so the client can drop it.
+ */
+@Service
+public class MetricsStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsStreamService.class);
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+    private static final long KEEPALIVE_MILLIS = 15000;
+
+    private final HotEventWindowService hotEventWindowService;
+    private final AtomicLong subscribers = new AtomicLong();
+
+    private final Flux<Map<String, Object>> snapshots;
+
+    @Autowired
+    public MetricsStreamService(HotEventWindowService hotEventWindowService) {
+        this.hotEventWindowService = hotEventWindowService;
+
+        // Runs only while at least one client is connected; late joiners get the last snapshot at once
+        this.snapshots = Flux.interval(Duration.ZERO, TICK)
+                .map(tick -> computeSnapshot())
+                .filter(snapshot -> !snapshot.isEmpty())
+                .replay(1)
+                .refCount();
+    }
+
+    /**
+     * Stream for one subscriber: a full snapshot first, then deltas
+     */
+    public Flux<ServerSentEvent<Map<String, Object>>> subscribe() {
+        return Flux.defer(() -> {
+            Map<String, Object> lastSent = new HashMap<>();
+            long[] lastSentAt = { 0L };
+            boolean[] snapshotSent = { false };
+
+            return snapshots
+                    .onBackpressureLatest()
+                    .<ServerSentEvent<Map<String, Object>>>handle((snapshot, sink) -> {
+                        boolean first = !snapshotSent[0];
+                        Map<String, Object> delta = new HashMap<>();
+                        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+                            if (!Objects.equals(lastSent.get(entry.getKey()), entry.getValue())) {
+                                delta.put(entry.getKey(), entry.getValue());
+                            }
+                        }
+                        for (String key : lastSent.keySet()) {
+                            if (!snapshot.containsKey(key)) {
+                                delta.put(key, null); // removed since the last frame
+                            }
+                        }
+
+                        long now = System.currentTimeMillis();
+                        if (delta.isEmpty() && now - lastSentAt[0] < KEEPALIVE_MILLIS) {
+                            return;
+                        }
+
+                        lastSent.keySet().retainAll(snapshot.keySet());
+                        lastSent.putAll(snapshot);
+                        lastSentAt[0] = now;
+                        snapshotSent[0] = true;
+                        sink.next(ServerSentEvent.<Map<String, Object>>builder(delta)
+                                .event(first ? "snapshot" : "delta")
+                                .build());
+                    })
+                    .doOnSubscribe(s -> subscribers.incrementAndGet())
+                    .doFinally(signal -> subscribers.decrementAndGet());
+        });
+    }
+
+    public long getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    private Map<String, Object> computeSnapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        try {
+            RequestCountFilter.MinuteMetrics minute = RequestCountFilter.getMinuteMetrics();
+            snapshot.put("totalRequests", RequestCountFilter.getTotalRequestCount());
+            snapshot.put("totalRejections", RequestCountFilter.getTotalRejectedCount());
+            snapshot.put("requestsCurrentMinute", minute.getRequestsCurrentMinute());
+            snapshot.put("requestsPreviousMinute", minute.getRequestsPreviousMinute());
+            snapshot.put("rejectedCurrentMinute", minute.getRejectedCurrentMinute());
+            snapshot.put("rejectedPreviousMinute", minute.getRejectedPreviousMinute());
+
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime fiveMinutesAgo = now.minusMinutes(5);
+            if (hotEventWindowService.covers(fiveMinutesAgo)) {
+                HotEventWindowService.EventFilter lastFiveMinutes = HotEventWindowService.EventFilter.since(fiveMinutesAgo);
+                snapshot.put("eventsLast5Minutes", hotEventWindowService.count(lastFiveMinutes));
+                snapshot.put("rejectionsLast5Minutes", hotEventWindowService.count(
+                        HotEventWindowService.EventFilter.since(fiveMinutesAgo).eventType("REJECTION")));
+                snapshot.put("averageResponseTimeLast5Minutes",
+                        Math.round(hotEventWindowService.averageResponseTime(lastFiveMinutes) * 10.0) / 10.0);
+                snapshot.put("eventsByRouteLast5Minutes",
+                        hotEventWindowService.countBy(lastFiveMinutes, HotEventWindowService.Column.ROUTE));
+            }
+        } catch (Exception e) {
+            // Skip the tick rather than report the fields not computed yet as removed
+            log.error("Error computing metrics stream snapshot: {}", e.getMessage(), e);
+            return Collections.emptyMap();
+        }
+        return snapshot;
+    }
+}
@@ -4,6 +4,7 @@ package com.example.demo.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -20,6 +21,9 @@ public class OpenAIAnalyticsService {
     @Autowired
     private OpenAIService openAIService;
 
+    @Value("${openai.prompt.token-budget:600}")
+    private int promptTokenBudget;
+
     public Mono<Map<String, Object>> generateExecutiveSummary(Map<String, Object> securityData) {
         log.info("=== OpenAI Analytics Service Debug ===");
         log.info("OpenAI service available: {}", openAIService != null);
@@ -67,7 +71,8 @@ public class OpenAIAnalyticsService {
                     return result;
                 })
                 .onErrorResume(e -> {
-                    log.error("Error generating AI executive summary: {}", e.getMessage(), e);
+                    // Includes fail-fast rejections from the circuit breaker and concurrency limiter
+                    log.warn("AI executive summary unavailable, using fallback: {}", e.getMessage());
                     Map<String, Object> errorResult = new HashMap<>();
                     errorResult.put("error", "AI analysis unavailable");
                     errorResult.put("fallbackAnalysis", generateFallbackSummary(securityData));
@@ -76,6 +81,14 @@ public class OpenAIAnalyticsService {
     }
 
     private String buildExecutiveSummaryPrompt(Map<String, Object> securityData) {
+        // A digest keeps the prompt within a fixed budget regardless of window size
+        if (securityData.get("digest") instanceof SecurityDigest) {
+            String prompt = new SecurityDigestPromptBuilder(promptTokenBudget)
+                    .build((SecurityDigest) securityData.get("digest"), securityData);
+            log.debug("Built digest prompt of ~{} tokens", SecurityDigestPromptBuilder.estimateTokens(prompt));
+            return prompt;
+        }
+
         StringBuilder prompt = new StringBuilder();
         prompt.append("CYBERSECURITY EXECUTIVE SUMMARY REQUEST\n\n");
 
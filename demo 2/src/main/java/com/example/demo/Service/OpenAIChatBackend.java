@@ -0,0 +1,119 @@
+package com.example.demo.Service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Chat backend that calls the OpenAI chat completions API (openai.backend=openai)
+ */
+@Service
+public class OpenAIChatBackend implements ChatCompletionBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenAIChatBackend.class);
+
+    private final WebClient webClient;
+
+    @Value("${openai.api.key:}")
+    private String apiKey;
+
+    @Value("${openai.model:gpt-3.5-turbo}")
+    private String model;
+
+    @Value("${openai.max-tokens:2000}")
+    private Integer maxTokens;
+
+    @Value("${openai.temperature:0.2}")
+    private Double temperature;
+
+    public OpenAIChatBackend() {
+        this.webClient = WebClient.builder()
+                .baseUrl("https://api.openai.com/v1")
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "openai";
+    }
+
+    @Override
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public Mono<String> complete(String systemPrompt, String userPrompt) {
+        if (apiKey == null || apiKey.trim().isEmpty()) {
+            return Mono.error(new IllegalStateException(
+                    "OpenAI API not configured. Please set openai.api.key in application.properties"));
+        }
+
+        log.debug("OpenAI request: model={}, maxTokens={}, systemPromptLength={}, userPromptLength={}",
+                model, maxTokens, systemPrompt != null ? systemPrompt.length() : 0,
+                userPrompt != null ? userPrompt.length() : 0);
+
+        ChatCompletionRequest request = new ChatCompletionRequest();
+        request.model = model;
+        request.maxTokens = maxTokens;
+        request.temperature = temperature;
+        request.messages = List.of(
+                new ChatMessage("system", systemPrompt),
+                new ChatMessage("user", userPrompt)
+        );
+
+        return webClient.post()
+                .uri("/chat/completions")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(ChatCompletionResponse.class)
+                .flatMap(response -> {
+                    if (response.choices != null && !response.choices.isEmpty()
+                            && response.choices.get(0).message != null) {
+                        String content = response.choices.get(0).message.content;
+                        log.info("OpenAI API call successful, response length: {}", content.length());
+                        return Mono.just(content);
+                    }
+                    return Mono.error(new IllegalStateException("No response choices from OpenAI"));
+                });
+    }
+
+    // DTOs for OpenAI API
+    public static class ChatCompletionRequest {
+        public String model;
+        public List<ChatMessage> messages;
+        @JsonProperty("max_tokens")
+        public Integer maxTokens;
+        public Double temperature;
+    }
+
+    public static class ChatMessage {
+        public String role;
+        public String content;
+
+        public ChatMessage() {}
+
+        public ChatMessage(String role, String content) {
+            this.role = role;
+            this.content = content;
+        }
+    }
+
+    public static class ChatCompletionResponse {
+        public List<Choice> choices;
+
+        public static class Choice {
+            public ChatMessage message;
+        }
+    }
+}
@@ -1,137 +1,268 @@
 // demo 2/src/main/java/com/example/demo/Service/OpenAIService.java
 package com.example.demo.Service;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import jakarta.annotation.PostConstruct;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Chat completions for the analytics services. Answers are cached by a hash of the
+ * normalized prompt, identical prompts in flight share one backend call, concurrent
+ * backend calls are capped, and a circuit breaker fails fast while the backend is down.
+ */
 @Service
 public class OpenAIService {
 
     private static final Logger log = LoggerFactory.getLogger(OpenAIService.class);
 
-    private final WebClient webClient;
-    private final ObjectMapper objectMapper;
+    private static final int MAX_CACHED_RESPONSES = 256;
+
+    private final List<ChatCompletionBackend> backends;
+    private ChatCompletionBackend backend;
+
+    @Value("${openai.backend:openai}")
+    private String backendName;
+
+    @Value("${openai.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${openai.cache-ttl-ms:600000}")
+    private long cacheTtlMs;
+
+    @Value("${openai.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${openai.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${openai.breaker.open-ms:60000}")
+    private long openMs;
 
-    @Value("${openai.api.key:}")
-    private String apiKey;
+    private Semaphore permits;
+    private CircuitBreaker circuitBreaker;
 
-    @Value("${openai.model:gpt-3.5-turbo}")
-    private String model;
+    // Response cache keyed by prompt hash, evicting least recently used
+    private final Map<String, CachedResponse> responseCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, CachedResponse>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > MAX_CACHED_RESPONSES;
+                }
+            });
 
-    @Value("${openai.max-tokens:2000}")
-    private Integer maxTokens;
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
 
-    @Value("${openai.temperature:0.2}")
-    private Double temperature;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
 
-    public OpenAIService() {
-        this.objectMapper = new ObjectMapper();
-        this.webClient = WebClient.builder()
-                .baseUrl("https://api.openai.com/v1")
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    @Autowired
+    public OpenAIService(List<ChatCompletionBackend> backends) {
+        this.backends = backends;
     }
 
+    @PostConstruct
+    public void selectBackend() {
+        backend = backends.stream()
+                .filter(b -> b.getName().equalsIgnoreCase(backendName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown openai.backend: " + backendName));
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+        circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+        log.info("Using {} chat completion backend (model {})", backend.getName(), backend.getModel());
+    }
+
+    /**
+     * Complete a prompt. Errors, including an open circuit or a full limiter, are
+     * signalled through the Mono so callers can fall back.
+     */
     public Mono<String> generateChatCompletion(String systemPrompt, String userPrompt) {
-        log.info("=== OpenAI API Call Debug ===");
-        log.info("API Key present: {}", apiKey != null && !apiKey.trim().isEmpty());
-        log.info("API Key length: {}", apiKey != null ? apiKey.length() : 0);
-        log.info("API Key starts with 'sk-': {}", apiKey != null && apiKey.startsWith("sk-"));
-        log.info("Model: {}", model);
-        log.info("Max Tokens: {}", maxTokens);
-        log.info("Temperature: {}", temperature);
-        log.info("System prompt length: {}", systemPrompt != null ? systemPrompt.length() : 0);
-        log.info("User prompt length: {}", userPrompt != null ? userPrompt.length() : 0);
-
-        if (apiKey == null || apiKey.trim().isEmpty()) {
-            log.warn("OpenAI API key not configured, returning fallback response");
-            return Mono.just("OpenAI API not configured. Please set openai.api.key in application.properties");
+        String key = promptKey(systemPrompt, userPrompt);
+
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null && !cached.isExpired(cacheTtlMs)) {
+            cacheHits.incrementAndGet();
+            return Mono.just(cached.content);
         }
+        cacheMisses.incrementAndGet();
+
+        return Mono.defer(() -> {
+            Mono<String> existing = inFlight.get(key);
+            if (existing != null) {
+                coalescedCalls.incrementAndGet();
+                return existing;
+            }
+
+            Mono<String> call = callBackend(key, systemPrompt, userPrompt)
+                    .doFinally(signal -> inFlight.remove(key))
+                    .cache();
+            existing = inFlight.putIfAbsent(key, call);
+            if (existing != null) {
+                coalescedCalls.incrementAndGet();
+                return existing;
+            }
+            return call;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hits = cacheHits.get();
+        long misses = cacheMisses.get();
+        stats.put("backend", backend.getName());
+        stats.put("cachedResponses", responseCache.size());
+        stats.put("cacheHits", hits);
+        stats.put("cacheMisses", misses);
+        stats.put("cacheHitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        stats.put("coalescedCalls", coalescedCalls.get());
+        stats.put("rejectedCalls", rejectedCalls.get());
+        stats.put("inFlight", inFlight.size());
+        stats.put("availablePermits", permits.availablePermits());
+        stats.put("circuitState", circuitBreaker.getState());
+        return stats;
+    }
 
-        ChatCompletionRequest request = new ChatCompletionRequest();
-        request.model = model;
-        request.maxTokens = maxTokens;
-        request.temperature = temperature;
-        request.messages = List.of(
-                new ChatMessage("system", systemPrompt),
-                new ChatMessage("user", userPrompt)
-        );
-
-        log.info("Making OpenAI API request to: {}", "https://api.openai.com/v1/chat/completions");
-
-        return webClient.post()
-                .uri("/chat/completions")
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(ChatCompletionResponse.class)
-                .doOnNext(response -> {
-                    log.info("=== OpenAI Response Received ===");
-                    log.info("Response has choices: {}", response.choices != null && !response.choices.isEmpty());
-                    if (response.choices != null && !response.choices.isEmpty()) {
-                        log.info("Response content length: {}", response.choices.get(0).message.content.length());
-                        log.info("Response content preview: {}", response.choices.get(0).message.content.substring(0, Math.min(100, response.choices.get(0).message.content.length())));
-                    }
-                })
-                .map(response -> {
-                    if (response.choices != null && !response.choices.isEmpty()) {
-                        String content = response.choices.get(0).message.content;
-                        log.info("OpenAI API call successful, response length: {}", content.length());
-                        return content;
-                    }
-                    log.warn("No response choices from OpenAI");
-                    return "No response from OpenAI";
-                })
-                .timeout(Duration.ofSeconds(30))
-                .doOnError(error -> {
-                    log.error("=== OpenAI API Error ===");
-                    log.error("Error type: {}", error.getClass().getSimpleName());
-                    log.error("Error message: {}", error.getMessage());
-                    if (error.getCause() != null) {
-                        log.error("Error cause: {}", error.getCause().getMessage());
-                    }
-                })
-                .onErrorReturn("Error communicating with OpenAI API: ");
+    private Mono<String> callBackend(String key, String systemPrompt, String userPrompt) {
+        // Deferred so the breaker and the limiter are only consulted when the call is
+        // subscribed; a coalesced Mono that loses the race is never subscribed and takes nothing
+        return Mono.defer(() -> {
+            if (!circuitBreaker.allowRequest()) {
+                rejectedCalls.incrementAndGet();
+                return Mono.error(new IllegalStateException("Chat backend circuit is open"));
+            }
+            if (!permits.tryAcquire()) {
+                circuitBreaker.releaseTrial();
+                rejectedCalls.incrementAndGet();
+                return Mono.error(new RejectedExecutionException("Too many concurrent chat completion calls"));
+            }
+
+            // Every outcome settles the breaker: an empty reply counts as a failure and a
+            // cancelled call frees the trial, otherwise a half-open circuit would stay stuck
+            AtomicBoolean settled = new AtomicBoolean();
+            return backend.complete(systemPrompt, userPrompt)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .switchIfEmpty(Mono.error(new IllegalStateException("Chat backend returned no content")))
+                    .doOnNext(content -> {
+                        settled.set(true);
+                        circuitBreaker.recordSuccess();
+                        responseCache.put(key, new CachedResponse(content));
+                    })
+                    .doOnError(error -> {
+                        settled.set(true);
+                        circuitBreaker.recordFailure();
+                        log.error("Chat completion via {} failed: {}", backend.getName(), error.getMessage());
+                    })
+                    .doFinally(signal -> {
+                        if (!settled.get()) {
+                            circuitBreaker.releaseTrial();
+                        }
+                        permits.release();
+                    });
+        });
     }
 
-    // DTOs for OpenAI API
-    public static class ChatCompletionRequest {
-        public String model;
-        public List<ChatMessage> messages;
-        @JsonProperty("max_tokens")
-        public Integer maxTokens;
-        public Double temperature;
+    // Whitespace differences do not change the answer, so they do not change the key either
+    private String promptKey(String systemPrompt, String userPrompt) {
+        String normalized = backend.getModel() + '\u0000' + normalize(systemPrompt) + '\u0000' + normalize(userPrompt);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            return normalized;
+        }
     }
 
-    public static class ChatMessage {
-        public String role;
-        public String content;
+    private String normalize(String prompt) {
+        return prompt == null ? "" : prompt.trim().replaceAll("\\s+", " ");
+    }
 
-        public ChatMessage() {}
+    private static final class CachedResponse {
+        private final String content;
+        private final long createdAt = System.currentTimeMillis();
 
-        public ChatMessage(String role, String content) {
-            this.role = role;
+        CachedResponse(String content) {
             this.content = content;
         }
+
+        boolean isExpired(long ttlMs) {
+            return System.currentTimeMillis() - createdAt > ttlMs;
+        }
     }
 
-    public static class ChatCompletionResponse {
-        public List<Choice> choices;
+    /**
+     * Opens after a run of consecutive failures; once the open period has passed a single
+     * trial call is let through, and its outcome closes or re-opens the circuit.
+     */
+    private static final class CircuitBreaker {
+        private final int failureThreshold;
+        private final long openMs;
+
+        private String state = "CLOSED";
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInProgress;
+
+        CircuitBreaker(int failureThreshold, long openMs) {
+            this.failureThreshold = Math.max(1, failureThreshold);
+            this.openMs = openMs;
+        }
+
+        synchronized boolean allowRequest() {
+            if ("CLOSED".equals(state)) {
+                return true;
+            }
+            if ("OPEN".equals(state) && System.currentTimeMillis() - openedAt >= openMs) {
+                state = "HALF_OPEN";
+            }
+            if ("HALF_OPEN".equals(state) && !trialInProgress) {
+                trialInProgress = true;
+                return true;
+            }
+            return false;
+        }
+
+        // The call never reached the backend or was cancelled, so let another caller make the trial
+        synchronized void releaseTrial() {
+            trialInProgress = false;
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+            trialInProgress = false;
+            state = "CLOSED";
+        }
+
+        synchronized void recordFailure() {
+            trialInProgress = false;
+            consecutiveFailures++;
+            if ("HALF_OPEN".equals(state) || consecutiveFailures >= failureThreshold) {
+                if (!"OPEN".equals(state)) {
+                    log.warn("Chat backend circuit opened after {} consecutive failures", consecutiveFailures);
+                }
+                state = "OPEN";
+                openedAt = System.currentTimeMillis();
+            }
+        }
 
-        public static class Choice {
-            public ChatMessage message;
+        synchronized String getState() {
+            return state;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,439 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Entity.ThreatAlert;
+import com.example.demo.Repository.ThreatAlertRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of OPEN threat alerts keyed by (sourceIp, targetRoute), with the
+ * recent activity of each alerted source IP counted at ingest.
+ *
+ * Saved and resolved alerts reach the index once the caller's transaction commits, so a
+ * rollback never leaves the index ahead of the table; increments made here are held as
+ * pending deltas and written back in one batched UPDATE. A periodic reload from the
+ * database repairs any other drift, such as edits from other nodes.
+ */
+@Service
+public class OpenAlertIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenAlertIndexService.class);
+
+    private static final int ACTIVITY_HOURS = 24;
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private static final String FLUSH_SQL = "UPDATE gateway.threat_alerts SET " +
+            "event_count = event_count + ?, " +
+            "last_seen = GREATEST(last_seen, ?), " +
+            "confidence = GREATEST(confidence, ?), " +
+            "threat_score = LEAST(1.0, threat_score + ?), " +
+            "updated_at = ? " +
+            "WHERE id = ? AND status = 'OPEN'";
+
+    private static final String RESOLVE_SQL = "UPDATE gateway.threat_alerts SET " +
+            "status = 'RESOLVED', auto_resolved = TRUE, resolution_notes = ?, updated_at = ? " +
+            "WHERE id = ? AND status = 'OPEN'";
+
+    private final ThreatAlertRepository alertRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final HotEventWindowService hotEventWindowService;
+    private final TransactionTemplate flushTransaction;
+
+    private final Map<Long, OpenAlert> alertsById = new ConcurrentHashMap<>();
+    private final Map<AlertKey, OpenAlert> alertsByKey = new ConcurrentHashMap<>();
+    private final Map<String, SourceActivity> activityByIp = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OpenAlertIndexService(ThreatAlertRepository alertRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 HotEventWindowService hotEventWindowService,
+                                 PlatformTransactionManager transactionManager) {
+        this.alertRepository = alertRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotEventWindowService = hotEventWindowService;
+
+        // The batch commits or fails as a whole, apart from whatever transaction the caller runs in
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Load the OPEN alerts, and reload them periodically to pick up changes made elsewhere
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 600000, initialDelay = 600000) // Every 10 minutes
+    public void reload() {
+        try {
+            flushPending();
+            List<ThreatAlert> openAlerts = alertRepository.findByStatusOrderByCreatedAtDesc("OPEN");
+
+            Set<Long> openIds = new HashSet<>();
+            for (ThreatAlert alert : openAlerts) {
+                openIds.add(alert.getId());
+                index(alert);
+            }
+            for (Long id : new ArrayList<>(alertsById.keySet())) {
+                if (!openIds.contains(id)) {
+                    remove(id);
+                }
+            }
+            log.info("Open alert index holds {} alerts for {} source IPs", alertsById.size(), activityByIp.size());
+        } catch (Exception e) {
+            log.error("Error loading open alert index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write-through after an alert has been saved: OPEN alerts are indexed, others dropped,
+     * once the surrounding transaction (if any) commits
+     */
+    public void onSaved(ThreatAlert alert) {
+        if (alert == null || alert.getId() == null) {
+            return;
+        }
+        afterCommit(() -> index(alert));
+    }
+
+    private void index(ThreatAlert alert) {
+        if (!"OPEN".equals(alert.getStatus())) {
+            remove(alert.getId());
+            return;
+        }
+
+        OpenAlert existing = alertsById.get(alert.getId());
+        if (existing != null) {
+            existing.refresh(alert);
+            return;
+        }
+
+        OpenAlert indexed = new OpenAlert(alert);
+        alertsById.put(indexed.id, indexed);
+        alertsByKey.merge(indexed.key, indexed, (current, candidate) ->
+                candidate.createdAt.isAfter(current.createdAt) ? candidate : current);
+
+        if (indexed.key.sourceIp != null) {
+            activityByIp.compute(indexed.key.sourceIp, (ip, activity) -> {
+                if (activity == null) {
+                    activity = new SourceActivity(seedRejections(ip), toMillis(LocalDateTime.now()), toMillis(alert.getLastSeen()));
+                }
+                activity.alerts++;
+                return activity;
+            });
+        }
+    }
+
+    /**
+     * Count an ingested event against the source IP, if it has an open alert
+     */
+    public void recordEvent(SecurityEvent event) {
+        if (event == null || event.getClientIp() == null || event.getTimestamp() == null) {
+            return;
+        }
+        SourceActivity activity = activityByIp.get(event.getClientIp());
+        if (activity != null) {
+            activity.record(toMillis(event.getTimestamp()), "REJECTION".equals(event.getEventType()));
+        }
+    }
+
+    /**
+     * Most recent OPEN alert for a source IP and route (route may be null)
+     */
+    public Optional<OpenAlert> findOpenAlert(String sourceIp, String targetRoute) {
+        return Optional.ofNullable(alertsByKey.get(new AlertKey(sourceIp, targetRoute)));
+    }
+
+    public List<OpenAlert> getOpenAlerts() {
+        return new ArrayList<>(alertsById.values());
+    }
+
+    /**
+     * Rejections from a source IP over the last 24 hours
+     */
+    public long getRecentRejections(String sourceIp) {
+        SourceActivity activity = activityByIp.get(sourceIp);
+        return activity == null ? 0 : activity.rejectionsSince(toMillis(LocalDateTime.now().minusHours(ACTIVITY_HOURS)));
+    }
+
+    /**
+     * Whether a source IP has produced any event since the given time
+     */
+    public boolean hasActivitySince(String sourceIp, LocalDateTime since) {
+        SourceActivity activity = activityByIp.get(sourceIp);
+        return activity != null && activity.lastEventMillis() >= toMillis(since);
+    }
+
+    /**
+     * Write the pending increments of all indexed alerts in one batched UPDATE
+     */
+    @Scheduled(fixedDelay = 10000) // Every 10 seconds
+    @PreDestroy
+    public void flushPending() {
+        List<OpenAlert> drained = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (OpenAlert alert : alertsById.values()) {
+            Object[] row = alert.drainPending(now);
+            if (row != null) {
+                drained.add(alert);
+                batch.add(row);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            flushTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batch));
+            log.debug("Flushed pending updates for {} open alerts", batch.size());
+        } catch (Exception e) {
+            log.error("Error flushing updates for {} open alerts: {}", batch.size(), e.getMessage(), e);
+            // Nothing was written; put the increments back so they are retried
+            for (int i = 0; i < drained.size(); i++) {
+                drained.get(i).restorePending(batch.get(i));
+            }
+        }
+    }
+
+    /**
+     * Resolve the given alerts in one batched UPDATE and drop them from the index
+     */
+    @Transactional
+    public void resolveAll(Collection<Long> alertIds, String resolutionNotes) {
+        if (alertIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>();
+        for (Long id : alertIds) {
+            batch.add(new Object[] { resolutionNotes, now, id });
+        }
+        jdbcTemplate.batchUpdate(RESOLVE_SQL, batch);
+        List<Long> resolved = new ArrayList<>(alertIds);
+        afterCommit(() -> resolved.forEach(this::remove));
+    }
+
+    private void afterCommit(Runnable change) {
+        // A rolled back save or resolve leaves the index as it was
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    public Map<String, Object> getIndexStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("openAlerts", alertsById.size());
+        stats.put("indexedKeys", alertsByKey.size());
+        stats.put("trackedSourceIps", activityByIp.size());
+        return stats;
+    }
+
+    private void remove(Long id) {
+        OpenAlert removed = alertsById.remove(id);
+        if (removed == null) {
+            return;
+        }
+
+        // Another open alert with the same key takes its place in the key index
+        if (alertsByKey.remove(removed.key, removed)) {
+            alertsById.values().stream()
+                    .filter(a -> a.key.equals(removed.key))
+                    .max(Comparator.comparing(a -> a.createdAt))
+                    .ifPresent(a -> alertsByKey.putIfAbsent(a.key, a));
+        }
+
+        if (removed.key.sourceIp != null) {
+            activityByIp.computeIfPresent(removed.key.sourceIp, (ip, activity) ->
+                    --activity.alerts > 0 ? activity : null);
+        }
+    }
+
+    // Activity before the alert was indexed comes from the hot window, usually without a query
+    private long seedRejections(String ip) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            return hotEventWindowService.countClientEvents(ip, "REJECTION", now.minusHours(ACTIVITY_HOURS), now);
+        } catch (Exception e) {
+            log.warn("Could not seed rejection count for {}: {}", ip, e.getMessage());
+            return 0;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0 : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private record AlertKey(String sourceIp, String targetRoute) {
+    }
+
+    /**
+     * Indexed view of an OPEN alert; increments are applied here and held until flushed
+     */
+    public static final class OpenAlert {
+        private final Long id;
+        private final AlertKey key;
+        private final String alertType;
+        private final LocalDateTime createdAt;
+
+        private LocalDateTime lastSeen;
+        private long eventCount;
+        private double confidence;
+        private double threatScore;
+
+        private long pendingEvents;
+        private double pendingConfidence;
+        private double pendingScoreDelta;
+        private boolean dirty;
+
+        OpenAlert(ThreatAlert alert) {
+            this.id = alert.getId();
+            this.key = new AlertKey(alert.getSourceIp(), alert.getTargetRoute());
+            this.alertType = alert.getAlertType();
+            this.createdAt = alert.getCreatedAt() != null ? alert.getCreatedAt() : LocalDateTime.now();
+            refresh(alert);
+        }
+
+        synchronized void refresh(ThreatAlert alert) {
+            // Values not yet flushed stay on top of what the database holds
+            lastSeen = max(alert.getLastSeen(), dirty ? lastSeen : null);
+            eventCount = (alert.getEventCount() != null ? alert.getEventCount() : 0) + pendingEvents;
+            confidence = Math.max(alert.getConfidence() != null ? alert.getConfidence() : 0.0, pendingConfidence);
+            threatScore = Math.min(1.0, (alert.getThreatScore() != null ? alert.getThreatScore() : 0.0) + pendingScoreDelta);
+        }
+
+        /**
+         * Another event matched this alert
+         */
+        public synchronized void recordMatch(double matchConfidence, LocalDateTime seenAt) {
+            eventCount++;
+            pendingEvents++;
+            confidence = Math.max(confidence, matchConfidence);
+            pendingConfidence = Math.max(pendingConfidence, matchConfidence);
+            lastSeen = max(lastSeen, seenAt);
+            dirty = true;
+        }
+
+        public synchronized void raiseThreatScore(double delta) {
+            double raised = Math.min(1.0, threatScore + delta);
+            pendingScoreDelta += raised - threatScore;
+            threatScore = raised;
+            dirty = true;
+        }
+
+        synchronized Object[] drainPending(Timestamp now) {
+            if (!dirty) {
+                return null;
+            }
+            Object[] row = { pendingEvents, Timestamp.valueOf(lastSeen), pendingConfidence, pendingScoreDelta, now, id };
+            pendingEvents = 0;
+            pendingConfidence = 0.0;
+            pendingScoreDelta = 0.0;
+            dirty = false;
+            return row;
+        }
+
+        /**
+         * Merge a drained row that could not be written into the increments recorded since
+         */
+        synchronized void restorePending(Object[] row) {
+            pendingEvents += (Long) row[0];
+            pendingConfidence = Math.max(pendingConfidence, (Double) row[2]);
+            pendingScoreDelta += (Double) row[3];
+            dirty = true;
+        }
+
+        public Long getId() { return id; }
+        public String getSourceIp() { return key.sourceIp; }
+        public String getTargetRoute() { return key.targetRoute; }
+        public String getAlertType() { return alertType; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public synchronized LocalDateTime getLastSeen() { return lastSeen; }
+        public synchronized long getEventCount() { return eventCount; }
+        public synchronized double getConfidence() { return confidence; }
+        public synchronized double getThreatScore() { return threatScore; }
+
+        private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+            if (a == null) return b != null ? b : LocalDateTime.now();
+            return b != null && b.isAfter(a) ? b : a;
+        }
+    }
+
+    /**
+     * Events seen from an alerted source IP: last event time and hourly rejection counts
+     */
+    private static final class SourceActivity {
+        private final long[] hours = new long[ACTIVITY_HOURS];
+        private final long[] rejections = new long[ACTIVITY_HOURS];
+        private long lastEventMillis;
+        private int alerts;
+
+        SourceActivity(long seededRejections, long nowMillis, long lastEventMillis) {
+            Arrays.fill(hours, Long.MIN_VALUE);
+            this.lastEventMillis = lastEventMillis;
+            if (seededRejections > 0) {
+                long hour = nowMillis / HOUR_MILLIS;
+                int slot = (int) Math.floorMod(hour, (long) ACTIVITY_HOURS);
+                hours[slot] = hour;
+                rejections[slot] = seededRejections;
+            }
+        }
+
+        synchronized void record(long eventMillis, boolean rejection) {
+            lastEventMillis = Math.max(lastEventMillis, eventMillis);
+            if (!rejection) {
+                return;
+            }
+            long hour = eventMillis / HOUR_MILLIS;
+            int slot = (int) Math.floorMod(hour, (long) ACTIVITY_HOURS);
+            if (hours[slot] != hour) {
+                if (hours[slot] > hour) {
+                    return; // Older than the ring holds
+                }
+                hours[slot] = hour;
+                rejections[slot] = 0;
+            }
+            rejections[slot]++;
+        }
+
+        synchronized long rejectionsSince(long sinceMillis) {
+            long sinceHour = sinceMillis / HOUR_MILLIS;
+            long total = 0;
+            for (int slot = 0; slot < ACTIVITY_HOURS; slot++) {
+                if (hours[slot] >= sinceHour) {
+                    total += rejections[slot];
+                }
+            }
+            return total;
+        }
+
+        synchronized long lastEventMillis() {
+            return lastEventMillis;
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Online per-route baselines for response time and per-minute request and rejection
+ * counts, used to flag anomalies by z-score as events arrive.
+ *
+ * Each baseline is an exponentially weighted mean and variance plus the same pair per
+ * hour of the week, so a Monday-morning peak is judged against earlier Monday mornings
+ * once that slot has enough samples. Updates are O(1); baselines are snapshotted to disk
+ * and reloaded at startup.
+ *
+ * Per-minute counts are judged against at least a Poisson deviation, sqrt(mean), and must
+ * reach a minimum count: on a quiet route the idle minutes drive the learned variance
+ * towards zero, and a handful of requests would otherwise score as an extreme outlier.
+ */
+@Service
+public class RouteBaselineService {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteBaselineService.class);
+
+    public enum Metric { RESPONSE_TIME, REQUESTS_PER_MINUTE, REJECTIONS_PER_MINUTE }
+
+    private static final double ALPHA = 0.05;             // Overall level, about 20 samples of memory
+    private static final double SEASONAL_ALPHA = 0.02;    // Hour-of-week level
+    private static final int HOURS_PER_WEEK = 168;
+    private static final int MIN_SAMPLES = 30;            // Before this, no anomalies are flagged
+    private static final int MIN_SEASONAL_SAMPLES = 20;   // Before this, the overall level is used
+    private static final double MIN_STD_FRACTION = 0.1;   // Floor on the deviation, relative to the mean
+    private static final int MAX_ROUTES = 256;
+    private static final int MAX_GAP_MINUTES = 60;        // Idle minutes fed as zeros when a route wakes up
+    private static final int RECENT_ANOMALIES = 500;
+
+    private static final int SNAPSHOT_MAGIC = 0x52424c31; // "RBL1"
+
+    private final Map<String, RouteState> routes = new ConcurrentHashMap<>();
+    private final Deque<Anomaly> recentAnomalies = new ArrayDeque<>();
+
+    @Value("${analytics.baseline.z-threshold:4.0}")
+    private double zThreshold;
+
+    @Value("${analytics.baseline.min-rate-count:20}")
+    private long minRateCount;
+
+    @Value("${analytics.baseline.snapshot-path:data/route-baselines.bin}")
+    private String snapshotPath;
+
+    /**
+     * Count a recorded request or rejection towards its route's per-minute rates. Returns
+     * an anomaly the first time the current minute's count rises past its baseline.
+     */
+    public Anomaly record(SecurityEvent event) {
+        if (event == null || event.getRouteId() == null || event.getTimestamp() == null) {
+            return null;
+        }
+        Metric metric;
+        if ("REQUEST".equals(event.getEventType())) {
+            metric = Metric.REQUESTS_PER_MINUTE;
+        } else if ("REJECTION".equals(event.getEventType())) {
+            metric = Metric.REJECTIONS_PER_MINUTE;
+        } else {
+            return null;
+        }
+        RouteState state = stateFor(event.getRouteId());
+        if (state == null) {
+            return null;
+        }
+        Anomaly anomaly = state.countEvent(metric, event.getTimestamp());
+        if (anomaly != null) {
+            remember(anomaly);
+        }
+        return anomaly;
+    }
+
+    /**
+     * Score a response time against its route's baseline and fold it in. Returns an anomaly
+     * when it is more than the threshold deviations slower than expected.
+     */
+    public Anomaly observeResponseTime(String routeId, long responseTimeMs) {
+        RouteState state = stateFor(routeId);
+        if (state == null) {
+            return null;
+        }
+        Anomaly anomaly = state.observeResponseTime(responseTimeMs, LocalDateTime.now());
+        if (anomaly != null) {
+            remember(anomaly);
+        }
+        return anomaly;
+    }
+
+    /**
+     * Whether the route's response time baseline has seen enough samples to judge by
+     */
+    public boolean isWarm(String routeId, Metric metric) {
+        RouteState state = routes.get(routeId);
+        return state != null && state.baselines[metric.ordinal()].isWarm();
+    }
+
+    /**
+     * Latest rate anomaly of a route within the current minute, if any
+     */
+    public Anomaly getActiveRateAnomaly(String routeId) {
+        RouteState state = routes.get(routeId);
+        return state != null ? state.activeRateAnomaly(LocalDateTime.now()) : null;
+    }
+
+    public List<Anomaly> getAnomaliesSince(LocalDateTime since) {
+        List<Anomaly> anomalies = new ArrayList<>();
+        synchronized (recentAnomalies) {
+            for (Anomaly anomaly : recentAnomalies) {
+                if (!anomaly.getDetectedAt().isBefore(since)) {
+                    anomalies.add(anomaly);
+                }
+            }
+        }
+        return anomalies;
+    }
+
+    /**
+     * Current expected value and deviation per route and metric, with recent anomalies
+     */
+    public Map<String, Object> getBaselineStats() {
+        LocalDateTime now = LocalDateTime.now();
+        int hourOfWeek = hourOfWeek(now);
+
+        Map<String, Object> byRoute = new TreeMap<>();
+        for (Map.Entry<String, RouteState> entry : routes.entrySet()) {
+            Map<String, Object> metrics = new HashMap<>();
+            for (Metric metric : Metric.values()) {
+                Baseline baseline = entry.getValue().baselines[metric.ordinal()];
+                synchronized (entry.getValue()) {
+                    Map<String, Object> values = new HashMap<>();
+                    values.put("expected", Math.round(baseline.expected(hourOfWeek) * 100.0) / 100.0);
+                    values.put("deviation", Math.round(baseline.deviation(hourOfWeek) * 100.0) / 100.0);
+                    values.put("samples", baseline.samples);
+                    values.put("seasonal", baseline.seasonalSamples[hourOfWeek] >= MIN_SEASONAL_SAMPLES);
+                    metrics.put(metric.name(), values);
+                }
+            }
+            byRoute.put(entry.getKey(), metrics);
+        }
+
+        List<Map<String, Object>> anomalies = new ArrayList<>();
+        for (Anomaly anomaly : getAnomaliesSince(now.minusHours(1))) {
+            anomalies.add(anomaly.toMap());
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("routes", byRoute);
+        stats.put("recentAnomalies", anomalies);
+        stats.put("zThreshold", zThreshold);
+        return stats;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring route baseline snapshot {}: unknown format", path);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String routeId = in.readUTF();
+                RouteState state = new RouteState(routeId);
+                for (Baseline baseline : state.baselines) {
+                    baseline.read(in);
+                }
+                routes.put(routeId, state);
+            }
+            log.info("Loaded route baselines for {} routes from {}", count, path);
+        } catch (NoSuchFileException e) {
+            log.info("No route baseline snapshot at {}; baselines start cold", path);
+        } catch (Exception e) {
+            routes.clear();
+            log.warn("Could not load route baseline snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Write all baselines to a temporary file and rename it over the snapshot
+     */
+    @Scheduled(fixedDelay = 300000) // Every 5 minutes
+    @PreDestroy
+    public void saveSnapshot() {
+        Path path = Paths.get(snapshotPath).toAbsolutePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            List<RouteState> states = new ArrayList<>(routes.values());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(states.size());
+                for (RouteState state : states) {
+                    synchronized (state) {
+                        out.writeUTF(state.routeId);
+                        for (Baseline baseline : state.baselines) {
+                            baseline.write(out);
+                        }
+                    }
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Saved route baselines for {} routes to {}", states.size(), path);
+        } catch (Exception e) {
+            log.error("Error saving route baseline snapshot: {}", e.getMessage(), e);
+        }
+    }
+
+    private RouteState stateFor(String routeId) {
+        if (routeId == null) {
+            return null;
+        }
+        RouteState state = routes.get(routeId);
+        if (state == null && routes.size() < MAX_ROUTES) {
+            state = routes.computeIfAbsent(routeId, RouteState::new);
+        }
+        return state;
+    }
+
+    private void remember(Anomaly anomaly) {
+        log.info("Baseline anomaly on route {}: {} = {} (expected {}, z = {})", anomaly.getRouteId(),
+                anomaly.getMetric(), anomaly.getValue(), Math.round(anomaly.getExpected()), Math.round(anomaly.getZScore() * 10) / 10.0);
+        synchronized (recentAnomalies) {
+            if (recentAnomalies.size() == RECENT_ANOMALIES) {
+                recentAnomalies.removeFirst();
+            }
+            recentAnomalies.addLast(anomaly);
+        }
+    }
+
+    private static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * Baselines and the current minute's counts of one route
+     */
+    private final class RouteState {
+        private final String routeId;
+        private final Baseline[] baselines = new Baseline[Metric.values().length];
+
+        private long currentMinute = Long.MIN_VALUE;
+        private final long[] minuteCounts = new long[Metric.values().length];
+        private final Anomaly[] minuteAnomalies = new Anomaly[Metric.values().length];
+
+        RouteState(String routeId) {
+            this.routeId = routeId;
+            for (Metric metric : Metric.values()) {
+                baselines[metric.ordinal()] = new Baseline(metric != Metric.RESPONSE_TIME);
+            }
+        }
+
+        synchronized Anomaly observeResponseTime(long responseTimeMs, LocalDateTime now) {
+            Baseline baseline = baselines[Metric.RESPONSE_TIME.ordinal()];
+            int hourOfWeek = hourOfWeek(now);
+            double z = baseline.zScore(responseTimeMs, hourOfWeek);
+            Anomaly anomaly = baseline.isWarm() && z > zThreshold
+                    ? new Anomaly(routeId, Metric.RESPONSE_TIME, responseTimeMs, baseline.expected(hourOfWeek), z, now)
+                    : null;
+            baseline.update(responseTimeMs, hourOfWeek, zThreshold);
+            return anomaly;
+        }
+
+        synchronized Anomaly countEvent(Metric metric, LocalDateTime timestamp) {
+            long minute = epochMinute(timestamp);
+            if (minute < currentMinute) {
+                return null; // Late event for a minute already folded in
+            }
+            if (minute > currentMinute) {
+                rollTo(minute);
+            }
+
+            // Counts only grow within a minute, so a spike is caught as soon as it crosses the line
+            int index = metric.ordinal();
+            long count = ++minuteCounts[index];
+            Baseline baseline = baselines[index];
+            if (minuteAnomalies[index] == null && baseline.isWarm() && count >= minRateCount) {
+                int hourOfWeek = hourOfWeek(timestamp);
+                double z = baseline.zScore(count, hourOfWeek);
+                if (z > zThreshold) {
+                    minuteAnomalies[index] = new Anomaly(routeId, metric, count, baseline.expected(hourOfWeek), z, timestamp);
+                    return minuteAnomalies[index];
+                }
+            }
+            return null;
+        }
+
+        synchronized Anomaly activeRateAnomaly(LocalDateTime now) {
+            if (currentMinute != epochMinute(now)) {
+                return null;
+            }
+            Anomaly rejections = minuteAnomalies[Metric.REJECTIONS_PER_MINUTE.ordinal()];
+            return rejections != null ? rejections : minuteAnomalies[Metric.REQUESTS_PER_MINUTE.ordinal()];
+        }
+
+        // Fold the finished minute, and zeros for idle minutes since, into the rate baselines
+        private void rollTo(long minute) {
+            if (currentMinute != Long.MIN_VALUE) {
+                long idle = Math.min(minute - currentMinute - 1, MAX_GAP_MINUTES);
+                foldMinute(currentMinute, false);
+                for (long m = minute - idle; m < minute; m++) {
+                    foldMinute(m, true);
+                }
+            }
+            currentMinute = minute;
+            Arrays.fill(minuteCounts, 0);
+            Arrays.fill(minuteAnomalies, null);
+        }
+
+        private void foldMinute(long minute, boolean idle) {
+            int hourOfWeek = hourOfWeek(LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC));
+            for (Metric metric : new Metric[] { Metric.REQUESTS_PER_MINUTE, Metric.REJECTIONS_PER_MINUTE }) {
+                baselines[metric.ordinal()].update(idle ? 0 : minuteCounts[metric.ordinal()], hourOfWeek, zThreshold);
+            }
+        }
+    }
+
+    /**
+     * Exponentially weighted mean and variance, overall and per hour of the week
+     */
+    private static final class Baseline {
+        private final boolean counts;
+        private long samples;
+        private double mean;
+        private double variance;
+        private final int[] seasonalSamples = new int[HOURS_PER_WEEK];
+        private final double[] seasonalMean = new double[HOURS_PER_WEEK];
+        private final double[] seasonalVariance = new double[HOURS_PER_WEEK];
+
+        Baseline(boolean counts) {
+            this.counts = counts;
+        }
+
+        boolean isWarm() {
+            return samples >= MIN_SAMPLES;
+        }
+
+        double expected(int hourOfWeek) {
+            return seasonalSamples[hourOfWeek] >= MIN_SEASONAL_SAMPLES ? seasonalMean[hourOfWeek] : mean;
+        }
+
+        double deviation(int hourOfWeek) {
+            double variance = seasonalSamples[hourOfWeek] >= MIN_SEASONAL_SAMPLES ? seasonalVariance[hourOfWeek] : this.variance;
+            double expected = Math.abs(expected(hourOfWeek));
+            // Counts vary at least as much as a Poisson process with the expected rate
+            double floor = counts ? Math.sqrt(Math.max(expected, 1.0)) : Math.max(1.0, MIN_STD_FRACTION * expected);
+            return Math.max(Math.sqrt(variance), floor);
+        }
+
+        double zScore(double value, int hourOfWeek) {
+            return (value - expected(hourOfWeek)) / deviation(hourOfWeek);
+        }
+
+        void update(double value, int hourOfWeek, double zThreshold) {
+            // Clamp outliers once warm, so an attack does not become the new normal
+            if (isWarm()) {
+                double expected = expected(hourOfWeek);
+                double limit = zThreshold * deviation(hourOfWeek);
+                value = Math.max(expected - limit, Math.min(expected + limit, value));
+            }
+
+            if (samples == 0) {
+                mean = value;
+            } else {
+                double diff = value - mean;
+                double increment = ALPHA * diff;
+                mean += increment;
+                variance = (1 - ALPHA) * (variance + diff * increment);
+            }
+            samples++;
+
+            if (seasonalSamples[hourOfWeek] == 0) {
+                seasonalMean[hourOfWeek] = value;
+                seasonalVariance[hourOfWeek] = variance;
+            } else {
+                double diff = value - seasonalMean[hourOfWeek];
+                double increment = SEASONAL_ALPHA * diff;
+                seasonalMean[hourOfWeek] += increment;
+                seasonalVariance[hourOfWeek] = (1 - SEASONAL_ALPHA) * (seasonalVariance[hourOfWeek] + diff * increment);
+            }
+            if (seasonalSamples[hourOfWeek] < Integer.MAX_VALUE) {
+                seasonalSamples[hourOfWeek]++;
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(samples);
+            out.writeDouble(mean);
+            out.writeDouble(variance);
+            for (int h = 0; h < HOURS_PER_WEEK; h++) {
+                out.writeInt(seasonalSamples[h]);
+                out.writeDouble(seasonalMean[h]);
+                out.writeDouble(seasonalVariance[h]);
+            }
+        }
+
+        void read(DataInputStream in) throws IOException {
+            samples = in.readLong();
+            mean = in.readDouble();
+            variance = in.readDouble();
+            for (int h = 0; h < HOURS_PER_WEEK; h++) {
+                seasonalSamples[h] = in.readInt();
+                seasonalMean[h] = in.readDouble();
+                seasonalVariance[h] = in.readDouble();
+            }
+        }
+    }
+
+    public static final class Anomaly {
+        private final String routeId;
+        private final Metric metric;
+        private final double value;
+        private final double expected;
+        private final double zScore;
+        private final LocalDateTime detectedAt;
+
+        Anomaly(String routeId, Metric metric, double value, double expected, double zScore, LocalDateTime detectedAt) {
+            this.routeId = routeId;
+            this.metric = metric;
+            this.value = value;
+            this.expected = expected;
+            this.zScore = zScore;
+            this.detectedAt = detectedAt;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("routeId", routeId);
+            map.put("metric", metric.name());
+            map.put("value", value);
+            map.put("expected", Math.round(expected * 100.0) / 100.0);
+            map.put("zScore", Math.round(zScore * 100.0) / 100.0);
+            map.put("detectedAt", detectedAt);
+            return map;
+        }
+
+        // Getters
+        public String getRouteId() { return routeId; }
+        public Metric getMetric() { return metric; }
+        public double getValue() { return value; }
+        public double getExpected() { return expected; }
+        public double getZScore() { return zScore; }
+        public LocalDateTime getDetectedAt() { return detectedAt; }
+    }
+}
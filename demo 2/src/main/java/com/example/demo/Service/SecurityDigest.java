@@ -0,0 +1,177 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEventView;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Fixed-size statistical summary of the security events in a window: totals, top
+ * IPs, routes and rejection reasons, response time quantiles and a coarse trend.
+ * Its size does not depend on how many events went into it.
+ */
+public final class SecurityDigest {
+
+    public static final int TOP_K = 10;
+    public static final int TREND_BUCKETS = 12;
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final long totalEvents;
+    private final long rejections;
+    private final Map<String, Long> eventsByThreatLevel;
+    private final List<Map.Entry<String, Long>> topIps;
+    private final List<Map.Entry<String, Long>> topRejectedIps;
+    private final List<Map.Entry<String, Long>> topRoutes;
+    private final List<Map.Entry<String, Long>> topReasons;
+    private final long[] responseTimeQuantiles; // p50, p90, p99, max
+    private final long[] eventTrend;
+    private final long[] rejectionTrend;
+
+    private SecurityDigest(Accumulator acc) {
+        this.start = acc.start;
+        this.end = acc.end;
+        this.totalEvents = acc.totalEvents;
+        this.rejections = acc.rejections;
+        this.eventsByThreatLevel = Collections.unmodifiableMap(new TreeMap<>(acc.eventsByThreatLevel));
+        this.topIps = Collections.unmodifiableList(acc.ips.top(TOP_K));
+        this.topRejectedIps = Collections.unmodifiableList(acc.rejectedIps.top(TOP_K));
+        this.topRoutes = Collections.unmodifiableList(acc.routes.top(TOP_K));
+        this.topReasons = Collections.unmodifiableList(acc.reasons.top(TOP_K));
+        this.responseTimeQuantiles = new long[] {
+                acc.responseTimes.quantile(0.50), acc.responseTimes.quantile(0.90),
+                acc.responseTimes.quantile(0.99), acc.responseTimes.max };
+        this.eventTrend = acc.eventTrend.clone();
+        this.rejectionTrend = acc.rejectionTrend.clone();
+    }
+
+    public LocalDateTime getStart() { return start; }
+    public LocalDateTime getEnd() { return end; }
+    public long getTotalEvents() { return totalEvents; }
+    public long getRejections() { return rejections; }
+    public long getEventsAtThreatLevel(String level) { return eventsByThreatLevel.getOrDefault(level, 0L); }
+    public Map<String, Long> getEventsByThreatLevel() { return eventsByThreatLevel; }
+    public List<Map.Entry<String, Long>> getTopIps() { return topIps; }
+    public List<Map.Entry<String, Long>> getTopRejectedIps() { return topRejectedIps; }
+    public List<Map.Entry<String, Long>> getTopRoutes() { return topRoutes; }
+    public List<Map.Entry<String, Long>> getTopReasons() { return topReasons; }
+    public long getResponseTimeP50() { return responseTimeQuantiles[0]; }
+    public long getResponseTimeP90() { return responseTimeQuantiles[1]; }
+    public long getResponseTimeP99() { return responseTimeQuantiles[2]; }
+    public long getResponseTimeMax() { return responseTimeQuantiles[3]; }
+    public long[] getEventTrend() { return eventTrend.clone(); }
+    public long[] getRejectionTrend() { return rejectionTrend.clone(); }
+
+    /**
+     * Ratio of events in the second half of the window to the first half
+     */
+    public double getTrendRatio() {
+        long first = 0;
+        long second = 0;
+        for (int i = 0; i < eventTrend.length; i++) {
+            if (i < eventTrend.length / 2) first += eventTrend[i]; else second += eventTrend[i];
+        }
+        return first > 0 ? (double) second / first : (second > 0 ? Double.POSITIVE_INFINITY : 1.0);
+    }
+
+    /**
+     * Builds a digest in one pass; memory is bounded by the top-K trackers
+     */
+    public static final class Accumulator {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final long bucketNanos;
+
+        private long totalEvents;
+        private long rejections;
+        private final Map<String, Long> eventsByThreatLevel = new HashMap<>();
+        private final TopKSketch ips = new TopKSketch(TOP_K * 10);
+        private final TopKSketch rejectedIps = new TopKSketch(TOP_K * 10);
+        private final TopKSketch routes = new TopKSketch(TOP_K * 10);
+        private final TopKSketch reasons = new TopKSketch(TOP_K * 10);
+        private final LatencyHistogram responseTimes = new LatencyHistogram();
+        private final long[] eventTrend = new long[TREND_BUCKETS];
+        private final long[] rejectionTrend = new long[TREND_BUCKETS];
+
+        public Accumulator(LocalDateTime start, LocalDateTime end) {
+            this.start = start;
+            this.end = end;
+            this.bucketNanos = Math.max(1, Duration.between(start, end).toNanos() / TREND_BUCKETS + 1);
+        }
+
+        public void accept(SecurityEventView event) {
+            totalEvents++;
+            boolean rejected = "REJECTION".equals(event.getEventType());
+
+            if (event.getThreatLevel() != null) {
+                eventsByThreatLevel.merge(event.getThreatLevel(), 1L, Long::sum);
+            }
+            if (event.getClientIp() != null) {
+                ips.add(event.getClientIp());
+                if (rejected) rejectedIps.add(event.getClientIp());
+            }
+            if (event.getRouteId() != null) {
+                routes.add(event.getRouteId());
+            }
+            if (rejected) {
+                rejections++;
+                if (event.getRejectionReason() != null) reasons.add(event.getRejectionReason());
+            }
+            if (event.getResponseTimeMs() != null) {
+                responseTimes.record(event.getResponseTimeMs());
+            }
+            if (event.getTimestamp() != null) {
+                long offset = Duration.between(start, event.getTimestamp()).toNanos();
+                int bucket = (int) Math.min(TREND_BUCKETS - 1, Math.max(0, offset / bucketNanos));
+                eventTrend[bucket]++;
+                if (rejected) rejectionTrend[bucket]++;
+            }
+        }
+
+        public SecurityDigest build() {
+            return new SecurityDigest(this);
+        }
+    }
+
+    /**
+     * Log-linear histogram with four sub-buckets per power of two (about 12% error)
+     */
+    private static final class LatencyHistogram {
+        private final long[] buckets = new long[4 + 62 * 4];
+        private long count;
+        private long max;
+
+        void record(long value) {
+            value = Math.max(0, value);
+            buckets[index(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        long quantile(double q) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return Math.min(max, upperBound(i));
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            if (value < 4) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) ((value >> (exponent - 2)) & 3);
+            return 4 + (exponent - 2) * 4 + sub;
+        }
+
+        private static long upperBound(int index) {
+            if (index < 4) return index;
+            int exponent = (index - 4) / 4 + 2;
+            int sub = (index - 4) % 4;
+            return ((4L + sub + 1) << (exponent - 2)) - 1;
+        }
+    }
+}
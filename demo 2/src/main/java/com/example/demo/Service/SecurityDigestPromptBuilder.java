@@ -0,0 +1,155 @@
+package com.example.demo.Service;
+
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the executive summary prompt from a {@link SecurityDigest} within a token budget.
+ *
+ * Sections are added in priority order and a section that does not fit is dropped whole,
+ * so the prompt never exceeds the budget however large the analysed window was.
+ */
+public class SecurityDigestPromptBuilder {
+
+    // Rough English token size; good enough for budgeting, not for billing
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final DateTimeFormatter WINDOW_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final int tokenBudget;
+
+    public SecurityDigestPromptBuilder(int tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    public static int estimateTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Build the prompt. Context may hold totalRequests, totalRejections, highThreatAlerts,
+     * geographicThreats and topAttackVectors from the live counters.
+     */
+    public String build(SecurityDigest digest, Map<String, Object> context) {
+        String closing = "\nPlease provide a comprehensive executive summary focusing on:" +
+                "\n1. Current security posture assessment" +
+                "\n2. Critical threats requiring immediate attention" +
+                "\n3. Business impact and operational risks" +
+                "\n4. Specific actionable recommendations" +
+                "\n5. Overall risk level and trend analysis";
+
+        StringBuilder prompt = new StringBuilder();
+        int budgetChars = tokenBudget * CHARS_PER_TOKEN - closing.length();
+
+        StringBuilder section = new StringBuilder();
+        section.append("CYBERSECURITY EXECUTIVE SUMMARY REQUEST\n\n");
+        // Whole hours, so prompts over the same data repeat and the response cache can answer them
+        section.append("WINDOW: ").append(WINDOW_FORMAT.format(digest.getStart().truncatedTo(ChronoUnit.HOURS)))
+                .append(" to ").append(WINDOW_FORMAT.format(digest.getEnd().truncatedTo(ChronoUnit.HOURS))).append("\n\n");
+        section.append("CURRENT SECURITY METRICS:\n");
+        section.append("- Total Security Events: ").append(digest.getTotalEvents()).append("\n");
+        section.append("- Critical Events: ").append(digest.getEventsAtThreatLevel("CRITICAL")).append("\n");
+        section.append("- High Threat Events: ").append(digest.getEventsAtThreatLevel("HIGH")).append("\n");
+        section.append("- High Threat Alerts: ").append(context.getOrDefault("highThreatAlerts", 0)).append("\n");
+        section.append("- Rejected Events: ").append(digest.getRejections()).append("\n");
+
+        Object totalRequests = context.get("totalRequests");
+        Object totalRejections = context.get("totalRejections");
+        if (totalRequests instanceof Number && totalRejections instanceof Number) {
+            long requests = ((Number) totalRequests).longValue();
+            long rejected = ((Number) totalRejections).longValue();
+            section.append("- Total Requests: ").append(requests).append("\n");
+            section.append("- Rejected Requests: ").append(rejected).append("\n");
+            if (requests > 0) {
+                section.append("- Rejection Rate: ")
+                        .append(String.format("%.2f%%", (double) rejected / requests * 100)).append("\n");
+            }
+        }
+        appendIfFits(prompt, section, budgetChars);
+
+        section.setLength(0);
+        section.append("\nTREND: ").append(describeTrend(digest.getTrendRatio()))
+                .append(" (events per ").append(SecurityDigest.TREND_BUCKETS).append(" equal slices: ")
+                .append(join(digest.getEventTrend())).append("; rejections: ")
+                .append(join(digest.getRejectionTrend())).append(")\n");
+        appendIfFits(prompt, section, budgetChars);
+
+        section.setLength(0);
+        section.append("RESPONSE TIME ms: p50=").append(digest.getResponseTimeP50())
+                .append(" p90=").append(digest.getResponseTimeP90())
+                .append(" p99=").append(digest.getResponseTimeP99())
+                .append(" max=").append(digest.getResponseTimeMax()).append("\n");
+        appendIfFits(prompt, section, budgetChars);
+
+        appendTop(prompt, "TOP REJECTED IPS", digest.getTopRejectedIps(), budgetChars);
+        appendTop(prompt, "TOP REJECTION REASONS", digest.getTopReasons(), budgetChars);
+        appendTop(prompt, "TOP ROUTES", digest.getTopRoutes(), budgetChars);
+        appendTop(prompt, "TOP SOURCE IPS", digest.getTopIps(), budgetChars);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> geoThreats = (List<Map<String, Object>>) context.get("geographicThreats");
+        if (geoThreats != null && !geoThreats.isEmpty()) {
+            section.setLength(0);
+            section.append("GEOGRAPHIC THREATS: ").append(geoThreats.size()).append(" countries\n");
+            for (Map<String, Object> threat : geoThreats.subList(0, Math.min(3, geoThreats.size()))) {
+                section.append("  * ").append(threat.get("country"))
+                        .append(": ").append(threat.get("uniqueIPs")).append(" IPs, ")
+                        .append(threat.get("totalRejections")).append(" rejections\n");
+            }
+            appendIfFits(prompt, section, budgetChars);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> attackVectors = (List<String>) context.get("topAttackVectors");
+        if (attackVectors != null && !attackVectors.isEmpty()) {
+            section.setLength(0);
+            section.append("TOP ATTACK VECTORS: ")
+                    .append(String.join(", ", attackVectors.subList(0, Math.min(5, attackVectors.size()))))
+                    .append("\n");
+            appendIfFits(prompt, section, budgetChars);
+        }
+
+        // The headline section alone may exceed a very small budget
+        if (prompt.length() > budgetChars) {
+            prompt.setLength(Math.max(0, budgetChars));
+        }
+        return prompt.append(closing).toString();
+    }
+
+    private void appendTop(StringBuilder prompt, String title, List<Map.Entry<String, Long>> entries, int budgetChars) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringBuilder section = new StringBuilder(title).append(":\n");
+        for (Map.Entry<String, Long> entry : entries) {
+            section.append("  * ").append(truncate(entry.getKey(), 80)).append(": ").append(entry.getValue()).append("\n");
+        }
+        appendIfFits(prompt, section, budgetChars);
+    }
+
+    private void appendIfFits(StringBuilder prompt, CharSequence section, int budgetChars) {
+        if (prompt.length() == 0 || prompt.length() + section.length() <= budgetChars) {
+            prompt.append(section);
+        }
+    }
+
+    private String describeTrend(double ratio) {
+        if (ratio > 1.5) return "INCREASING";
+        if (ratio < 0.67) return "DECREASING";
+        return "STABLE";
+    }
+
+    private String join(long[] values) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) joined.append(',');
+            joined.append(values[i]);
+        }
+        return joined.toString();
+    }
+
+    private String truncate(String value, int max) {
+        return value.length() > max ? value.substring(0, max) + "..." : value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reduces a window of security events to a {@link SecurityDigest} in one streamed pass
+ */
+@Service
+public class SecurityDigestService {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityDigestService.class);
+
+    private final SecurityEventStreamService eventStreamService;
+
+    @Autowired
+    public SecurityDigestService(SecurityEventStreamService eventStreamService) {
+        this.eventStreamService = eventStreamService;
+    }
+
+    /**
+     * Get the digest of the events between start and end (inclusive)
+     */
+    public SecurityDigest digest(LocalDateTime start, LocalDateTime end) {
+        long begin = System.currentTimeMillis();
+        SecurityDigest.Accumulator accumulator = new SecurityDigest.Accumulator(start, end);
+        long events = eventStreamService.forEachEvent(start, end, accumulator::accept);
+        log.debug("Digested {} security events in {} ms", events, System.currentTimeMillis() - begin);
+        return accumulator.build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.Service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Layout shared by the security event archive writer and reader.
+ *
+ * <pre>
+ * file   := MAGIC VERSION chunk* END
+ * chunk  := CHUNK rowCount minTimestamp maxTimestamp routeDictionary rawLength compressedLength deflate(columns)
+ * columns:= ids timestamps routes eventTypes clientIps userAgents requestPaths rejectionReasons
+ *           threatLevels responseStatuses responseTimes
+ * </pre>
+ *
+ * Ids and timestamps are delta-encoded varints. String columns are a per-chunk dictionary
+ * (count, then length-prefixed UTF-8 values) followed by one varint code per row, 0 for
+ * null; numbers are varints offset by one so 0 can mean null. The route dictionary sits
+ * outside the compressed block so readers can skip chunks by time and route without
+ * inflating them.
+ */
+final class SecurityEventArchiveFormat {
+
+    static final int MAGIC = 0x53454152; // "SEAR"
+    static final int VERSION = 1;
+
+    static final byte CHUNK = 1;
+    static final byte END = 0;
+
+    static final int CHUNK_ROWS = 8192;
+
+    private SecurityEventArchiveFormat() {
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    // Event timestamps are naive local times, stored as microseconds without a zone shift
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
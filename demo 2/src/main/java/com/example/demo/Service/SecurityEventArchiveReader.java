@@ -0,0 +1,208 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEventView;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Scans security event archives written by {@link SecurityEventArchiveService}.
+ *
+ * Chunks whose time range or route dictionary cannot match the predicate are skipped
+ * without being inflated; rows in the remaining chunks are filtered before any other
+ * column is materialized.
+ */
+public class SecurityEventArchiveReader implements Closeable {
+
+    private final DataInputStream in;
+
+    private long chunksRead;
+    private long chunksSkipped;
+
+    public SecurityEventArchiveReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (this.in.readInt() != SecurityEventArchiveFormat.MAGIC) {
+            throw new IOException("Not a security event archive");
+        }
+        int version = this.in.readInt();
+        if (version != SecurityEventArchiveFormat.VERSION) {
+            throw new IOException("Unsupported security event archive version " + version);
+        }
+    }
+
+    /**
+     * Hand every event with a timestamp in [from, to] and, when routeId is set, on that route
+     * to the consumer. Null bounds are open.
+     *
+     * @return number of matching events
+     */
+    public long scan(LocalDateTime from, LocalDateTime to, String routeId,
+                     Consumer<SecurityEventView> consumer) throws IOException {
+        long fromMicros = from != null ? SecurityEventArchiveFormat.toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? SecurityEventArchiveFormat.toMicros(to) : Long.MAX_VALUE;
+        long matched = 0;
+
+        while (in.readByte() == SecurityEventArchiveFormat.CHUNK) {
+            int rowCount = in.readInt();
+            long minTimestamp = in.readLong();
+            long maxTimestamp = in.readLong();
+            String[] routes = readDictionary(in);
+            int rawLength = in.readInt();
+            int compressedLength = in.readInt();
+
+            int routeCode = routeId == null ? -1 : indexOf(routes, routeId);
+            if (maxTimestamp < fromMicros || minTimestamp > toMicros || (routeId != null && routeCode < 0)) {
+                in.skipNBytes(compressedLength);
+                chunksSkipped++;
+                continue;
+            }
+
+            byte[] compressed = new byte[compressedLength];
+            in.readFully(compressed);
+            DataInputStream columns = new DataInputStream(new ByteArrayInputStream(inflate(compressed, rawLength)));
+            matched += scanChunk(columns, rowCount, minTimestamp, routes, fromMicros, toMicros, routeCode, consumer);
+            chunksRead++;
+        }
+
+        return matched;
+    }
+
+    public long getChunksRead() {
+        return chunksRead;
+    }
+
+    public long getChunksSkipped() {
+        return chunksSkipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long scanChunk(DataInputStream columns, int rowCount, long minTimestamp, String[] routes,
+                           long fromMicros, long toMicros, int routeCode,
+                           Consumer<SecurityEventView> consumer) throws IOException {
+        long[] ids = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previous += SecurityEventArchiveFormat.unZigZag(SecurityEventArchiveFormat.readVarLong(columns));
+            ids[i] = previous;
+        }
+
+        long[] timestamps = new long[rowCount];
+        previous = minTimestamp;
+        for (int i = 0; i < rowCount; i++) {
+            previous += SecurityEventArchiveFormat.unZigZag(SecurityEventArchiveFormat.readVarLong(columns));
+            timestamps[i] = previous;
+        }
+
+        int[] routeCodes = readCodes(columns, rowCount);
+
+        // Apply the predicate on the cheap columns before decoding the rest
+        boolean[] selected = new boolean[rowCount];
+        int selectedCount = 0;
+        for (int i = 0; i < rowCount; i++) {
+            selected[i] = timestamps[i] >= fromMicros && timestamps[i] <= toMicros
+                    && (routeCode < 0 || routeCodes[i] == routeCode + 1);
+            if (selected[i]) selectedCount++;
+        }
+        if (selectedCount == 0) {
+            return 0;
+        }
+
+        String[] eventTypeDictionary = readDictionary(columns);
+        int[] eventTypes = readCodes(columns, rowCount);
+        String[] clientIpDictionary = readDictionary(columns);
+        int[] clientIps = readCodes(columns, rowCount);
+        String[] userAgentDictionary = readDictionary(columns);
+        int[] userAgents = readCodes(columns, rowCount);
+        String[] pathDictionary = readDictionary(columns);
+        int[] paths = readCodes(columns, rowCount);
+        String[] reasonDictionary = readDictionary(columns);
+        int[] reasons = readCodes(columns, rowCount);
+        String[] threatLevelDictionary = readDictionary(columns);
+        int[] threatLevels = readCodes(columns, rowCount);
+        Integer[] statuses = readInts(columns, rowCount);
+        Integer[] responseTimes = readInts(columns, rowCount);
+
+        for (int i = 0; i < rowCount; i++) {
+            if (!selected[i]) continue;
+            consumer.accept(new SecurityEventView(ids[i],
+                    SecurityEventArchiveFormat.fromMicros(timestamps[i]),
+                    decode(eventTypeDictionary, eventTypes[i]),
+                    decode(routes, routeCodes[i]),
+                    decode(clientIpDictionary, clientIps[i]),
+                    decode(userAgentDictionary, userAgents[i]),
+                    decode(pathDictionary, paths[i]),
+                    decode(reasonDictionary, reasons[i]),
+                    statuses[i],
+                    responseTimes[i],
+                    decode(threatLevelDictionary, threatLevels[i])));
+        }
+        return selectedCount;
+    }
+
+    private static String[] readDictionary(DataInputStream in) throws IOException {
+        String[] values = new String[(int) SecurityEventArchiveFormat.readVarLong(in)];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[(int) SecurityEventArchiveFormat.readVarLong(in)];
+            in.readFully(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static int[] readCodes(DataInputStream in, int rowCount) throws IOException {
+        int[] codes = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            codes[i] = (int) SecurityEventArchiveFormat.readVarLong(in);
+        }
+        return codes;
+    }
+
+    private static Integer[] readInts(DataInputStream in, int rowCount) throws IOException {
+        Integer[] values = new Integer[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            long encoded = SecurityEventArchiveFormat.readVarLong(in);
+            values[i] = encoded == 0 ? null : (int) SecurityEventArchiveFormat.unZigZag(encoded - 1);
+        }
+        return values;
+    }
+
+    private static String decode(String[] dictionary, int code) {
+        return code == 0 ? null : dictionary[code - 1];
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) return i;
+        }
+        return -1;
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Truncated security event archive chunk");
+                }
+                offset += n;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt security event archive chunk", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEventView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+/**
+ * Writes security events as compact columnar archives for offline analysis.
+ * See {@link SecurityEventArchiveFormat} for the layout and
+ * {@link SecurityEventArchiveReader} for scanning the files.
+ */
+@Service
+public class SecurityEventArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventArchiveService.class);
+
+    private final SecurityEventStreamService eventStreamService;
+
+    @Autowired
+    public SecurityEventArchiveService(SecurityEventStreamService eventStreamService) {
+        this.eventStreamService = eventStreamService;
+    }
+
+    /**
+     * Stream an archive of the events between start and end (inclusive), one buffer per chunk
+     */
+    public Flux<DataBuffer> exportArchive(LocalDateTime start, LocalDateTime end, DataBufferFactory bufferFactory) {
+        return Flux.<DataBuffer, ArchiveCursor>generate(
+                () -> new ArchiveCursor(start),
+                (cursor, sink) -> {
+                    try {
+                        if (!cursor.headerWritten) {
+                            cursor.headerWritten = true;
+                            sink.next(bufferFactory.wrap(header()));
+                            return cursor;
+                        }
+
+                        List<SecurityEventView> rows = new ArrayList<>(SecurityEventArchiveFormat.CHUNK_ROWS);
+                        while (!cursor.done && rows.size() < SecurityEventArchiveFormat.CHUNK_ROWS) {
+                            List<SecurityEventView> page = eventStreamService.readPage(
+                                    cursor.afterTimestamp, cursor.afterId, end);
+                            rows.addAll(page);
+                            if (page.size() < SecurityEventStreamService.PAGE_SIZE) {
+                                cursor.done = true;
+                            } else {
+                                SecurityEventView last = page.get(page.size() - 1);
+                                cursor.afterTimestamp = last.getTimestamp();
+                                cursor.afterId = last.getId();
+                            }
+                        }
+
+                        if (!rows.isEmpty()) {
+                            sink.next(bufferFactory.wrap(encodeChunk(rows)));
+                        } else {
+                            sink.next(bufferFactory.wrap(new byte[] { SecurityEventArchiveFormat.END }));
+                            sink.complete();
+                        }
+                    } catch (IOException e) {
+                        sink.error(new UncheckedIOException(e));
+                    }
+                    return cursor;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .doOnError(e -> log.error("Error streaming archive: {}", e.getMessage(), e));
+    }
+
+    /**
+     * Write an archive of the events between start and end (inclusive)
+     *
+     * @return number of events written
+     */
+    public long writeArchive(LocalDateTime start, LocalDateTime end, OutputStream out) throws IOException {
+        out.write(header());
+
+        List<SecurityEventView> rows = new ArrayList<>(SecurityEventArchiveFormat.CHUNK_ROWS);
+        long written = eventStreamService.forEachEvent(start, end, event -> {
+            rows.add(event);
+            if (rows.size() == SecurityEventArchiveFormat.CHUNK_ROWS) {
+                writeChunk(rows, out);
+                rows.clear();
+            }
+        });
+        if (!rows.isEmpty()) {
+            writeChunk(rows, out);
+        }
+
+        out.write(SecurityEventArchiveFormat.END);
+        out.flush();
+        log.info("Archived {} security events from {} to {}", written, start, end);
+        return written;
+    }
+
+    private void writeChunk(List<SecurityEventView> rows, OutputStream out) {
+        try {
+            out.write(encodeChunk(rows));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] header() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SecurityEventArchiveFormat.MAGIC);
+        out.writeInt(SecurityEventArchiveFormat.VERSION);
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeChunk(List<SecurityEventView> rows) throws IOException {
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        long[] timestamps = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            timestamps[i] = SecurityEventArchiveFormat.toMicros(rows.get(i).getTimestamp());
+            minTimestamp = Math.min(minTimestamp, timestamps[i]);
+            maxTimestamp = Math.max(maxTimestamp, timestamps[i]);
+        }
+
+        // Columns go into one block that is compressed as a whole
+        ByteArrayOutputStream rawBytes = new ByteArrayOutputStream(rows.size() * 16);
+        DataOutputStream raw = new DataOutputStream(rawBytes);
+
+        long previousId = 0;
+        for (SecurityEventView row : rows) {
+            long id = row.getId() != null ? row.getId() : 0L;
+            SecurityEventArchiveFormat.writeVarLong(raw, SecurityEventArchiveFormat.zigZag(id - previousId));
+            previousId = id;
+        }
+        long previousTimestamp = minTimestamp;
+        for (long timestamp : timestamps) {
+            SecurityEventArchiveFormat.writeVarLong(raw, SecurityEventArchiveFormat.zigZag(timestamp - previousTimestamp));
+            previousTimestamp = timestamp;
+        }
+
+        Map<String, Integer> routeDictionary = dictionary(rows, SecurityEventView::getRouteId);
+        writeCodes(raw, rows, SecurityEventView::getRouteId, routeDictionary);
+        writeStringColumn(raw, rows, SecurityEventView::getEventType);
+        writeStringColumn(raw, rows, SecurityEventView::getClientIp);
+        writeStringColumn(raw, rows, SecurityEventView::getUserAgent);
+        writeStringColumn(raw, rows, SecurityEventView::getRequestPath);
+        writeStringColumn(raw, rows, SecurityEventView::getRejectionReason);
+        writeStringColumn(raw, rows, SecurityEventView::getThreatLevel);
+        writeIntColumn(raw, rows, SecurityEventView::getResponseStatus);
+        writeIntColumn(raw, rows, SecurityEventView::getResponseTimeMs);
+        raw.flush();
+
+        byte[] compressed = deflate(rawBytes.toByteArray());
+
+        ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream(compressed.length + 64);
+        DataOutputStream chunk = new DataOutputStream(chunkBytes);
+        chunk.writeByte(SecurityEventArchiveFormat.CHUNK);
+        chunk.writeInt(rows.size());
+        chunk.writeLong(minTimestamp);
+        chunk.writeLong(maxTimestamp);
+        writeDictionary(chunk, routeDictionary);
+        chunk.writeInt(rawBytes.size());
+        chunk.writeInt(compressed.length);
+        chunk.write(compressed);
+        chunk.flush();
+        return chunkBytes.toByteArray();
+    }
+
+    private void writeStringColumn(DataOutputStream out, List<SecurityEventView> rows,
+                                   Function<SecurityEventView, String> column) throws IOException {
+        Map<String, Integer> dictionary = dictionary(rows, column);
+        writeDictionary(out, dictionary);
+        writeCodes(out, rows, column, dictionary);
+    }
+
+    private void writeIntColumn(DataOutputStream out, List<SecurityEventView> rows,
+                                Function<SecurityEventView, Integer> column) throws IOException {
+        for (SecurityEventView row : rows) {
+            Integer value = column.apply(row);
+            SecurityEventArchiveFormat.writeVarLong(out,
+                    value == null ? 0L : SecurityEventArchiveFormat.zigZag(value) + 1);
+        }
+    }
+
+    private Map<String, Integer> dictionary(List<SecurityEventView> rows, Function<SecurityEventView, String> column) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (SecurityEventView row : rows) {
+            String value = column.apply(row);
+            if (value != null) {
+                dictionary.putIfAbsent(value, dictionary.size());
+            }
+        }
+        return dictionary;
+    }
+
+    private void writeDictionary(DataOutputStream out, Map<String, Integer> dictionary) throws IOException {
+        SecurityEventArchiveFormat.writeVarLong(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            SecurityEventArchiveFormat.writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private void writeCodes(DataOutputStream out, List<SecurityEventView> rows,
+                            Function<SecurityEventView, String> column, Map<String, Integer> dictionary) throws IOException {
+        for (SecurityEventView row : rows) {
+            String value = column.apply(row);
+            SecurityEventArchiveFormat.writeVarLong(out, value == null ? 0 : dictionary.get(value) + 1);
+        }
+    }
+
+    private byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static final class ArchiveCursor {
+        private LocalDateTime afterTimestamp;
+        private long afterId = -1L;
+        private boolean headerWritten;
+        private boolean done;
+
+        ArchiveCursor(LocalDateTime start) {
+            this.afterTimestamp = start;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEventRollup;
+import com.example.demo.Entity.SecurityEventView;
+import com.example.demo.Repository.SecurityEventRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Streams raw security events and rollups for a time range as NDJSON or CSV.
+ *
+ * Rows are read page by page with keyset pagination and each page is encoded
+ * straight into one buffer from the response's buffer factory, so an export holds
+ * at most one page in memory regardless of its size.
+ */
+@Service
+public class SecurityEventExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventExportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int ROLLUP_PAGE_SIZE = 1000;
+
+    // Initial buffer capacity per page; buffers grow if a page needs more
+    private static final int PAGE_BUFFER_BYTES = 256 * 1024;
+
+    private static final String EVENT_CSV_HEADER = "id,timestamp,eventType,routeId,clientIp,userAgent," +
+            "requestPath,rejectionReason,responseStatus,responseTimeMs,threatLevel\n";
+    private static final String ROLLUP_CSV_HEADER = "granularity,bucketStart,routeId,eventType,rejectionReason," +
+            "eventCount,responseTimeSum,responseTimeCount\n";
+
+    private final SecurityEventStreamService eventStreamService;
+    private final SecurityEventRollupRepository rollupRepository;
+
+    @Autowired
+    public SecurityEventExportService(SecurityEventStreamService eventStreamService,
+                                      SecurityEventRollupRepository rollupRepository) {
+        this.eventStreamService = eventStreamService;
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Stream raw events between start and end (inclusive)
+     */
+    public Flux<DataBuffer> exportEvents(LocalDateTime start, LocalDateTime end, String format,
+                                         DataBufferFactory bufferFactory) {
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+
+        Flux<DataBuffer> pages = Flux.<DataBuffer, EventCursor>generate(
+                () -> new EventCursor(start),
+                (cursor, sink) -> {
+                    if (cursor.done) {
+                        sink.complete();
+                        return cursor;
+                    }
+
+                    List<SecurityEventView> page = eventStreamService.readPage(cursor.afterTimestamp, cursor.afterId, end);
+                    if (page.isEmpty()) {
+                        sink.complete();
+                        return cursor;
+                    }
+
+                    sink.next(encodeEvents(page, csv, bufferFactory));
+
+                    SecurityEventView last = page.get(page.size() - 1);
+                    cursor.afterTimestamp = last.getTimestamp();
+                    cursor.afterId = last.getId();
+                    cursor.done = page.size() < SecurityEventStreamService.PAGE_SIZE;
+                    return cursor;
+                });
+
+        return withHeader(pages, csv ? EVENT_CSV_HEADER : null, bufferFactory);
+    }
+
+    /**
+     * Stream rollup rows of the given granularity with buckets in [start, end)
+     */
+    public Flux<DataBuffer> exportRollups(LocalDateTime start, LocalDateTime end, String granularity,
+                                          String format, DataBufferFactory bufferFactory) {
+        boolean csv = FORMAT_CSV.equalsIgnoreCase(format);
+        String level = "minute".equalsIgnoreCase(granularity)
+                ? SecurityEventRollupService.MINUTE : SecurityEventRollupService.HOUR;
+
+        Flux<DataBuffer> pages = Flux.<DataBuffer, EventCursor>generate(
+                () -> new EventCursor(start),
+                (cursor, sink) -> {
+                    if (cursor.done) {
+                        sink.complete();
+                        return cursor;
+                    }
+
+                    List<SecurityEventRollup> page = rollupRepository.findRollupsAfter(level,
+                            cursor.afterTimestamp, cursor.afterId, end, PageRequest.of(0, ROLLUP_PAGE_SIZE));
+                    if (page.isEmpty()) {
+                        sink.complete();
+                        return cursor;
+                    }
+
+                    sink.next(encodeRollups(page, csv, bufferFactory));
+
+                    SecurityEventRollup last = page.get(page.size() - 1);
+                    cursor.afterTimestamp = last.getBucketStart();
+                    cursor.afterId = last.getId();
+                    cursor.done = page.size() < ROLLUP_PAGE_SIZE;
+                    return cursor;
+                });
+
+        return withHeader(pages, csv ? ROLLUP_CSV_HEADER : null, bufferFactory);
+    }
+
+    private Flux<DataBuffer> withHeader(Flux<DataBuffer> pages, String header, DataBufferFactory bufferFactory) {
+        Flux<DataBuffer> body = header == null ? pages
+                : Flux.concat(Flux.defer(() -> Flux.just(writeString(bufferFactory, header))), pages);
+
+        // JPA reads block, so pages are produced off the event loop; buffers dropped by
+        // a cancelled download are released instead of leaking from the pool
+        return body
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .doOnError(e -> log.error("Error streaming export: {}", e.getMessage(), e));
+    }
+
+    private DataBuffer writeString(DataBufferFactory bufferFactory, String value) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(value.length());
+        buffer.write(value, StandardCharsets.UTF_8);
+        return buffer;
+    }
+
+    private DataBuffer encodeEvents(List<SecurityEventView> page, boolean csv, DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(PAGE_BUFFER_BYTES);
+        try {
+            StringBuilder row = new StringBuilder(256);
+            for (SecurityEventView event : page) {
+                row.setLength(0);
+                if (csv) {
+                    row.append(event.getId()).append(',');
+                    appendCsv(row, event.getTimestamp()).append(',');
+                    appendCsv(row, event.getEventType()).append(',');
+                    appendCsv(row, event.getRouteId()).append(',');
+                    appendCsv(row, event.getClientIp()).append(',');
+                    appendCsv(row, event.getUserAgent()).append(',');
+                    appendCsv(row, event.getRequestPath()).append(',');
+                    appendCsv(row, event.getRejectionReason()).append(',');
+                    appendCsv(row, event.getResponseStatus()).append(',');
+                    appendCsv(row, event.getResponseTimeMs()).append(',');
+                    appendCsv(row, event.getThreatLevel()).append('\n');
+                } else {
+                    row.append("{\"id\":").append(event.getId());
+                    appendJsonField(row, "timestamp", event.getTimestamp());
+                    appendJsonField(row, "eventType", event.getEventType());
+                    appendJsonField(row, "routeId", event.getRouteId());
+                    appendJsonField(row, "clientIp", event.getClientIp());
+                    appendJsonField(row, "userAgent", event.getUserAgent());
+                    appendJsonField(row, "requestPath", event.getRequestPath());
+                    appendJsonField(row, "rejectionReason", event.getRejectionReason());
+                    appendJsonNumber(row, "responseStatus", event.getResponseStatus());
+                    appendJsonNumber(row, "responseTimeMs", event.getResponseTimeMs());
+                    appendJsonField(row, "threatLevel", event.getThreatLevel());
+                    row.append("}\n");
+                }
+                buffer.write(row, StandardCharsets.UTF_8);
+            }
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private DataBuffer encodeRollups(List<SecurityEventRollup> page, boolean csv, DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(PAGE_BUFFER_BYTES);
+        try {
+            StringBuilder row = new StringBuilder(160);
+            for (SecurityEventRollup rollup : page) {
+                row.setLength(0);
+                if (csv) {
+                    appendCsv(row, rollup.getGranularity()).append(',');
+                    appendCsv(row, rollup.getBucketStart()).append(',');
+                    appendCsv(row, rollup.getRouteId()).append(',');
+                    appendCsv(row, rollup.getEventType()).append(',');
+                    appendCsv(row, rollup.getRejectionReason()).append(',');
+                    appendCsv(row, rollup.getEventCount()).append(',');
+                    appendCsv(row, rollup.getResponseTimeSum()).append(',');
+                    appendCsv(row, rollup.getResponseTimeCount()).append('\n');
+                } else {
+                    row.append('{');
+                    appendJsonString(row.append("\"granularity\":"), rollup.getGranularity());
+                    appendJsonField(row, "bucketStart", rollup.getBucketStart());
+                    appendJsonField(row, "routeId", rollup.getRouteId());
+                    appendJsonField(row, "eventType", rollup.getEventType());
+                    appendJsonField(row, "rejectionReason", rollup.getRejectionReason());
+                    appendJsonNumber(row, "eventCount", rollup.getEventCount());
+                    appendJsonNumber(row, "responseTimeSum", rollup.getResponseTimeSum());
+                    appendJsonNumber(row, "responseTimeCount", rollup.getResponseTimeCount());
+                    row.append("}\n");
+                }
+                buffer.write(row, StandardCharsets.UTF_8);
+            }
+            return buffer;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private StringBuilder appendCsv(StringBuilder row, Object value) {
+        if (value == null) {
+            return row;
+        }
+        String text = value.toString();
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            return row.append(text);
+        }
+        row.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c);
+        }
+        return row.append('"');
+    }
+
+    private void appendJsonField(StringBuilder row, String name, Object value) {
+        row.append(",\"").append(name).append("\":");
+        appendJsonString(row, value != null ? value.toString() : null);
+    }
+
+    private void appendJsonNumber(StringBuilder row, String name, Number value) {
+        row.append(",\"").append(name).append("\":").append(value != null ? value.toString() : "null");
+    }
+
+    private void appendJsonString(StringBuilder row, String value) {
+        if (value == null) {
+            row.append("null");
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': row.append("\\\""); break;
+                case '\\': row.append("\\\\"); break;
+                case '\n': row.append("\\n"); break;
+                case '\r': row.append("\\r"); break;
+                case '\t': row.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        row.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        row.append(c);
+                    }
+            }
+        }
+        row.append('"');
+    }
+
+    private static final class EventCursor {
+        private LocalDateTime afterTimestamp;
+        private long afterId = -1L;
+        private boolean done;
+
+        EventCursor(LocalDateTime start) {
+            this.afterTimestamp = start;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.demo.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Maintains the daily partitions of gateway.security_events once the table has been
+ * converted with db/partition_security_events.sql. Partitions are created ahead of
+ * time and expired days are dropped instead of deleted row by row.
+ */
+@Service
+public class SecurityEventPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventPartitionService.class);
+
+    private static final String SCHEMA = "gateway";
+    private static final String PARENT_TABLE = "security_events";
+    private static final String PARTITION_PREFIX = "security_events_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Days of partitions kept ready ahead of today
+    private static final int PRECREATE_DAYS = 7;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SecurityEventPartitionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Check whether security_events is a partitioned table
+     */
+    public boolean isPartitioned() {
+        try {
+            List<String> kinds = jdbcTemplate.queryForList(
+                    "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                            "WHERE n.nspname = ? AND c.relname = ?",
+                    String.class, SCHEMA, PARENT_TABLE);
+            return !kinds.isEmpty() && "p".equals(kinds.get(0));
+        } catch (Exception e) {
+            log.warn("Could not determine security_events partitioning: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Make sure partitions exist for today and the coming days
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 1 * * ?") // Daily at 1 AM
+    public void ensureUpcomingPartitions() {
+        if (!isPartitioned()) {
+            log.debug("security_events is not partitioned, skipping partition maintenance");
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i <= PRECREATE_DAYS; i++) {
+            createPartition(today.plusDays(i));
+        }
+
+        Long defaultRows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + SCHEMA + ".security_events_default", Long.class);
+        if (defaultRows != null && defaultRows > 0) {
+            log.warn("{} security events landed in the default partition; partition creation may have fallen behind",
+                    defaultRows);
+        }
+    }
+
+    /**
+     * Drop daily partitions that end on or before the cutoff date. Runs outside any caller
+     * transaction so each partition is detached and dropped on its own, and one failure
+     * does not abort the rest.
+     *
+     * @return number of partitions dropped
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int dropPartitionsBefore(LocalDate cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname::text FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "JOIN pg_namespace n ON n.oid = p.relnamespace " +
+                        "WHERE n.nspname = ? AND p.relname = ?",
+                String.class, SCHEMA, PARENT_TABLE);
+
+        boolean concurrently = supportsConcurrentDetach();
+        int dropped = 0;
+        for (String partition : partitions) {
+            LocalDate day = parsePartitionDay(partition);
+            if (day == null || !day.isBefore(cutoff)) {
+                continue;
+            }
+
+            try {
+                // DETACH ... CONCURRENTLY only takes SHARE UPDATE EXCLUSIVE on the parent, so
+                // inserts continue; a plain DETACH (or DROP) holds ACCESS EXCLUSIVE on the
+                // parent briefly. Once detached, the drop only locks the old partition.
+                jdbcTemplate.execute("ALTER TABLE " + SCHEMA + "." + PARENT_TABLE +
+                        " DETACH PARTITION " + SCHEMA + "." + partition + (concurrently ? " CONCURRENTLY" : ""));
+                jdbcTemplate.execute("DROP TABLE " + SCHEMA + "." + partition);
+                dropped++;
+                log.info("Dropped security events partition {}", partition);
+            } catch (Exception e) {
+                log.error("Error dropping partition {}: {}", partition, e.getMessage(), e);
+            }
+        }
+
+        return dropped;
+    }
+
+    /**
+     * Delete expired rows from the default partition, which holds events no daily partition
+     * covered when they arrived and so is never dropped
+     *
+     * @return number of rows deleted
+     */
+    public int deleteDefaultPartitionRowsBefore(LocalDate cutoff) {
+        return jdbcTemplate.update("DELETE FROM " + SCHEMA + ".security_events_default WHERE timestamp < ?",
+                cutoff.atStartOfDay());
+    }
+
+    /**
+     * DETACH CONCURRENTLY needs PostgreSQL 14 and a parent without a default partition
+     */
+    private boolean supportsConcurrentDetach() {
+        try {
+            Integer version = jdbcTemplate.queryForObject("SELECT current_setting('server_version_num')::int", Integer.class);
+            List<Boolean> hasDefault = jdbcTemplate.queryForList(
+                    "SELECT pt.partdefid <> 0 FROM pg_partitioned_table pt " +
+                            "JOIN pg_class c ON c.oid = pt.partrelid " +
+                            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                            "WHERE n.nspname = ? AND c.relname = ?",
+                    Boolean.class, SCHEMA, PARENT_TABLE);
+            return version != null && version >= 140000 && !hasDefault.isEmpty() && !hasDefault.get(0);
+        } catch (Exception e) {
+            log.warn("Could not check for concurrent partition detach support: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void createPartition(LocalDate day) {
+        String name = PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + SCHEMA + "." + name +
+                    " PARTITION OF " + SCHEMA + "." + PARENT_TABLE +
+                    " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+        } catch (Exception e) {
+            log.error("Error creating partition {}: {}", name, e.getMessage(), e);
+        }
+    }
+
+    private LocalDate parsePartitionDay(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null; // e.g. the default partition
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEvent;
+import com.example.demo.Repository.SecurityEventRollupRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maintains per-minute and per-hour rollups of security events at ingest time,
+ * so time-series queries scan buckets instead of raw events.
+ *
+ * Events stored before the rollups existed are rolled up once from security_events at
+ * startup, up to the first bucket left by an earlier run or, when there is none, up to the
+ * moment ingest started counting; the backfill adds to buckets this run already flushed.
+ */
+@Service
+public class SecurityEventRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityEventRollupService.class);
+
+    public static final String MINUTE = "MINUTE";
+    public static final String HOUR = "HOUR";
+
+    // Retention for rollup rows
+    private static final int MINUTE_ROLLUP_RETENTION_DAYS = 7;
+    private static final int HOUR_ROLLUP_RETENTION_DAYS = 400;
+
+    private final SecurityEventRollupRepository rollupRepository;
+
+    // Accumulators not yet written to the rollup table
+    private final Map<RollupKey, RollupAccumulator> pending = new ConcurrentHashMap<>();
+
+    // A flush holds the write lock, so a read never sees a bucket after it left pending
+    // but before its upsert committed
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    // Events before this instant are rolled up by the backfill, later ones arrive through record()
+    private final LocalDateTime liveSince = LocalDateTime.now();
+
+    @Autowired
+    public SecurityEventRollupService(SecurityEventRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Add an event to its minute and hour buckets
+     */
+    public void record(SecurityEvent event) {
+        if (event == null || event.getTimestamp() == null || event.getEventType() == null) {
+            return;
+        }
+        if (event.getTimestamp().isBefore(liveSince)) {
+            return; // Covered by the backfill
+        }
+
+        String routeId = event.getRouteId() != null ? event.getRouteId() : "";
+        String reason = event.getRejectionReason() != null ? event.getRejectionReason() : "";
+        Integer responseTime = event.getResponseTimeMs();
+
+        accumulate(new RollupKey(MINUTE, event.getTimestamp().truncatedTo(ChronoUnit.MINUTES),
+                routeId, event.getEventType(), reason), responseTime);
+        accumulate(new RollupKey(HOUR, event.getTimestamp().truncatedTo(ChronoUnit.HOURS),
+                routeId, event.getEventType(), reason), responseTime);
+    }
+
+    /**
+     * Write pending accumulators to the rollup table
+     */
+    @Scheduled(fixedDelay = 10000) // Every 10 seconds
+    @PreDestroy
+    public void flushRollups() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        flushLock.writeLock().lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Roll up stored events that precede the rollups: everything before the earliest
+     * bucket left by an earlier run, or everything before startup when there is none
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRollups() {
+        backfill(MINUTE, ChronoUnit.MINUTES, "minute", liveSince.minusDays(MINUTE_ROLLUP_RETENTION_DAYS));
+        backfill(HOUR, ChronoUnit.HOURS, "hour", liveSince.minusDays(HOUR_ROLLUP_RETENTION_DAYS));
+    }
+
+    private void backfill(String granularity, ChronoUnit bucketUnit, String unit, LocalDateTime retentionStart) {
+        try {
+            // Buckets from the one holding liveSince on were written by this run's flushes, which
+            // only hold events from liveSince on; the upsert adds the earlier part of that bucket
+            LocalDateTime earliest = rollupRepository.findEarliestBucket(granularity);
+            boolean earlierRun = earliest != null && earliest.isBefore(liveSince.truncatedTo(bucketUnit));
+            LocalDateTime end = earlierRun ? earliest : liveSince;
+            if (!retentionStart.isBefore(end)) {
+                return;
+            }
+            int buckets = rollupRepository.backfillRollups(granularity, unit, retentionStart, end);
+            if (buckets > 0) {
+                log.info("Backfilled {} {} rollup rows from events before {}", buckets, unit, end);
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling {} rollups: {}", unit, e.getMessage(), e);
+        }
+    }
+
+    private void flushPending() {
+        int flushed = 0;
+        for (RollupKey key : new ArrayList<>(pending.keySet())) {
+            RollupAccumulator accumulator = pending.remove(key);
+            if (accumulator == null) {
+                continue;
+            }
+
+            try {
+                rollupRepository.upsertRollup(key.granularity, key.bucketStart, key.routeId, key.eventType,
+                        key.rejectionReason, accumulator.eventCount, accumulator.responseTimeSum,
+                        accumulator.responseTimeCount);
+                flushed++;
+            } catch (Exception e) {
+                log.error("Error flushing rollup for bucket {}: {}", key.bucketStart, e.getMessage(), e);
+                // Each upsert runs in its own transaction; put the counts back so they are retried
+                pending.merge(key, accumulator, RollupAccumulator::merge);
+            }
+        }
+
+        log.debug("Flushed {} security event rollup buckets", flushed);
+    }
+
+    /**
+     * Get time series points from rollups. Each point has timestamp, count, rejected,
+     * accepted and averageResponseTime.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTimeSeries(LocalDateTime start, LocalDateTime end,
+                                                   String granularity, String routeId) {
+        String level = "minute".equalsIgnoreCase(granularity) || MINUTE.equals(granularity) ? MINUTE : HOUR;
+        ChronoUnit unit = MINUTE.equals(level) ? ChronoUnit.MINUTES : ChronoUnit.HOURS;
+        LocalDateTime from = start.truncatedTo(unit);
+        boolean allRoutes = routeId == null || routeId.isEmpty() || "all".equals(routeId);
+
+        flushLock.readLock().lock();
+        try {
+            return buildTimeSeries(level, from, end, allRoutes, routeId);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    private List<Map<String, Object>> buildTimeSeries(String level, LocalDateTime from, LocalDateTime end,
+                                                      boolean allRoutes, String routeId) {
+        List<Object[]> rows = allRoutes
+                ? rollupRepository.getBucketTotals(level, from, end)
+                : rollupRepository.getBucketTotalsForRoute(level, routeId, from, end);
+
+        // Combine stored buckets with counts that have not been flushed yet
+        TreeMap<LocalDateTime, RollupAccumulator> totals = new TreeMap<>();
+        Map<LocalDateTime, Long> rejections = new HashMap<>();
+
+        for (Object[] row : rows) {
+            LocalDateTime bucket = (LocalDateTime) row[0];
+            RollupAccumulator acc = new RollupAccumulator();
+            acc.eventCount = toLong(row[1]);
+            acc.responseTimeSum = toLong(row[3]);
+            acc.responseTimeCount = toLong(row[4]);
+            totals.put(bucket, acc);
+            rejections.put(bucket, toLong(row[2]));
+        }
+
+        for (Map.Entry<RollupKey, RollupAccumulator> entry : pending.entrySet()) {
+            RollupKey key = entry.getKey();
+            if (!key.granularity.equals(level) || key.bucketStart.isBefore(from) || !key.bucketStart.isBefore(end)) {
+                continue;
+            }
+            if (!allRoutes && !key.routeId.equals(routeId)) {
+                continue;
+            }
+
+            RollupAccumulator snapshot = entry.getValue().copy();
+            totals.merge(key.bucketStart, snapshot, RollupAccumulator::merge);
+            if ("REJECTION".equals(key.eventType)) {
+                rejections.merge(key.bucketStart, snapshot.eventCount, Long::sum);
+            }
+        }
+
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (Map.Entry<LocalDateTime, RollupAccumulator> entry : totals.entrySet()) {
+            RollupAccumulator acc = entry.getValue();
+            long rejected = rejections.getOrDefault(entry.getKey(), 0L);
+
+            Map<String, Object> point = new HashMap<>();
+            point.put("timestamp", entry.getKey());
+            point.put("count", acc.eventCount);
+            point.put("rejected", rejected);
+            point.put("accepted", acc.eventCount - rejected);
+            point.put("averageResponseTime", acc.responseTimeCount > 0
+                    ? (double) acc.responseTimeSum / acc.responseTimeCount : 0.0);
+            points.add(point);
+        }
+
+        return points;
+    }
+
+    /**
+     * Remove rollups past their retention
+     */
+    @Scheduled(cron = "0 30 2 * * ?") // Daily at 2:30 AM
+    @Transactional
+    public void cleanupOldRollups() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int minutes = rollupRepository.deleteRollupsOlderThan(MINUTE, now.minusDays(MINUTE_ROLLUP_RETENTION_DAYS));
+            int hours = rollupRepository.deleteRollupsOlderThan(HOUR, now.minusDays(HOUR_ROLLUP_RETENTION_DAYS));
+            log.info("Cleaned up {} minute and {} hour rollup rows", minutes, hours);
+        } catch (Exception e) {
+            log.error("Error cleaning up old rollups: {}", e.getMessage(), e);
+        }
+    }
+
+    private void accumulate(RollupKey key, Integer responseTime) {
+        // Updates happen inside compute so a concurrent flush never sees a half-applied event
+        pending.compute(key, (k, acc) -> {
+            if (acc == null) {
+                acc = new RollupAccumulator();
+            }
+            acc.eventCount++;
+            if (responseTime != null) {
+                acc.responseTimeSum += responseTime;
+                acc.responseTimeCount++;
+            }
+            return acc;
+        });
+    }
+
+    private long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static final class RollupKey {
+        private final String granularity;
+        private final LocalDateTime bucketStart;
+        private final String routeId;
+        private final String eventType;
+        private final String rejectionReason;
+
+        RollupKey(String granularity, LocalDateTime bucketStart, String routeId,
+                  String eventType, String rejectionReason) {
+            this.granularity = granularity;
+            this.bucketStart = bucketStart;
+            this.routeId = routeId;
+            this.eventType = eventType;
+            this.rejectionReason = rejectionReason;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RollupKey)) return false;
+            RollupKey other = (RollupKey) o;
+            return granularity.equals(other.granularity) && bucketStart.equals(other.bucketStart)
+                    && routeId.equals(other.routeId) && eventType.equals(other.eventType)
+                    && rejectionReason.equals(other.rejectionReason);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularity, bucketStart, routeId, eventType, rejectionReason);
+        }
+    }
+
+    private static final class RollupAccumulator {
+        private long eventCount;
+        private long responseTimeSum;
+        private long responseTimeCount;
+
+        // Unflushed buckets are still being written, so reads of them are best-effort
+        RollupAccumulator copy() {
+            RollupAccumulator copy = new RollupAccumulator();
+            copy.eventCount = eventCount;
+            copy.responseTimeSum = responseTimeSum;
+            copy.responseTimeCount = responseTimeCount;
+            return copy;
+        }
+
+        static RollupAccumulator merge(RollupAccumulator a, RollupAccumulator b) {
+            a.eventCount += b.eventCount;
+            a.responseTimeSum += b.responseTimeSum;
+            a.responseTimeCount += b.responseTimeCount;
+            return a;
+        }
+    }
+}
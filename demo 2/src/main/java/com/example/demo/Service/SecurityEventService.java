@@ -11,10 +11,13 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +31,7 @@ public class SecurityEventService {
     private static final int HIGH_THREAT_REJECTION_COUNT = 50;
     private static final int MEDIUM_THREAT_REJECTION_COUNT = 20;
     private static final int CRITICAL_RESPONSE_TIME = 5000; // 5 seconds
+    private static final int EVENT_RETENTION_DAYS = 30;
 
     @Autowired
     public SecurityEventService(SecurityEventRepository eventRepository) {
@@ -46,6 +50,37 @@ public class SecurityEventService {
 
     @Autowired
     private GeolocationService geolocationService;
+
+    @Autowired
+    private SecurityEventRollupService rollupService;
+
+    @Autowired
+    private SecurityEventPartitionService partitionService;
+
+    @Autowired
+    private BehaviorProfileService behaviorProfileService;
+
+    @Autowired
+    private HotEventWindowService hotEventWindowService;
+
+    @Autowired
+    private IpPrefixCounterService ipPrefixCounterService;
+
+    @Autowired
+    private OpenAlertIndexService openAlertIndexService;
+
+    @Autowired
+    private HeavyHitterService heavyHitterService;
+
+    @Autowired
+    private DistinctClientService distinctClientService;
+
+    @Autowired
+    private RouteBaselineService routeBaselineService;
+
+    @Autowired
+    private SecurityEventStreamService eventStreamService;
+
     @Async
     @Transactional
     public CompletableFuture<SecurityEvent> recordEventAsync(SecurityEvent event) {
@@ -55,40 +90,16 @@ public class SecurityEventService {
 
             // Calculate threat level based on event characteristics
             event.setThreatLevel(calculateThreatLevel(event));
-
-            // Add geolocation data if IP is available
-            if (event.getClientIp() != null) {
-                try {
-                    GeolocationService.GeolocationData location = geolocationService.getLocation(event.getClientIp());
-                    event.setGeoLocation(objectMapper.writeValueAsString(Map.of(
-                            "country", location.getCountry(),
-                            "city", location.getCity(),
-                            "region", location.getRegion(),
-                            "countryCode", location.getCountryCode()
-                    )));
-                } catch (Exception e) {
-                    log.warn("Failed to get geolocation for IP {}: {}", event.getClientIp(), e.getMessage());
-                }
-            }
+            attachCachedLocation(event);
 
             SecurityEvent savedEvent = eventRepository.save(event);
             log.trace("Security event saved with ID: {}", savedEvent.getId());
 
-            // CRITICAL ADDITION: Trigger automatic threat analysis
-            try {
-                if (threatAnalysisService != null) {
-                    threatAnalysisService.analyzeEvent(savedEvent);
-                    log.debug("Triggered threat analysis for event ID: {}", savedEvent.getId());
-                }
-
-                if (alertingService != null) {
-                    alertingService.processSecurityEvent(savedEvent);
-                    log.debug("Triggered alerting analysis for event ID: {}", savedEvent.getId());
-                }
-            } catch (Exception e) {
-                log.error("Error triggering threat analysis for event {}: {}", savedEvent.getId(), e.getMessage(), e);
-                // Don't fail the event recording if threat analysis fails
-            }
+            // Analysis reads the in-memory views, so it starts once they hold the committed event
+            afterCommit(() -> {
+                publishRecorded(savedEvent);
+                triggerThreatAnalysis(savedEvent);
+            });
 
             return CompletableFuture.completedFuture(savedEvent);
         } catch (Exception e) {
@@ -105,7 +116,9 @@ public class SecurityEventService {
     public SecurityEvent recordEvent(SecurityEvent event) {
         try {
             event.setThreatLevel(calculateThreatLevel(event));
+            attachCachedLocation(event);
             SecurityEvent savedEvent = eventRepository.save(event);
+            afterCommit(() -> publishRecorded(savedEvent));
             log.debug("Recorded security event: ID={}, type={}, threatLevel={}",
                     savedEvent.getId(), savedEvent.getEventType(), savedEvent.getThreatLevel());
             return savedEvent;
@@ -115,6 +128,63 @@ public class SecurityEventService {
         }
     }
 
+    /**
+     * Run an action once the current transaction commits, or right away outside one
+     */
+    private void afterCommit(Runnable action) {
+        // A rolled back event never reaches the in-memory views
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Feed a committed event to every in-memory view; one failing view does not starve the others
+     */
+    private void publishRecorded(SecurityEvent event) {
+        List<Consumer<SecurityEvent>> views = List.of(
+                rollupService::record,
+                behaviorProfileService::record,
+                hotEventWindowService::append,
+                ipPrefixCounterService::record,
+                openAlertIndexService::recordEvent,
+                heavyHitterService::record,
+                distinctClientService::record,
+                routeBaselineService::record);
+        for (Consumer<SecurityEvent> view : views) {
+            try {
+                view.accept(event);
+            } catch (Exception e) {
+                log.error("Error updating in-memory view for event {}: {}", event.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void triggerThreatAnalysis(SecurityEvent savedEvent) {
+        // CRITICAL ADDITION: Trigger automatic threat analysis
+        try {
+            if (threatAnalysisService != null) {
+                threatAnalysisService.analyzeEvent(savedEvent);
+                log.debug("Triggered threat analysis for event ID: {}", savedEvent.getId());
+            }
+
+            if (alertingService != null) {
+                alertingService.processSecurityEvent(savedEvent);
+                log.debug("Triggered alerting analysis for event ID: {}", savedEvent.getId());
+            }
+        } catch (Exception e) {
+            log.error("Error triggering threat analysis for event {}: {}", savedEvent.getId(), e.getMessage(), e);
+            // Don't fail the event recording if threat analysis fails
+        }
+    }
+
     /**
      * Record a simple request event
      */
@@ -174,34 +244,50 @@ public class SecurityEventService {
         Map<String, Object> metrics = new HashMap<>();
 
         try {
-            List<SecurityEvent> events = routeId != null ?
-                    eventRepository.findByRouteIdAndTimestampBetween(routeId, start, end) :
-                    eventRepository.findByTimestampBetween(start, end);
-
-            long totalRequests = events.stream()
-                    .filter(e -> "REQUEST".equals(e.getEventType()))
-                    .count();
-
-            long totalRejections = events.stream()
-                    .filter(e -> "REJECTION".equals(e.getEventType()))
-                    .count();
-
-            double avgResponseTime = events.stream()
-                    .filter(e -> e.getResponseTimeMs() != null)
-                    .mapToInt(SecurityEvent::getResponseTimeMs)
-                    .average()
-                    .orElse(0.0);
-
-            long uniqueIPs = events.stream()
-                    .map(SecurityEvent::getClientIp)
-                    .distinct()
-                    .count();
-
-            Map<String, Long> threatLevelCounts = events.stream()
-                    .collect(Collectors.groupingBy(
-                            SecurityEvent::getThreatLevel,
-                            Collectors.counting()
-                    ));
+            long totalRequests;
+            long totalRejections;
+            double avgResponseTime;
+            long uniqueIPs;
+            Map<String, Long> threatLevelCounts;
+
+            if (hotEventWindowService.covers(start) && distinctClientService.covers(routeId, start)) {
+                // Recent ranges are answered from memory; unique IPs are a HyperLogLog estimate
+                HotEventWindowService.EventFilter filter = HotEventWindowService.EventFilter.between(start, end);
+                if (routeId != null) {
+                    filter.route(routeId);
+                }
+                Map<String, Long> eventTypeCounts = hotEventWindowService.countBy(filter, HotEventWindowService.Column.EVENT_TYPE);
+                totalRequests = eventTypeCounts.getOrDefault("REQUEST", 0L);
+                totalRejections = eventTypeCounts.getOrDefault("REJECTION", 0L);
+                avgResponseTime = hotEventWindowService.averageResponseTime(filter);
+                threatLevelCounts = hotEventWindowService.countBy(filter, HotEventWindowService.Column.THREAT_LEVEL);
+                threatLevelCounts.remove(null);
+                uniqueIPs = distinctClientService.countDistinct(routeId, start, end);
+            } else {
+                // Stream the range once instead of loading it, counting distinct IPs in a sketch
+                long[] counts = new long[4]; // requests, rejections, response time sum, response time samples
+                HyperLogLog clients = new HyperLogLog(DistinctClientService.PRECISION);
+                Map<String, Long> threatLevels = new HashMap<>();
+                eventStreamService.forEachEvent(start, end, routeId, event -> {
+                    if ("REQUEST".equals(event.getEventType())) counts[0]++;
+                    if ("REJECTION".equals(event.getEventType())) counts[1]++;
+                    if (event.getResponseTimeMs() != null) {
+                        counts[2] += event.getResponseTimeMs();
+                        counts[3]++;
+                    }
+                    if (event.getClientIp() != null) {
+                        clients.add(event.getClientIp());
+                    }
+                    if (event.getThreatLevel() != null) {
+                        threatLevels.merge(event.getThreatLevel(), 1L, Long::sum);
+                    }
+                });
+                totalRequests = counts[0];
+                totalRejections = counts[1];
+                avgResponseTime = counts[3] > 0 ? (double) counts[2] / counts[3] : 0.0;
+                uniqueIPs = clients.estimate();
+                threatLevelCounts = threatLevels;
+            }
 
             metrics.put("totalRequests", totalRequests);
             metrics.put("totalRejections", totalRejections);
@@ -236,19 +322,8 @@ public class SecurityEventService {
         List<Map<String, Object>> timeSeriesData = new ArrayList<>();
 
         try {
-            List<Object[]> data;
-            if ("minute".equalsIgnoreCase(granularity)) {
-                data = eventRepository.getMinutelyEventCounts(start);
-            } else {
-                data = eventRepository.getHourlyEventCounts(start);
-            }
-
-            for (Object[] row : data) {
-                Map<String, Object> point = new HashMap<>();
-                point.put("timestamp", row[0]);
-                point.put("count", row[1]);
-                timeSeriesData.add(point);
-            }
+            // Served from the minute/hour rollups rather than scanning raw events
+            timeSeriesData = rollupService.getTimeSeries(start, end, granularity, null);
 
             log.debug("Generated {} time series data points with {} granularity",
                     timeSeriesData.size(), granularity);
@@ -268,11 +343,18 @@ public class SecurityEventService {
         Map<String, Object> report = new HashMap<>();
 
         try {
-            // Find IPs with high rejection rates
-            List<Object[]> suspiciousIPs = eventRepository.findSuspiciousIPs(since, 10L);
-
-            // Get top attacking IPs
-            List<Object[]> topAttackers = eventRepository.findTopAttackingIPs(since);
+            // Find IPs with high rejection rates and the top attacking IPs, from memory when the window is held
+            List<Object[]> suspiciousIPs;
+            List<Object[]> topAttackers;
+            if (heavyHitterService.covers(since)) {
+                topAttackers = heavyHitterService.getTopAttackers(since, null, 100, 1L);
+                suspiciousIPs = topAttackers.stream()
+                        .filter(row -> (Long) row[1] >= 10L)
+                        .collect(Collectors.toList());
+            } else {
+                suspiciousIPs = eventRepository.findSuspiciousIPs(since, 10L);
+                topAttackers = eventRepository.findTopAttackingIPs(since);
+            }
 
             // Get threat level distribution
             List<Object[]> threatDistribution = eventRepository.getThreatLevelDistribution(since);
@@ -304,15 +386,12 @@ public class SecurityEventService {
 
             // Check rejection frequency from same IP
             LocalDateTime oneHourAgo = LocalDateTime.now().minusHours(1);
-            List<SecurityEvent> recentRejections = eventRepository
-                    .findByClientIpAndTimestampBetween(event.getClientIp(), oneHourAgo, LocalDateTime.now())
-                    .stream()
-                    .filter(e -> "REJECTION".equals(e.getEventType()))
-                    .collect(Collectors.toList());
+            long recentRejections = hotEventWindowService.countClientEvents(
+                    event.getClientIp(), "REJECTION", oneHourAgo, LocalDateTime.now());
 
-            if (recentRejections.size() >= HIGH_THREAT_REJECTION_COUNT) {
+            if (recentRejections >= HIGH_THREAT_REJECTION_COUNT) {
                 return "HIGH";
-            } else if (recentRejections.size() >= MEDIUM_THREAT_REJECTION_COUNT) {
+            } else if (recentRejections >= MEDIUM_THREAT_REJECTION_COUNT) {
                 return "MEDIUM";
             }
         }
@@ -322,24 +401,35 @@ public class SecurityEventService {
             return "HIGH";
         }
 
-        if (event.getClientIp() != null) {
-            try {
-                GeolocationService.GeolocationData location = geolocationService.getLocation(event.getClientIp());
-                ObjectMapper mapper = new ObjectMapper();
-                event.setGeoLocation(mapper.writeValueAsString(Map.of(
-                        "country", location.getCountry(),
-                        "city", location.getCity(),
-                        "region", location.getRegion(),
-                        "countryCode", location.getCountryCode()
-                )));
-            } catch (Exception e) {
-                log.warn("Failed to get geolocation for IP {}: {}", event.getClientIp(), e.getMessage());
-            }
-        }
-
         return "LOW";
     }
 
+    /**
+     * Add the client's location when it is cached; otherwise look it up in the background
+     * so later events from the same IP get it, without holding up ingest
+     */
+    private void attachCachedLocation(SecurityEvent event) {
+        String clientIp = event.getClientIp();
+        if (clientIp == null) {
+            return;
+        }
+        GeolocationService.GeolocationData location = geolocationService.getLocationIfCached(clientIp);
+        if (location == null) {
+            geolocationService.prefetch(List.of(clientIp));
+            return;
+        }
+        try {
+            event.setGeoLocation(objectMapper.writeValueAsString(Map.of(
+                    "country", location.getCountry(),
+                    "city", location.getCity(),
+                    "region", location.getRegion(),
+                    "countryCode", location.getCountryCode()
+            )));
+        } catch (Exception e) {
+            log.warn("Failed to attach geolocation for IP {}: {}", clientIp, e.getMessage());
+        }
+    }
+
     /**
      * Check if the event matches known attack patterns
      */
@@ -388,7 +478,17 @@ public class SecurityEventService {
     @Transactional
     public void cleanupOldEvents() {
         try {
-            LocalDateTime cutoff = LocalDateTime.now().minusDays(30); // Keep 30 days of data
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(EVENT_RETENTION_DAYS);
+
+            if (partitionService.isPartitioned()) {
+                // Drop whole daily partitions instead of deleting rows
+                int dropped = partitionService.dropPartitionsBefore(cutoff.toLocalDate());
+                int defaultRows = partitionService.deleteDefaultPartitionRowsBefore(cutoff.toLocalDate());
+                log.info("Dropped {} security event partitions and {} default partition rows older than {}",
+                        dropped, defaultRows, cutoff.toLocalDate());
+                return;
+            }
+
             eventRepository.deleteEventsOlderThan(cutoff);
             log.info("Cleaned up security events older than {}", cutoff);
         } catch (Exception e) {
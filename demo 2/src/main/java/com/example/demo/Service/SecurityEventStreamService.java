@@ -0,0 +1,85 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEventView;
+import com.example.demo.Repository.SecurityEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads security events for a time range page by page, using keyset pagination on
+ * (timestamp, id) and lightweight views, so long-range scans run in bounded memory.
+ */
+@Service
+public class SecurityEventStreamService {
+
+    public static final int PAGE_SIZE = 1000;
+
+    private final SecurityEventRepository eventRepository;
+
+    @Autowired
+    public SecurityEventStreamService(SecurityEventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    /**
+     * Hand every event between start and end (inclusive) to the consumer, in timestamp order
+     *
+     * @return number of events visited
+     */
+    public long forEachEvent(LocalDateTime start, LocalDateTime end, Consumer<SecurityEventView> consumer) {
+        return forEachEvent(start, end, null, consumer);
+    }
+
+    /**
+     * Same as {@link #forEachEvent(LocalDateTime, LocalDateTime, Consumer)} for one route,
+     * filtered in the database; a null route means all routes
+     */
+    public long forEachEvent(LocalDateTime start, LocalDateTime end, String routeId, Consumer<SecurityEventView> consumer) {
+        LocalDateTime afterTimestamp = start;
+        long afterId = -1L;
+        long visited = 0;
+
+        // Each page is its own short query; views are unmanaged so nothing accumulates between pages
+        while (true) {
+            List<SecurityEventView> page = routeId == null
+                    ? readPage(afterTimestamp, afterId, end)
+                    : eventRepository.findRouteViewsAfter(routeId, afterTimestamp, afterId, end, PageRequest.of(0, PAGE_SIZE));
+
+            for (SecurityEventView event : page) {
+                consumer.accept(event);
+            }
+            visited += page.size();
+
+            if (page.size() < PAGE_SIZE) {
+                return visited;
+            }
+
+            SecurityEventView last = page.get(page.size() - 1);
+            afterTimestamp = last.getTimestamp();
+            afterId = last.getId();
+        }
+    }
+
+    /**
+     * Read the page of events that follows the (timestamp, id) position, up to end (inclusive).
+     * Start a scan with the range start and an id of -1.
+     */
+    public List<SecurityEventView> readPage(LocalDateTime afterTimestamp, long afterId, LocalDateTime end) {
+        return eventRepository.findViewsAfter(afterTimestamp, afterId, end, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    /**
+     * Load the views for a short window that callers need as a list
+     */
+    public List<SecurityEventView> loadEvents(LocalDateTime start, LocalDateTime end) {
+        List<SecurityEventView> events = new ArrayList<>();
+        forEachEvent(start, end, events::add);
+        return events;
+    }
+}
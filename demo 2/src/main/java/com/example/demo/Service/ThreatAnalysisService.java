@@ -31,6 +31,12 @@ public class ThreatAnalysisService {
     private final SecurityEventRepository eventRepository;
     private final ThreatPatternRepository patternRepository;
     private final ThreatAlertRepository alertRepository;
+    private final SecurityEventStreamService eventStreamService;
+    private final HotEventWindowService hotEventWindowService;
+    private final OpenAlertIndexService openAlertIndexService;
+    private final HeavyHitterService heavyHitterService;
+    private final RouteBaselineService routeBaselineService;
+    private final DenyListService denyListService;
     private final ObjectMapper objectMapper;
 
     // Thresholds for anomaly detection
@@ -40,14 +46,27 @@ public class ThreatAnalysisService {
     private static final long PATTERN_ANALYSIS_WINDOW_HOURS = 24;
     private static final int TEMPORAL_ANALYSIS_MINUTES = 60;
     private static final double RESPONSE_TIME_ANOMALY_MULTIPLIER = 3.0;
+    private static final int TOP_ATTACKERS_LIMIT = 100;
 
     @Autowired
     public ThreatAnalysisService(SecurityEventRepository eventRepository,
                                  ThreatPatternRepository patternRepository,
-                                 ThreatAlertRepository alertRepository) {
+                                 ThreatAlertRepository alertRepository,
+                                 SecurityEventStreamService eventStreamService,
+                                 HotEventWindowService hotEventWindowService,
+                                 OpenAlertIndexService openAlertIndexService,
+                                 HeavyHitterService heavyHitterService,
+                                 RouteBaselineService routeBaselineService,
+                                 DenyListService denyListService) {
         this.eventRepository = eventRepository;
         this.patternRepository = patternRepository;
         this.alertRepository = alertRepository;
+        this.eventStreamService = eventStreamService;
+        this.hotEventWindowService = hotEventWindowService;
+        this.openAlertIndexService = openAlertIndexService;
+        this.heavyHitterService = heavyHitterService;
+        this.routeBaselineService = routeBaselineService;
+        this.denyListService = denyListService;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -75,7 +94,12 @@ public class ThreatAnalysisService {
                 double confidence = evaluatePatternMatch(event, pattern);
                 if (confidence >= pattern.getConfidenceThreshold()) {
                     ThreatAlert alert = createThreatAlert(event, pattern, confidence);
-                    alerts.add(alert);
+                    if (alert != null) {
+                        alerts.add(alert);
+                    }
+
+                    // Patterns flagged for auto-blocking deny the client at the gateway
+                    denyListService.blockForPattern(pattern, event.getClientIp());
 
                     // Update pattern statistics
                     pattern.incrementTriggerCount();
@@ -94,7 +118,10 @@ public class ThreatAnalysisService {
 
             // Save all alerts
             if (!alerts.isEmpty()) {
-                alertRepository.saveAll(alerts);
+                alertRepository.saveAll(alerts).forEach(saved -> {
+                    openAlertIndexService.onSaved(saved);
+                    denyListService.blockForAlert(saved);
+                });
                 log.warn("Generated {} threat alerts for event from IP: {}",
                         alerts.size(), event.getClientIp());
             }
@@ -185,7 +212,7 @@ public class ThreatAnalysisService {
             LocalDateTime since = LocalDateTime.now().minusHours(24);
 
             // Check for high-volume attacking IPs
-            List<Object[]> topAttackers = eventRepository.findTopAttackingIPs(since);
+            List<Object[]> topAttackers = findSuspiciousIPs(since, 1L);
             if (!topAttackers.isEmpty()) {
                 Map<String, Object> recommendation = new HashMap<>();
                 recommendation.put("type", "IP_BLOCKING");
@@ -213,19 +240,18 @@ public class ThreatAnalysisService {
     }
 
     /**
-     * Create a threat alert from an event and pattern match
+     * Create a threat alert from an event and pattern match. Returns null when an open
+     * alert already covers the source and route; that alert is updated in the index instead.
      */
     private ThreatAlert createThreatAlert(SecurityEvent event, ThreatPattern pattern, double confidence) {
         // Check if similar alert already exists
-        Optional<ThreatAlert> existingAlert = alertRepository
-                .findBySourceIpAndTargetRouteAndStatus(event.getClientIp(), event.getRouteId(), "OPEN");
+        Optional<OpenAlertIndexService.OpenAlert> existingAlert =
+                openAlertIndexService.findOpenAlert(event.getClientIp(), event.getRouteId());
 
         if (existingAlert.isPresent()) {
-            // Update existing alert
-            ThreatAlert alert = existingAlert.get();
-            alert.incrementEventCount();
-            alert.setConfidence(Math.max(alert.getConfidence(), confidence));
-            return alert;
+            // Update existing alert; the change is written back with the next batched flush
+            existingAlert.get().recordMatch(confidence, event.getTimestamp());
+            return null;
         } else {
             // Create new alert
             ThreatAlert alert = new ThreatAlert("PATTERN_MATCH", pattern.getThreatLevel(),
@@ -304,16 +330,16 @@ public class ThreatAnalysisService {
             LocalDateTime oneHourAgo = LocalDateTime.now().minusHours(1);
 
             // Check for unusual frequency from this IP
-            List<SecurityEvent> recentEvents = eventRepository
-                    .findByClientIpAndTimestampBetween(event.getClientIp(), oneHourAgo, LocalDateTime.now());
+            long recentEvents = hotEventWindowService.countClientEvents(
+                    event.getClientIp(), null, oneHourAgo, LocalDateTime.now());
 
-            if (recentEvents.size() > HIGH_FREQUENCY_THRESHOLD) {
+            if (recentEvents > HIGH_FREQUENCY_THRESHOLD) {
                 ThreatAlert alert = new ThreatAlert("ANOMALY", "HIGH", "High Frequency Anomaly Detected");
                 alert.setDescription(String.format("IP %s made %d requests in the last hour",
-                        event.getClientIp(), recentEvents.size()));
+                        event.getClientIp(), recentEvents));
                 alert.setSourceIp(event.getClientIp());
                 alert.setTargetRoute(event.getRouteId());
-                alert.setThreatScore(Math.min(1.0, recentEvents.size() / (double)HIGH_FREQUENCY_THRESHOLD));
+                alert.setThreatScore(Math.min(1.0, recentEvents / (double)HIGH_FREQUENCY_THRESHOLD));
                 alert.setConfidence(0.9);
                 return alert;
             }
@@ -415,10 +441,10 @@ public class ThreatAnalysisService {
             }
 
             LocalDateTime windowStart = LocalDateTime.now().minusMinutes(timeWindowMinutes);
-            List<SecurityEvent> recentEvents = eventRepository
-                    .findByClientIpAndTimestampBetween(event.getClientIp(), windowStart, LocalDateTime.now());
+            long recentEvents = hotEventWindowService.countClientEvents(
+                    event.getClientIp(), null, windowStart, LocalDateTime.now());
 
-            double actualRate = (double) recentEvents.size() / timeWindowMinutes;
+            double actualRate = (double) recentEvents / timeWindowMinutes;
             double expectedRate = (double) requestsPerMinute;
 
             // Calculate confidence based on how much the actual rate exceeds expected
@@ -482,11 +508,11 @@ public class ThreatAnalysisService {
                 LocalDateTime hourStart = event.getTimestamp().truncatedTo(ChronoUnit.HOURS);
                 LocalDateTime hourEnd = hourStart.plusHours(1);
 
-                List<SecurityEvent> hourlyEvents = eventRepository
-                        .findByClientIpAndTimestampBetween(event.getClientIp(), hourStart, hourEnd);
+                long hourlyEvents = hotEventWindowService.countClientEvents(
+                        event.getClientIp(), null, hourStart, hourEnd);
 
                 // More activity during suspicious hours = higher confidence
-                return Math.min(1.0, hourlyEvents.size() / 10.0);
+                return Math.min(1.0, hourlyEvents / 10.0);
             }
 
             return 0.0;
@@ -502,24 +528,21 @@ public class ThreatAnalysisService {
      */
     private void analyzeHighFrequencySources(LocalDateTime since) {
         try {
-            List<Object[]> suspiciousIPs = eventRepository.findSuspiciousIPs(since, 20L);
+            List<Object[]> suspiciousIPs = findSuspiciousIPs(since, 20L);
 
             for (Object[] ipData : suspiciousIPs) {
                 String ip = (String) ipData[0];
                 Long count = (Long) ipData[1];
 
                 // Check if alert already exists
-                Optional<ThreatAlert> existingAlert = alertRepository
-                        .findBySourceIpAndTargetRouteAndStatus(ip, null, "OPEN");
-
-                if (existingAlert.isEmpty() && count > SUSPICIOUS_IP_THRESHOLD) {
+                if (count > SUSPICIOUS_IP_THRESHOLD && openAlertIndexService.findOpenAlert(ip, null).isEmpty()) {
                     ThreatAlert alert = new ThreatAlert("ANOMALY", "HIGH", "High Volume Attack Source");
-                    alert.setDescription(String.format("IP %s generated %d rejections in the last hour", ip, count));
+                    alert.setDescription(String.format("IP %s generated at least %d rejections in the last hour", ip, count));
                     alert.setSourceIp(ip);
                     alert.setThreatScore(Math.min(1.0, count / (double) SUSPICIOUS_IP_THRESHOLD));
                     alert.setConfidence(0.85);
 
-                    alertRepository.save(alert);
+                    openAlertIndexService.onSaved(alertRepository.save(alert));
                     log.warn("Created high frequency source alert for IP: {} ({} events)", ip, count);
                 }
             }
@@ -535,21 +558,18 @@ public class ThreatAnalysisService {
     private void analyzeGeographicAnomalies(LocalDateTime since) {
         try {
             // This would require IP geolocation data
-            // For now, analyze unusual IP patterns
-            List<SecurityEvent> recentEvents = eventRepository.findByTimestampBetween(since, LocalDateTime.now());
-
+            // For now, analyze unusual IP patterns. Events are streamed so only the per-prefix counts are held
             Map<String, Long> countryCount = new HashMap<>();
-            Map<String, Set<String>> countryIPs = new HashMap<>();
 
-            for (SecurityEvent event : recentEvents) {
+            eventStreamService.forEachEvent(since, LocalDateTime.now(), event -> {
                 String ip = event.getClientIp();
                 if (ip != null) {
                     // Simplified: use IP prefix as "country" indicator
-                    String prefix = ip.substring(0, Math.min(ip.length(), ip.indexOf('.', ip.indexOf('.') + 1)));
+                    int secondDot = ip.indexOf('.', ip.indexOf('.') + 1);
+                    String prefix = secondDot > 0 ? ip.substring(0, secondDot) : ip;
                     countryCount.merge(prefix, 1L, Long::sum);
-                    countryIPs.computeIfAbsent(prefix, k -> new HashSet<>()).add(ip);
                 }
-            }
+            });
 
             // Look for countries with unusual activity
             double avgActivity = countryCount.values().stream().mapToLong(Long::longValue).average().orElse(0.0);
@@ -571,19 +591,13 @@ public class ThreatAnalysisService {
      */
     private void analyzeTemporalPatterns(LocalDateTime since) {
         try {
-            List<Object[]> hourlyData = eventRepository.getHourlyEventCounts(since);
-
-            // Calculate average requests per hour
-            double avgHourly = hourlyData.stream()
-                    .mapToLong(row -> (Long) row[1])
-                    .average()
-                    .orElse(0.0);
-
-            // Look for hours with unusual activity
-            for (Object[] hourData : hourlyData) {
-                Long count = (Long) hourData[1];
-                if (count > avgHourly * 2) { // 2x average
-                    log.info("Temporal anomaly detected: {} events in hour (avg: {})", count, avgHourly);
+            // Rates are scored against per-route, hour-of-week baselines as events arrive
+            List<RouteBaselineService.Anomaly> anomalies = routeBaselineService.getAnomaliesSince(since);
+            for (RouteBaselineService.Anomaly anomaly : anomalies) {
+                if (anomaly.getMetric() != RouteBaselineService.Metric.RESPONSE_TIME) {
+                    log.info("Temporal anomaly detected: route {} had {} {} (expected {}, z = {})",
+                            anomaly.getRouteId(), (long) anomaly.getValue(), anomaly.getMetric(),
+                            Math.round(anomaly.getExpected()), Math.round(anomaly.getZScore() * 10) / 10.0);
 
                     // Could create alert for unusual temporal patterns
                     // Implementation depends on specific requirements
@@ -600,27 +614,21 @@ public class ThreatAnalysisService {
      */
     private void updateThreatScores() {
         try {
-            LocalDateTime since = LocalDateTime.now().minusHours(24);
-            List<ThreatAlert> openAlerts = alertRepository.findByStatusOrderByCreatedAtDesc("OPEN");
-
-            for (ThreatAlert alert : openAlerts) {
+            for (OpenAlertIndexService.OpenAlert alert : openAlertIndexService.getOpenAlerts()) {
                 if (alert.getSourceIp() != null) {
-                    // Count recent events from this IP
-                    List<SecurityEvent> recentEvents = eventRepository
-                            .findByClientIpAndTimestampBetween(alert.getSourceIp(), since, LocalDateTime.now());
-
-                    long rejections = recentEvents.stream()
-                            .filter(e -> "REJECTION".equals(e.getEventType()))
-                            .count();
+                    // Rejections from this IP over the last 24 hours, counted at ingest
+                    long rejections = openAlertIndexService.getRecentRejections(alert.getSourceIp());
 
                     // Update threat score based on recent activity
                     if (rejections > 50) {
-                        alert.setThreatScore(Math.min(1.0, alert.getThreatScore() + 0.1));
-                        alertRepository.save(alert);
+                        alert.raiseThreatScore(0.1);
                     }
                 }
             }
 
+            // One batched UPDATE for every alert changed since the last flush
+            openAlertIndexService.flushPending();
+
         } catch (Exception e) {
             log.error("Error updating threat scores: {}", e.getMessage(), e);
         }
@@ -628,12 +636,24 @@ public class ThreatAnalysisService {
 
     private Map<String, Object> getSuspiciousActivityStats(LocalDateTime since) {
         Map<String, Object> stats = new HashMap<>();
-        List<Object[]> suspiciousIPs = eventRepository.findSuspiciousIPs(since, 10L);
+        List<Object[]> suspiciousIPs = findSuspiciousIPs(since, 10L);
         stats.put("suspiciousIPCount", suspiciousIPs.size());
         stats.put("topSuspiciousIPs", suspiciousIPs.stream().limit(5).collect(Collectors.toList()));
         return stats;
     }
 
+    /**
+     * [clientIp, rejections] rows, heaviest first. Served from the heavy hitter sketches
+     * when they hold the whole window, otherwise grouped in the database. Sketch rows carry
+     * the estimate less its error bound rather than an upper bound, since they feed threat scores.
+     */
+    private List<Object[]> findSuspiciousIPs(LocalDateTime since, long threshold) {
+        if (heavyHitterService.covers(since)) {
+            return heavyHitterService.getTopAttackers(since, null, TOP_ATTACKERS_LIMIT, threshold);
+        }
+        return eventRepository.findSuspiciousIPs(since, threshold);
+    }
+
     /**
      * Analyze traffic volume trends for recommendations
      */
@@ -0,0 +1,213 @@
+package com.example.demo.Service;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Heavy-hitter summary: a Space-Saving candidate set of at most capacity keys backed by
+ * a Count-Min Sketch of depth rows and width columns.
+ *
+ * Error bounds for a stream of N items: every key seen more than N/capacity times is a
+ * candidate, and a reported count never undercounts. It overcounts by at most
+ * min(N/capacity, e*N/width), the Count-Min part holding with probability 1 - e^-depth.
+ * Sketches of the same shape merge, and the bounds then apply to the merged N.
+ *
+ * Built with a capacity only, it is a plain Space-Saving summary without the Count-Min
+ * part, small enough to keep one per client or per digest field; the bound is then N/capacity.
+ */
+public final class TopKSketch {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int capacity;
+    private final int depth;
+    private final int width;
+    private final long[] cms;
+    private final Map<String, Long> candidates;
+    private long total;
+
+    public TopKSketch(int capacity, int depth, int width) {
+        boolean validCountMin = depth == 0
+                ? width == 0
+                : depth <= 16 && Integer.bitCount(width) == 1 && width <= (1 << 20);
+        if (capacity < 1 || capacity > (1 << 16) || depth < 0 || !validCountMin) {
+            throw new IllegalArgumentException("Invalid sketch shape");
+        }
+        this.capacity = capacity;
+        this.depth = depth;
+        this.width = width;
+        this.cms = new long[depth * width];
+        this.candidates = new HashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    /**
+     * Space-Saving summary only, without the Count-Min sketch
+     */
+    public TopKSketch(int capacity) {
+        this(capacity, 0, 0);
+    }
+
+    public void add(String key) {
+        add(key, depth == 0 ? 0 : HyperLogLog.hash(key));
+    }
+
+    public void add(String key, long hash) {
+        total++;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            cms[row * width + ((h1 + row * h2) & (width - 1))]++;
+        }
+
+        Long count = candidates.get(key);
+        if (count != null) {
+            candidates.put(key, count + 1);
+        } else if (candidates.size() < capacity) {
+            candidates.put(key, 1L);
+        } else {
+            // Replace the smallest candidate; the newcomer inherits its count
+            Map.Entry<String, Long> min = minCandidate();
+            long minCount = min.getValue();
+            candidates.remove(min.getKey());
+            candidates.put(key, minCount + 1);
+        }
+    }
+
+    /**
+     * Fold another sketch of the same shape into this one
+     */
+    public void merge(TopKSketch other) {
+        if (other.capacity != capacity || other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different shape");
+        }
+        for (int i = 0; i < cms.length; i++) {
+            cms[i] += other.cms[i];
+        }
+
+        // A key missing from a full summary may have up to that summary's minimum count
+        long ownFloor = candidates.size() < capacity ? 0 : minCandidate().getValue();
+        long otherFloor = other.candidates.size() < other.capacity ? 0 : other.minCandidate().getValue();
+        Map<String, Long> merged = new HashMap<>(candidates.size() + other.candidates.size());
+        candidates.forEach((key, count) -> merged.put(key, count + other.candidates.getOrDefault(key, otherFloor)));
+        other.candidates.forEach((key, count) -> merged.putIfAbsent(key, count + ownFloor));
+        total += other.total;
+
+        candidates.clear();
+        merged.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(capacity)
+                .forEach(e -> candidates.put(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * Count estimate for a key; an upper bound within {@link #getErrorBound()} of the true count
+     */
+    public long estimate(String key) {
+        Long candidate = candidates.get(key);
+        if (depth == 0) {
+            // A key missing from a full summary may have up to its minimum count
+            return candidate != null ? candidate : (candidates.size() < capacity ? 0 : minCandidate().getValue());
+        }
+
+        long hash = HyperLogLog.hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cms[row * width + ((h1 + row * h2) & (width - 1))]);
+        }
+        return candidate != null ? Math.min(candidate, estimate) : estimate;
+    }
+
+    /**
+     * The n heaviest candidates with their estimated counts, heaviest first
+     */
+    public List<Map.Entry<String, Long>> top(int n) {
+        List<Map.Entry<String, Long>> top = new ArrayList<>(candidates.size());
+        for (String key : candidates.keySet()) {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(key, estimate(key)));
+        }
+        top.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return top.size() > n ? new ArrayList<>(top.subList(0, n)) : top;
+    }
+
+    /**
+     * Whether the key is currently one of the tracked candidates
+     */
+    public boolean contains(String key) {
+        return candidates.containsKey(key);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getErrorBound() {
+        long spaceSavingBound = total / capacity;
+        return depth == 0 ? spaceSavingBound : Math.min(spaceSavingBound, (long) Math.ceil(Math.E * total / width));
+    }
+
+    public TopKSketch copy() {
+        TopKSketch copy = new TopKSketch(capacity, depth, width);
+        System.arraycopy(cms, 0, copy.cms, 0, cms.length);
+        copy.candidates.putAll(candidates);
+        copy.total = total;
+        return copy;
+    }
+
+    /**
+     * Serialized form for aggregation across nodes
+     */
+    public byte[] toBytes() {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(cms.length * 8 + candidates.size() * 24 + 32);
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(capacity);
+            out.writeInt(depth);
+            out.writeInt(width);
+            out.writeLong(total);
+            out.writeInt(candidates.size());
+            for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            for (long counter : cms) {
+                out.writeLong(counter);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static TopKSketch fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format");
+            }
+            TopKSketch sketch = new TopKSketch(in.readInt(), in.readInt(), in.readInt());
+            sketch.total = in.readLong();
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                sketch.candidates.put(in.readUTF(), in.readLong());
+            }
+            for (int i = 0; i < sketch.cms.length; i++) {
+                sketch.cms[i] = in.readLong();
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid sketch encoding", e);
+        }
+    }
+
+    private Map.Entry<String, Long> minCandidate() {
+        Map.Entry<String, Long> min = null;
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            if (min == null || entry.getValue() < min.getValue()) {
+                min = entry;
+            }
+        }
+        return min;
+    }
+}
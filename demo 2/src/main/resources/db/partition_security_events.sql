@@ -0,0 +1,81 @@
+-- Convert gateway.security_events into a table range-partitioned by day.
+--
+-- Run once, during a maintenance window, with the gateway stopped:
+--   psql -d mimidatabase -f partition_security_events.sql
+--
+-- The existing table is renamed to security_events_legacy and its rows are copied
+-- into daily partitions. Drop the legacy table after verifying the copy.
+-- Once the table is partitioned, SecurityEventPartitionService creates partitions
+-- ahead of time and drops expired ones instead of running DELETEs.
+
+BEGIN;
+
+ALTER TABLE gateway.security_events RENAME TO security_events_legacy;
+
+-- New id sequence continuing after the legacy ids
+CREATE SEQUENCE IF NOT EXISTS gateway.security_events_id_seq;
+SELECT setval('gateway.security_events_id_seq',
+              COALESCE((SELECT MAX(id) FROM gateway.security_events_legacy), 0) + 1, false);
+
+-- The partition key must be part of the primary key
+CREATE TABLE gateway.security_events (
+    id               BIGINT       NOT NULL DEFAULT nextval('gateway.security_events_id_seq'),
+    timestamp        TIMESTAMP(6) NOT NULL,
+    event_type       VARCHAR(50)  NOT NULL,
+    route_id         VARCHAR(255),
+    client_ip        VARCHAR(45),
+    user_agent       TEXT,
+    request_path     VARCHAR(500),
+    rejection_reason VARCHAR(100),
+    response_status  INTEGER,
+    response_time_ms INTEGER,
+    geo_location     JSONB,
+    threat_level     VARCHAR(20),
+    metadata         JSONB,
+    session_id       VARCHAR(100),
+    request_method   VARCHAR(10),
+    request_size     BIGINT,
+    headers          JSONB,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE gateway.security_events_id_seq OWNED BY gateway.security_events.id;
+
+-- Indexes are created on every partition
+CREATE INDEX idx_security_events_timestamp ON gateway.security_events (timestamp);
+CREATE INDEX idx_security_events_timestamp_id ON gateway.security_events (timestamp, id);
+CREATE INDEX idx_security_events_client_ip_timestamp ON gateway.security_events (client_ip, timestamp);
+CREATE INDEX idx_security_events_route_timestamp ON gateway.security_events (route_id, timestamp);
+CREATE INDEX idx_security_events_type_timestamp ON gateway.security_events (event_type, timestamp);
+
+-- Catch-all so an insert never fails if the maintenance job falls behind
+CREATE TABLE gateway.security_events_default PARTITION OF gateway.security_events DEFAULT;
+
+-- One partition per day from the oldest legacy row through a week ahead
+DO $$
+DECLARE
+    day DATE;
+    last_day DATE := CURRENT_DATE + 7;
+BEGIN
+    SELECT COALESCE(MIN(timestamp)::date, CURRENT_DATE) INTO day FROM gateway.security_events_legacy;
+    WHILE day <= last_day LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS gateway.%I PARTITION OF gateway.security_events FOR VALUES FROM (%L) TO (%L)',
+            'security_events_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+        day := day + 1;
+    END LOOP;
+END $$;
+
+INSERT INTO gateway.security_events
+    (id, timestamp, event_type, route_id, client_ip, user_agent, request_path, rejection_reason,
+     response_status, response_time_ms, geo_location, threat_level, metadata, session_id,
+     request_method, request_size, headers)
+SELECT id, timestamp, event_type, route_id, client_ip, user_agent, request_path, rejection_reason,
+       response_status, response_time_ms, geo_location::jsonb, threat_level, metadata::jsonb, session_id,
+       request_method, request_size, headers::jsonb
+FROM gateway.security_events_legacy;
+
+COMMIT;
+
+-- After verifying row counts match:
+-- DROP TABLE gateway.security_events_legacy;
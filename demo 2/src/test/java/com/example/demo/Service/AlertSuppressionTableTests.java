@@ -0,0 +1,72 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertSuppressionTableTests {
+
+    private static final long WINDOW_MILLIS = 60_000;
+
+    @Test
+    void repeatsInsideTheWindowAreSuppressed() {
+        AlertSuppressionTable table = new AlertSuppressionTable(1024, WINDOW_MILLIS);
+
+        assertFalse(table.isSuppressed("10.0.0.1", "ANOMALY"));
+        assertTrue(table.tryRaise("10.0.0.1", "ANOMALY"));
+        assertTrue(table.isSuppressed("10.0.0.1", "ANOMALY"));
+        assertFalse(table.tryRaise("10.0.0.1", "ANOMALY"));
+
+        // Other types and identifiers are independent
+        assertTrue(table.tryRaise("10.0.0.1", "HIGH_FREQUENCY"));
+        assertTrue(table.tryRaise("10.0.0.2", "ANOMALY"));
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void entriesExpireAfterTheWindow() throws InterruptedException {
+        AlertSuppressionTable table = new AlertSuppressionTable(1024, 50);
+        assertTrue(table.tryRaise("10.0.0.1", "ANOMALY"));
+        assertTrue(table.isSuppressed("10.0.0.1", "ANOMALY"));
+
+        Thread.sleep(120);
+
+        assertFalse(table.isSuppressed("10.0.0.1", "ANOMALY"));
+        assertEquals(0, table.size());
+        assertTrue(table.tryRaise("10.0.0.1", "ANOMALY"));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void capacityIsRoundedUpPerShard() {
+        assertEquals(1024, new AlertSuppressionTable(1000, WINDOW_MILLIS).capacity());
+        assertEquals(65536, new AlertSuppressionTable(65536, WINDOW_MILLIS).capacity());
+        // Never fewer slots per shard than the probe limit
+        assertEquals(256, new AlertSuppressionTable(1, WINDOW_MILLIS).capacity());
+    }
+
+    @Test
+    void fullNeighbourhoodEvictsInsteadOfGrowing() {
+        // The smallest table has one probe neighbourhood per shard
+        AlertSuppressionTable table = new AlertSuppressionTable(1, WINDOW_MILLIS);
+        int capacity = table.capacity();
+
+        for (int i = 0; i < capacity * 20; i++) {
+            String ip = "10.0." + (i / 256) + "." + (i % 256);
+            assertTrue(table.tryRaise(ip, "ANOMALY"), "new key refused at " + i);
+            // The key just raised always survives its own insert
+            assertTrue(table.isSuppressed(ip, "ANOMALY"));
+            assertTrue(table.size() <= capacity);
+        }
+        assertEquals(capacity, table.size());
+
+        // Most of the early keys gave way to later ones
+        int stillSuppressed = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (table.isSuppressed("10.0." + (i / 256) + "." + (i % 256), "ANOMALY")) {
+                stillSuppressed++;
+            }
+        }
+        assertTrue(stillSuppressed < capacity / 4, stillSuppressed + " early keys still held");
+    }
+}
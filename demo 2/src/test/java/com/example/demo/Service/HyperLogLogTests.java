@@ -0,0 +1,105 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTests {
+
+    private static final int PRECISION = DistinctClientService.PRECISION;
+    private static final double STANDARD_ERROR = 1.04 / Math.sqrt(1 << PRECISION);
+
+    @Test
+    void sparseSketchIsSmallAndNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 100; i++) {
+            sketch.add(ip(0, i));
+            sketch.add(ip(0, i)); // Repeats do not count
+        }
+        assertEquals(100, sketch.estimate(), 2);
+        assertTrue(sketch.getSizeInBytes() <= 512, "sparse sketch holds " + sketch.getSizeInBytes() + " bytes");
+    }
+
+    @Test
+    void sparseAndDenseFormsAgreeThroughTheSwitch() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 1; i <= 3_000; i++) {
+            sketch.add(ip(1, i));
+            if (i % 50 == 0) {
+                // fromBytes always builds the dense register array
+                HyperLogLog dense = HyperLogLog.fromBytes(sketch.toBytes());
+                assertEquals(dense.estimate(), sketch.estimate(), "forms disagree at " + i);
+            }
+        }
+        assertEquals(1 << PRECISION, sketch.getSizeInBytes());
+    }
+
+    @Test
+    void errorStaysWithinTheStandardError() {
+        for (int distinct : new int[] { 10_000, 100_000, 1_000_000 }) {
+            int trials = distinct >= 1_000_000 ? 8 : 40;
+            double totalError = 0;
+            for (int trial = 0; trial < trials; trial++) {
+                HyperLogLog sketch = new HyperLogLog(PRECISION);
+                for (int i = 0; i < distinct; i++) {
+                    sketch.add("t" + trial + "-" + i);
+                }
+                double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+                assertTrue(error < 4 * STANDARD_ERROR, "error " + error + " at " + distinct);
+                totalError += error;
+            }
+            // The mean absolute error of a normal estimate is about 0.8 standard errors
+            double meanError = totalError / trials;
+            assertTrue(meanError <= STANDARD_ERROR, "mean error " + meanError + " at " + distinct);
+        }
+    }
+
+    @Test
+    void mergeEqualsASketchOfTheUnion() {
+        HyperLogLog first = new HyperLogLog(PRECISION);
+        HyperLogLog second = new HyperLogLog(PRECISION);
+        HyperLogLog small = new HyperLogLog(PRECISION);
+        HyperLogLog union = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 50_000; i++) {
+            first.add(ip(2, i));
+            union.add(ip(2, i));
+        }
+        for (int i = 25_000; i < 75_000; i++) {
+            second.add(ip(2, i));
+            union.add(ip(2, i));
+        }
+        for (int i = 0; i < 200; i++) {
+            small.add(ip(3, i));
+            union.add(ip(3, i));
+        }
+
+        // Dense into dense, then a sparse sketch into the dense result
+        first.merge(second);
+        first.merge(small);
+        assertArrayEquals(union.toBytes(), first.toBytes());
+        assertEquals(75_200, first.estimate(), 75_200 * 4 * STANDARD_ERROR);
+
+        // A dense sketch into a sparse one densifies it
+        HyperLogLog sparse = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 200; i++) sparse.add(ip(3, i));
+        sparse.merge(first);
+        assertArrayEquals(union.toBytes(), sparse.toBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(PRECISION - 1)));
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (int i = 0; i < 20_000; i++) sketch.add(ip(4, i));
+
+        HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+        assertEquals(sketch.estimate(), copy.estimate());
+        assertArrayEquals(sketch.toBytes(), copy.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] { 12, 0 }));
+    }
+
+    private static String ip(int network, int i) {
+        return network + "." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEventView;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityDigestTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusHours(24);
+
+    // Space-Saving keeps TOP_K * 10 keys per tracker
+    private static final int TRACKED_KEYS = SecurityDigest.TOP_K * 10;
+
+    @Test
+    void topCountsAreExactWhileKeysFitTheTracker() {
+        SecurityDigest.Accumulator accumulator = new SecurityDigest.Accumulator(START, END);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(1);
+        int total = 20_000;
+        for (int i = 0; i < total; i++) {
+            String ip = "10.0.0." + random.nextInt(TRACKED_KEYS);
+            exact.merge(ip, 1L, Long::sum);
+            accumulator.accept(event(i, total, ip, false));
+        }
+
+        for (Map.Entry<String, Long> entry : accumulator.build().getTopIps()) {
+            assertEquals(exact.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    @Test
+    void heavyHittersSurviveALongTailWithBoundedOvercount() {
+        SecurityDigest.Accumulator accumulator = new SecurityDigest.Accumulator(START, END);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(2);
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            // A tenth of the traffic from ten heavy clients, the rest spread over 50,000 others
+            String ip = random.nextInt(10) == 0
+                    ? "192.168.1." + random.nextInt(SecurityDigest.TOP_K)
+                    : "10." + random.nextInt(200) + "." + random.nextInt(250) + ".1";
+            exact.merge(ip, 1L, Long::sum);
+            accumulator.accept(event(i, total, ip, false));
+        }
+
+        List<Map.Entry<String, Long>> top = accumulator.build().getTopIps();
+        assertEquals(SecurityDigest.TOP_K, top.size());
+        long maxOvercount = total / TRACKED_KEYS;
+        for (Map.Entry<String, Long> entry : top) {
+            assertTrue(entry.getKey().startsWith("192.168.1."), "tail key in top list: " + entry.getKey());
+            long trueCount = exact.get(entry.getKey());
+            assertTrue(entry.getValue() >= trueCount, "undercounted " + entry.getKey());
+            assertTrue(entry.getValue() - trueCount <= maxOvercount, "overcount above N/capacity for " + entry.getKey());
+        }
+    }
+
+    @Test
+    void totalsAndTrendsAddUp() {
+        SecurityDigest.Accumulator accumulator = new SecurityDigest.Accumulator(START, END);
+        int total = 12_000;
+        int rejected = 0;
+        for (int i = 0; i < total; i++) {
+            boolean reject = i % 4 == 0;
+            if (reject) rejected++;
+            accumulator.accept(event(i, total, "10.0.0.1", reject));
+        }
+        SecurityDigest digest = accumulator.build();
+
+        assertEquals(total, digest.getTotalEvents());
+        assertEquals(rejected, digest.getRejections());
+        assertEquals(total, Arrays.stream(digest.getEventTrend()).sum());
+        assertEquals(rejected, Arrays.stream(digest.getRejectionTrend()).sum());
+        assertEquals(1.0, digest.getTrendRatio(), 0.01);
+        assertEquals(rejected, (long) digest.getTopReasons().get(0).getValue());
+    }
+
+    @Test
+    void responseTimeQuantilesStayWithinHistogramError() {
+        SecurityDigest.Accumulator accumulator = new SecurityDigest.Accumulator(START, END);
+        for (int i = 1; i <= 10_000; i++) {
+            accumulator.accept(new SecurityEventView((long) i, timestamp(i, 10_000), "REQUEST", "orders",
+                    "10.0.0.1", null, "/orders", null, 200, i, "LOW"));
+        }
+        SecurityDigest digest = accumulator.build();
+
+        assertEquals(5_000, digest.getResponseTimeP50(), 5_000 * 0.25);
+        assertEquals(9_000, digest.getResponseTimeP90(), 9_000 * 0.25);
+        assertEquals(9_900, digest.getResponseTimeP99(), 9_900 * 0.25);
+        assertEquals(10_000, digest.getResponseTimeMax());
+    }
+
+    @Test
+    void promptStaysWithinBudgetWhateverTheDatasetSize() {
+        Map<String, Object> context = Collections.singletonMap("highThreatAlerts", 3L);
+        for (int total : new int[] { 1_000, 100_000 }) {
+            SecurityDigest.Accumulator accumulator = new SecurityDigest.Accumulator(START, END);
+            Random random = new Random(3);
+            for (int i = 0; i < total; i++) {
+                String ip = "10.0." + random.nextInt(200) + "." + random.nextInt(250);
+                accumulator.accept(event(i, total, ip, random.nextInt(10) == 0));
+            }
+            String prompt = new SecurityDigestPromptBuilder(600).build(accumulator.build(), context);
+            assertTrue(SecurityDigestPromptBuilder.estimateTokens(prompt) <= 600, "prompt over budget at " + total);
+        }
+    }
+
+    @Test
+    void promptWindowIsRoundedSoRepeatedSummariesShareAPrompt() {
+        SecurityDigestPromptBuilder builder = new SecurityDigestPromptBuilder(600);
+        Map<String, Object> context = Collections.emptyMap();
+        String first = builder.build(new SecurityDigest.Accumulator(START.plusMinutes(7), END.plusMinutes(7).plusSeconds(3)).build(), context);
+        String second = builder.build(new SecurityDigest.Accumulator(START.plusMinutes(41), END.plusMinutes(41).plusNanos(5)).build(), context);
+
+        assertEquals(first, second);
+        assertTrue(first.contains("WINDOW: 2025-01-01 00:00 to 2025-01-02 00:00"), first);
+    }
+
+    // Event i of total, spread evenly over the window
+    private static SecurityEventView event(int i, int total, String ip, boolean rejected) {
+        return new SecurityEventView((long) i, timestamp(i, total), rejected ? "REJECTION" : "REQUEST", "orders", ip,
+                null, "/orders", rejected ? "Rate Limit" : null, rejected ? 429 : 200, 20, "LOW");
+    }
+
+    private static LocalDateTime timestamp(int i, int total) {
+        return START.plusSeconds(24L * 3600 * i / total);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.Service;
+
+import com.example.demo.Entity.SecurityEventView;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityEventArchiveTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    @Test
+    void readerReturnsEveryColumnTheWriterStored() throws IOException {
+        List<SecurityEventView> events = syntheticEvents(20_000);
+        byte[] archive = writeArchive(events);
+
+        List<SecurityEventView> read = new ArrayList<>();
+        try (SecurityEventArchiveReader reader = new SecurityEventArchiveReader(new ByteArrayInputStream(archive))) {
+            assertEquals(events.size(), reader.scan(null, null, null, read::add));
+        }
+
+        assertEquals(events.size(), read.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertSameEvent(events.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void readerSkipsChunksOutsideTheTimeRangeAndRoute() throws IOException {
+        List<SecurityEventView> events = syntheticEvents(50_000);
+        byte[] archive = writeArchive(events);
+
+        LocalDateTime from = START.plusHours(20);
+        LocalDateTime to = START.plusHours(21);
+        long expected = events.stream()
+                .filter(e -> !e.getTimestamp().isBefore(from) && !e.getTimestamp().isAfter(to))
+                .filter(e -> "orders".equals(e.getRouteId()))
+                .count();
+
+        List<SecurityEventView> read = new ArrayList<>();
+        try (SecurityEventArchiveReader reader = new SecurityEventArchiveReader(new ByteArrayInputStream(archive))) {
+            assertEquals(expected, reader.scan(from, to, "orders", read::add));
+            assertTrue(reader.getChunksSkipped() > 0);
+            assertTrue(reader.getChunksRead() > 0);
+        }
+        assertTrue(read.stream().allMatch(e -> "orders".equals(e.getRouteId())));
+    }
+
+    @Test
+    void archiveIsAtLeastTenTimesSmallerThanNdjson() throws IOException {
+        List<SecurityEventView> events = syntheticEvents(100_000);
+        byte[] archive = writeArchive(events);
+
+        SecurityEventExportService exportService = new SecurityEventExportService(new InMemoryStream(events), null);
+        long ndjsonBytes = 0;
+        for (DataBuffer buffer : exportService.exportEvents(START, END, SecurityEventExportService.FORMAT_NDJSON,
+                DefaultDataBufferFactory.sharedInstance).toIterable()) {
+            ndjsonBytes += buffer.readableByteCount();
+        }
+
+        double ratio = (double) ndjsonBytes / archive.length;
+        assertTrue(ratio >= 10, "archive only " + ratio + "x smaller than NDJSON");
+    }
+
+    @Test
+    void readerRejectsOtherFiles() {
+        assertThrows(IOException.class, () -> new SecurityEventArchiveReader(new ByteArrayInputStream(new byte[8])));
+    }
+
+    private static byte[] writeArchive(List<SecurityEventView> events) throws IOException {
+        SecurityEventArchiveService archiveService = new SecurityEventArchiveService(new InMemoryStream(events));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(events.size(), archiveService.writeArchive(START, END, out));
+        return out.toByteArray();
+    }
+
+    private static void assertSameEvent(SecurityEventView expected, SecurityEventView actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getEventType(), actual.getEventType());
+        assertEquals(expected.getRouteId(), actual.getRouteId());
+        assertEquals(expected.getClientIp(), actual.getClientIp());
+        assertEquals(expected.getUserAgent(), actual.getUserAgent());
+        assertEquals(expected.getRequestPath(), actual.getRequestPath());
+        assertEquals(expected.getRejectionReason(), actual.getRejectionReason());
+        assertEquals(expected.getResponseStatus(), actual.getResponseStatus());
+        assertEquals(expected.getResponseTimeMs(), actual.getResponseTimeMs());
+        assertEquals(expected.getThreatLevel(), actual.getThreatLevel());
+    }
+
+    // Gateway-like traffic: few routes and agents, a long tail of client IPs, some nulls
+    private static List<SecurityEventView> syntheticEvents(int count) {
+        Random random = new Random(7);
+        String[] routes = { "orders", "users", "payments", "catalog" };
+        String[] agents = { "Mozilla/5.0 (Windows NT 10.0; Win64; x64)", "curl/8.4.0", "okhttp/4.12.0", null };
+        String[] reasons = { "Rate Limit", "IP Filter", "Token Validation" };
+        long stepMicros = 24L * 3600 * 1_000_000 / count;
+
+        List<SecurityEventView> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean rejected = random.nextInt(10) == 0;
+            String route = routes[random.nextInt(routes.length)];
+            events.add(new SecurityEventView(
+                    (long) i + 1,
+                    START.plusNanos((stepMicros * i + random.nextInt(1000)) * 1000),
+                    rejected ? "REJECTION" : "REQUEST",
+                    route,
+                    "10." + random.nextInt(4) + "." + random.nextInt(64) + "." + random.nextInt(256),
+                    agents[random.nextInt(agents.length)],
+                    "/" + route + "/" + random.nextInt(50),
+                    rejected ? reasons[random.nextInt(reasons.length)] : null,
+                    rejected ? 429 : 200,
+                    random.nextInt(20) == 0 ? null : 5 + random.nextInt(200),
+                    rejected ? "MEDIUM" : "LOW"));
+        }
+        return events;
+    }
+
+    /**
+     * Serves pages from a list instead of the database
+     */
+    private static final class InMemoryStream extends SecurityEventStreamService {
+        private final List<SecurityEventView> events;
+
+        InMemoryStream(List<SecurityEventView> events) {
+            super(null);
+            this.events = events;
+        }
+
+        @Override
+        public List<SecurityEventView> readPage(LocalDateTime afterTimestamp, long afterId, LocalDateTime end) {
+            List<SecurityEventView> page = new ArrayList<>(PAGE_SIZE);
+            for (SecurityEventView event : events) {
+                int order = event.getTimestamp().compareTo(afterTimestamp);
+                boolean after = order > 0 || (order == 0 && event.getId() > afterId);
+                if (after && !event.getTimestamp().isAfter(end)) {
+                    page.add(event);
+                    if (page.size() == PAGE_SIZE) {
+                        break;
+                    }
+                }
+            }
+            return page;
+        }
+    }
+}
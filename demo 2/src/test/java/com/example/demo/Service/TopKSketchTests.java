@@ -0,0 +1,127 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKSketchTests {
+
+    @Test
+    void estimatesNeverUndercountAndAlmostAlwaysStayWithinTheErrorBound() {
+        TopKSketch sketch = new TopKSketch(64, 4, 512);
+        Map<String, Long> exact = feedSkewed(sketch, 100_000, 1);
+
+        long bound = sketch.getErrorBound();
+        assertTrue(bound > 0);
+        int outsideBound = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "undercounted " + entry.getKey());
+            if (estimate - entry.getValue() > bound) {
+                outsideBound++;
+            }
+        }
+        // The Count-Min part of the bound holds per key with probability 1 - e^-depth
+        assertTrue(outsideBound <= exact.size() * 2 * Math.exp(-4), outsideBound + " keys outside the bound");
+
+        // Candidates are also held to the deterministic Space-Saving bound
+        for (Map.Entry<String, Long> entry : sketch.top(64)) {
+            assertTrue(entry.getValue() - exact.get(entry.getKey()) <= sketch.getTotal() / 64);
+        }
+        assertEquals(100_000, sketch.getTotal());
+    }
+
+    @Test
+    void everyKeyAboveNOverCapacityIsACandidate() {
+        TopKSketch sketch = new TopKSketch(64, 4, 512);
+        Map<String, Long> exact = feedSkewed(sketch, 100_000, 2);
+
+        Set<String> top = new HashSet<>();
+        sketch.top(64).forEach(entry -> top.add(entry.getKey()));
+        exact.forEach((key, count) -> {
+            if (count > sketch.getTotal() / 64) {
+                assertTrue(top.contains(key), "heavy key missing: " + key);
+            }
+        });
+
+        // Estimate less the bound never exceeds the true count
+        for (Map.Entry<String, Long> entry : sketch.top(10)) {
+            assertTrue(entry.getValue() - sketch.getErrorBound() <= exact.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void mergedSketchKeepsTheBoundsOfTheCombinedStream() {
+        TopKSketch first = new TopKSketch(64, 4, 512);
+        TopKSketch second = new TopKSketch(64, 4, 512);
+        Map<String, Long> exact = feedSkewed(first, 50_000, 3);
+        feedSkewed(second, 50_000, 4).forEach((key, count) -> exact.merge(key, count, Long::sum));
+
+        first.merge(second);
+        assertEquals(100_000, first.getTotal());
+        long bound = first.getErrorBound();
+        for (Map.Entry<String, Long> entry : first.top(10)) {
+            long trueCount = exact.get(entry.getKey());
+            assertTrue(entry.getValue() >= trueCount);
+            assertTrue(entry.getValue() - trueCount <= bound);
+        }
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new TopKSketch(32, 4, 512)));
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        TopKSketch sketch = new TopKSketch(64, 4, 512);
+        feedSkewed(sketch, 20_000, 5);
+
+        TopKSketch copy = TopKSketch.fromBytes(sketch.toBytes());
+        assertEquals(sketch.getTotal(), copy.getTotal());
+        assertEquals(sketch.getErrorBound(), copy.getErrorBound());
+        assertEquals(sketch.top(64), copy.top(64));
+        assertEquals(sketch.estimate("unseen"), copy.estimate("unseen"));
+        assertArrayEquals(sketch.toBytes(), copy.toBytes());
+
+        TopKSketch spaceSaving = new TopKSketch(16);
+        feedSkewed(spaceSaving, 5_000, 6);
+        assertEquals(spaceSaving.top(16), TopKSketch.fromBytes(spaceSaving.toBytes()).top(16));
+
+        assertThrows(IllegalArgumentException.class, () -> TopKSketch.fromBytes(new byte[] { 9, 0, 0 }));
+    }
+
+    @Test
+    void spaceSavingOnlySummaryIsExactUntilFull() {
+        TopKSketch sketch = new TopKSketch(4);
+        for (int i = 0; i < 10; i++) sketch.add("/a");
+        for (int i = 0; i < 5; i++) sketch.add("/b");
+        sketch.add("/c");
+
+        assertEquals(10, sketch.estimate("/a"));
+        assertEquals(5, sketch.estimate("/b"));
+        assertEquals(0, sketch.estimate("/d"));
+        assertTrue(sketch.contains("/c"));
+        assertFalse(sketch.contains("/d"));
+
+        // Full: a newcomer replaces the smallest candidate and inherits its count
+        sketch.add("/d");
+        sketch.add("/d");
+        sketch.add("/e");
+        assertFalse(sketch.contains("/c"));
+        assertEquals(2, sketch.estimate("/e"));
+        assertEquals(sketch.getTotal() / 4, sketch.getErrorBound());
+        assertEquals("/a", sketch.top(1).get(0).getKey());
+    }
+
+    // Zipf-like stream over 5,000 keys; returns the exact counts
+    private static Map<String, Long> feedSkewed(TopKSketch sketch, int events, long seed) {
+        Random random = new Random(seed);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < events; i++) {
+            int rank = (int) Math.floor(Math.pow(5_000, random.nextDouble()));
+            String key = "10.1." + (rank / 256) + "." + (rank % 256);
+            sketch.add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+        return exact;
+    }
+}
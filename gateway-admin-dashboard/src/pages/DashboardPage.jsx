@@ -189,60 +189,116 @@ const DashboardPage = () => {
     }
   };
 
+  // Apply minute metrics from the stream or a poll
+  const applyMinuteMetrics = ({
+    requestsCurrentMinute,
+    requestsPreviousMinute,
+    rejectedCurrentMinute,
+    rejectedPreviousMinute
+  }) => {
+    let increasePercentage = 0;
+    if (requestsPreviousMinute > 0) {
+      increasePercentage = Math.round(
+          ((requestsCurrentMinute - requestsPreviousMinute) / requestsPreviousMinute) * 100
+      );
+    } else if (requestsCurrentMinute > 0) {
+      increasePercentage = 100;
+    }
+
+    let rejectedIncreasePercentage = 0;
+    if (rejectedPreviousMinute > 0) {
+      rejectedIncreasePercentage = Math.round(
+          ((rejectedCurrentMinute - rejectedPreviousMinute) / rejectedPreviousMinute) * 100
+      );
+    } else if (rejectedCurrentMinute > 0) {
+      rejectedIncreasePercentage = 100;
+    }
+
+    setMinuteMetrics({
+      requestsCurrentMinute,
+      requestsPreviousMinute,
+      rejectedCurrentMinute,
+      rejectedPreviousMinute,
+      increasePercentage,
+      rejectedIncreasePercentage
+    });
+  };
+
   // Load minute metrics
   const fetchMinuteMetrics = async () => {
     try {
       const response = await axios.get('http://localhost:9080/api/metrics/minutely');
-      const {
-        requestsCurrentMinute,
-        requestsPreviousMinute,
-        rejectedCurrentMinute,
-        rejectedPreviousMinute
-      } = response.data;
-
-      let increasePercentage = 0;
-      if (requestsPreviousMinute > 0) {
-        increasePercentage = Math.round(
-            ((requestsCurrentMinute - requestsPreviousMinute) / requestsPreviousMinute) * 100
-        );
-      } else if (requestsCurrentMinute > 0) {
-        increasePercentage = 100;
-      }
-
-      let rejectedIncreasePercentage = 0;
-      if (rejectedPreviousMinute > 0) {
-        rejectedIncreasePercentage = Math.round(
-            ((rejectedCurrentMinute - rejectedPreviousMinute) / rejectedPreviousMinute) * 100
-        );
-      } else if (rejectedCurrentMinute > 0) {
-        rejectedIncreasePercentage = 100;
-      }
-
-      setMinuteMetrics({
-        requestsCurrentMinute,
-        requestsPreviousMinute,
-        rejectedCurrentMinute,
-        rejectedPreviousMinute,
-        increasePercentage,
-        rejectedIncreasePercentage
-      });
+      applyMinuteMetrics(response.data);
     } catch (error) {
       console.error('Error fetching minute metrics:', error);
     }
   };
 
+  // Subscribe to pushed metrics; the first frame is a full snapshot, later frames
+  // carry changed fields only and null for fields that were removed
+  const subscribeToMetricsStream = (onUnavailable) => {
+    const source = new EventSource('http://localhost:9080/api/metrics/stream');
+    let current = {};
+
+    const apply = (event, replace) => {
+      const frame = JSON.parse(event.data);
+      const next = replace ? {} : { ...current };
+      Object.entries(frame).forEach(([key, value]) => {
+        if (value === null) {
+          delete next[key];
+        } else {
+          next[key] = value;
+        }
+      });
+      current = next;
+
+      setRequestCount(current.totalRequests ?? 0);
+      setRejectedCount(current.totalRejections ?? 0);
+      applyMinuteMetrics({
+        requestsCurrentMinute: current.requestsCurrentMinute ?? 0,
+        requestsPreviousMinute: current.requestsPreviousMinute ?? 0,
+        rejectedCurrentMinute: current.rejectedCurrentMinute ?? 0,
+        rejectedPreviousMinute: current.rejectedPreviousMinute ?? 0
+      });
+    };
+
+    // A reconnect starts a new subscription, which opens with a fresh snapshot
+    source.addEventListener('snapshot', (event) => apply(event, true));
+    source.addEventListener('delta', (event) => apply(event, false));
+    source.onerror = () => {
+      if (source.readyState === EventSource.CLOSED) {
+        console.error('Metrics stream closed, falling back to polling');
+        onUnavailable();
+      }
+    };
+    return source;
+  };
+
   // Load data on mount
   useEffect(() => {
     loadRoutes();
-    fetchRequestCounter();
-    fetchMinuteMetrics();
 
-    // Set up refresh intervals
-    const intervalCounter = setInterval(fetchRequestCounter, 5000);
-    const intervalMinute = setInterval(fetchMinuteMetrics, 5000);
+    // Request metrics are pushed by the gateway; poll only when the stream is unavailable
+    let intervalCounter = null;
+    let intervalMinute = null;
+    const startPolling = () => {
+      if (intervalCounter) return;
+      fetchRequestCounter();
+      fetchMinuteMetrics();
+      intervalCounter = setInterval(fetchRequestCounter, 5000);
+      intervalMinute = setInterval(fetchMinuteMetrics, 5000);
+    };
+    const metricsStream = typeof EventSource !== 'undefined'
+        ? subscribeToMetricsStream(startPolling)
+        : null;
+    if (!metricsStream) {
+      startPolling();
+    }
+
     const routesInterval = setInterval(loadRoutes, 30000);
 
     return () => {
+      if (metricsStream) metricsStream.close();
       clearInterval(intervalCounter);
       clearInterval(intervalMinute);
       clearInterval(routesInterval);